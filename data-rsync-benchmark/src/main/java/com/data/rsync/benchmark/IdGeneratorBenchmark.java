@@ -0,0 +1,139 @@
+package com.data.rsync.benchmark;
+
+import com.data.rsync.common.utils.IdGeneratorUtils;
+import com.data.rsync.common.utils.Murmur3Hasher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 记录指纹基准测试
+ * 对比 {@link IdGeneratorUtils} 的流式 Murmur3 指纹与原先的排序拼接字符串再取 String.hashCode() 的实现，
+ * 数据为字段类型混合的模拟行（整数、字符串、定点数、时间戳、布尔）
+ *
+ * <p>运行：mvn -P benchmark -pl data-rsync-benchmark -am package，然后 java -jar data-rsync-benchmark/target/benchmarks.jar IdGeneratorBenchmark</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdGeneratorBenchmark {
+
+    /**
+     * 每行字段数
+     */
+    @Param({"8", "32"})
+    private int fields;
+
+    /**
+     * 字符串字段长度
+     */
+    @Param({"16", "256"})
+    private int textLength;
+
+    private final List<Map<String, Object>> rows = new ArrayList<>();
+
+    private int next;
+
+    private final Murmur3Hasher hasher = new Murmur3Hasher();
+
+    private String text;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder(textLength);
+        for (int i = 0; i < textLength; i++) {
+            builder.append((char) ('a' + random.nextInt(26)));
+        }
+        text = builder.toString();
+        for (int r = 0; r < 1024; r++) {
+            Map<String, Object> row = new HashMap<>();
+            for (int f = 0; f < fields; f++) {
+                String key = "column_" + f;
+                switch (f % 5) {
+                    case 0:
+                        row.put(key, random.nextLong());
+                        break;
+                    case 1:
+                        row.put(key, text.substring(0, textLength - 1) + (char) ('a' + random.nextInt(26)));
+                        break;
+                    case 2:
+                        row.put(key, BigDecimal.valueOf(random.nextInt(1_000_000), 2));
+                        break;
+                    case 3:
+                        row.put(key, new Timestamp(1_700_000_000_000L + random.nextInt()));
+                        break;
+                    default:
+                        row.put(key, random.nextBoolean());
+                        break;
+                }
+            }
+            rows.add(row);
+        }
+    }
+
+    private Map<String, Object> nextRow() {
+        Map<String, Object> row = rows.get(next);
+        next = (next + 1) & (rows.size() - 1);
+        return row;
+    }
+
+    @Benchmark
+    public String stableStringId() {
+        return IdGeneratorUtils.generateStableStringId(nextRow());
+    }
+
+    @Benchmark
+    public Long stableLongId() {
+        return IdGeneratorUtils.generateStableLongId(nextRow());
+    }
+
+    /**
+     * 原实现：按键排序拼接 "key:value; " 后取 String.hashCode()，只有 32 位
+     */
+    @Benchmark
+    public String legacyStringId() {
+        Map<String, Object> row = nextRow();
+        List<String> keys = new ArrayList<>(row.keySet());
+        Collections.sort(keys);
+        StringBuilder fingerprint = new StringBuilder();
+        for (String key : keys) {
+            Object value = row.get(key);
+            if (value != null) {
+                fingerprint.append(key).append(":").append(value).append("; ");
+            }
+        }
+        return Integer.toHexString(Math.abs(fingerprint.toString().hashCode()));
+    }
+
+    /**
+     * 哈希器本身的吞吐：单个字符串字段
+     */
+    @Benchmark
+    public long murmur3String() {
+        return hasher.reset().putString(text).finish().hash1();
+    }
+
+}
@@ -1,5 +1,6 @@
 package com.data.rsync.common.adapter;
 
+import com.data.rsync.common.exception.DatabaseException;
 import com.data.rsync.common.model.DataSource;
 import com.data.rsync.common.utils.EncryptUtils;
 import lombok.extern.slf4j.Slf4j;
@@ -9,6 +10,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * 抽象数据源适配器
@@ -17,6 +19,11 @@ import java.util.Map;
 @Slf4j
 public abstract class AbstractDataSourceAdapter implements DataSourceAdapter {
 
+    /**
+     * 主键采样流式读取的每批行数
+     */
+    private static final int SAMPLE_FETCH_SIZE = 1000;
+
     /**
      * 获取驱动类名
      * @param dataSource 数据源配置
@@ -224,6 +231,136 @@ public abstract class AbstractDataSourceAdapter implements DataSourceAdapter {
         return executeQuery(dataSource, sql, params);
     }
 
+    @Override
+    public RowCursor openCursor(DataSource dataSource, String sql, List<Object> params, int fetchSize) {
+        Connection connection = getConnection(dataSource);
+        try {
+            return openCursor(connection, sql, params, fetchSize, true);
+        } catch (RuntimeException e) {
+            closeConnection(connection);
+            throw e;
+        }
+    }
+
+    @Override
+    public RowCursor openCursor(Connection connection, String sql, List<Object> params, int fetchSize) {
+        return openCursor(connection, sql, params, fetchSize, false);
+    }
+
+    private RowCursor openCursor(Connection connection, String sql, List<Object> params, int fetchSize, boolean ownsConnection) {
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+
+        try {
+            statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            configureStreaming(connection, statement, fetchSize);
+
+            // 设置参数
+            if (params != null && !params.isEmpty()) {
+                for (int i = 0; i < params.size(); i++) {
+                    statement.setObject(i + 1, params.get(i));
+                }
+            }
+
+            resultSet = statement.executeQuery();
+            return new JdbcRowCursor(connection, ownsConnection, statement, resultSet);
+        } catch (SQLException e) {
+            log.error("Failed to open cursor: {}", e.getMessage(), e);
+            closeResultSet(resultSet);
+            closeStatement(statement);
+            throw new DatabaseException("Failed to open cursor", e, true);
+        }
+    }
+
+    @Override
+    public long estimateRowCount(DataSource dataSource, String databaseName, String tableName) {
+        return getCount(dataSource, databaseName, tableName, null);
+    }
+
+    @Override
+    public List<String> getPrimaryKeyColumns(DataSource dataSource, String databaseName, String tableName) {
+        Connection connection = null;
+        ResultSet resultSet = null;
+
+        try {
+            connection = getConnection(dataSource);
+            resultSet = connection.getMetaData().getPrimaryKeys(databaseName, null, tableName);
+            // 按 KEY_SEQ 排列复合主键
+            Map<Integer, String> keyColumns = new TreeMap<>();
+            while (resultSet.next()) {
+                keyColumns.put(resultSet.getInt("KEY_SEQ"), resultSet.getString("COLUMN_NAME"));
+            }
+            return new ArrayList<>(keyColumns.values());
+        } catch (Exception e) {
+            log.error("Failed to get primary key columns: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to get primary key columns", e);
+        } finally {
+            closeResultSet(resultSet);
+            closeConnection(connection);
+        }
+    }
+
+    @Override
+    public List<Object[]> getPrimaryKeyBounds(DataSource dataSource, String databaseName, String tableName, List<String> keyColumns) {
+        String keys = String.join(", ", keyColumns);
+        String descKeys = String.join(" DESC, ", keyColumns) + " DESC";
+        String from = " FROM " + databaseName + "." + tableName;
+
+        // 按主键索引取首尾各一行，复合主键同样适用
+        List<Object[]> min = queryForTuples(dataSource, "SELECT " + keys + from + " ORDER BY " + keys + " LIMIT 1", null, keyColumns.size());
+        if (min.isEmpty()) {
+            return min;
+        }
+        List<Object[]> max = queryForTuples(dataSource, "SELECT " + keys + from + " ORDER BY " + descKeys + " LIMIT 1", null, keyColumns.size());
+        List<Object[]> bounds = new ArrayList<>(2);
+        bounds.add(min.get(0));
+        bounds.add(max.isEmpty() ? min.get(0) : max.get(0));
+        return bounds;
+    }
+
+    @Override
+    public List<Object[]> samplePrimaryKeys(DataSource dataSource, String databaseName, String tableName,
+                                            List<String> keyColumns, double sampleRate, int limit) {
+        String keys = String.join(", ", keyColumns);
+        String sql = "SELECT " + keys + " FROM " + databaseName + "." + tableName;
+        List<Object> params = new ArrayList<>();
+        if (sampleRate < 1.0) {
+            sql += " WHERE " + getRandomFunction() + " < ?";
+            params.add(sampleRate);
+        }
+        // 由数据库排序，保证样本顺序与范围查询使用的比较规则（含字符集排序规则）一致；
+        // 不加 LIMIT：行数被低估时 LIMIT 只保留最小的一段主键，改为流式读取全部命中行并在客户端等间隔抽稀
+        sql += " ORDER BY " + keys;
+        int width = keyColumns.size();
+        int maxSamples = Math.max(1, limit);
+        List<Object[]> samples = new ArrayList<>(Math.min(maxSamples + 1, 4096));
+        long stride = 1;
+        long row = 0;
+        try (RowCursor cursor = openCursor(dataSource, sql, params, SAMPLE_FETCH_SIZE)) {
+            while (cursor.next()) {
+                if (row++ % stride != 0) {
+                    continue;
+                }
+                Object[] tuple = new Object[width];
+                for (int i = 0; i < width; i++) {
+                    tuple[i] = cursor.getObject(i);
+                }
+                samples.add(tuple);
+                if (samples.size() > maxSamples) {
+                    // 超出上限时隔一个保留一个，步长加倍，保留的始终是行号为步长整数倍的行
+                    int kept = 0;
+                    for (int i = 0; i < samples.size(); i += 2) {
+                        samples.set(kept++, samples.get(i));
+                    }
+                    samples.subList(kept, samples.size()).clear();
+                    stride *= 2;
+                }
+            }
+        }
+        log.debug("Sampled {} primary keys of {}.{} from {} rows, stride {}", samples.size(), databaseName, tableName, row, stride);
+        return samples;
+    }
+
     @Override
     public void closeConnection(Connection connection) {
         if (connection != null) {
@@ -259,6 +396,67 @@ public abstract class AbstractDataSourceAdapter implements DataSourceAdapter {
         return result;
     }
 
+    /**
+     * 配置流式读取，默认使用 JDBC fetch size 提示；不同驱动开启服务端游标的方式不同，由子类覆盖
+     * @param connection 数据库连接
+     * @param statement 只进只读语句
+     * @param fetchSize 每次拉取的行数
+     * @throws SQLException SQL异常
+     */
+    protected void configureStreaming(Connection connection, PreparedStatement statement, int fetchSize) throws SQLException {
+        statement.setFetchSize(fetchSize);
+    }
+
+    /**
+     * 获取随机数函数，返回 [0, 1) 之间的随机数
+     * @return 随机数函数表达式
+     */
+    protected String getRandomFunction() {
+        return "RAND()";
+    }
+
+    /**
+     * 执行查询并按列位置返回结果
+     * @param dataSource 数据源配置
+     * @param sql SQL语句
+     * @param params 查询参数
+     * @param width 列数
+     * @return 查询结果，每行按列顺序排列
+     */
+    protected List<Object[]> queryForTuples(DataSource dataSource, String sql, List<Object> params, int width) {
+        Connection connection = null;
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+
+        try {
+            connection = getConnection(dataSource);
+            statement = connection.prepareStatement(sql);
+            if (params != null) {
+                for (int i = 0; i < params.size(); i++) {
+                    statement.setObject(i + 1, params.get(i));
+                }
+            }
+            resultSet = statement.executeQuery();
+
+            List<Object[]> result = new ArrayList<>();
+            while (resultSet.next()) {
+                Object[] tuple = new Object[width];
+                for (int i = 0; i < width; i++) {
+                    tuple[i] = resultSet.getObject(i + 1);
+                }
+                result.add(tuple);
+            }
+            return result;
+        } catch (Exception e) {
+            log.error("Failed to execute query: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to execute query", e);
+        } finally {
+            closeResultSet(resultSet);
+            closeStatement(statement);
+            closeConnection(connection);
+        }
+    }
+
     /**
      * 关闭结果集
      * @param resultSet 结果集
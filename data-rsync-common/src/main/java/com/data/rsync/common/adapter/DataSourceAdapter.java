@@ -109,6 +109,68 @@ public interface DataSourceAdapter {
                                                  String fields, String whereClause, String orderBy, 
                                                  long offset, long limit);
 
+    /**
+     * 打开流式游标，结果逐行拉取，内存占用与结果集大小无关
+     * @param dataSource 数据源配置
+     * @param sql SQL语句
+     * @param params 查询参数
+     * @param fetchSize 每次从服务端拉取的行数提示
+     * @return 行游标，关闭时释放其打开的连接
+     */
+    RowCursor openCursor(DataSource dataSource, String sql, List<Object> params, int fetchSize);
+
+    /**
+     * 在已有连接上打开流式游标
+     * @param connection 数据库连接，由调用方管理
+     * @param sql SQL语句
+     * @param params 查询参数
+     * @param fetchSize 每次从服务端拉取的行数提示
+     * @return 行游标，关闭时不关闭连接
+     */
+    RowCursor openCursor(Connection connection, String sql, List<Object> params, int fetchSize);
+
+    /**
+     * 估算表行数，优先使用数据库统计信息，避免全表 COUNT
+     * @param dataSource 数据源配置
+     * @param databaseName 数据库名称
+     * @param tableName 表名称
+     * @return 估算行数
+     */
+    long estimateRowCount(DataSource dataSource, String databaseName, String tableName);
+
+    /**
+     * 获取主键列，复合主键按键内顺序返回
+     * @param dataSource 数据源配置
+     * @param databaseName 数据库名称
+     * @param tableName 表名称
+     * @return 主键列列表，无主键时返回空列表
+     */
+    List<String> getPrimaryKeyColumns(DataSource dataSource, String databaseName, String tableName);
+
+    /**
+     * 获取主键的最小值和最大值
+     * @param dataSource 数据源配置
+     * @param databaseName 数据库名称
+     * @param tableName 表名称
+     * @param keyColumns 主键列
+     * @return [最小键, 最大键]，每个键按主键列顺序排列；空表返回空列表
+     */
+    List<Object[]> getPrimaryKeyBounds(DataSource dataSource, String databaseName, String tableName, List<String> keyColumns);
+
+    /**
+     * 随机采样主键，结果按数据库排序规则升序返回
+     * 命中行数超过上限时等间隔抽稀，样本始终覆盖整个主键范围，不会因采样率偏高只保留低端主键
+     * @param dataSource 数据源配置
+     * @param databaseName 数据库名称
+     * @param tableName 表名称
+     * @param keyColumns 主键列
+     * @param sampleRate 采样率（0~1）
+     * @param limit 最大采样数
+     * @return 升序排列的主键样本
+     */
+    List<Object[]> samplePrimaryKeys(DataSource dataSource, String databaseName, String tableName,
+                                     List<String> keyColumns, double sampleRate, int limit);
+
     /**
      * 关闭连接
      * @param connection 数据库连接
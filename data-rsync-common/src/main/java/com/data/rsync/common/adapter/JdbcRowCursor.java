@@ -0,0 +1,253 @@
+package com.data.rsync.common.adapter;
+
+import com.data.rsync.common.exception.DatabaseException;
+import com.data.rsync.common.row.Row;
+import com.data.rsync.common.row.TableSchema;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 基于 JDBC ResultSet 的流式行游标
+ * 结果集的拉取方式（fetch size / 服务端游标）由打开游标的适配器按方言配置
+ */
+@Slf4j
+public class JdbcRowCursor implements RowCursor {
+
+    private final Connection connection;
+
+    /**
+     * 连接是否由游标打开，关闭游标时一并关闭
+     */
+    private final boolean ownsConnection;
+
+    private final Statement statement;
+
+    private final ResultSet resultSet;
+
+    private final String[] columnNames;
+
+    private final int[] columnTypes;
+
+    /**
+     * 小写列名到列下标的映射
+     */
+    private final Map<String, Integer> columnIndexes;
+
+    /**
+     * 结果集的行结构，首次读取为行时创建
+     */
+    private TableSchema schema;
+
+    /**
+     * 结果集列名是否重复，重复时按 {@link #toMap()} 的语义后者覆盖前者
+     */
+    private boolean duplicateColumns;
+
+    private boolean closed;
+
+    public JdbcRowCursor(Connection connection, boolean ownsConnection, Statement statement, ResultSet resultSet) throws SQLException {
+        this.connection = connection;
+        this.ownsConnection = ownsConnection;
+        this.statement = statement;
+        this.resultSet = resultSet;
+
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        this.columnNames = new String[columnCount];
+        this.columnTypes = new int[columnCount];
+        this.columnIndexes = new HashMap<>(columnCount * 2);
+        for (int i = 0; i < columnCount; i++) {
+            columnNames[i] = metaData.getColumnLabel(i + 1);
+            columnTypes[i] = metaData.getColumnType(i + 1);
+            columnIndexes.putIfAbsent(columnNames[i].toLowerCase(Locale.ROOT), i);
+        }
+    }
+
+    @Override
+    public boolean next() {
+        try {
+            return resultSet.next();
+        } catch (SQLException e) {
+            throw new DatabaseException("Failed to read next row", e, true);
+        }
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+
+    @Override
+    public int getColumnType(int column) {
+        return columnTypes[column];
+    }
+
+    @Override
+    public int getColumnIndex(String columnName) {
+        Integer index = columnIndexes.get(columnName.toLowerCase(Locale.ROOT));
+        return index != null ? index : -1;
+    }
+
+    @Override
+    public boolean wasNull() {
+        try {
+            return resultSet.wasNull();
+        } catch (SQLException e) {
+            throw new DatabaseException("Failed to read null flag", e);
+        }
+    }
+
+    @Override
+    public long getLong(int column) {
+        try {
+            return resultSet.getLong(column + 1);
+        } catch (SQLException e) {
+            throw readFailure(column, e);
+        }
+    }
+
+    @Override
+    public int getInt(int column) {
+        try {
+            return resultSet.getInt(column + 1);
+        } catch (SQLException e) {
+            throw readFailure(column, e);
+        }
+    }
+
+    @Override
+    public double getDouble(int column) {
+        try {
+            return resultSet.getDouble(column + 1);
+        } catch (SQLException e) {
+            throw readFailure(column, e);
+        }
+    }
+
+    @Override
+    public boolean getBoolean(int column) {
+        try {
+            return resultSet.getBoolean(column + 1);
+        } catch (SQLException e) {
+            throw readFailure(column, e);
+        }
+    }
+
+    @Override
+    public String getString(int column) {
+        try {
+            return resultSet.getString(column + 1);
+        } catch (SQLException e) {
+            throw readFailure(column, e);
+        }
+    }
+
+    @Override
+    public byte[] getBytes(int column) {
+        try {
+            return resultSet.getBytes(column + 1);
+        } catch (SQLException e) {
+            throw readFailure(column, e);
+        }
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(int column) {
+        try {
+            return resultSet.getBigDecimal(column + 1);
+        } catch (SQLException e) {
+            throw readFailure(column, e);
+        }
+    }
+
+    @Override
+    public Timestamp getTimestamp(int column) {
+        try {
+            return resultSet.getTimestamp(column + 1);
+        } catch (SQLException e) {
+            throw readFailure(column, e);
+        }
+    }
+
+    @Override
+    public Object getObject(int column) {
+        try {
+            return resultSet.getObject(column + 1);
+        } catch (SQLException e) {
+            throw readFailure(column, e);
+        }
+    }
+
+    @Override
+    public Map<String, Object> toMap() {
+        Map<String, Object> row = new LinkedHashMap<>(columnNames.length * 2);
+        for (int i = 0; i < columnNames.length; i++) {
+            row.put(columnNames[i], getObject(i));
+        }
+        return row;
+    }
+
+    @Override
+    public Row toRow() {
+        if (schema == null && !duplicateColumns) {
+            duplicateColumns = columnIndexes.size() < columnNames.length;
+            if (!duplicateColumns) {
+                schema = TableSchema.of(columnNames);
+            }
+        }
+        if (duplicateColumns) {
+            return Row.copyOf(toMap());
+        }
+        Object[] values = new Object[columnNames.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = getObject(i);
+        }
+        return new Row(schema, values);
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            resultSet.close();
+        } catch (SQLException e) {
+            log.warn("Failed to close result set: {}", e.getMessage());
+        }
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            log.warn("Failed to close statement: {}", e.getMessage());
+        }
+        if (ownsConnection) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                log.warn("Failed to close connection: {}", e.getMessage());
+            }
+        }
+    }
+
+    private DatabaseException readFailure(int column, SQLException e) {
+        return new DatabaseException("Failed to read column " + columnNames[column], e);
+    }
+
+}
@@ -0,0 +1,136 @@
+package com.data.rsync.common.adapter;
+
+import com.data.rsync.common.row.Row;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Map;
+
+/**
+ * 流式行游标
+ * 逐行读取查询结果，不在内存中累积结果集；列元数据在打开时只读取一次，列下标从 0 开始。
+ * 非线程安全，使用完毕后必须关闭
+ */
+public interface RowCursor extends AutoCloseable {
+
+    /**
+     * 移动到下一行
+     * @return 是否还有数据
+     */
+    boolean next();
+
+    /**
+     * 获取列数
+     * @return 列数
+     */
+    int getColumnCount();
+
+    /**
+     * 获取列名
+     * @param column 列下标
+     * @return 列名
+     */
+    String getColumnName(int column);
+
+    /**
+     * 获取列的 JDBC 类型（{@link java.sql.Types}）
+     * @param column 列下标
+     * @return JDBC 类型
+     */
+    int getColumnType(int column);
+
+    /**
+     * 按列名查找列下标，忽略大小写
+     * @param columnName 列名
+     * @return 列下标，不存在时返回 -1
+     */
+    int getColumnIndex(String columnName);
+
+    /**
+     * 上一次读取的列值是否为 SQL NULL
+     * @return 是否为空
+     */
+    boolean wasNull();
+
+    /**
+     * 读取 long 值，SQL NULL 返回 0，需配合 wasNull 判断
+     * @param column 列下标
+     * @return 列值
+     */
+    long getLong(int column);
+
+    /**
+     * 读取 int 值，SQL NULL 返回 0
+     * @param column 列下标
+     * @return 列值
+     */
+    int getInt(int column);
+
+    /**
+     * 读取 double 值，SQL NULL 返回 0
+     * @param column 列下标
+     * @return 列值
+     */
+    double getDouble(int column);
+
+    /**
+     * 读取 boolean 值，SQL NULL 返回 false
+     * @param column 列下标
+     * @return 列值
+     */
+    boolean getBoolean(int column);
+
+    /**
+     * 读取字符串
+     * @param column 列下标
+     * @return 列值
+     */
+    String getString(int column);
+
+    /**
+     * 读取二进制
+     * @param column 列下标
+     * @return 列值
+     */
+    byte[] getBytes(int column);
+
+    /**
+     * 读取定点数
+     * @param column 列下标
+     * @return 列值
+     */
+    BigDecimal getBigDecimal(int column);
+
+    /**
+     * 读取时间戳
+     * @param column 列下标
+     * @return 列值
+     */
+    Timestamp getTimestamp(int column);
+
+    /**
+     * 按驱动默认映射读取列值
+     * @param column 列下标
+     * @return 列值
+     */
+    Object getObject(int column);
+
+    /**
+     * 将当前行复制为 Map，兼容按 Map 处理数据的下游
+     * @return 列名到列值的映射
+     */
+    Map<String, Object> toMap();
+
+    /**
+     * 将当前行读取为按结构绑定的行，同一游标返回的行共享一个行结构
+     * @return 行
+     */
+    Row toRow();
+
+    /**
+     * 关闭游标，释放语句和结果集；由游标打开的连接一并关闭
+     */
+    @Override
+    void close();
+
+}
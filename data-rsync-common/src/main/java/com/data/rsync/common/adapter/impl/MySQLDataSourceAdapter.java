@@ -2,10 +2,18 @@ package com.data.rsync.common.adapter.impl;
 
 import com.data.rsync.common.adapter.AbstractDataSourceAdapter;
 import com.data.rsync.common.model.DataSource;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * MySQL 数据源适配器
  */
+@Slf4j
 public class MySQLDataSourceAdapter extends AbstractDataSourceAdapter {
 
     @Override
@@ -29,4 +37,25 @@ public class MySQLDataSourceAdapter extends AbstractDataSourceAdapter {
         return url.toString();
     }
 
+    @Override
+    protected void configureStreaming(Connection connection, PreparedStatement statement, int fetchSize) throws SQLException {
+        // Connector/J 默认把整个结果集读入内存；只进只读语句配合 Integer.MIN_VALUE 才会逐行流式读取
+        statement.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    @Override
+    public long estimateRowCount(DataSource dataSource, String databaseName, String tableName) {
+        // InnoDB 统计信息中的估算行数，避免对大表执行 COUNT(*)
+        String sql = "SELECT TABLE_ROWS FROM information_schema.TABLES WHERE TABLE_SCHEMA = ? AND TABLE_NAME = ?";
+        List<Object> params = new ArrayList<>();
+        params.add(databaseName);
+        params.add(tableName);
+        List<Object[]> result = queryForTuples(dataSource, sql, params, 1);
+        if (!result.isEmpty() && result.get(0)[0] != null) {
+            return Long.parseLong(result.get(0)[0].toString());
+        }
+        log.warn("No table statistics for {}.{}, falling back to COUNT(*)", databaseName, tableName);
+        return super.estimateRowCount(dataSource, databaseName, tableName);
+    }
+
 }
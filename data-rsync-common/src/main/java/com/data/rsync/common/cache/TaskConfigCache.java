@@ -0,0 +1,195 @@
+package com.data.rsync.common.cache;
+
+import com.data.rsync.common.constants.DataRsyncConstants;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 进程内任务配置缓存
+ * 配置和版本号保存在 Redis（task_config:&lt;taskId&gt; / task_config_version:&lt;taskId&gt;），
+ * 写入方通过 {@link #publish} 更新配置、递增版本并在 task_config_changed 频道广播 "taskId:version"；
+ * 各进程收到广播后淘汰本地副本，读取只在首次访问、被淘汰或超过兜底过期时间后访问 Redis。
+ *
+ * <p>加载时用 MGET 同时读取版本和配置，只有版本不低于已收到的广播版本时才写入本地，
+ * 避免加载与广播交错时旧配置覆盖淘汰结果。本地条目数量有上限，超出时淘汰最早加载的条目。</p>
+ */
+@Slf4j
+public class TaskConfigCache implements MessageListener {
+
+    private final RedisTemplate<String, String> redisTemplate;
+
+    private final RedisConnectionFactory connectionFactory;
+
+    private final int maxSize;
+
+    /**
+     * 兜底过期时间（毫秒），广播丢失时最多在该时间后重新加载
+     */
+    private final long ttlMs;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * 每个任务已收到的最新广播版本
+     */
+    private final Map<Long, Long> announcedVersions = new ConcurrentHashMap<>();
+
+    private RedisMessageListenerContainer listenerContainer;
+
+    public TaskConfigCache(RedisTemplate<String, String> redisTemplate, RedisConnectionFactory connectionFactory,
+                           int maxSize, long ttlMs) {
+        this.redisTemplate = redisTemplate;
+        this.connectionFactory = connectionFactory;
+        this.maxSize = Math.max(1, maxSize);
+        this.ttlMs = ttlMs;
+    }
+
+    /**
+     * 订阅配置变更频道
+     */
+    public void start() {
+        listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(connectionFactory);
+        listenerContainer.addMessageListener(this, new ChannelTopic(DataRsyncConstants.RedisChannel.TASK_CONFIG_CHANGED));
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.start();
+        log.info("TaskConfigCache started, maxSize={}, ttlMs={}", maxSize, ttlMs);
+    }
+
+    /**
+     * 取消订阅并清空缓存
+     */
+    public void stop() {
+        if (listenerContainer != null) {
+            try {
+                listenerContainer.destroy();
+            } catch (Exception e) {
+                log.warn("Failed to stop task config listener: {}", e.getMessage());
+            }
+        }
+        entries.clear();
+        announcedVersions.clear();
+    }
+
+    /**
+     * 获取任务配置
+     * @param taskId 任务ID
+     * @return 任务配置，不存在时返回 null
+     */
+    public String get(Long taskId) {
+        Entry entry = entries.get(taskId);
+        if (entry != null && System.currentTimeMillis() - entry.loadedAt < ttlMs) {
+            return entry.config;
+        }
+        return load(taskId);
+    }
+
+    /**
+     * 淘汰本地副本
+     * @param taskId 任务ID
+     */
+    public void invalidate(Long taskId) {
+        entries.remove(taskId);
+    }
+
+    /**
+     * 本地缓存条目数
+     * @return 条目数
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf(':');
+        try {
+            Long taskId = Long.parseLong(separator >= 0 ? body.substring(0, separator) : body);
+            long version = separator >= 0 ? Long.parseLong(body.substring(separator + 1)) : Long.MAX_VALUE;
+            announcedVersions.merge(taskId, version, Math::max);
+            entries.remove(taskId);
+            log.debug("Task config of task {} changed to version {}, local copy invalidated", taskId, version);
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed task config change message: {}", body);
+        }
+    }
+
+    private String load(Long taskId) {
+        List<String> values = redisTemplate.opsForValue().multiGet(Arrays.asList(
+                DataRsyncConstants.RedisKey.TASK_CONFIG_VERSION_PREFIX + taskId,
+                DataRsyncConstants.RedisKey.TASK_CONFIG_PREFIX + taskId));
+        long version = values != null && values.get(0) != null ? Long.parseLong(values.get(0)) : 0L;
+        String config = values != null ? values.get(1) : null;
+
+        Long announced = announcedVersions.get(taskId);
+        if (announced == null || version >= announced) {
+            if (entries.size() >= maxSize && !entries.containsKey(taskId)) {
+                evictOldest();
+            }
+            entries.put(taskId, new Entry(config, System.currentTimeMillis()));
+        }
+        return config;
+    }
+
+    private void evictOldest() {
+        Long oldestTaskId = null;
+        long oldestLoadedAt = Long.MAX_VALUE;
+        for (Map.Entry<Long, Entry> candidate : entries.entrySet()) {
+            if (candidate.getValue().loadedAt < oldestLoadedAt) {
+                oldestLoadedAt = candidate.getValue().loadedAt;
+                oldestTaskId = candidate.getKey();
+            }
+        }
+        if (oldestTaskId != null) {
+            entries.remove(oldestTaskId);
+        }
+    }
+
+    /**
+     * 写入任务配置并广播变更
+     * @param redisTemplate 字符串 RedisTemplate
+     * @param taskId 任务ID
+     * @param config 任务配置，为 null 时删除
+     * @return 新版本号
+     */
+    public static long publish(RedisTemplate<String, String> redisTemplate, Long taskId, String config) {
+        String configKey = DataRsyncConstants.RedisKey.TASK_CONFIG_PREFIX + taskId;
+        if (config != null) {
+            redisTemplate.opsForValue().set(configKey, config);
+        } else {
+            redisTemplate.delete(configKey);
+        }
+        Long version = redisTemplate.opsForValue().increment(DataRsyncConstants.RedisKey.TASK_CONFIG_VERSION_PREFIX + taskId);
+        long newVersion = version != null ? version : 0L;
+        redisTemplate.convertAndSend(DataRsyncConstants.RedisChannel.TASK_CONFIG_CHANGED, taskId + ":" + newVersion);
+        return newVersion;
+    }
+
+    /**
+     * 本地缓存条目
+     */
+    private static final class Entry {
+
+        private final String config;
+
+        private final long loadedAt;
+
+        Entry(String config, long loadedAt) {
+            this.config = config;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+}
@@ -98,14 +98,27 @@ public class DataRsyncConstants {
         public static final String DATA_SOURCE_PREFIX = "data_source:";
         public static final String TASK_PREFIX = "task:";
         public static final String TASK_CONFIG_PREFIX = "task_config:";
+        public static final String TASK_CONFIG_VERSION_PREFIX = "task_config_version:";
         public static final String TASK_PROGRESS_PREFIX = "task_progress:";
         public static final String LOG_LISTENER_PREFIX = "log_listener:";
         public static final String DATA_PROCESS_PREFIX = "data_process:";
         public static final String MILVUS_SYNC_PREFIX = "milvus_sync:";
         public static final String MONITOR_PREFIX = "monitor:";
         public static final String BREAKPOINT_PREFIX = "breakpoint:";
+        public static final String SCAN_RANGE_PREFIX = "scan_range:";
+        public static final String DEBEZIUM_OFFSET_PREFIX = "debezium_offset:";
+        public static final String DEBEZIUM_SCHEMA_HISTORY_PREFIX = "debezium_schema_history:";
+        public static final String SNAPSHOT_SIGNAL_PREFIX = "snapshot_signal:";
         public static final String HEARTBEAT_PREFIX = "heartbeat:";
         public static final String PROCESSED_RECORD_PREFIX = "processed_record:";
+        public static final String PROCESSED_BLOOM_PREFIX = "processed_bloom:";
+    }
+
+    /**
+     * Redis 发布订阅频道
+     */
+    public static class RedisChannel {
+        public static final String TASK_CONFIG_CHANGED = "task_config_changed";
     }
 
     /**
@@ -117,6 +130,14 @@ public class DataRsyncConstants {
         public static final String DATA_PROCESSED_TOPIC = "data_processed_topic";
         public static final String MILVUS_SYNC_TOPIC = "milvus_sync_topic";
         public static final String ERROR_TOPIC = "error_topic";
+        /**
+         * 死信重试延迟主题，每个主题对应一个固定延迟层级
+         */
+        public static final String ERROR_RETRY_TOPIC_1S = "error_retry_1s";
+        public static final String ERROR_RETRY_TOPIC_5S = "error_retry_5s";
+        public static final String ERROR_RETRY_TOPIC_30S = "error_retry_30s";
+        public static final String ERROR_RETRY_TOPIC_2M = "error_retry_2m";
+        public static final String ERROR_RETRY_TOPIC_10M = "error_retry_10m";
     }
 
 }
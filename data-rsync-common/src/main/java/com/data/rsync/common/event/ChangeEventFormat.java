@@ -0,0 +1,114 @@
+package com.data.rsync.common.event;
+
+import com.data.rsync.common.constants.DataRsyncConstants;
+
+/**
+ * 变更事件二进制格式定义
+ * data_change_topic 上传输的 CDC 事件信封（版本化、自带列描述）
+ *
+ * <pre>
+ * magic(2) version(1) op(1) flags(1) taskId(8) tsMs(8)
+ * database(str) table(str)
+ * positionCount(varint) { name(str) type(1) value }
+ * columnCount(varint)   { name(str) type(1) }
+ * pkCount(varint)       { columnIndex(varint) }
+ * [before image] [after image]
+ *
+ * image := nullBitmap(ceil(columnCount / 8)) { 非空列按列类型编码的值 }
+ * str   := length(varint) utf8Bytes
+ * </pre>
+ * 整型使用 zigzag varint，浮点使用大端定长编码
+ */
+public final class ChangeEventFormat {
+
+    private ChangeEventFormat() {
+    }
+
+    /**
+     * 魔数
+     */
+    public static final byte MAGIC_0 = 'R';
+    public static final byte MAGIC_1 = 'C';
+
+    /**
+     * 当前格式版本
+     */
+    public static final byte VERSION = 1;
+
+    /**
+     * 固定头部长度
+     */
+    public static final int FIXED_HEADER_SIZE = 21;
+
+    /**
+     * 标志位
+     */
+    public static final int FLAG_HAS_BEFORE = 0x01;
+    public static final int FLAG_HAS_AFTER = 0x02;
+
+    /**
+     * 操作类型
+     */
+    public static final byte OP_CREATE = 'c';
+    public static final byte OP_UPDATE = 'u';
+    public static final byte OP_DELETE = 'd';
+    public static final byte OP_READ = 'r';
+
+    /**
+     * 列值类型
+     */
+    public static final byte TYPE_BOOLEAN = 1;
+    public static final byte TYPE_INT = 2;
+    public static final byte TYPE_FLOAT = 3;
+    public static final byte TYPE_DOUBLE = 4;
+    public static final byte TYPE_STRING = 5;
+    public static final byte TYPE_BYTES = 6;
+    public static final byte TYPE_DECIMAL = 7;
+
+    /**
+     * 行镜像
+     */
+    public static final int IMAGE_BEFORE = 0;
+    public static final int IMAGE_AFTER = 1;
+
+    /**
+     * 将 Debezium 操作码转换为格式操作码
+     * @param op Debezium 操作码（c/u/d/r）
+     * @return 格式操作码
+     */
+    public static byte toOpCode(String op) {
+        if (op == null || op.length() != 1) {
+            throw new IllegalArgumentException("Unsupported change event op: " + op);
+        }
+        char c = op.charAt(0);
+        switch (c) {
+            case 'c':
+            case 'u':
+            case 'd':
+            case 'r':
+                return (byte) c;
+            default:
+                throw new IllegalArgumentException("Unsupported change event op: " + op);
+        }
+    }
+
+    /**
+     * 将格式操作码转换为系统操作类型
+     * @param opCode 格式操作码
+     * @return 操作类型
+     */
+    public static String toOperationType(byte opCode) {
+        switch (opCode) {
+            case OP_CREATE:
+            case OP_READ:
+                return DataRsyncConstants.OperationType.INSERT;
+            case OP_UPDATE:
+                return DataRsyncConstants.OperationType.UPDATE;
+            case OP_DELETE:
+                return DataRsyncConstants.OperationType.DELETE;
+            default:
+                throw new IllegalArgumentException("Unknown change event op code: " + opCode);
+        }
+    }
+
+}
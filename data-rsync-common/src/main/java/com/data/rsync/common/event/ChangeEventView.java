@@ -0,0 +1,533 @@
+package com.data.rsync.common.event;
+
+import com.data.rsync.common.row.Row;
+import com.data.rsync.common.row.TableSchema;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 变更事件零拷贝解码器
+ * 直接在消息字节上建立列偏移索引，按需读取列值；实例可通过 {@link #reset(ByteBuffer)} 复用，非线程安全
+ */
+public class ChangeEventView {
+
+    private ByteBuffer buffer;
+
+    private int base;
+
+    private byte op;
+
+    private int flags;
+
+    private long taskId;
+
+    private long tsMs;
+
+    private int databaseOffset;
+
+    private int tableOffset;
+
+    private int positionOffset;
+
+    private int positionCount;
+
+    private int columnCount;
+
+    private int pkCount;
+
+    /**
+     * 列名偏移
+     */
+    private int[] columnNameOffsets = new int[16];
+
+    /**
+     * 列类型
+     */
+    private byte[] columnTypes = new byte[16];
+
+    /**
+     * 主键列下标
+     */
+    private int[] pkColumns = new int[4];
+
+    /**
+     * 两个镜像的空值位图偏移
+     */
+    private final int[] bitmapOffsets = new int[2];
+
+    /**
+     * 两个镜像的列值偏移，下标为 image * columnCount + column
+     */
+    private int[] valueOffsets = new int[32];
+
+    /**
+     * 上一次物化行时使用的行结构，列名与当前事件一致时直接复用，不再解码列名
+     */
+    private TableSchema rowSchema;
+
+    /**
+     * 解析游标
+     */
+    private int cursor;
+
+    /**
+     * 包装消息字节
+     * @param bytes 消息字节
+     * @return 解码视图
+     */
+    public static ChangeEventView wrap(byte[] bytes) {
+        return new ChangeEventView().reset(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * 包装消息缓冲区（使用 position 到 limit 之间的内容）
+     * @param buffer 消息缓冲区
+     * @return 解码视图
+     */
+    public static ChangeEventView wrap(ByteBuffer buffer) {
+        return new ChangeEventView().reset(buffer);
+    }
+
+    /**
+     * 复用当前实例解码新的消息
+     * @param source 消息缓冲区
+     * @return 当前实例
+     */
+    public ChangeEventView reset(ByteBuffer source) {
+        this.buffer = source.order() == ByteOrder.BIG_ENDIAN ? source : source.duplicate().order(ByteOrder.BIG_ENDIAN);
+        this.base = source.position();
+        cursor = base;
+        if (buffer.remaining() < ChangeEventFormat.FIXED_HEADER_SIZE
+                || buffer.get(cursor) != ChangeEventFormat.MAGIC_0
+                || buffer.get(cursor + 1) != ChangeEventFormat.MAGIC_1) {
+            throw new IllegalArgumentException("Not a change event envelope");
+        }
+        byte version = buffer.get(cursor + 2);
+        if (version > ChangeEventFormat.VERSION) {
+            throw new IllegalArgumentException("Unsupported change event version: " + version);
+        }
+        op = buffer.get(cursor + 3);
+        flags = buffer.get(cursor + 4);
+        taskId = buffer.getLong(cursor + 5);
+        tsMs = buffer.getLong(cursor + 13);
+        cursor += ChangeEventFormat.FIXED_HEADER_SIZE;
+
+        databaseOffset = cursor;
+        skipString();
+        tableOffset = cursor;
+        skipString();
+
+        positionCount = readVarint();
+        positionOffset = cursor;
+        for (int i = 0; i < positionCount; i++) {
+            skipString();
+            byte type = buffer.get(cursor++);
+            if (type != 0) {
+                skipValue(type);
+            }
+        }
+
+        columnCount = readVarint();
+        if (columnNameOffsets.length < columnCount) {
+            columnNameOffsets = new int[columnCount];
+            columnTypes = new byte[columnCount];
+        }
+        for (int i = 0; i < columnCount; i++) {
+            columnNameOffsets[i] = cursor;
+            skipString();
+            columnTypes[i] = buffer.get(cursor++);
+        }
+
+        pkCount = readVarint();
+        if (pkColumns.length < pkCount) {
+            pkColumns = new int[pkCount];
+        }
+        for (int i = 0; i < pkCount; i++) {
+            pkColumns[i] = readVarint();
+        }
+
+        if (valueOffsets.length < columnCount * 2) {
+            valueOffsets = new int[columnCount * 2];
+        }
+        bitmapOffsets[ChangeEventFormat.IMAGE_BEFORE] = -1;
+        bitmapOffsets[ChangeEventFormat.IMAGE_AFTER] = -1;
+        if ((flags & ChangeEventFormat.FLAG_HAS_BEFORE) != 0) {
+            indexImage(ChangeEventFormat.IMAGE_BEFORE);
+        }
+        if ((flags & ChangeEventFormat.FLAG_HAS_AFTER) != 0) {
+            indexImage(ChangeEventFormat.IMAGE_AFTER);
+        }
+        return this;
+    }
+
+    public byte op() {
+        return op;
+    }
+
+    /**
+     * 系统操作类型（INSERT/UPDATE/DELETE）
+     * @return 操作类型
+     */
+    public String operationType() {
+        return ChangeEventFormat.toOperationType(op);
+    }
+
+    public long taskId() {
+        return taskId;
+    }
+
+    public long tsMs() {
+        return tsMs;
+    }
+
+    public String database() {
+        return readString(databaseOffset);
+    }
+
+    public String table() {
+        return readString(tableOffset);
+    }
+
+    public boolean hasImage(int image) {
+        return bitmapOffsets[image] >= 0;
+    }
+
+    public int columnCount() {
+        return columnCount;
+    }
+
+    public String columnName(int column) {
+        return readString(columnNameOffsets[column]);
+    }
+
+    public byte columnType(int column) {
+        return columnTypes[column];
+    }
+
+    /**
+     * 按列名查找列下标
+     * @param name 列名
+     * @return 列下标，不存在返回 -1
+     */
+    public int columnIndex(String name) {
+        for (int i = 0; i < columnCount; i++) {
+            if (stringEquals(columnNameOffsets[i], name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public int primaryKeyCount() {
+        return pkCount;
+    }
+
+    public int primaryKeyColumn(int i) {
+        return pkColumns[i];
+    }
+
+    /**
+     * 主键所在镜像：删除事件取变更前镜像，其余取变更后镜像
+     * @return 镜像下标
+     */
+    public int keyImage() {
+        return hasImage(ChangeEventFormat.IMAGE_AFTER) ? ChangeEventFormat.IMAGE_AFTER : ChangeEventFormat.IMAGE_BEFORE;
+    }
+
+    public boolean isNull(int image, int column) {
+        int bitmap = bitmapOffsets[image];
+        if (bitmap < 0) {
+            return true;
+        }
+        return (buffer.get(bitmap + (column >>> 3)) & (1 << (column & 7))) != 0;
+    }
+
+    public boolean getBoolean(int image, int column) {
+        return buffer.get(valueOffset(image, column)) != 0;
+    }
+
+    public long getLong(int image, int column) {
+        cursor = valueOffset(image, column);
+        long raw = readVarLong();
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    public float getFloat(int image, int column) {
+        return Float.intBitsToFloat(buffer.getInt(valueOffset(image, column)));
+    }
+
+    public double getDouble(int image, int column) {
+        return Double.longBitsToDouble(buffer.getLong(valueOffset(image, column)));
+    }
+
+    public String getString(int image, int column) {
+        return readString(valueOffset(image, column));
+    }
+
+    /**
+     * 读取二进制列值，返回共享底层内存的只读切片
+     * @param image 镜像
+     * @param column 列下标
+     * @return 字节切片
+     */
+    public ByteBuffer getBytes(int image, int column) {
+        cursor = valueOffset(image, column);
+        int length = readVarint();
+        return buffer.slice(cursor, length).asReadOnlyBuffer();
+    }
+
+    public BigDecimal getDecimal(int image, int column) {
+        cursor = valueOffset(image, column);
+        long rawScale = readVarLong();
+        int scale = (int) ((rawScale >>> 1) ^ -(rawScale & 1));
+        int length = readVarint();
+        byte[] unscaled = new byte[length];
+        buffer.get(cursor, unscaled, 0, length);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+
+    /**
+     * 按列类型读取列值
+     * @param image 镜像
+     * @param column 列下标
+     * @return 列值
+     */
+    public Object getValue(int image, int column) {
+        if (isNull(image, column)) {
+            return null;
+        }
+        switch (columnTypes[column]) {
+            case ChangeEventFormat.TYPE_BOOLEAN:
+                return getBoolean(image, column);
+            case ChangeEventFormat.TYPE_INT:
+                return getLong(image, column);
+            case ChangeEventFormat.TYPE_FLOAT:
+                return getFloat(image, column);
+            case ChangeEventFormat.TYPE_DOUBLE:
+                return getDouble(image, column);
+            case ChangeEventFormat.TYPE_BYTES:
+                return getBytes(image, column);
+            case ChangeEventFormat.TYPE_DECIMAL:
+                return getDecimal(image, column);
+            case ChangeEventFormat.TYPE_STRING:
+            default:
+                return getString(image, column);
+        }
+    }
+
+    /**
+     * 将行镜像物化为 Map，兼容按 Map 处理记录的调用方
+     * @param image 镜像
+     * @return 列名到列值的映射，镜像不存在返回 null
+     */
+    public Map<String, Object> toMap(int image) {
+        if (!hasImage(image)) {
+            return null;
+        }
+        Map<String, Object> row = new LinkedHashMap<>(columnCount * 2);
+        for (int i = 0; i < columnCount; i++) {
+            row.put(columnName(i), getValue(image, i));
+        }
+        return row;
+    }
+
+    /**
+     * 将行镜像物化为按结构绑定的行，连续事件的列名不变时共享同一行结构
+     * @param image 镜像
+     * @return 行，镜像不存在返回 null
+     */
+    public Row toRow(int image) {
+        if (!hasImage(image)) {
+            return null;
+        }
+        TableSchema schema = rowSchema;
+        if (schema == null || !matchesColumns(schema)) {
+            String[] names = new String[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                names[i] = columnName(i);
+            }
+            schema = TableSchema.of(names);
+            rowSchema = schema;
+        }
+        Object[] values = new Object[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            values[i] = getValue(image, i);
+        }
+        return new Row(schema, values);
+    }
+
+    /**
+     * 读取源位点
+     * @return 位点信息
+     */
+    public Map<String, Object> sourcePosition() {
+        Map<String, Object> offset = new HashMap<>(positionCount * 2);
+        cursor = positionOffset;
+        for (int i = 0; i < positionCount; i++) {
+            String name = readString(cursor);
+            byte type = buffer.get(cursor++);
+            offset.put(name, type == 0 ? null : readTaggedValue(type));
+        }
+        return offset;
+    }
+
+    private Object readTaggedValue(byte type) {
+        int valueOffset = cursor;
+        switch (type) {
+            case ChangeEventFormat.TYPE_BOOLEAN:
+                cursor += 1;
+                return buffer.get(valueOffset) != 0;
+            case ChangeEventFormat.TYPE_INT:
+                long raw = readVarLong();
+                return (raw >>> 1) ^ -(raw & 1);
+            case ChangeEventFormat.TYPE_DOUBLE:
+                cursor += 8;
+                return Double.longBitsToDouble(buffer.getLong(valueOffset));
+            case ChangeEventFormat.TYPE_STRING:
+                return readString(valueOffset);
+            default:
+                // 位点中的其它类型按原始字节保留
+                skipValue(type);
+                return buffer.slice(valueOffset, cursor - valueOffset).asReadOnlyBuffer();
+        }
+    }
+
+    private int valueOffset(int image, int column) {
+        if (bitmapOffsets[image] < 0) {
+            throw new IllegalStateException("Change event has no image " + image);
+        }
+        int offset = valueOffsets[image * columnCount + column];
+        if (offset < 0) {
+            throw new IllegalStateException("Column " + column + " is null");
+        }
+        return offset;
+    }
+
+    private void indexImage(int image) {
+        bitmapOffsets[image] = cursor;
+        cursor += (columnCount + 7) >>> 3;
+        int slot = image * columnCount;
+        for (int i = 0; i < columnCount; i++) {
+            if (isNull(image, i)) {
+                valueOffsets[slot + i] = -1;
+            } else {
+                valueOffsets[slot + i] = cursor;
+                skipValue(columnTypes[i]);
+            }
+        }
+    }
+
+    private void skipValue(byte type) {
+        switch (type) {
+            case ChangeEventFormat.TYPE_BOOLEAN:
+                cursor += 1;
+                break;
+            case ChangeEventFormat.TYPE_INT:
+                readVarLong();
+                break;
+            case ChangeEventFormat.TYPE_FLOAT:
+                cursor += 4;
+                break;
+            case ChangeEventFormat.TYPE_DOUBLE:
+                cursor += 8;
+                break;
+            case ChangeEventFormat.TYPE_DECIMAL:
+                readVarLong();
+                skipString();
+                break;
+            case ChangeEventFormat.TYPE_BYTES:
+            case ChangeEventFormat.TYPE_STRING:
+            default:
+                skipString();
+        }
+    }
+
+    private void skipString() {
+        int length = readVarint();
+        cursor += length;
+    }
+
+    private String readString(int offset) {
+        cursor = offset;
+        int length = readVarint();
+        String value;
+        if (buffer.hasArray()) {
+            value = new String(buffer.array(), buffer.arrayOffset() + cursor, length, StandardCharsets.UTF_8);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.get(cursor, bytes, 0, length);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        cursor += length;
+        return value;
+    }
+
+    private boolean matchesColumns(TableSchema schema) {
+        if (schema.size() != columnCount) {
+            return false;
+        }
+        for (int i = 0; i < columnCount; i++) {
+            if (!stringEquals(columnNameOffsets[i], schema.column(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean stringEquals(int offset, String expected) {
+        cursor = offset;
+        int length = readVarint();
+        int n = expected.length();
+        for (int i = 0; i < n; i++) {
+            if (expected.charAt(i) >= 0x80) {
+                // 非 ASCII 列名退化为完整比较
+                return readString(offset).equals(expected);
+            }
+        }
+        if (length != n) {
+            return false;
+        }
+        for (int i = 0; i < n; i++) {
+            if (buffer.get(cursor + i) != (byte) expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int readVarint() {
+        return (int) readVarLong();
+    }
+
+    private long readVarLong() {
+        long result = 0;
+        int shift = 0;
+        while (true) {
+            byte b = buffer.get(cursor++);
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+            shift += 7;
+            if (shift > 63) {
+                throw new IllegalArgumentException("Malformed varint in change event");
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ChangeEventView{op=" + (char) op + ", taskId=" + taskId + ", table=" + table()
+                + ", columns=" + columnCount + ", tsMs=" + tsMs + ", size=" + (buffer.limit() - base)
+                + ", pk=" + Arrays.toString(Arrays.copyOf(pkColumns, pkCount)) + "}";
+    }
+
+}
@@ -0,0 +1,350 @@
+package com.data.rsync.common.event;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * 变更事件编码器
+ * 按 {@link ChangeEventFormat} 将变更事件写入可复用的缓冲区，非线程安全，每个监听线程持有一个实例
+ *
+ * <p>调用顺序：begin → position → column* → primaryKey → beginImage/value/endImage → toByteArray</p>
+ */
+public class ChangeEventWriter {
+
+    /**
+     * 默认缓冲区大小
+     */
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    /**
+     * 写缓冲区
+     */
+    private byte[] buffer;
+
+    /**
+     * 写位置
+     */
+    private int position;
+
+    /**
+     * 列类型
+     */
+    private byte[] columnTypes = new byte[32];
+
+    /**
+     * 列数
+     */
+    private int columnCount;
+
+    /**
+     * 列数占位起始位置
+     */
+    private int columnCountMark;
+
+    /**
+     * 当前镜像空值位图起始位置
+     */
+    private int bitmapStart;
+
+    /**
+     * 当前镜像已写入的列数
+     */
+    private int imageColumn;
+
+    public ChangeEventWriter() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ChangeEventWriter(int initialCapacity) {
+        this.buffer = new byte[Math.max(initialCapacity, ChangeEventFormat.FIXED_HEADER_SIZE)];
+    }
+
+    /**
+     * 开始写入一个事件
+     * @param op 格式操作码
+     * @param hasBefore 是否包含变更前镜像
+     * @param hasAfter 是否包含变更后镜像
+     * @param taskId 任务ID
+     * @param tsMs 事件时间戳
+     * @param database 数据库名
+     * @param table 表名
+     */
+    public void begin(byte op, boolean hasBefore, boolean hasAfter, long taskId, long tsMs, String database, String table) {
+        position = 0;
+        columnCount = 0;
+        imageColumn = -1;
+        int flags = (hasBefore ? ChangeEventFormat.FLAG_HAS_BEFORE : 0) | (hasAfter ? ChangeEventFormat.FLAG_HAS_AFTER : 0);
+        writeByte(ChangeEventFormat.MAGIC_0);
+        writeByte(ChangeEventFormat.MAGIC_1);
+        writeByte(ChangeEventFormat.VERSION);
+        writeByte(op);
+        writeByte((byte) flags);
+        writeLong(taskId);
+        writeLong(tsMs);
+        writeString(database);
+        writeString(table);
+    }
+
+    /**
+     * 写入源位点
+     * @param sourceOffset 位点信息
+     */
+    public void position(Map<String, ?> sourceOffset) {
+        if (sourceOffset == null || sourceOffset.isEmpty()) {
+            writeVarint(0);
+        } else {
+            writeVarint(sourceOffset.size());
+            for (Map.Entry<String, ?> entry : sourceOffset.entrySet()) {
+                writeString(entry.getKey());
+                writeTaggedValue(entry.getValue());
+            }
+        }
+        // 列数在列定义写完后回填，预留 3 字节（最多 2^21 列）
+        columnCountMark = position;
+        ensureCapacity(3);
+        position += 3;
+    }
+
+    /**
+     * 写入列定义
+     * @param name 列名
+     * @param type 列类型
+     */
+    public void column(String name, byte type) {
+        if (columnCount == columnTypes.length) {
+            columnTypes = Arrays.copyOf(columnTypes, columnCount * 2);
+        }
+        columnTypes[columnCount++] = type;
+        writeString(name);
+        writeByte(type);
+    }
+
+    /**
+     * 写入主键列索引，并结束列定义
+     * @param columnIndexes 主键列在列定义中的下标
+     * @param count 主键列数
+     */
+    public void primaryKey(int[] columnIndexes, int count) {
+        int v = columnCount;
+        buffer[columnCountMark] = (byte) ((v & 0x7F) | 0x80);
+        buffer[columnCountMark + 1] = (byte) (((v >>> 7) & 0x7F) | 0x80);
+        buffer[columnCountMark + 2] = (byte) ((v >>> 14) & 0x7F);
+        writeVarint(count);
+        for (int i = 0; i < count; i++) {
+            writeVarint(columnIndexes[i]);
+        }
+    }
+
+    /**
+     * 开始写入行镜像
+     */
+    public void beginImage() {
+        int bitmapSize = (columnCount + 7) >>> 3;
+        ensureCapacity(bitmapSize);
+        bitmapStart = position;
+        Arrays.fill(buffer, position, position + bitmapSize, (byte) 0);
+        position += bitmapSize;
+        imageColumn = 0;
+    }
+
+    /**
+     * 按列顺序写入下一个列值
+     * @param value 列值
+     */
+    public void value(Object value) {
+        int column = imageColumn++;
+        if (value == null) {
+            buffer[bitmapStart + (column >>> 3)] |= (byte) (1 << (column & 7));
+            return;
+        }
+        writeValue(columnTypes[column], value);
+    }
+
+    /**
+     * 结束当前行镜像
+     */
+    public void endImage() {
+        if (imageColumn != columnCount) {
+            throw new IllegalStateException("Image has " + imageColumn + " values, expected " + columnCount);
+        }
+        imageColumn = -1;
+    }
+
+    /**
+     * 当前事件编码长度
+     * @return 字节数
+     */
+    public int size() {
+        return position;
+    }
+
+    /**
+     * 导出当前事件
+     * @return 精确长度的字节数组
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+
+    private void writeValue(byte type, Object value) {
+        switch (type) {
+            case ChangeEventFormat.TYPE_BOOLEAN:
+                writeByte((byte) (Boolean.TRUE.equals(value) ? 1 : 0));
+                break;
+            case ChangeEventFormat.TYPE_INT:
+                writeZigzag(toLong(value));
+                break;
+            case ChangeEventFormat.TYPE_FLOAT:
+                writeInt(Float.floatToRawIntBits(((Number) value).floatValue()));
+                break;
+            case ChangeEventFormat.TYPE_DOUBLE:
+                writeLong(Double.doubleToRawLongBits(((Number) value).doubleValue()));
+                break;
+            case ChangeEventFormat.TYPE_BYTES:
+                writeBytes(value);
+                break;
+            case ChangeEventFormat.TYPE_DECIMAL:
+                BigDecimal decimal = value instanceof BigDecimal ? (BigDecimal) value : new BigDecimal(value.toString());
+                writeZigzag(decimal.scale());
+                byte[] unscaled = decimal.unscaledValue().toByteArray();
+                writeVarint(unscaled.length);
+                writeRaw(unscaled, 0, unscaled.length);
+                break;
+            case ChangeEventFormat.TYPE_STRING:
+            default:
+                writeString(value.toString());
+        }
+    }
+
+    private long toLong(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof Date) {
+            // Connect Date/Time/Timestamp 逻辑类型
+            return ((Date) value).getTime();
+        }
+        return Long.parseLong(value.toString());
+    }
+
+    private void writeTaggedValue(Object value) {
+        byte type;
+        if (value == null) {
+            writeByte((byte) 0);
+            return;
+        } else if (value instanceof Boolean) {
+            type = ChangeEventFormat.TYPE_BOOLEAN;
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            type = ChangeEventFormat.TYPE_INT;
+        } else if (value instanceof Float || value instanceof Double) {
+            type = ChangeEventFormat.TYPE_DOUBLE;
+        } else if (value instanceof BigDecimal) {
+            type = ChangeEventFormat.TYPE_DECIMAL;
+        } else if (value instanceof byte[] || value instanceof ByteBuffer) {
+            type = ChangeEventFormat.TYPE_BYTES;
+        } else {
+            type = ChangeEventFormat.TYPE_STRING;
+        }
+        writeByte(type);
+        writeValue(type, value);
+    }
+
+    private void writeBytes(Object value) {
+        if (value instanceof ByteBuffer) {
+            ByteBuffer bytes = ((ByteBuffer) value).duplicate();
+            int length = bytes.remaining();
+            writeVarint(length);
+            ensureCapacity(length);
+            bytes.get(buffer, position, length);
+            position += length;
+        } else if (value instanceof byte[]) {
+            byte[] bytes = (byte[]) value;
+            writeVarint(bytes.length);
+            writeRaw(bytes, 0, bytes.length);
+        } else {
+            writeString(value.toString());
+        }
+    }
+
+    private void writeString(String value) {
+        if (value == null) {
+            writeVarint(0);
+            return;
+        }
+        // ASCII 快速路径，避免 getBytes 产生临时数组
+        int length = value.length();
+        boolean ascii = true;
+        for (int i = 0; i < length; i++) {
+            if (value.charAt(i) >= 0x80) {
+                ascii = false;
+                break;
+            }
+        }
+        if (ascii) {
+            writeVarint(length);
+            ensureCapacity(length);
+            for (int i = 0; i < length; i++) {
+                buffer[position++] = (byte) value.charAt(i);
+            }
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length);
+            writeRaw(bytes, 0, bytes.length);
+        }
+    }
+
+    private void writeRaw(byte[] bytes, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, buffer, position, length);
+        position += length;
+    }
+
+    private void writeByte(byte value) {
+        ensureCapacity(1);
+        buffer[position++] = value;
+    }
+
+    private void writeInt(int value) {
+        ensureCapacity(4);
+        buffer[position++] = (byte) (value >>> 24);
+        buffer[position++] = (byte) (value >>> 16);
+        buffer[position++] = (byte) (value >>> 8);
+        buffer[position++] = (byte) value;
+    }
+
+    private void writeLong(long value) {
+        ensureCapacity(8);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buffer[position++] = (byte) (value >>> shift);
+        }
+    }
+
+    private void writeZigzag(long value) {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    private void writeVarint(int value) {
+        writeVarLong(value & 0xFFFFFFFFL);
+    }
+
+    private void writeVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    private void ensureCapacity(int extra) {
+        int required = position + extra;
+        if (required > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(required, buffer.length << 1));
+        }
+    }
+
+}
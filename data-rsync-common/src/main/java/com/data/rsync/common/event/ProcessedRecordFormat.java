@@ -0,0 +1,147 @@
+package com.data.rsync.common.event;
+
+/**
+ * 处理结果二进制格式定义
+ * data_processed_topic 上传输的处理结果：实体主键、向量块、文本和标量字段
+ *
+ * <pre>
+ * magic(2) version(1) vectorEncoding(1) taskId(8) tsMs(8) id(8) dimension(4)
+ * vector(dimension * 4 或 dimension * 2)
+ * recordId(str) partitionKey(str) op(str) text(str)
+ * fieldCount(varint) { name(str) type(1) value }
+ *
+ * str := length(varint) utf8Bytes
+ * </pre>
+ * 定长数值和向量块均为小端序，接收方可直接在消息字节上按 float 读取向量；
+ * 标量字段类型沿用 {@link ChangeEventFormat} 的列值类型，整型使用 zigzag varint，类型 0 表示 null
+ */
+public final class ProcessedRecordFormat {
+
+    private ProcessedRecordFormat() {
+    }
+
+    /**
+     * 魔数
+     */
+    public static final byte MAGIC_0 = 'R';
+    public static final byte MAGIC_1 = 'P';
+
+    /**
+     * 当前格式版本
+     */
+    public static final byte VERSION = 1;
+
+    /**
+     * 固定头部长度
+     */
+    public static final int FIXED_HEADER_SIZE = 32;
+
+    /**
+     * 向量编码：float32 每维 4 字节，float16 每维 2 字节
+     */
+    public static final byte VECTOR_FLOAT32 = 1;
+    public static final byte VECTOR_FLOAT16 = 2;
+
+    /**
+     * 空值类型标记
+     */
+    public static final byte TYPE_NULL = 0;
+
+    /**
+     * 解析向量编码配置
+     * @param name 编码名称（float32/float16）
+     * @return 向量编码
+     */
+    public static byte toVectorEncoding(String name) {
+        if (name == null || "float32".equalsIgnoreCase(name)) {
+            return VECTOR_FLOAT32;
+        }
+        if ("float16".equalsIgnoreCase(name)) {
+            return VECTOR_FLOAT16;
+        }
+        throw new IllegalArgumentException("Unsupported vector encoding: " + name);
+    }
+
+    /**
+     * 每维字节数
+     * @param encoding 向量编码
+     * @return 字节数
+     */
+    public static int bytesPerDimension(byte encoding) {
+        switch (encoding) {
+            case VECTOR_FLOAT32:
+                return 4;
+            case VECTOR_FLOAT16:
+                return 2;
+            default:
+                throw new IllegalArgumentException("Unknown vector encoding: " + encoding);
+        }
+    }
+
+    /**
+     * float32 转 IEEE 754 半精度，就近舍入，超出范围为无穷
+     * @param value 单精度值
+     * @return 半精度位模式
+     */
+    public static short toFloat16(float value) {
+        int bits = Float.floatToRawIntBits(value);
+        int sign = (bits >>> 16) & 0x8000;
+        int exponent = (bits >>> 23) & 0xff;
+        int mantissa = bits & 0x7fffff;
+        if (exponent == 0xff) {
+            // 无穷和 NaN
+            return (short) (sign | 0x7c00 | (mantissa != 0 ? 0x200 : 0));
+        }
+        int halfExponent = exponent - 127 + 15;
+        if (halfExponent >= 0x1f) {
+            return (short) (sign | 0x7c00);
+        }
+        if (halfExponent <= 0) {
+            if (halfExponent < -10) {
+                return (short) sign;
+            }
+            // 非规格化数
+            mantissa |= 0x800000;
+            int shift = 14 - halfExponent;
+            int half = mantissa >>> shift;
+            int remainder = mantissa & ((1 << shift) - 1);
+            int halfway = 1 << (shift - 1);
+            if (remainder > halfway || (remainder == halfway && (half & 1) != 0)) {
+                half++;
+            }
+            return (short) (sign | half);
+        }
+        int half = (halfExponent << 10) | (mantissa >>> 13);
+        int remainder = mantissa & 0x1fff;
+        if (remainder > 0x1000 || (remainder == 0x1000 && (half & 1) != 0)) {
+            // 进位可能溢出到指数，结果仍正确（最大变为无穷）
+            half++;
+        }
+        return (short) (sign | half);
+    }
+
+    /**
+     * IEEE 754 半精度转 float32
+     * @param half 半精度位模式
+     * @return 单精度值
+     */
+    public static float fromFloat16(short half) {
+        int bits = half & 0xffff;
+        int sign = (bits & 0x8000) << 16;
+        int exponent = (bits >>> 10) & 0x1f;
+        int mantissa = bits & 0x3ff;
+        if (exponent == 0x1f) {
+            return Float.intBitsToFloat(sign | 0x7f800000 | (mantissa << 13));
+        }
+        if (exponent == 0) {
+            if (mantissa == 0) {
+                return Float.intBitsToFloat(sign);
+            }
+            // 非规格化数：mantissa * 2^-24
+            float value = mantissa * 0x1p-24f;
+            return sign != 0 ? -value : value;
+        }
+        return Float.intBitsToFloat(sign | ((exponent - 15 + 127) << 23) | (mantissa << 13));
+    }
+
+}
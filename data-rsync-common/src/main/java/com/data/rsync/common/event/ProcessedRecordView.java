@@ -0,0 +1,408 @@
+package com.data.rsync.common.event;
+
+import com.data.rsync.common.row.Row;
+import com.data.rsync.common.row.TableSchema;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * 处理结果零拷贝解码器
+ * 直接在消息字节上读取主键和向量块，字符串和标量字段按需解码；实例可通过 {@link #reset(ByteBuffer)} 复用，非线程安全。
+ * 空字符串和 null 属性编码相同，读取为空字符串
+ */
+public class ProcessedRecordView {
+
+    private ByteBuffer buffer;
+
+    private int base;
+
+    private byte vectorEncoding;
+
+    private long taskId;
+
+    private long tsMs;
+
+    private long id;
+
+    private int dimension;
+
+    /**
+     * 向量块偏移
+     */
+    private int vectorOffset;
+
+    private int recordIdOffset;
+
+    private int partitionKeyOffset;
+
+    private int opOffset;
+
+    private int textOffset;
+
+    private int fieldCount;
+
+    /**
+     * 字段名偏移，字段值紧跟在类型字节之后
+     */
+    private int[] fieldOffsets = new int[16];
+
+    /**
+     * 字段值类型
+     */
+    private byte[] fieldTypes = new byte[16];
+
+    /**
+     * 字段值偏移
+     */
+    private int[] fieldValueOffsets = new int[16];
+
+    /**
+     * 上一次物化行时使用的行结构，字段名不变时直接复用
+     */
+    private TableSchema rowSchema;
+
+    /**
+     * 解析游标
+     */
+    private int cursor;
+
+    /**
+     * 包装消息字节
+     * @param bytes 消息字节
+     * @return 解码视图
+     */
+    public static ProcessedRecordView wrap(byte[] bytes) {
+        return new ProcessedRecordView().reset(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * 包装消息缓冲区（使用 position 到 limit 之间的内容）
+     * @param buffer 消息缓冲区
+     * @return 解码视图
+     */
+    public static ProcessedRecordView wrap(ByteBuffer buffer) {
+        return new ProcessedRecordView().reset(buffer);
+    }
+
+    /**
+     * 复用当前实例解码新的消息
+     * @param source 消息缓冲区
+     * @return 当前实例
+     */
+    public ProcessedRecordView reset(ByteBuffer source) {
+        this.buffer = source.order() == ByteOrder.LITTLE_ENDIAN ? source : source.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        this.base = source.position();
+        cursor = base;
+        if (buffer.remaining() < ProcessedRecordFormat.FIXED_HEADER_SIZE
+                || buffer.get(cursor) != ProcessedRecordFormat.MAGIC_0
+                || buffer.get(cursor + 1) != ProcessedRecordFormat.MAGIC_1) {
+            throw new IllegalArgumentException("Not a processed record envelope");
+        }
+        byte version = buffer.get(cursor + 2);
+        if (version > ProcessedRecordFormat.VERSION) {
+            throw new IllegalArgumentException("Unsupported processed record version: " + version);
+        }
+        vectorEncoding = buffer.get(cursor + 3);
+        taskId = buffer.getLong(cursor + 4);
+        tsMs = buffer.getLong(cursor + 12);
+        id = buffer.getLong(cursor + 20);
+        dimension = buffer.getInt(cursor + 28);
+        cursor += ProcessedRecordFormat.FIXED_HEADER_SIZE;
+
+        vectorOffset = cursor;
+        cursor += dimension * ProcessedRecordFormat.bytesPerDimension(vectorEncoding);
+        recordIdOffset = cursor;
+        skipString();
+        partitionKeyOffset = cursor;
+        skipString();
+        opOffset = cursor;
+        skipString();
+        textOffset = cursor;
+        skipString();
+
+        fieldCount = readVarint();
+        if (fieldOffsets.length < fieldCount) {
+            fieldOffsets = new int[fieldCount];
+            fieldTypes = new byte[fieldCount];
+            fieldValueOffsets = new int[fieldCount];
+        }
+        for (int i = 0; i < fieldCount; i++) {
+            fieldOffsets[i] = cursor;
+            skipString();
+            byte type = buffer.get(cursor++);
+            fieldTypes[i] = type;
+            fieldValueOffsets[i] = cursor;
+            if (type != ProcessedRecordFormat.TYPE_NULL) {
+                skipValue(type);
+            }
+        }
+        return this;
+    }
+
+    public long taskId() {
+        return taskId;
+    }
+
+    public long tsMs() {
+        return tsMs;
+    }
+
+    public long id() {
+        return id;
+    }
+
+    public int dimension() {
+        return dimension;
+    }
+
+    public byte vectorEncoding() {
+        return vectorEncoding;
+    }
+
+    /**
+     * 向量块原始字节，小端序，与消息共享存储
+     * @return 只读缓冲区
+     */
+    public ByteBuffer vectorBytes() {
+        int length = dimension * ProcessedRecordFormat.bytesPerDimension(vectorEncoding);
+        return buffer.slice(vectorOffset, length).asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * 读取单个维度
+     * @param index 维度下标
+     * @return 分量值
+     */
+    public float vector(int index) {
+        if (index < 0 || index >= dimension) {
+            throw new IndexOutOfBoundsException("Dimension " + index + " out of " + dimension);
+        }
+        if (vectorEncoding == ProcessedRecordFormat.VECTOR_FLOAT16) {
+            return ProcessedRecordFormat.fromFloat16(buffer.getShort(vectorOffset + (index << 1)));
+        }
+        return buffer.getFloat(vectorOffset + (index << 2));
+    }
+
+    /**
+     * 将向量读入调用方提供的数组
+     * @param target 目标数组，长度不小于维度
+     * @return 目标数组
+     */
+    public float[] readVector(float[] target) {
+        if (vectorEncoding == ProcessedRecordFormat.VECTOR_FLOAT16) {
+            for (int i = 0; i < dimension; i++) {
+                target[i] = ProcessedRecordFormat.fromFloat16(buffer.getShort(vectorOffset + (i << 1)));
+            }
+        } else {
+            for (int i = 0; i < dimension; i++) {
+                target[i] = buffer.getFloat(vectorOffset + (i << 2));
+            }
+        }
+        return target;
+    }
+
+    /**
+     * 以列表视图暴露向量，元素在访问时从消息字节读取，不复制向量块；视图 reset 后列表随之变化
+     * @return 只读列表
+     */
+    public List<Float> vectorList() {
+        return new VectorList();
+    }
+
+    public String recordId() {
+        return readString(recordIdOffset);
+    }
+
+    public String partitionKey() {
+        return readString(partitionKeyOffset);
+    }
+
+    public String op() {
+        return readString(opOffset);
+    }
+
+    public String text() {
+        return readString(textOffset);
+    }
+
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    public String fieldName(int field) {
+        return readString(fieldOffsets[field]);
+    }
+
+    /**
+     * 按类型读取标量字段值
+     * @param field 字段下标
+     * @return 字段值
+     */
+    public Object getValue(int field) {
+        byte type = fieldTypes[field];
+        int offset = fieldValueOffsets[field];
+        cursor = offset;
+        switch (type) {
+            case ProcessedRecordFormat.TYPE_NULL:
+                return null;
+            case ChangeEventFormat.TYPE_BOOLEAN:
+                return buffer.get(offset) != 0;
+            case ChangeEventFormat.TYPE_INT:
+                long raw = readVarLong();
+                return (raw >>> 1) ^ -(raw & 1);
+            case ChangeEventFormat.TYPE_FLOAT:
+                return buffer.getFloat(offset);
+            case ChangeEventFormat.TYPE_DOUBLE:
+                return buffer.getDouble(offset);
+            case ChangeEventFormat.TYPE_DECIMAL:
+                long rawScale = readVarLong();
+                int scale = (int) ((rawScale >>> 1) ^ -(rawScale & 1));
+                int length = readVarint();
+                byte[] unscaled = new byte[length];
+                buffer.get(cursor, unscaled, 0, length);
+                return new BigDecimal(new BigInteger(unscaled), scale);
+            case ChangeEventFormat.TYPE_BYTES:
+                int size = readVarint();
+                return buffer.slice(cursor, size).asReadOnlyBuffer();
+            case ChangeEventFormat.TYPE_STRING:
+            default:
+                return readString(offset);
+        }
+    }
+
+    /**
+     * 将记录物化为行（属性和标量字段，不含向量），用于死信等需要完整记录的场景
+     * @return 行
+     */
+    public Row toRow() {
+        int columns = fieldCount + 3;
+        TableSchema schema = rowSchema;
+        if (schema == null || !matchesFields(schema)) {
+            String[] names = new String[columns];
+            names[0] = "recordId";
+            names[1] = "partitionKey";
+            names[2] = "text";
+            for (int i = 0; i < fieldCount; i++) {
+                names[i + 3] = fieldName(i);
+            }
+            schema = TableSchema.of(names);
+            rowSchema = schema;
+        }
+        Object[] values = new Object[columns];
+        values[0] = recordId();
+        values[1] = partitionKey();
+        values[2] = text();
+        for (int i = 0; i < fieldCount; i++) {
+            values[i + 3] = getValue(i);
+        }
+        return new Row(schema, values);
+    }
+
+    private boolean matchesFields(TableSchema schema) {
+        if (schema.size() != fieldCount + 3) {
+            return false;
+        }
+        for (int i = 0; i < fieldCount; i++) {
+            if (!fieldName(i).equals(schema.column(i + 3))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void skipValue(byte type) {
+        switch (type) {
+            case ChangeEventFormat.TYPE_BOOLEAN:
+                cursor += 1;
+                break;
+            case ChangeEventFormat.TYPE_INT:
+                readVarLong();
+                break;
+            case ChangeEventFormat.TYPE_FLOAT:
+                cursor += 4;
+                break;
+            case ChangeEventFormat.TYPE_DOUBLE:
+                cursor += 8;
+                break;
+            case ChangeEventFormat.TYPE_DECIMAL:
+                readVarLong();
+                skipString();
+                break;
+            case ChangeEventFormat.TYPE_BYTES:
+            case ChangeEventFormat.TYPE_STRING:
+            default:
+                skipString();
+        }
+    }
+
+    private void skipString() {
+        int length = readVarint();
+        cursor += length;
+    }
+
+    private String readString(int offset) {
+        cursor = offset;
+        int length = readVarint();
+        String value;
+        if (buffer.hasArray()) {
+            value = new String(buffer.array(), buffer.arrayOffset() + cursor, length, StandardCharsets.UTF_8);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.get(cursor, bytes, 0, length);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        cursor += length;
+        return value;
+    }
+
+    private int readVarint() {
+        return (int) readVarLong();
+    }
+
+    private long readVarLong() {
+        long result = 0;
+        int shift = 0;
+        while (true) {
+            byte b = buffer.get(cursor++);
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+            shift += 7;
+            if (shift > 63) {
+                throw new IllegalArgumentException("Malformed varint in processed record");
+            }
+        }
+    }
+
+    /**
+     * 向量列表视图
+     */
+    private final class VectorList extends AbstractList<Float> implements RandomAccess {
+
+        @Override
+        public Float get(int index) {
+            return vector(index);
+        }
+
+        @Override
+        public int size() {
+            return dimension;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ProcessedRecordView{taskId=" + taskId + ", id=" + id + ", dimension=" + dimension
+                + ", encoding=" + vectorEncoding + ", fields=" + fieldCount + ", tsMs=" + tsMs
+                + ", size=" + (buffer.limit() - base) + "}";
+    }
+
+}
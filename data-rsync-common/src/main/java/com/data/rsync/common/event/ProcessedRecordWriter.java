@@ -0,0 +1,259 @@
+package com.data.rsync.common.event;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 处理结果编码器
+ * 按 {@link ProcessedRecordFormat} 将处理结果写入可复用的缓冲区，非线程安全，每个编码线程持有一个实例
+ *
+ * <p>调用顺序：begin → attributes → field* → toByteArray</p>
+ */
+public class ProcessedRecordWriter {
+
+    /**
+     * 默认缓冲区大小
+     */
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private final byte vectorEncoding;
+
+    /**
+     * 写缓冲区
+     */
+    private byte[] buffer;
+
+    /**
+     * 写位置
+     */
+    private int position;
+
+    /**
+     * 字段数占位起始位置，-1 表示尚未写入属性
+     */
+    private int fieldCountMark = -1;
+
+    /**
+     * 已写入的字段数
+     */
+    private int fieldCount;
+
+    public ProcessedRecordWriter(byte vectorEncoding) {
+        ProcessedRecordFormat.bytesPerDimension(vectorEncoding);
+        this.vectorEncoding = vectorEncoding;
+        this.buffer = new byte[DEFAULT_CAPACITY];
+    }
+
+    /**
+     * 开始写入一条处理结果
+     * @param taskId 任务ID
+     * @param tsMs 处理时间戳
+     * @param id 实体主键
+     * @param vector 向量，null 视为零维
+     */
+    public void begin(long taskId, long tsMs, long id, float[] vector) {
+        position = 0;
+        fieldCountMark = -1;
+        fieldCount = 0;
+        int dimension = vector != null ? vector.length : 0;
+        writeByte(ProcessedRecordFormat.MAGIC_0);
+        writeByte(ProcessedRecordFormat.MAGIC_1);
+        writeByte(ProcessedRecordFormat.VERSION);
+        writeByte(vectorEncoding);
+        writeLong(taskId);
+        writeLong(tsMs);
+        writeLong(id);
+        writeInt(dimension);
+        if (vectorEncoding == ProcessedRecordFormat.VECTOR_FLOAT16) {
+            ensureCapacity(dimension * 2);
+            for (int i = 0; i < dimension; i++) {
+                short half = ProcessedRecordFormat.toFloat16(vector[i]);
+                buffer[position++] = (byte) half;
+                buffer[position++] = (byte) (half >>> 8);
+            }
+        } else {
+            ensureCapacity(dimension * 4);
+            for (int i = 0; i < dimension; i++) {
+                int bits = Float.floatToRawIntBits(vector[i]);
+                buffer[position++] = (byte) bits;
+                buffer[position++] = (byte) (bits >>> 8);
+                buffer[position++] = (byte) (bits >>> 16);
+                buffer[position++] = (byte) (bits >>> 24);
+            }
+        }
+    }
+
+    /**
+     * 写入记录属性，并开始写入标量字段
+     * @param recordId 记录标识
+     * @param partitionKey 分区键
+     * @param op 操作类型
+     * @param text 文本
+     */
+    public void attributes(String recordId, String partitionKey, String op, String text) {
+        writeString(recordId);
+        writeString(partitionKey);
+        writeString(op);
+        writeString(text);
+        // 字段数在导出时回填，预留 3 字节（最多 2^21 个字段）
+        fieldCountMark = position;
+        ensureCapacity(3);
+        position += 3;
+    }
+
+    /**
+     * 写入标量字段
+     * @param name 字段名
+     * @param value 字段值
+     */
+    public void field(String name, Object value) {
+        if (fieldCountMark < 0) {
+            throw new IllegalStateException("attributes() must be written before fields");
+        }
+        writeString(name);
+        writeTaggedValue(value);
+        fieldCount++;
+    }
+
+    /**
+     * 当前记录编码长度
+     * @return 字节数
+     */
+    public int size() {
+        return position;
+    }
+
+    /**
+     * 导出当前记录
+     * @return 精确长度的字节数组
+     */
+    public byte[] toByteArray() {
+        if (fieldCountMark < 0) {
+            throw new IllegalStateException("attributes() must be written before export");
+        }
+        int v = fieldCount;
+        buffer[fieldCountMark] = (byte) ((v & 0x7F) | 0x80);
+        buffer[fieldCountMark + 1] = (byte) (((v >>> 7) & 0x7F) | 0x80);
+        buffer[fieldCountMark + 2] = (byte) ((v >>> 14) & 0x7F);
+        return Arrays.copyOf(buffer, position);
+    }
+
+    private void writeTaggedValue(Object value) {
+        if (value == null) {
+            writeByte(ProcessedRecordFormat.TYPE_NULL);
+        } else if (value instanceof Boolean) {
+            writeByte(ChangeEventFormat.TYPE_BOOLEAN);
+            writeByte((byte) ((Boolean) value ? 1 : 0));
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            writeByte(ChangeEventFormat.TYPE_INT);
+            long v = ((Number) value).longValue();
+            writeVarLong((v << 1) ^ (v >> 63));
+        } else if (value instanceof Float) {
+            writeByte(ChangeEventFormat.TYPE_FLOAT);
+            writeInt(Float.floatToRawIntBits((Float) value));
+        } else if (value instanceof Double) {
+            writeByte(ChangeEventFormat.TYPE_DOUBLE);
+            writeLong(Double.doubleToRawLongBits((Double) value));
+        } else if (value instanceof BigDecimal) {
+            writeByte(ChangeEventFormat.TYPE_DECIMAL);
+            BigDecimal decimal = (BigDecimal) value;
+            long scale = decimal.scale();
+            writeVarLong((scale << 1) ^ (scale >> 63));
+            byte[] unscaled = decimal.unscaledValue().toByteArray();
+            writeVarint(unscaled.length);
+            writeRaw(unscaled, 0, unscaled.length);
+        } else if (value instanceof byte[]) {
+            writeByte(ChangeEventFormat.TYPE_BYTES);
+            byte[] bytes = (byte[]) value;
+            writeVarint(bytes.length);
+            writeRaw(bytes, 0, bytes.length);
+        } else if (value instanceof ByteBuffer) {
+            writeByte(ChangeEventFormat.TYPE_BYTES);
+            ByteBuffer bytes = ((ByteBuffer) value).duplicate();
+            int length = bytes.remaining();
+            writeVarint(length);
+            ensureCapacity(length);
+            bytes.get(buffer, position, length);
+            position += length;
+        } else {
+            writeByte(ChangeEventFormat.TYPE_STRING);
+            writeString(value.toString());
+        }
+    }
+
+    private void writeString(String value) {
+        if (value == null) {
+            writeVarint(0);
+            return;
+        }
+        // ASCII 快速路径，避免 getBytes 产生临时数组
+        int length = value.length();
+        boolean ascii = true;
+        for (int i = 0; i < length; i++) {
+            if (value.charAt(i) >= 0x80) {
+                ascii = false;
+                break;
+            }
+        }
+        if (ascii) {
+            writeVarint(length);
+            ensureCapacity(length);
+            for (int i = 0; i < length; i++) {
+                buffer[position++] = (byte) value.charAt(i);
+            }
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length);
+            writeRaw(bytes, 0, bytes.length);
+        }
+    }
+
+    private void writeRaw(byte[] bytes, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, buffer, position, length);
+        position += length;
+    }
+
+    private void writeByte(byte value) {
+        ensureCapacity(1);
+        buffer[position++] = value;
+    }
+
+    private void writeInt(int value) {
+        ensureCapacity(4);
+        buffer[position++] = (byte) value;
+        buffer[position++] = (byte) (value >>> 8);
+        buffer[position++] = (byte) (value >>> 16);
+        buffer[position++] = (byte) (value >>> 24);
+    }
+
+    private void writeLong(long value) {
+        ensureCapacity(8);
+        for (int shift = 0; shift < 64; shift += 8) {
+            buffer[position++] = (byte) (value >>> shift);
+        }
+    }
+
+    private void writeVarint(int value) {
+        writeVarLong(value & 0xFFFFFFFFL);
+    }
+
+    private void writeVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    private void ensureCapacity(int extra) {
+        int required = position + extra;
+        if (required > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(required, buffer.length << 1));
+        }
+    }
+
+}
@@ -0,0 +1,87 @@
+package com.data.rsync.common.kafka;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 二进制消息发送器
+ * 基于全局 Kafka 配置构建 byte[] 值序列化的生产者，用于发送二进制编码的消息
+ * 不注册为 KafkaTemplate Bean，避免覆盖自动配置的字符串 KafkaTemplate
+ */
+@Component
+@Slf4j
+public class BinaryKafkaSender {
+
+    @Resource
+    private KafkaProperties kafkaProperties;
+
+    /**
+     * 生产者工厂
+     */
+    private DefaultKafkaProducerFactory<String, byte[]> producerFactory;
+
+    /**
+     * 二进制消息模板
+     */
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+
+    /**
+     * 初始化生产者
+     */
+    @PostConstruct
+    public void init() {
+        Map<String, Object> props = kafkaProperties.buildProducerProperties(null);
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        // 位点依赖 broker 确认推进，要求全副本确认并开启幂等，避免重试导致乱序或重复
+        props.put(ProducerConfig.ACKS_CONFIG, "all");
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        props.putIfAbsent(ProducerConfig.LINGER_MS_CONFIG, 5);
+        producerFactory = new DefaultKafkaProducerFactory<>(props, new StringSerializer(), new ByteArraySerializer());
+        kafkaTemplate = new KafkaTemplate<>(producerFactory);
+        log.info("BinaryKafkaSender initialized");
+    }
+
+    /**
+     * 发送二进制消息
+     * @param topic 主题
+     * @param key 消息键
+     * @param payload 消息内容
+     * @return 发送结果
+     */
+    public CompletableFuture<SendResult<String, byte[]>> send(String topic, String key, byte[] payload) {
+        return kafkaTemplate.send(topic, key, payload);
+    }
+
+    /**
+     * 立即发送缓冲区中的消息
+     */
+    public void flush() {
+        kafkaTemplate.flush();
+    }
+
+    /**
+     * 关闭生产者
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (producerFactory != null) {
+            producerFactory.destroy();
+            log.info("BinaryKafkaSender shut down");
+        }
+    }
+
+}
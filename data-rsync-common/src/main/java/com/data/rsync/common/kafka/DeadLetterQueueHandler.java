@@ -1,106 +1,188 @@
 package com.data.rsync.common.kafka;
 
 import com.data.rsync.common.constants.DataRsyncConstants;
+import com.data.rsync.common.exception.KafkaException;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.kafka.support.KafkaHeaders;
-import org.springframework.messaging.handler.annotation.Header;
-import org.springframework.messaging.handler.annotation.Payload;
-import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Component;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 死信队列处理器
  * 处理Kafka消息消费失败的情况，实现消息重发和错误处理
+ *
+ * <p>重试不在消费线程中等待：死信主题的消息按重试次数转发到固定延迟的层级主题，层级主题的监听器在消息到期后重发到原始主题。
+ * 同一层级主题的延迟相同，分区内消息按到期时间排列，队首未到期时整个分区 nack 暂停到队首到期，到期索引由 Kafka 主题本身持久化。
+ * 重试次数、到期时间等状态随消息头传递，不在进程内保存；消费方重试失败时通过
+ * {@link #sendToDeadLetterQueue(String, String, String, String, Headers)} 带上失败消息的消息头，重试次数逐次累加。
+ * 死信和层级主题的位点都在转发得到 broker 确认后才提交，转发失败时 nack 重新投递，消息不会丢失。</p>
  */
 @Component
 @Slf4j
 public class DeadLetterQueueHandler {
 
+    /**
+     * 消息头：原始主题、原始消息键、错误信息、已重试次数、到期时间（毫秒时间戳）
+     */
+    public static final String HEADER_ORIGINAL_TOPIC = "originalTopic";
+    public static final String HEADER_ORIGINAL_KEY = "originalKey";
+    public static final String HEADER_ERROR_MESSAGE = "errorMessage";
+    public static final String HEADER_RETRY_COUNT = "retryCount";
+    public static final String HEADER_RETRY_DUE_AT = "retryDueAt";
+
     @Resource
     private KafkaTemplate<String, String> kafkaTemplate;
 
     /**
-     * 消息重试计数器
+     * 最大重试次数
      */
-    private final Map<String, AtomicInteger> retryCounter = new ConcurrentHashMap<>();
+    private static final int MAX_RETRY_COUNT = 10;
 
     /**
-     * 最大重试次数
+     * 延迟层级主题，第 n 次重试使用第 min(n, 层级数) 个层级
      */
-    private static final int MAX_RETRY_COUNT = 10;
+    private static final String[] RETRY_TIER_TOPICS = {
+            DataRsyncConstants.KafkaTopic.ERROR_RETRY_TOPIC_1S,
+            DataRsyncConstants.KafkaTopic.ERROR_RETRY_TOPIC_5S,
+            DataRsyncConstants.KafkaTopic.ERROR_RETRY_TOPIC_30S,
+            DataRsyncConstants.KafkaTopic.ERROR_RETRY_TOPIC_2M,
+            DataRsyncConstants.KafkaTopic.ERROR_RETRY_TOPIC_10M
+    };
 
     /**
-     * 监听死信队列
-     * @param message 错误消息
-     * @param originalTopic 原始主题
-     * @param originalKey 原始消息键
+     * 各层级的延迟（毫秒），与 RETRY_TIER_TOPICS 一一对应
+     */
+    private static final long[] RETRY_TIER_DELAYS_MS = {1000L, 5000L, 30000L, 120000L, 600000L};
+
+    /**
+     * 单次 nack 暂停的上限（毫秒），到期时间较远时分多次暂停
+     */
+    private static final long MAX_PAUSE_MS = 30000L;
+
+    /**
+     * 转发到死信、层级或原始主题时等待 broker 确认的超时时间（秒）
+     */
+    private static final long RESEND_TIMEOUT_SECONDS = 10;
+
+    /**
+     * 监听死信队列，按重试次数转发到延迟层级主题，不在消费线程中等待到期
+     * 转发得到 broker 确认后才确认位点，转发失败时 nack 重新投递
+     * @param record 死信消息
+     * @param acknowledgment 位点确认
      */
-    @KafkaListener(topics = DataRsyncConstants.KafkaTopic.ERROR_TOPIC, groupId = "dead-letter-group")
-    public void handleDeadLetterMessage(
-            @Payload String message,
-            @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
-            @Header("originalTopic") String originalTopic,
-            @Header("originalKey") String originalKey,
-            @Header("errorMessage") String errorMessage) {
+    @KafkaListener(id = "dead-letter", topics = DataRsyncConstants.KafkaTopic.ERROR_TOPIC, groupId = "dead-letter-group",
+            containerFactory = DeadLetterRetryConfig.RETRY_LISTENER_CONTAINER_FACTORY)
+    public void handleDeadLetterMessage(ConsumerRecord<String, String> record, Acknowledgment acknowledgment) {
+        Headers headers = record.headers();
+        String originalTopic = headerString(headers, HEADER_ORIGINAL_TOPIC);
+        String originalKey = headerString(headers, HEADER_ORIGINAL_KEY);
+        String errorMessage = headerString(headers, HEADER_ERROR_MESSAGE);
+        String message = record.value();
 
-        log.warn("Received dead letter message from topic {}: {}", topic, message);
+        log.warn("Received dead letter message from topic {}: {}", record.topic(), message);
 
         try {
-            // 生成重试键
-            String retryKey = originalTopic + "-" + originalKey;
-            AtomicInteger counter = retryCounter.computeIfAbsent(retryKey, k -> new AtomicInteger(0));
-            int retryCount = counter.incrementAndGet();
+            if (originalTopic == null) {
+                log.error("Dead letter message without original topic, key: {}, error: {}", record.key(), errorMessage);
+                sendAlertNotification(null, record.key(), errorMessage, message);
+                acknowledgment.acknowledge();
+                return;
+            }
 
+            int retryCount = headerInt(headers, HEADER_RETRY_COUNT) + 1;
             log.info("Processing retry {} for message: {}, error: {}", retryCount, originalKey, errorMessage);
 
             // 检查重试次数
             if (retryCount <= MAX_RETRY_COUNT) {
-                // 计算重试延迟（指数退避策略）
-                long delayMs = calculateRetryDelay(retryCount);
-                log.info("Retrying message after {}ms", delayMs);
-
-                // 延迟重试
-                Thread.sleep(delayMs);
-
-                // 重新发送消息到原始主题
-                kafkaTemplate.send(originalTopic, originalKey, message);
-                log.info("Resent message to original topic: {}", originalTopic);
+                int tier = Math.min(retryCount, RETRY_TIER_TOPICS.length) - 1;
+                long dueAt = System.currentTimeMillis() + RETRY_TIER_DELAYS_MS[tier];
+                Headers retryHeaders = new RecordHeaders();
+                copyHeader(headers, retryHeaders, HEADER_ORIGINAL_TOPIC);
+                copyHeader(headers, retryHeaders, HEADER_ORIGINAL_KEY);
+                copyHeader(headers, retryHeaders, HEADER_ERROR_MESSAGE);
+                setHeader(retryHeaders, HEADER_RETRY_COUNT, String.valueOf(retryCount));
+                setHeader(retryHeaders, HEADER_RETRY_DUE_AT, String.valueOf(dueAt));
+                kafkaTemplate.send(new ProducerRecord<>(RETRY_TIER_TOPICS[tier], null, record.key(), message, retryHeaders))
+                        .get(RESEND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                log.info("Scheduled retry {} of message {} after {}ms via {}",
+                        retryCount, originalKey, RETRY_TIER_DELAYS_MS[tier], RETRY_TIER_TOPICS[tier]);
             } else {
                 // 超过最大重试次数，记录到错误日志并通知人工处理
                 log.error("Max retry count exceeded for message: {}", originalKey);
                 log.error("Error details: {}", errorMessage);
                 log.error("Original message: {}", message);
 
-                // 清理重试计数器
-                retryCounter.remove(retryKey);
-
                 // 发送告警通知（邮件、钉钉等）
                 sendAlertNotification(originalTopic, originalKey, errorMessage, message);
             }
+            acknowledgment.acknowledge();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acknowledgment.nack(Duration.ofMillis(RETRY_TIER_DELAYS_MS[0]));
         } catch (Exception e) {
-            log.error("Failed to process dead letter message: {}", e.getMessage(), e);
+            log.warn("Failed to forward dead letter message {} to retry tier, will retry: {}", originalKey, e.getMessage());
+            acknowledgment.nack(Duration.ofMillis(RETRY_TIER_DELAYS_MS[0]));
         }
     }
 
     /**
-     * 计算重试延迟（指数退避策略）
-     * @param retryCount 重试次数
-     * @return 延迟时间（毫秒）
+     * 监听延迟层级主题，到期后重发到原始主题
+     * 每个层级单独一个容器，一个层级的队首等待不影响其它层级
+     * @param record 待重试消息
+     * @param acknowledgment 位点确认
      */
-    private long calculateRetryDelay(int retryCount) {
-        // 基础延迟1秒，每次重试翻倍，最大延迟10分钟
-        long baseDelay = 1000;
-        long maxDelay = 10 * 60 * 1000;
-        long delay = baseDelay * (1 << (retryCount - 1));
-        return Math.min(delay, maxDelay);
+    @KafkaListener(id = "dead-letter-retry-1s", topics = DataRsyncConstants.KafkaTopic.ERROR_RETRY_TOPIC_1S,
+            groupId = "dead-letter-retry-group", containerFactory = DeadLetterRetryConfig.RETRY_LISTENER_CONTAINER_FACTORY)
+    @KafkaListener(id = "dead-letter-retry-5s", topics = DataRsyncConstants.KafkaTopic.ERROR_RETRY_TOPIC_5S,
+            groupId = "dead-letter-retry-group", containerFactory = DeadLetterRetryConfig.RETRY_LISTENER_CONTAINER_FACTORY)
+    @KafkaListener(id = "dead-letter-retry-30s", topics = DataRsyncConstants.KafkaTopic.ERROR_RETRY_TOPIC_30S,
+            groupId = "dead-letter-retry-group", containerFactory = DeadLetterRetryConfig.RETRY_LISTENER_CONTAINER_FACTORY)
+    @KafkaListener(id = "dead-letter-retry-2m", topics = DataRsyncConstants.KafkaTopic.ERROR_RETRY_TOPIC_2M,
+            groupId = "dead-letter-retry-group", containerFactory = DeadLetterRetryConfig.RETRY_LISTENER_CONTAINER_FACTORY)
+    @KafkaListener(id = "dead-letter-retry-10m", topics = DataRsyncConstants.KafkaTopic.ERROR_RETRY_TOPIC_10M,
+            groupId = "dead-letter-retry-group", containerFactory = DeadLetterRetryConfig.RETRY_LISTENER_CONTAINER_FACTORY)
+    public void handleRetryMessage(ConsumerRecord<String, String> record, Acknowledgment acknowledgment) {
+        Headers headers = record.headers();
+        long remaining = headerLong(headers, HEADER_RETRY_DUE_AT) - System.currentTimeMillis();
+        if (remaining > 0) {
+            // 未到期：回退到本条消息并暂停分区，容器继续 poll 保持心跳
+            acknowledgment.nack(Duration.ofMillis(Math.min(remaining, MAX_PAUSE_MS)));
+            return;
+        }
+
+        String originalTopic = headerString(headers, HEADER_ORIGINAL_TOPIC);
+        String originalKey = headerString(headers, HEADER_ORIGINAL_KEY);
+        if (originalTopic == null) {
+            log.error("Retry message without original topic dropped, key: {}", record.key());
+            acknowledgment.acknowledge();
+            return;
+        }
+        try {
+            // 重试状态随消息带回原始主题，消费方再次失败时通过 sendToDeadLetterQueue 的消息头参数延续计数
+            Headers resendHeaders = new RecordHeaders();
+            copyHeader(headers, resendHeaders, HEADER_RETRY_COUNT);
+            kafkaTemplate.send(new ProducerRecord<>(originalTopic, null, originalKey, record.value(), resendHeaders))
+                    .get(RESEND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            acknowledgment.acknowledge();
+            log.info("Resent message {} to original topic: {}", originalKey, originalTopic);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acknowledgment.nack(Duration.ofMillis(RETRY_TIER_DELAYS_MS[0]));
+        } catch (Exception e) {
+            log.warn("Failed to resend message {} to {}, will retry: {}", originalKey, originalTopic, e.getMessage());
+            acknowledgment.nack(Duration.ofMillis(RETRY_TIER_DELAYS_MS[0]));
+        }
     }
 
     /**
@@ -112,22 +194,46 @@ public class DeadLetterQueueHandler {
      */
     public void sendToDeadLetterQueue(String originalTopic, String originalKey, String message, String errorMessage) {
         try {
-            // 构建死信消息
-            org.springframework.messaging.Message<String> deadLetterMessage = MessageBuilder
-                    .withPayload(message)
-                    .setHeader("originalTopic", originalTopic)
-                    .setHeader("originalKey", originalKey)
-                    .setHeader("errorMessage", errorMessage)
-                    .build();
-
-            // 发送到死信队列
-            kafkaTemplate.send(DataRsyncConstants.KafkaTopic.ERROR_TOPIC, originalKey, message);
-            log.info("Sent message to dead letter queue: {}", originalKey);
+            sendToDeadLetterQueue(originalTopic, originalKey, message, errorMessage, null);
         } catch (Exception e) {
             log.error("Failed to send message to dead letter queue: {}", e.getMessage(), e);
         }
     }
 
+    /**
+     * 发送消息到死信队列，延续失败消息上的重试次数，等待 broker 确认
+     * 消费方应在本方法返回后再提交失败消息的位点
+     * @param originalTopic 原始主题
+     * @param originalKey 原始消息键
+     * @param message 消息内容
+     * @param errorMessage 错误信息
+     * @param failedHeaders 失败消息的消息头，可为 null
+     * @throws KafkaException 发送失败或超时
+     */
+    public void sendToDeadLetterQueue(String originalTopic, String originalKey, String message, String errorMessage,
+                                      Headers failedHeaders) {
+        // 构建死信消息
+        Headers headers = new RecordHeaders();
+        setHeader(headers, HEADER_ORIGINAL_TOPIC, originalTopic);
+        setHeader(headers, HEADER_ORIGINAL_KEY, originalKey);
+        setHeader(headers, HEADER_ERROR_MESSAGE, errorMessage);
+        if (failedHeaders != null) {
+            copyHeader(failedHeaders, headers, HEADER_RETRY_COUNT);
+        }
+
+        // 发送到死信队列
+        try {
+            kafkaTemplate.send(new ProducerRecord<>(DataRsyncConstants.KafkaTopic.ERROR_TOPIC, null, originalKey, message, headers))
+                    .get(RESEND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KafkaException("Interrupted while sending message " + originalKey + " to dead letter queue", e, true);
+        } catch (Exception e) {
+            throw new KafkaException("Failed to send message " + originalKey + " to dead letter queue: " + e.getMessage(), e, true);
+        }
+        log.info("Sent message to dead letter queue: {}", originalKey);
+    }
+
     /**
      * 发送消息到指定主题
      * @param topic 主题
@@ -206,4 +312,38 @@ public class DeadLetterQueueHandler {
         // 这里简化处理，只记录日志
         log.info("Sending DingTalk alert: {}", message.substring(0, Math.min(message.length(), 100)) + "...");
     }
+
+    private static String headerString(Headers headers, String name) {
+        Header header = headers.lastHeader(name);
+        return header != null && header.value() != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+    }
+
+    private static long headerLong(Headers headers, String name) {
+        String value = headerString(headers, name);
+        if (value == null) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+
+    private static int headerInt(Headers headers, String name) {
+        return (int) Math.max(0L, Math.min(Integer.MAX_VALUE, headerLong(headers, name)));
+    }
+
+    private static void setHeader(Headers headers, String name, String value) {
+        if (value != null) {
+            headers.add(name, value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void copyHeader(Headers source, Headers target, String name) {
+        Header header = source.lastHeader(name);
+        if (header != null) {
+            target.add(name, header.value());
+        }
+    }
 }
@@ -0,0 +1,49 @@
+package com.data.rsync.common.kafka;
+
+import jakarta.annotation.Resource;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+
+import java.util.Map;
+
+/**
+ * 死信主题和重试延迟主题消费配置
+ * 延迟主题的监听器对未到期的消息 nack，容器暂停分区并继续 poll，不阻塞消费线程，也不会因超过 max.poll.interval 触发再均衡；
+ * 死信主题的监听器在转发得到确认后才确认位点
+ */
+@Configuration
+public class DeadLetterRetryConfig {
+
+    /**
+     * 延迟主题容器工厂名称
+     */
+    public static final String RETRY_LISTENER_CONTAINER_FACTORY = "deadLetterRetryListenerContainerFactory";
+
+    @Resource
+    private KafkaProperties kafkaProperties;
+
+    /**
+     * 死信和延迟主题容器工厂，逐条消费并手动确认
+     * 消费者工厂不注册为 Bean，避免替换自动配置的消费者工厂
+     * @return 容器工厂
+     */
+    @Bean(RETRY_LISTENER_CONTAINER_FACTORY)
+    public ConcurrentKafkaListenerContainerFactory<String, String> deadLetterRetryListenerContainerFactory() {
+        Map<String, Object> props = kafkaProperties.buildConsumerProperties(null);
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.putIfAbsent(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        ConcurrentKafkaListenerContainerFactory<String, String> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(), new StringDeserializer()));
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL_IMMEDIATE);
+        return factory;
+    }
+
+}
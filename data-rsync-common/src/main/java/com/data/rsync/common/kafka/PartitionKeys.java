@@ -0,0 +1,286 @@
+package com.data.rsync.common.kafka;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Kafka 分区键
+ * 变更事件和全量记录统一以 表名 + 主键值 的稳定哈希作为消息键，同一行的所有事件落在同一分区，
+ * 下游可以按分区并行消费，同时保证单行更新按顺序应用。
+ *
+ * <p>表名只取最后一段并转小写，主键值按类型规范化（整数、定点数按数值，二进制按十六进制），
+ * 使 Debezium 变更事件与 JDBC 全量扫描读到的同一行得到相同的键。无主键的记录返回 null，由生产者自行分配分区。</p>
+ *
+ * <p>时间类型主键统一为 ISO-8601 文本：Debezium 以纪元天数、毫秒、微秒等编码的日期时间先经 {@link #logicalValue} 还原为 java.time 类型，
+ * JDBC 读到的 java.sql.Timestamp、Date、Time 按其本地日期时间取值。带时区的时间（Debezium ZonedTimestamp）按 UTC 时刻取值，
+ * JDBC 驱动以 java.sql.Timestamp 返回这类列时换算到 JVM 时区，两侧只在 JVM 时区为 UTC 时一致。</p>
+ */
+public final class PartitionKeys {
+
+    /**
+     * 消息体中携带分区键的字段，下游处理后按原键继续发送
+     */
+    public static final String FIELD = "partitionKey";
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final String DEBEZIUM_TIME_PREFIX = "io.debezium.time.";
+
+    private static final String CONNECT_DATE = "org.apache.kafka.connect.data.Date";
+
+    private static final String CONNECT_TIME = "org.apache.kafka.connect.data.Time";
+
+    private static final String CONNECT_TIMESTAMP = "org.apache.kafka.connect.data.Timestamp";
+
+    private PartitionKeys() {
+    }
+
+    /**
+     * 按主键值计算分区键
+     * @param tableName 表名，可带库名或模式名
+     * @param keyValues 主键值，按主键列顺序
+     * @return 分区键，无主键时返回 null
+     */
+    public static String forKey(String tableName, Object... keyValues) {
+        if (keyValues == null || keyValues.length == 0) {
+            return null;
+        }
+        long hash = hash(FNV_OFFSET_BASIS, normalizeTable(tableName));
+        for (Object value : keyValues) {
+            hash = hash(hash, "\u0001");
+            hash = hash(hash, canonical(value));
+        }
+        return toHex(hash);
+    }
+
+    /**
+     * 按行数据中的主键列计算分区键
+     * @param tableName 表名
+     * @param keyColumns 主键列
+     * @param row 行数据
+     * @return 分区键，无主键时返回 null
+     */
+    public static String forRow(String tableName, List<String> keyColumns, Map<String, Object> row) {
+        if (keyColumns == null || keyColumns.isEmpty() || row == null) {
+            return null;
+        }
+        Object[] keyValues = new Object[keyColumns.size()];
+        for (int i = 0; i < keyValues.length; i++) {
+            keyValues[i] = getIgnoreCase(row, keyColumns.get(i));
+        }
+        return forKey(tableName, keyValues);
+    }
+
+    /**
+     * 按 Kafka Connect 逻辑类型还原主键值，Debezium 以纪元数值编码的日期时间转为 java.time 类型，
+     * 与 JDBC 读到的同一值得到相同的分区键；其他类型原样返回
+     * @param logicalType 字段 schema 名称，如 io.debezium.time.MicroTimestamp，可为 null
+     * @param value 字段值
+     * @return 还原后的主键值
+     */
+    public static Object logicalValue(String logicalType, Object value) {
+        if (logicalType == null || value == null) {
+            return value;
+        }
+        if (value instanceof Date) {
+            Instant instant = ((Date) value).toInstant();
+            switch (logicalType) {
+                case CONNECT_DATE:
+                    return LocalDate.ofInstant(instant, ZoneOffset.UTC);
+                case CONNECT_TIME:
+                    return LocalTime.ofInstant(instant, ZoneOffset.UTC);
+                case CONNECT_TIMESTAMP:
+                    return LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+                default:
+                    return value;
+            }
+        }
+        if (!logicalType.startsWith(DEBEZIUM_TIME_PREFIX)) {
+            return value;
+        }
+        if (value instanceof String) {
+            return "io.debezium.time.ZonedTimestamp".equals(logicalType) ? OffsetDateTime.parse((String) value) : value;
+        }
+        if (!(value instanceof Number)) {
+            return value;
+        }
+        long number = ((Number) value).longValue();
+        switch (logicalType.substring(DEBEZIUM_TIME_PREFIX.length())) {
+            case "Date":
+                return LocalDate.ofEpochDay(number);
+            case "Time":
+                return LocalTime.ofNanoOfDay(number * 1_000_000L);
+            case "MicroTime":
+                return LocalTime.ofNanoOfDay(number * 1_000L);
+            case "NanoTime":
+                return LocalTime.ofNanoOfDay(number);
+            case "Timestamp":
+                return epochDateTime(number, 1_000L);
+            case "MicroTimestamp":
+                return epochDateTime(number, 1_000_000L);
+            case "NanoTimestamp":
+                return epochDateTime(number, 1_000_000_000L);
+            default:
+                return value;
+        }
+    }
+
+    /**
+     * 读取消息体中携带的分区键
+     * @param message 消息体
+     * @return 分区键，未携带时返回 null
+     */
+    public static String fromMessage(Map<String, Object> message) {
+        Object key = message != null ? message.get(FIELD) : null;
+        return key != null ? key.toString() : null;
+    }
+
+    /**
+     * 由分区键推导实体主键
+     * 分区键只取决于表名和主键值，同一行的插入、更新和删除得到相同的实体主键，与行内容无关
+     * @param key 分区键
+     * @return 正数实体主键
+     */
+    public static long toEntityId(String key) {
+        long id;
+        try {
+            id = Long.parseUnsignedLong(key, 16);
+        } catch (NumberFormatException e) {
+            id = hash(FNV_OFFSET_BASIS, key);
+        }
+        id &= Long.MAX_VALUE;
+        return id != 0L ? id : 1L;
+    }
+
+    private static LocalDateTime epochDateTime(long value, long unitsPerSecond) {
+        long nanosPerUnit = 1_000_000_000L / unitsPerSecond;
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(value, unitsPerSecond),
+                (int) (Math.floorMod(value, unitsPerSecond) * nanosPerUnit), ZoneOffset.UTC);
+    }
+
+    private static Object getIgnoreCase(Map<String, Object> row, String column) {
+        Object value = row.get(column);
+        if (value != null || row.containsKey(column)) {
+            return value;
+        }
+        for (Map.Entry<String, Object> entry : row.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(column)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static String normalizeTable(String tableName) {
+        if (tableName == null) {
+            return "";
+        }
+        int dot = tableName.lastIndexOf('.');
+        return (dot >= 0 ? tableName.substring(dot + 1) : tableName).toLowerCase(Locale.ROOT);
+    }
+
+    private static String canonical(Object value) {
+        if (value == null) {
+            return "\u0000";
+        }
+        if (value instanceof Long || value instanceof Integer || value instanceof Short
+                || value instanceof Byte || value instanceof BigInteger) {
+            return value.toString();
+        }
+        if (value instanceof BigDecimal) {
+            BigDecimal decimal = (BigDecimal) value;
+            return decimal.signum() == 0 ? "0" : decimal.stripTrailingZeros().toPlainString();
+        }
+        if (value instanceof byte[]) {
+            byte[] bytes = (byte[]) value;
+            return toHex(bytes, 0, bytes.length);
+        }
+        if (value instanceof ByteBuffer) {
+            ByteBuffer buffer = ((ByteBuffer) value).duplicate();
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            return toHex(bytes, 0, bytes.length);
+        }
+        String temporal = canonicalTemporal(value);
+        return temporal != null ? temporal : value.toString();
+    }
+
+    /**
+     * 时间类型的规范文本，java.sql 类型须先于 java.util.Date 判断
+     */
+    private static String canonicalTemporal(Object value) {
+        if (value instanceof java.sql.Timestamp) {
+            value = ((java.sql.Timestamp) value).toLocalDateTime();
+        } else if (value instanceof java.sql.Date) {
+            value = ((java.sql.Date) value).toLocalDate();
+        } else if (value instanceof java.sql.Time) {
+            value = ((java.sql.Time) value).toLocalTime();
+        } else if (value instanceof Date) {
+            value = ((Date) value).toInstant();
+        } else if (value instanceof OffsetDateTime) {
+            value = ((OffsetDateTime) value).toInstant();
+        } else if (value instanceof ZonedDateTime) {
+            value = ((ZonedDateTime) value).toInstant();
+        }
+        if (value instanceof LocalDateTime) {
+            return DateTimeFormatter.ISO_LOCAL_DATE_TIME.format((LocalDateTime) value);
+        }
+        if (value instanceof LocalDate) {
+            return DateTimeFormatter.ISO_LOCAL_DATE.format((LocalDate) value);
+        }
+        if (value instanceof LocalTime) {
+            return DateTimeFormatter.ISO_LOCAL_TIME.format((LocalTime) value);
+        }
+        if (value instanceof Instant) {
+            return DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(LocalDateTime.ofInstant((Instant) value, ZoneOffset.UTC));
+        }
+        return null;
+    }
+
+    private static long hash(long hash, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        for (byte b : bytes) {
+            hash ^= b & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static String toHex(long value) {
+        char[] chars = new char[16];
+        for (int i = 15; i >= 0; i--) {
+            chars[i] = HEX[(int) (value & 0xf)];
+            value >>>= 4;
+        }
+        return new String(chars);
+    }
+
+    private static String toHex(byte[] bytes, int offset, int length) {
+        char[] chars = new char[length * 2];
+        for (int i = 0; i < length; i++) {
+            int b = bytes[offset + i] & 0xff;
+            chars[i * 2] = HEX[b >>> 4];
+            chars[i * 2 + 1] = HEX[b & 0xf];
+        }
+        return new String(chars);
+    }
+
+}
@@ -0,0 +1,172 @@
+package com.data.rsync.common.plugin.desensitize;
+
+import com.data.rsync.common.row.Row;
+import com.data.rsync.common.row.TableSchema;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 表级脱敏计划
+ * 字段到脱敏器的映射在编译时一次解析完成，绑定行结构后按槽位排列；处理每个值时不再按字段名和类型查找插件。
+ * 实例不可变、线程安全
+ */
+@Slf4j
+public final class DesensitizePlan {
+
+    /**
+     * 不脱敏任何字段的计划
+     */
+    public static final DesensitizePlan NONE = new DesensitizePlan(Collections.emptyMap());
+
+    /**
+     * 按字段名索引的脱敏器
+     */
+    private final Map<String, Masker> maskers;
+
+    /**
+     * 最近一次绑定的行结构和对应的脱敏器
+     */
+    private volatile Binding binding;
+
+    private DesensitizePlan(Map<String, Masker> maskers) {
+        this.maskers = maskers;
+    }
+
+    /**
+     * 编译脱敏计划
+     * @param fieldTypes 字段名到脱敏类型的映射
+     * @param fieldConfigs 字段名到脱敏配置的映射，未列出的字段使用类型的默认配置，可为 null
+     * @return 脱敏计划
+     */
+    public static DesensitizePlan compile(Map<String, String> fieldTypes, Map<String, DesensitizeConfig> fieldConfigs) {
+        if (fieldTypes == null || fieldTypes.isEmpty()) {
+            return NONE;
+        }
+        DesensitizePluginManager manager = DesensitizePluginManager.getInstance();
+        Map<String, Masker> maskers = new HashMap<>();
+        for (Map.Entry<String, String> entry : fieldTypes.entrySet()) {
+            DesensitizeConfig config = fieldConfigs != null ? fieldConfigs.get(entry.getKey()) : null;
+            Masker masker = manager.compile(entry.getValue(), config);
+            if (masker == null) {
+                log.warn("No desensitize plugin found for type {} of field {}", entry.getValue(), entry.getKey());
+                continue;
+            }
+            maskers.put(entry.getKey(), masker);
+        }
+        return maskers.isEmpty() ? NONE : new DesensitizePlan(Collections.unmodifiableMap(maskers));
+    }
+
+    /**
+     * 是否没有需要脱敏的字段
+     * @return 是否为空
+     */
+    public boolean isEmpty() {
+        return maskers.isEmpty();
+    }
+
+    /**
+     * 需要脱敏的字段
+     * @return 字段名集合
+     */
+    public Set<String> fields() {
+        return maskers.keySet();
+    }
+
+    /**
+     * 字段的脱敏器
+     * @param field 字段名
+     * @return 脱敏器，不脱敏的字段返回 null
+     */
+    public Masker masker(String field) {
+        return maskers.get(field);
+    }
+
+    /**
+     * 按行结构排列脱敏器，同一结构重复绑定时直接返回上次结果
+     * @param schema 行结构
+     * @return 按槽位排列的脱敏器，不脱敏的槽位为 null
+     */
+    public Masker[] bind(TableSchema schema) {
+        Binding bound = binding;
+        if (bound == null || bound.schema != schema) {
+            Masker[] slots = new Masker[schema.size()];
+            for (int i = 0; i < slots.length; i++) {
+                slots[i] = maskers.get(schema.column(i));
+            }
+            bound = new Binding(schema, slots);
+            binding = bound;
+        }
+        return bound.slots;
+    }
+
+    /**
+     * 原地脱敏行
+     * @param row 行
+     */
+    public void apply(Row row) {
+        if (maskers.isEmpty()) {
+            return;
+        }
+        Masker[] slots = bind(row.schema());
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] != null && row.has(i)) {
+                row.set(i, mask(slots[i], row.get(i)));
+            }
+        }
+    }
+
+    /**
+     * 原地脱敏 Map
+     * @param data 数据
+     */
+    public void apply(Map<String, Object> data) {
+        if (data instanceof Row) {
+            apply((Row) data);
+            return;
+        }
+        if (maskers.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            Masker masker = maskers.get(entry.getKey());
+            if (masker != null) {
+                entry.setValue(mask(masker, entry.getValue()));
+            }
+        }
+    }
+
+    /**
+     * 脱敏单个值：字符串按字符脱敏，数值按十进制字符串脱敏，其它类型保持不变
+     * @param masker 脱敏器
+     * @param value 原值
+     * @return 脱敏后的值
+     */
+    public static Object mask(Masker masker, Object value) {
+        if (value instanceof String) {
+            return masker.mask((String) value);
+        }
+        if (value instanceof Number) {
+            String text = value.toString();
+            String masked = masker.mask(text);
+            return masked == text ? value : masked;
+        }
+        return value;
+    }
+
+    private static final class Binding {
+
+        final TableSchema schema;
+
+        final Masker[] slots;
+
+        Binding(TableSchema schema, Masker[] slots) {
+            this.schema = schema;
+            this.slots = slots;
+        }
+    }
+
+}
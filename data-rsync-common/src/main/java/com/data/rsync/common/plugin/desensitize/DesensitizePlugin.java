@@ -25,6 +25,16 @@ public interface DesensitizePlugin {
      */
     String desensitize(String data, DesensitizeConfig config);
 
+    /**
+     * 按脱敏配置编译脱敏器，编译结果可在多线程间复用
+     * 默认实现逐值调用 {@link #desensitize(String, DesensitizeConfig)}，内置插件返回不分配中间对象的脱敏器
+     * @param config 脱敏配置
+     * @return 脱敏器
+     */
+    default Masker compile(DesensitizeConfig config) {
+        return Maskers.adapt(this, config);
+    }
+
     /**
      * 检查是否支持该类型的脱敏
      * @param type 脱敏类型
@@ -1,13 +1,19 @@
 package com.data.rsync.common.plugin.desensitize;
 
+import com.data.rsync.common.plugin.desensitize.impl.BankCardDesensitizePlugin;
+import com.data.rsync.common.plugin.desensitize.impl.EmailDesensitizePlugin;
+import com.data.rsync.common.plugin.desensitize.impl.IdCardDesensitizePlugin;
+import com.data.rsync.common.plugin.desensitize.impl.NameDesensitizePlugin;
 import com.data.rsync.common.plugin.desensitize.impl.PhoneDesensitizePlugin;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 脱敏插件管理器
+ * 插件按配置编译为 {@link Masker}，默认配置的编译结果按类型缓存；批量脱敏应通过 {@link DesensitizePlan} 预先绑定字段
  */
 @Slf4j
 public class DesensitizePluginManager {
@@ -15,8 +21,13 @@ public class DesensitizePluginManager {
     private static final DesensitizePluginManager INSTANCE = new DesensitizePluginManager();
     private final Map<String, DesensitizePlugin> pluginMap;
 
+    /**
+     * 按默认配置编译的脱敏器
+     */
+    private final Map<String, Masker> defaultMaskers = new ConcurrentHashMap<>();
+
     private DesensitizePluginManager() {
-        pluginMap = new HashMap<>();
+        pluginMap = new ConcurrentHashMap<>();
         initDefaultPlugins();
         log.info("DesensitizePluginManager initialized");
     }
@@ -34,7 +45,10 @@ public class DesensitizePluginManager {
      */
     private void initDefaultPlugins() {
         registerPlugin(new PhoneDesensitizePlugin());
-        // 后续可以添加其他默认插件
+        registerPlugin(new EmailDesensitizePlugin());
+        registerPlugin(new IdCardDesensitizePlugin());
+        registerPlugin(new BankCardDesensitizePlugin());
+        registerPlugin(new NameDesensitizePlugin());
     }
 
     /**
@@ -43,6 +57,7 @@ public class DesensitizePluginManager {
      */
     public void registerPlugin(DesensitizePlugin plugin) {
         pluginMap.put(plugin.getType(), plugin);
+        defaultMaskers.remove(plugin.getType());
         log.info("Registered desensitize plugin: {}", plugin.getName());
     }
 
@@ -55,6 +70,38 @@ public class DesensitizePluginManager {
         return pluginMap.get(type);
     }
 
+    /**
+     * 编译脱敏器
+     * @param type 脱敏类型
+     * @param config 脱敏配置，为 null 时使用该类型的默认配置
+     * @return 脱敏器，没有对应插件时返回 null
+     */
+    public Masker compile(String type, DesensitizeConfig config) {
+        if (config == null) {
+            return getMasker(type);
+        }
+        DesensitizePlugin plugin = getPlugin(type);
+        return plugin != null ? plugin.compile(config) : null;
+    }
+
+    /**
+     * 获取按默认配置编译的脱敏器
+     * @param type 脱敏类型
+     * @return 脱敏器，没有对应插件时返回 null
+     */
+    public Masker getMasker(String type) {
+        Masker masker = defaultMaskers.get(type);
+        if (masker == null) {
+            DesensitizePlugin plugin = getPlugin(type);
+            if (plugin == null) {
+                return null;
+            }
+            masker = plugin.compile(DesensitizeConfig.getDefaultConfig(type));
+            defaultMaskers.put(type, masker);
+        }
+        return masker;
+    }
+
     /**
      * 执行脱敏处理
      * @param data 原始数据
@@ -62,14 +109,13 @@ public class DesensitizePluginManager {
      * @return 脱敏后的数据
      */
     public String desensitize(String data, String type) {
-        DesensitizePlugin plugin = getPlugin(type);
-        if (plugin == null) {
+        Masker masker = getMasker(type);
+        if (masker == null) {
             log.warn("No desensitize plugin found for type: {}", type);
             return data;
         }
 
-        DesensitizeConfig config = DesensitizeConfig.getDefaultConfig(type);
-        return plugin.desensitize(data, config);
+        return masker.mask(data);
     }
 
     /**
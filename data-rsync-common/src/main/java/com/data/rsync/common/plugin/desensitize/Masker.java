@@ -0,0 +1,61 @@
+package com.data.rsync.common.plugin.desensitize;
+
+/**
+ * 预编译的脱敏器
+ * 由脱敏插件按脱敏配置编译一次，之后对每个值只做一次顺序扫描和拷贝，不分配中间对象。
+ * 保留长度、最小长度和掩码长度都按 Unicode 码点计数：字符形式不会拆开代理对，字节形式不会拆开 UTF-8 多字节序列，
+ * 两种形式结果一致。缓冲区长度和返回值仍是 char 或 byte 个数。实现必须线程安全。
+ */
+public interface Masker {
+
+    /**
+     * 值不需要脱敏（长度不足或格式不匹配），调用方保留原值
+     */
+    int UNCHANGED = -1;
+
+    /**
+     * 脱敏结果的最大长度，调用方据此准备目标缓冲区
+     * @param length 原值长度（字符数或字节数）
+     * @return 结果最大长度
+     */
+    int maxMaskedLength(int length);
+
+    /**
+     * 脱敏字符序列
+     * @param src 原值
+     * @param srcOffset 原值起始位置
+     * @param length 原值长度
+     * @param dst 目标缓冲区，不能与原值区间重叠
+     * @param dstOffset 目标起始位置
+     * @return 写入的字符数，不需要脱敏时返回 {@link #UNCHANGED} 且不写入
+     */
+    int mask(char[] src, int srcOffset, int length, char[] dst, int dstOffset);
+
+    /**
+     * 脱敏 UTF-8 字节序列
+     * @param src 原值
+     * @param srcOffset 原值起始位置
+     * @param length 原值字节数
+     * @param dst 目标缓冲区，不能与原值区间重叠
+     * @param dstOffset 目标起始位置
+     * @return 写入的字节数，不需要脱敏时返回 {@link #UNCHANGED} 且不写入
+     */
+    int mask(byte[] src, int srcOffset, int length, byte[] dst, int dstOffset);
+
+    /**
+     * 脱敏字符串，使用线程内复用的缓冲区，只分配结果字符串；不需要脱敏时返回原字符串
+     * @param value 原值
+     * @return 脱敏后的值
+     */
+    default String mask(String value) {
+        if (value == null || value.isEmpty()) {
+            return value;
+        }
+        int length = value.length();
+        char[] scratch = Maskers.scratch(length + maxMaskedLength(length));
+        value.getChars(0, length, scratch, 0);
+        int written = mask(scratch, 0, length, scratch, length);
+        return written == UNCHANGED ? value : new String(scratch, length, written);
+    }
+
+}
@@ -0,0 +1,479 @@
+package com.data.rsync.common.plugin.desensitize;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 内置脱敏器
+ * 保留首尾（手机号、身份证号、银行卡号）、邮箱、姓名三类，按码点计数，对原值只扫描一次并直接写入目标缓冲区；
+ * 字符串输入走单独的路径，按码点定位后直接截取拼接，Latin-1 字符串的码点计算为常数时间
+ */
+public final class Maskers {
+
+    private Maskers() {
+    }
+
+    /**
+     * 字符串脱敏使用的线程内缓冲区
+     */
+    private static final ThreadLocal<char[]> SCRATCH = ThreadLocal.withInitial(() -> new char[256]);
+
+    /**
+     * 线程内缓冲区，容量不足时扩容
+     * @param capacity 需要的容量
+     * @return 缓冲区
+     */
+    static char[] scratch(int capacity) {
+        char[] buffer = SCRATCH.get();
+        if (buffer.length < capacity) {
+            buffer = new char[Math.max(capacity, buffer.length << 1)];
+            SCRATCH.set(buffer);
+        }
+        return buffer;
+    }
+
+    /**
+     * 保留首尾、遮盖中间
+     * @param prefixLength 保留的前缀码点数
+     * @param suffixLength 保留的后缀码点数
+     * @param maskLength 掩码个数，不大于 0 时按中间部分的码点数逐个遮盖
+     * @param maskChar 掩码字符
+     * @param minLength 最小码点数，短于该长度的值不脱敏
+     * @return 脱敏器
+     */
+    public static Masker keepEnds(int prefixLength, int suffixLength, int maskLength, String maskChar, int minLength) {
+        return new KeepEndsMasker(prefixLength, suffixLength, maskLength, maskChar, minLength);
+    }
+
+    /**
+     * 邮箱：保留用户名前缀和 @ 之后的域名
+     * @param prefixLength 保留的用户名前缀码点数
+     * @param maskLength 掩码个数，不大于 0 时按用户名其余部分的码点数逐个遮盖
+     * @param maskChar 掩码字符
+     * @return 脱敏器
+     */
+    public static Masker email(int prefixLength, int maskLength, String maskChar) {
+        return new EmailMasker(prefixLength, maskLength, maskChar);
+    }
+
+    /**
+     * 姓名：保留第一个字，其余每个字替换为一个掩码
+     * @param maskChar 掩码字符
+     * @return 脱敏器
+     */
+    public static Masker name(String maskChar) {
+        return new NameMasker(maskChar);
+    }
+
+    /**
+     * 按脱敏配置编译内置脱敏器
+     * @param type 脱敏类型（phone/idcard/bankcard/email/name）
+     * @param config 脱敏配置
+     * @return 脱敏器，类型不是内置类型时返回 null
+     */
+    public static Masker forType(String type, DesensitizeConfig config) {
+        switch (type) {
+            case "phone":
+                return keepEnds(config.getPrefixLength(), config.getSuffixLength(), config.getMaskLength(), config.getMaskChar(), 11);
+            case "idcard":
+                return keepEnds(config.getPrefixLength(), config.getSuffixLength(), config.getMaskLength(), config.getMaskChar(), 15);
+            case "bankcard":
+                return keepEnds(config.getPrefixLength(), config.getSuffixLength(), config.getMaskLength(), config.getMaskChar(), 12);
+            case "email":
+                return email(config.getPrefixLength(), config.getMaskLength(), config.getMaskChar());
+            case "name":
+                return name(config.getMaskChar());
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 包装只实现了字符串接口的插件，每次调用会分配临时字符串
+     * @param plugin 脱敏插件
+     * @param config 脱敏配置
+     * @return 脱敏器
+     */
+    static Masker adapt(DesensitizePlugin plugin, DesensitizeConfig config) {
+        return new PluginMasker(plugin, config);
+    }
+
+    /**
+     * 掩码的公共部分
+     */
+    private abstract static class AbstractMasker implements Masker {
+
+        final char maskChar;
+
+        final byte[] maskBytes;
+
+        /**
+         * 固定长度的掩码串，按码点逐个掩码时为空串
+         */
+        final String maskString;
+
+        AbstractMasker(String maskChar, int maskLength) {
+            String mask = maskChar == null || maskChar.isEmpty() ? "*" : maskChar;
+            this.maskChar = mask.charAt(0);
+            this.maskBytes = String.valueOf(this.maskChar).getBytes(StandardCharsets.UTF_8);
+            this.maskString = String.valueOf(this.maskChar).repeat(Math.max(0, maskLength));
+        }
+
+        int writeMask(char[] dst, int offset, int count) {
+            for (int i = 0; i < count; i++) {
+                dst[offset + i] = maskChar;
+            }
+            return offset + count;
+        }
+
+        int writeMask(byte[] dst, int offset, int count) {
+            if (maskBytes.length == 1) {
+                byte b = maskBytes[0];
+                for (int i = 0; i < count; i++) {
+                    dst[offset + i] = b;
+                }
+                return offset + count;
+            }
+            for (int i = 0; i < count; i++) {
+                System.arraycopy(maskBytes, 0, dst, offset, maskBytes.length);
+                offset += maskBytes.length;
+            }
+            return offset;
+        }
+
+        /**
+         * 字符串中第 count 个码点之后的位置，count 为负数时从末尾倒数；无代理对时直接按下标计算
+         */
+        static int offset(String value, int codePoints, int count) {
+            int base = count < 0 ? value.length() : 0;
+            if (codePoints == value.length()) {
+                return base + count;
+            }
+            return value.offsetByCodePoints(base, count);
+        }
+
+        /**
+         * 拼接字符串结果，Latin-1 字符串全程保持紧凑编码
+         */
+        String assemble(String value, int prefixEnd, int maskCount, int suffixStart) {
+            String mask = maskCount == maskString.length() ? maskString : String.valueOf(maskChar).repeat(maskCount);
+            return value.substring(0, prefixEnd) + mask + value.substring(suffixStart);
+        }
+    }
+
+    private static final class KeepEndsMasker extends AbstractMasker {
+
+        private final int prefixLength;
+
+        private final int suffixLength;
+
+        private final int maskLength;
+
+        private final int minLength;
+
+        KeepEndsMasker(int prefixLength, int suffixLength, int maskLength, String maskChar, int minLength) {
+            super(maskChar, maskLength);
+            this.prefixLength = Math.max(0, prefixLength);
+            this.suffixLength = Math.max(0, suffixLength);
+            this.maskLength = maskLength;
+            this.minLength = minLength;
+        }
+
+        @Override
+        public int maxMaskedLength(int length) {
+            return (length + Math.max(0, maskLength)) * maskBytes.length;
+        }
+
+        @Override
+        public String mask(String value) {
+            if (value == null) {
+                return null;
+            }
+            int length = value.length();
+            int codePoints = value.codePointCount(0, length);
+            if (codePoints < minLength || prefixLength + suffixLength >= codePoints) {
+                return value;
+            }
+            return assemble(value, offset(value, codePoints, prefixLength),
+                    maskLength > 0 ? maskLength : codePoints - prefixLength - suffixLength,
+                    offset(value, codePoints, -suffixLength));
+        }
+
+        @Override
+        public int mask(char[] src, int srcOffset, int length, char[] dst, int dstOffset) {
+            int end = srcOffset + length;
+            int codePoints = codePoints(src, srcOffset, end);
+            if (codePoints < minLength || prefixLength + suffixLength >= codePoints) {
+                return UNCHANGED;
+            }
+            int prefixEnd = advance(src, srcOffset, end, prefixLength);
+            int suffixStart = retreat(src, srcOffset, end, suffixLength);
+            int pos = dstOffset;
+            System.arraycopy(src, srcOffset, dst, pos, prefixEnd - srcOffset);
+            pos += prefixEnd - srcOffset;
+            pos = writeMask(dst, pos, maskLength > 0 ? maskLength : codePoints - prefixLength - suffixLength);
+            System.arraycopy(src, suffixStart, dst, pos, end - suffixStart);
+            pos += end - suffixStart;
+            return pos - dstOffset;
+        }
+
+        @Override
+        public int mask(byte[] src, int srcOffset, int length, byte[] dst, int dstOffset) {
+            int end = srcOffset + length;
+            int codePoints = codePoints(src, srcOffset, end);
+            if (codePoints < minLength || prefixLength + suffixLength >= codePoints) {
+                return UNCHANGED;
+            }
+            int prefixEnd = advance(src, srcOffset, end, prefixLength);
+            int suffixStart = retreat(src, srcOffset, end, suffixLength);
+            int pos = dstOffset;
+            System.arraycopy(src, srcOffset, dst, pos, prefixEnd - srcOffset);
+            pos += prefixEnd - srcOffset;
+            pos = writeMask(dst, pos, maskLength > 0 ? maskLength : codePoints - prefixLength - suffixLength);
+            System.arraycopy(src, suffixStart, dst, pos, end - suffixStart);
+            pos += end - suffixStart;
+            return pos - dstOffset;
+        }
+    }
+
+    private static final class EmailMasker extends AbstractMasker {
+
+        private final int prefixLength;
+
+        private final int maskLength;
+
+        EmailMasker(int prefixLength, int maskLength, String maskChar) {
+            super(maskChar, maskLength);
+            this.prefixLength = Math.max(0, prefixLength);
+            this.maskLength = maskLength;
+        }
+
+        @Override
+        public int maxMaskedLength(int length) {
+            return (length + Math.max(0, maskLength)) * maskBytes.length;
+        }
+
+        @Override
+        public String mask(String value) {
+            if (value == null) {
+                return null;
+            }
+            int at = value.indexOf('@');
+            if (at < 0) {
+                return value;
+            }
+            int localCodePoints = value.codePointCount(0, at);
+            if (localCodePoints <= prefixLength) {
+                return value;
+            }
+            int prefixEnd = localCodePoints == at ? prefixLength : value.offsetByCodePoints(0, prefixLength);
+            return assemble(value, prefixEnd, maskLength > 0 ? maskLength : localCodePoints - prefixLength, at);
+        }
+
+        @Override
+        public int mask(char[] src, int srcOffset, int length, char[] dst, int dstOffset) {
+            int end = srcOffset + length;
+            int at = srcOffset;
+            while (at < end && src[at] != '@') {
+                at++;
+            }
+            if (at == end) {
+                return UNCHANGED;
+            }
+            int localCodePoints = codePoints(src, srcOffset, at);
+            if (localCodePoints <= prefixLength) {
+                return UNCHANGED;
+            }
+            int prefixEnd = advance(src, srcOffset, at, prefixLength);
+            int pos = dstOffset;
+            System.arraycopy(src, srcOffset, dst, pos, prefixEnd - srcOffset);
+            pos += prefixEnd - srcOffset;
+            pos = writeMask(dst, pos, maskLength > 0 ? maskLength : localCodePoints - prefixLength);
+            System.arraycopy(src, at, dst, pos, end - at);
+            pos += end - at;
+            return pos - dstOffset;
+        }
+
+        @Override
+        public int mask(byte[] src, int srcOffset, int length, byte[] dst, int dstOffset) {
+            int end = srcOffset + length;
+            int at = srcOffset;
+            while (at < end && src[at] != '@') {
+                at++;
+            }
+            if (at == end) {
+                return UNCHANGED;
+            }
+            int localCodePoints = codePoints(src, srcOffset, at);
+            if (localCodePoints <= prefixLength) {
+                return UNCHANGED;
+            }
+            int prefixEnd = advance(src, srcOffset, at, prefixLength);
+            int pos = dstOffset;
+            System.arraycopy(src, srcOffset, dst, pos, prefixEnd - srcOffset);
+            pos += prefixEnd - srcOffset;
+            pos = writeMask(dst, pos, maskLength > 0 ? maskLength : localCodePoints - prefixLength);
+            System.arraycopy(src, at, dst, pos, end - at);
+            pos += end - at;
+            return pos - dstOffset;
+        }
+    }
+
+    private static final class NameMasker extends AbstractMasker {
+
+        NameMasker(String maskChar) {
+            super(maskChar, 0);
+        }
+
+        @Override
+        public int maxMaskedLength(int length) {
+            return length * maskBytes.length;
+        }
+
+        @Override
+        public String mask(String value) {
+            if (value == null) {
+                return null;
+            }
+            int codePoints = value.codePointCount(0, value.length());
+            if (codePoints < 2) {
+                return value;
+            }
+            return assemble(value, offset(value, codePoints, 1), codePoints - 1, value.length());
+        }
+
+        @Override
+        public int mask(char[] src, int srcOffset, int length, char[] dst, int dstOffset) {
+            int end = srcOffset + length;
+            int codePoints = codePoints(src, srcOffset, end);
+            if (codePoints < 2) {
+                return UNCHANGED;
+            }
+            int firstEnd = advance(src, srcOffset, end, 1);
+            System.arraycopy(src, srcOffset, dst, dstOffset, firstEnd - srcOffset);
+            return writeMask(dst, dstOffset + firstEnd - srcOffset, codePoints - 1) - dstOffset;
+        }
+
+        @Override
+        public int mask(byte[] src, int srcOffset, int length, byte[] dst, int dstOffset) {
+            int end = srcOffset + length;
+            int codePoints = codePoints(src, srcOffset, end);
+            if (codePoints < 2) {
+                return UNCHANGED;
+            }
+            int firstEnd = advance(src, srcOffset, end, 1);
+            System.arraycopy(src, srcOffset, dst, dstOffset, firstEnd - srcOffset);
+            return writeMask(dst, dstOffset + firstEnd - srcOffset, codePoints - 1) - dstOffset;
+        }
+    }
+
+    /**
+     * 插件适配，结果转换回字符或 UTF-8 字节
+     */
+    private static final class PluginMasker implements Masker {
+
+        private final DesensitizePlugin plugin;
+
+        private final DesensitizeConfig config;
+
+        PluginMasker(DesensitizePlugin plugin, DesensitizeConfig config) {
+            this.plugin = plugin;
+            this.config = config;
+        }
+
+        @Override
+        public int maxMaskedLength(int length) {
+            // 插件结果长度未知，按常见掩码长度预留
+            return length * 3 + 64;
+        }
+
+        @Override
+        public String mask(String value) {
+            return value == null || value.isEmpty() ? value : plugin.desensitize(value, config);
+        }
+
+        @Override
+        public int mask(char[] src, int srcOffset, int length, char[] dst, int dstOffset) {
+            String value = new String(src, srcOffset, length);
+            String masked = plugin.desensitize(value, config);
+            if (masked == null || masked.equals(value) || masked.length() > maxMaskedLength(length)) {
+                return UNCHANGED;
+            }
+            masked.getChars(0, masked.length(), dst, dstOffset);
+            return masked.length();
+        }
+
+        @Override
+        public int mask(byte[] src, int srcOffset, int length, byte[] dst, int dstOffset) {
+            String value = new String(src, srcOffset, length, StandardCharsets.UTF_8);
+            String masked = plugin.desensitize(value, config);
+            if (masked == null || masked.equals(value)) {
+                return UNCHANGED;
+            }
+            byte[] bytes = masked.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > maxMaskedLength(length)) {
+                return UNCHANGED;
+            }
+            System.arraycopy(bytes, 0, dst, dstOffset, bytes.length);
+            return bytes.length;
+        }
+    }
+
+    private static int codePoints(char[] src, int from, int to) {
+        int count = to - from;
+        for (int i = from + 1; i < to; i++) {
+            if (Character.isLowSurrogate(src[i]) && Character.isHighSurrogate(src[i - 1])) {
+                count--;
+            }
+        }
+        return count;
+    }
+
+    private static int advance(char[] src, int from, int to, int codePoints) {
+        int i = from;
+        for (int n = 0; n < codePoints && i < to; n++) {
+            i += Character.isHighSurrogate(src[i]) && i + 1 < to && Character.isLowSurrogate(src[i + 1]) ? 2 : 1;
+        }
+        return i;
+    }
+
+    private static int retreat(char[] src, int from, int to, int codePoints) {
+        int i = to;
+        for (int n = 0; n < codePoints && i > from; n++) {
+            i -= Character.isLowSurrogate(src[i - 1]) && i - 1 > from && Character.isHighSurrogate(src[i - 2]) ? 2 : 1;
+        }
+        return i;
+    }
+
+    private static int codePoints(byte[] src, int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if ((src[i] & 0xC0) != 0x80) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int advance(byte[] src, int from, int to, int codePoints) {
+        int i = from;
+        for (int n = 0; n < codePoints && i < to; n++) {
+            i++;
+            while (i < to && (src[i] & 0xC0) == 0x80) {
+                i++;
+            }
+        }
+        return i;
+    }
+
+    private static int retreat(byte[] src, int from, int to, int codePoints) {
+        int i = to;
+        for (int n = 0; n < codePoints && i > from; n++) {
+            i--;
+            while (i > from && (src[i] & 0xC0) == 0x80) {
+                i--;
+            }
+        }
+        return i;
+    }
+
+}
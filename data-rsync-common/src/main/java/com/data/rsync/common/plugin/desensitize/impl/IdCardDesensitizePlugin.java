@@ -0,0 +1,41 @@
+package com.data.rsync.common.plugin.desensitize.impl;
+
+import com.data.rsync.common.plugin.desensitize.DesensitizeConfig;
+import com.data.rsync.common.plugin.desensitize.DesensitizePlugin;
+import com.data.rsync.common.plugin.desensitize.Masker;
+import com.data.rsync.common.plugin.desensitize.Maskers;
+
+/**
+ * 身份证号脱敏插件
+ */
+public class IdCardDesensitizePlugin implements DesensitizePlugin {
+
+    private static final String NAME = "idcard-desensitize-plugin";
+    private static final String TYPE = "idcard";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+
+    @Override
+    public String desensitize(String data, DesensitizeConfig config) {
+        return compile(config).mask(data);
+    }
+
+    @Override
+    public Masker compile(DesensitizeConfig config) {
+        return Maskers.forType(TYPE, config);
+    }
+
+    @Override
+    public boolean supports(String type) {
+        return TYPE.equalsIgnoreCase(type);
+    }
+
+}
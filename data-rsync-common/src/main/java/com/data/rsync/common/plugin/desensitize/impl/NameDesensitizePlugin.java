@@ -0,0 +1,41 @@
+package com.data.rsync.common.plugin.desensitize.impl;
+
+import com.data.rsync.common.plugin.desensitize.DesensitizeConfig;
+import com.data.rsync.common.plugin.desensitize.DesensitizePlugin;
+import com.data.rsync.common.plugin.desensitize.Masker;
+import com.data.rsync.common.plugin.desensitize.Maskers;
+
+/**
+ * 姓名脱敏插件
+ */
+public class NameDesensitizePlugin implements DesensitizePlugin {
+
+    private static final String NAME = "name-desensitize-plugin";
+    private static final String TYPE = "name";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+
+    @Override
+    public String desensitize(String data, DesensitizeConfig config) {
+        return compile(config).mask(data);
+    }
+
+    @Override
+    public Masker compile(DesensitizeConfig config) {
+        return Maskers.forType(TYPE, config);
+    }
+
+    @Override
+    public boolean supports(String type) {
+        return TYPE.equalsIgnoreCase(type);
+    }
+
+}
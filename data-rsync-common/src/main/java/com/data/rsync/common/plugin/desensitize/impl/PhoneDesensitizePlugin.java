@@ -2,6 +2,8 @@ package com.data.rsync.common.plugin.desensitize.impl;
 
 import com.data.rsync.common.plugin.desensitize.DesensitizeConfig;
 import com.data.rsync.common.plugin.desensitize.DesensitizePlugin;
+import com.data.rsync.common.plugin.desensitize.Masker;
+import com.data.rsync.common.plugin.desensitize.Maskers;
 
 /**
  * 手机号脱敏插件
@@ -23,25 +25,12 @@ public class PhoneDesensitizePlugin implements DesensitizePlugin {
 
     @Override
     public String desensitize(String data, DesensitizeConfig config) {
-        if (data == null || data.isEmpty() || data.length() < 11) {
-            return data;
-        }
-
-        int prefixLength = config.getPrefixLength();
-        int suffixLength = config.getSuffixLength();
-        String maskChar = config.getMaskChar();
-        int maskLength = config.getMaskLength();
-
-        if (prefixLength + suffixLength >= data.length()) {
-            return data;
-        }
-
-        StringBuilder result = new StringBuilder();
-        result.append(data.substring(0, prefixLength));
-        result.append(maskChar.repeat(maskLength));
-        result.append(data.substring(data.length() - suffixLength));
+        return compile(config).mask(data);
+    }
 
-        return result.toString();
+    @Override
+    public Masker compile(DesensitizeConfig config) {
+        return Maskers.forType(TYPE, config);
     }
 
     @Override
@@ -0,0 +1,326 @@
+package com.data.rsync.common.row;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 按结构绑定的行
+ * 列名和槽位由共享的 {@link TableSchema} 描述，行本身只持有一个值数组：每行一次数组分配，不再为每列分配哈希节点。
+ * 实现 {@link Map} 接口，按 Map 处理数据的调用方无需修改；按槽位读写可跳过列名查找。
+ * 写入结构中没有的列时迁移到增加该列后的结构，删除列只清空槽位。非线程安全。
+ */
+public final class Row extends AbstractMap<String, Object> {
+
+    /**
+     * 已删除或未写入的槽位
+     */
+    private static final Object ABSENT = new Object();
+
+    private TableSchema schema;
+
+    private Object[] values;
+
+    private int size;
+
+    private transient Set<Map.Entry<String, Object>> entrySet;
+
+    /**
+     * 使用已填充的值数组创建行，所有列都存在
+     * @param schema 行结构
+     * @param values 值数组，长度不小于列数，由行接管
+     */
+    public Row(TableSchema schema, Object[] values) {
+        if (values.length < schema.size()) {
+            throw new IllegalArgumentException("Expected " + schema.size() + " values but got " + values.length);
+        }
+        this.schema = schema;
+        this.values = values;
+        this.size = schema.size();
+    }
+
+    /**
+     * 创建所有列都不存在的空行，按槽位写入后列才存在
+     * @param schema 行结构
+     * @return 空行
+     */
+    public static Row empty(TableSchema schema) {
+        Object[] values = new Object[schema.size()];
+        Arrays.fill(values, ABSENT);
+        Row row = new Row(schema, values);
+        row.size = 0;
+        return row;
+    }
+
+    /**
+     * 复制任意 Map 为行，Map 本身是行时复制其值数组
+     * @param map 源数据
+     * @return 行
+     */
+    public static Row copyOf(Map<String, ?> map) {
+        if (map instanceof Row) {
+            return ((Row) map).copy();
+        }
+        String[] columns = new String[map.size()];
+        Object[] values = new Object[columns.length];
+        int i = 0;
+        for (Map.Entry<String, ?> entry : map.entrySet()) {
+            columns[i] = entry.getKey();
+            values[i] = entry.getValue();
+            i++;
+        }
+        return new Row(TableSchema.of(columns), values);
+    }
+
+    /**
+     * 行结构
+     * @return 行结构
+     */
+    public TableSchema schema() {
+        return schema;
+    }
+
+    /**
+     * 按槽位读取
+     * @param slot 槽位
+     * @return 列值，列不存在时返回 null
+     */
+    public Object get(int slot) {
+        Object value = values[slot];
+        return value == ABSENT ? null : value;
+    }
+
+    /**
+     * 槽位上的列是否存在
+     * @param slot 槽位
+     * @return 是否存在
+     */
+    public boolean has(int slot) {
+        return values[slot] != ABSENT;
+    }
+
+    /**
+     * 按槽位写入
+     * @param slot 槽位
+     * @param value 列值
+     */
+    public void set(int slot, Object value) {
+        if (values[slot] == ABSENT) {
+            size++;
+        }
+        values[slot] = value;
+    }
+
+    /**
+     * 切换到槽位布局相同、列名不同的结构，值数组不变
+     * @param target 目标结构，列数必须与当前结构相同
+     */
+    public void rebind(TableSchema target) {
+        if (target.size() != schema.size()) {
+            throw new IllegalArgumentException("Schema " + target + " is not compatible with " + schema);
+        }
+        schema = target;
+    }
+
+    /**
+     * 将槽位上的列改名；新列名已存在时值移到该列并清空原槽位
+     * @param slot 槽位
+     * @param column 新列名
+     */
+    public void rename(int slot, String column) {
+        if (values[slot] == ABSENT || schema.column(slot).equals(column)) {
+            return;
+        }
+        int existing = schema.indexOf(column);
+        if (existing < 0) {
+            schema = schema.withRenamed(slot, column);
+            return;
+        }
+        set(existing, values[slot]);
+        values[slot] = ABSENT;
+        size--;
+    }
+
+    /**
+     * 复制行，结构共享，值数组复制
+     * @return 新行
+     */
+    public Row copy() {
+        Row row = new Row(schema, values.clone());
+        row.size = size;
+        return row;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        int slot = schema.indexOf(key);
+        return slot >= 0 && values[slot] != ABSENT;
+    }
+
+    @Override
+    public Object get(Object key) {
+        int slot = schema.indexOf(key);
+        return slot >= 0 ? get(slot) : null;
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        int slot = schema.indexOf(key);
+        if (slot >= 0) {
+            Object previous = values[slot];
+            set(slot, value);
+            return previous == ABSENT ? null : previous;
+        }
+        schema = schema.withColumn(key);
+        slot = schema.size() - 1;
+        if (values.length <= slot) {
+            int capacity = Math.max(schema.size(), values.length + (values.length >> 1) + 1);
+            values = Arrays.copyOf(values, capacity);
+        }
+        values[slot] = value;
+        size++;
+        return null;
+    }
+
+    @Override
+    public Object remove(Object key) {
+        int slot = schema.indexOf(key);
+        if (slot < 0 || values[slot] == ABSENT) {
+            return null;
+        }
+        Object previous = values[slot];
+        values[slot] = ABSENT;
+        size--;
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(values, 0, schema.size(), ABSENT);
+        size = 0;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        Set<Map.Entry<String, Object>> entries = entrySet;
+        if (entries == null) {
+            entries = new EntrySet();
+            entrySet = entries;
+        }
+        return entries;
+    }
+
+    private final class EntrySet extends AbstractSet<Map.Entry<String, Object>> {
+
+        @Override
+        public Iterator<Map.Entry<String, Object>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    private final class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+
+        private final TableSchema expectedSchema = schema;
+
+        private int next = advance(0);
+
+        private int last = -1;
+
+        @Override
+        public boolean hasNext() {
+            return next < expectedSchema.size();
+        }
+
+        @Override
+        public Map.Entry<String, Object> next() {
+            if (schema != expectedSchema) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            last = next;
+            next = advance(next + 1);
+            return new SlotEntry(last);
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0 || values[last] == ABSENT) {
+                throw new IllegalStateException();
+            }
+            values[last] = ABSENT;
+            size--;
+        }
+
+        private int advance(int from) {
+            int slot = from;
+            while (slot < expectedSchema.size() && values[slot] == ABSENT) {
+                slot++;
+            }
+            return slot;
+        }
+    }
+
+    private final class SlotEntry implements Map.Entry<String, Object> {
+
+        private final int slot;
+
+        SlotEntry(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        public String getKey() {
+            return schema.column(slot);
+        }
+
+        @Override
+        public Object getValue() {
+            return get(slot);
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            Object previous = get(slot);
+            set(slot, value);
+            return previous;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> other = (Map.Entry<?, ?>) o;
+            return getKey().equals(other.getKey()) && Objects.equals(getValue(), other.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return getKey().hashCode() ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+
+}
@@ -0,0 +1,146 @@
+package com.data.rsync.common.row;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 行结构
+ * 按顺序记录列名，列名到槽位的索引只建立一次，同一列序列的结构全局共享一个实例。
+ * 行增加列或列改名时通过 {@link #withColumn(String)}、{@link #withRenamed(int, String)} 迁移到新结构，
+ * 迁移结果缓存在原结构上，同一张表的行经过相同的处理步骤后仍共享同一组结构。实例不可变、线程安全。
+ */
+public final class TableSchema {
+
+    /**
+     * 全局共享的结构数上限，超过后新结构不再共享，避免键集合不固定的数据撑大结构表
+     */
+    private static final int MAX_INTERNED = 4096;
+
+    private static final Map<List<String>, TableSchema> INTERNED = new ConcurrentHashMap<>();
+
+    private static final TableSchema EMPTY = of();
+
+    private final String[] columns;
+
+    private final Map<String, Integer> indexes;
+
+    /**
+     * 增加列后的结构，键为新列名
+     */
+    private final Map<String, TableSchema> addTransitions = new ConcurrentHashMap<>();
+
+    /**
+     * 列改名后的结构，键为槽位和新列名
+     */
+    private final Map<String, TableSchema> renameTransitions = new ConcurrentHashMap<>();
+
+    private TableSchema(String[] columns) {
+        this.columns = columns;
+        this.indexes = new HashMap<>(Math.max(4, columns.length * 2));
+        for (int i = 0; i < columns.length; i++) {
+            if (indexes.putIfAbsent(columns[i], i) != null) {
+                throw new IllegalArgumentException("Duplicate column: " + columns[i]);
+            }
+        }
+    }
+
+    /**
+     * 获取列序列对应的共享结构
+     * @param columns 列名，不能重复
+     * @return 行结构
+     */
+    public static TableSchema of(String... columns) {
+        String[] copy = columns.clone();
+        List<String> key = Arrays.asList(copy);
+        TableSchema schema = INTERNED.get(key);
+        if (schema != null) {
+            return schema;
+        }
+        if (INTERNED.size() >= MAX_INTERNED) {
+            return new TableSchema(copy);
+        }
+        return INTERNED.computeIfAbsent(key, k -> new TableSchema(copy));
+    }
+
+    /**
+     * 空结构
+     * @return 不含任何列的结构
+     */
+    public static TableSchema empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 列数
+     * @return 列数
+     */
+    public int size() {
+        return columns.length;
+    }
+
+    /**
+     * 槽位对应的列名
+     * @param slot 槽位
+     * @return 列名
+     */
+    public String column(int slot) {
+        return columns[slot];
+    }
+
+    /**
+     * 列名对应的槽位
+     * @param column 列名
+     * @return 槽位，不存在时返回 -1
+     */
+    public int indexOf(Object column) {
+        Integer index = indexes.get(column);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * 在末尾增加一列后的结构
+     * @param column 列名，不能已存在
+     * @return 行结构
+     */
+    public TableSchema withColumn(String column) {
+        TableSchema next = addTransitions.get(column);
+        if (next == null) {
+            String[] extended = Arrays.copyOf(columns, columns.length + 1);
+            extended[columns.length] = column;
+            next = of(extended);
+            if (addTransitions.size() < MAX_INTERNED) {
+                addTransitions.putIfAbsent(column, next);
+            }
+        }
+        return next;
+    }
+
+    /**
+     * 槽位改名后的结构
+     * @param slot 槽位
+     * @param column 新列名，不能已存在
+     * @return 行结构
+     */
+    public TableSchema withRenamed(int slot, String column) {
+        String key = slot + ":" + column;
+        TableSchema next = renameTransitions.get(key);
+        if (next == null) {
+            String[] renamed = columns.clone();
+            renamed[slot] = column;
+            next = of(renamed);
+            if (renameTransitions.size() < MAX_INTERNED) {
+                renameTransitions.putIfAbsent(key, next);
+            }
+        }
+        return next;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(columns);
+    }
+
+}
@@ -0,0 +1,231 @@
+package com.data.rsync.common.shard;
+
+import com.data.rsync.common.adapter.DataSourceAdapter;
+import com.data.rsync.common.model.DataSource;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 基于统计信息的分片规划器
+ * 通过 {@link DataSourceAdapter} 读取估算行数、主键首尾值和主键采样分位点，生成行数均衡的主键范围分片。
+ * 分位点由数据库排序后的样本得出，因此整数、字符串、UUID 和复合主键都适用；
+ * 样本不足时单列整数主键退化为按 MIN/MAX 等宽切分
+ */
+@Slf4j
+public class ShardPlanner {
+
+    /**
+     * 默认每个分片的目标行数
+     */
+    public static final long DEFAULT_TARGET_ROWS_PER_SHARD = 500_000L;
+
+    /**
+     * 默认最大分片数
+     */
+    public static final int DEFAULT_MAX_SHARDS = 1024;
+
+    /**
+     * 每个分片的采样数，用于平滑分位点误差
+     */
+    private static final int SAMPLES_PER_SHARD = 32;
+
+    /**
+     * 最大采样数
+     */
+    private static final int MAX_SAMPLES = 100_000;
+
+    private final long targetRowsPerShard;
+
+    private final int maxShards;
+
+    public ShardPlanner() {
+        this(DEFAULT_TARGET_ROWS_PER_SHARD, DEFAULT_MAX_SHARDS);
+    }
+
+    public ShardPlanner(long targetRowsPerShard, int maxShards) {
+        this.targetRowsPerShard = Math.max(1, targetRowsPerShard);
+        this.maxShards = Math.max(1, maxShards);
+    }
+
+    /**
+     * 规划分片
+     * @param adapter 数据源适配器
+     * @param dataSource 数据源配置
+     * @param databaseName 数据库名称
+     * @param tableName 表名称
+     * @param keyColumns 主键列，为空时整表作为一个分片
+     * @param minShards 最少分片数（通常为任务并发度）
+     * @return 按主键升序排列、首尾无界且互不重叠的分片列表
+     */
+    public List<ShardRange> plan(DataSourceAdapter adapter, DataSource dataSource, String databaseName, String tableName,
+                                 List<String> keyColumns, int minShards) {
+        return plan(adapter, dataSource, databaseName, tableName, keyColumns, minShards, null);
+    }
+
+    /**
+     * 规划分片，并把规划时采集的主键样本追加到 sampleCollector，供扫描期间拆分子范围时选取拆分点，不必再次采样
+     * @param adapter 数据源适配器
+     * @param dataSource 数据源配置
+     * @param databaseName 数据库名称
+     * @param tableName 表名称
+     * @param keyColumns 主键列，为空时整表作为一个分片
+     * @param minShards 最少分片数（通常为任务并发度）
+     * @param sampleCollector 接收按主键升序排列的样本，为 null 时不收集；分片数不大于 1 时不采样
+     * @return 按主键升序排列、首尾无界且互不重叠的分片列表
+     */
+    public List<ShardRange> plan(DataSourceAdapter adapter, DataSource dataSource, String databaseName, String tableName,
+                                 List<String> keyColumns, int minShards, List<Object[]> sampleCollector) {
+        if (keyColumns == null || keyColumns.isEmpty()) {
+            log.warn("No primary key for {}.{}, scanning as a single shard", databaseName, tableName);
+            return Collections.singletonList(ShardRange.unbounded());
+        }
+
+        // 1. 估算行数并确定分片数
+        long estimatedRows = adapter.estimateRowCount(dataSource, databaseName, tableName);
+        int shardCount = calculateShardCount(estimatedRows, minShards);
+        if (shardCount <= 1) {
+            return Collections.singletonList(new ShardRange(0, null, null, estimatedRows));
+        }
+
+        // 2. 主键首尾值
+        List<Object[]> bounds = adapter.getPrimaryKeyBounds(dataSource, databaseName, tableName, keyColumns);
+        if (bounds.isEmpty()) {
+            return Collections.singletonList(new ShardRange(0, null, null, 0));
+        }
+
+        // 3. 采样分位点
+        List<Object[]> samples = sample(adapter, dataSource, databaseName, tableName, keyColumns, estimatedRows, shardCount);
+        if (sampleCollector != null) {
+            sampleCollector.addAll(samples);
+        }
+
+        List<Object[]> boundaries;
+        if (samples.size() >= shardCount * 2 || !isIntegral(keyColumns, bounds)) {
+            boundaries = quantiles(samples, shardCount);
+        } else {
+            boundaries = equalWidth(bounds.get(0)[0], bounds.get(1)[0], shardCount);
+        }
+
+        // 4. 由分界点生成首尾无界的左闭右开区间，覆盖扫描期间新增的越界主键
+        List<ShardRange> shards = new ArrayList<>(boundaries.size() + 1);
+        long rowsPerShard = estimatedRows / (boundaries.size() + 1);
+        Object[] lower = null;
+        for (Object[] boundary : boundaries) {
+            shards.add(new ShardRange(shards.size(), lower, boundary, rowsPerShard));
+            lower = boundary;
+        }
+        shards.add(new ShardRange(shards.size(), lower, null, rowsPerShard));
+
+        log.info("Planned {} shards for {}.{}: estimatedRows={}, samples={}, min={}, max={}",
+                shards.size(), databaseName, tableName, estimatedRows, samples.size(),
+                Arrays.toString(bounds.get(0)), Arrays.toString(bounds.get(1)));
+        return shards;
+    }
+
+    /**
+     * 采样主键，返回按主键升序排列的样本，用于扫描期间拆分子范围时选取拆分点
+     * @param adapter 数据源适配器
+     * @param dataSource 数据源配置
+     * @param databaseName 数据库名称
+     * @param tableName 表名称
+     * @param keyColumns 主键列
+     * @param minShards 最少分片数（通常为任务并发度），样本数按相应的分片数确定
+     * @return 主键样本，无主键时返回空列表
+     */
+    public List<Object[]> sampleKeys(DataSourceAdapter adapter, DataSource dataSource, String databaseName, String tableName,
+                                     List<String> keyColumns, int minShards) {
+        if (keyColumns == null || keyColumns.isEmpty()) {
+            return Collections.emptyList();
+        }
+        long estimatedRows = adapter.estimateRowCount(dataSource, databaseName, tableName);
+        int shardCount = Math.max(calculateShardCount(estimatedRows, minShards), Math.max(1, minShards));
+        return sample(adapter, dataSource, databaseName, tableName, keyColumns, estimatedRows, shardCount);
+    }
+
+    private List<Object[]> sample(DataSourceAdapter adapter, DataSource dataSource, String databaseName, String tableName,
+                                  List<String> keyColumns, long estimatedRows, int shardCount) {
+        int sampleSize = (int) Math.min((long) shardCount * SAMPLES_PER_SHARD, MAX_SAMPLES);
+        double sampleRate = estimatedRows > 0 ? Math.min(1.0, sampleSize * 1.2 / estimatedRows) : 1.0;
+        return adapter.samplePrimaryKeys(dataSource, databaseName, tableName, keyColumns, sampleRate, sampleSize * 2);
+    }
+
+    /**
+     * 计算分片数
+     * @param estimatedRows 估算行数
+     * @param minShards 最少分片数
+     * @return 分片数
+     */
+    public int calculateShardCount(long estimatedRows, int minShards) {
+        if (estimatedRows <= 0) {
+            return 1;
+        }
+        long bySize = (estimatedRows + targetRowsPerShard - 1) / targetRowsPerShard;
+        long count = Math.max(bySize, Math.max(1, minShards));
+        // 行数不足以填满每个并发时不再继续切分
+        count = Math.min(count, estimatedRows);
+        return (int) Math.min(count, maxShards);
+    }
+
+    /**
+     * 从升序样本中取等分位点，并去除相邻重复值
+     */
+    private List<Object[]> quantiles(List<Object[]> samples, int shardCount) {
+        List<Object[]> boundaries = new ArrayList<>(shardCount - 1);
+        if (samples.isEmpty()) {
+            return boundaries;
+        }
+        Object[] previous = null;
+        for (int i = 1; i < shardCount; i++) {
+            Object[] candidate = samples.get((int) ((long) i * samples.size() / shardCount));
+            if (previous == null || !Arrays.deepEquals(previous, candidate)) {
+                boundaries.add(candidate);
+                previous = candidate;
+            }
+        }
+        return boundaries;
+    }
+
+    /**
+     * 按 MIN/MAX 等宽切分整数主键
+     */
+    private List<Object[]> equalWidth(Object min, Object max, int shardCount) {
+        BigInteger low = toBigInteger(min);
+        BigInteger high = toBigInteger(max);
+        BigInteger span = high.subtract(low).add(BigInteger.ONE);
+        BigInteger count = BigInteger.valueOf(shardCount);
+        List<Object[]> boundaries = new ArrayList<>(shardCount - 1);
+        BigInteger previous = low;
+        for (int i = 1; i < shardCount; i++) {
+            BigInteger boundary = low.add(span.multiply(BigInteger.valueOf(i)).divide(count));
+            if (boundary.compareTo(previous) > 0) {
+                boundaries.add(new Object[]{boundary.bitLength() < 64 ? (Object) boundary.longValue() : boundary});
+                previous = boundary;
+            }
+        }
+        return boundaries;
+    }
+
+    private boolean isIntegral(List<String> keyColumns, List<Object[]> bounds) {
+        return keyColumns.size() == 1 && toBigInteger(bounds.get(0)[0]) != null && toBigInteger(bounds.get(1)[0]) != null;
+    }
+
+    private BigInteger toBigInteger(Object value) {
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return BigInteger.valueOf(((Number) value).longValue());
+        }
+        if (value instanceof BigInteger) {
+            return (BigInteger) value;
+        }
+        if (value instanceof BigDecimal && ((BigDecimal) value).scale() <= 0) {
+            return ((BigDecimal) value).toBigInteger();
+        }
+        return null;
+    }
+
+}
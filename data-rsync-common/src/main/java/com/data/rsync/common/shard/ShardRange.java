@@ -0,0 +1,60 @@
+package com.data.rsync.common.shard;
+
+import lombok.Data;
+
+import java.util.Arrays;
+
+/**
+ * 主键范围分片
+ * 左闭右开区间 [lowerBound, upperBound)，边界为按主键列顺序排列的键值，null 表示无界
+ */
+@Data
+public class ShardRange {
+
+    /**
+     * 分片索引
+     */
+    private int shardIndex;
+
+    /**
+     * 下界（包含），null 表示无下界
+     */
+    private Object[] lowerBound;
+
+    /**
+     * 上界（不包含），null 表示无上界
+     */
+    private Object[] upperBound;
+
+    /**
+     * 估算行数
+     */
+    private long estimatedRows;
+
+    public ShardRange() {
+    }
+
+    public ShardRange(int shardIndex, Object[] lowerBound, Object[] upperBound, long estimatedRows) {
+        this.shardIndex = shardIndex;
+        this.lowerBound = lowerBound;
+        this.upperBound = upperBound;
+        this.estimatedRows = estimatedRows;
+    }
+
+    /**
+     * 覆盖整张表的分片
+     * @return 无界分片
+     */
+    public static ShardRange unbounded() {
+        return new ShardRange(0, null, null, -1);
+    }
+
+    @Override
+    public String toString() {
+        return "ShardRange{shardIndex=" + shardIndex
+                + ", lowerBound=" + Arrays.toString(lowerBound)
+                + ", upperBound=" + Arrays.toString(upperBound)
+                + ", estimatedRows=" + estimatedRows + "}";
+    }
+
+}
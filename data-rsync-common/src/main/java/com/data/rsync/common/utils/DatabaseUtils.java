@@ -2,11 +2,13 @@ package com.data.rsync.common.utils;
 
 import com.data.rsync.common.constants.DataRsyncConstants;
 import com.data.rsync.common.model.DataSource;
+import com.data.rsync.common.shard.ShardRange;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.Statement;
+import java.util.List;
 import java.util.Properties;
 
 /**
@@ -67,6 +69,89 @@ public class DatabaseUtils {
         return "SELECT * FROM " + tableName + " WHERE " + primaryKey + " >= " + startId + " AND " + primaryKey + " <= " + endId;
     }
 
+    /**
+     * 构建主键范围分片查询语句
+     * @param tableName 表名
+     * @param keyColumns 主键列
+     * @param shard 分片，由 {@link com.data.rsync.common.shard.ShardPlanner} 生成
+     * @param params 输出参数，按占位符顺序追加边界值
+     * @return 带占位符的查询语句，按主键升序返回
+     */
+    public static String buildShardQuery(String tableName, List<String> keyColumns, ShardRange shard, List<Object> params) {
+        return buildKeyRangeQuery(tableName, "*", keyColumns, shard.getLowerBound(), true, shard.getUpperBound(), params);
+    }
+
+    /**
+     * 构建主键范围查询语句，用于按主键分页扫描
+     * @param tableName 表名
+     * @param selectColumns 查询字段
+     * @param keyColumns 主键列
+     * @param lowerBound 下界，null 表示无下界
+     * @param lowerInclusive 下界是否包含
+     * @param upperBound 上界（不包含），null 表示无上界
+     * @param params 输出参数，按占位符顺序追加边界值
+     * @return 带占位符的查询语句，按主键升序返回，调用方可追加 LIMIT 子句
+     */
+    public static String buildKeyRangeQuery(String tableName, String selectColumns, List<String> keyColumns,
+                                            Object[] lowerBound, boolean lowerInclusive, Object[] upperBound,
+                                            List<Object> params) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(selectColumns).append(" FROM ").append(tableName);
+        if (keyColumns == null || keyColumns.isEmpty()) {
+            return sql.toString();
+        }
+        if (lowerBound != null || upperBound != null) {
+            sql.append(" WHERE ");
+            if (lowerBound != null) {
+                appendKeyComparison(sql, keyColumns, lowerBound, true, lowerInclusive, params);
+            }
+            if (upperBound != null) {
+                if (lowerBound != null) {
+                    sql.append(" AND ");
+                }
+                appendKeyComparison(sql, keyColumns, upperBound, false, false, params);
+            }
+        }
+        sql.append(" ORDER BY ").append(String.join(", ", keyColumns));
+        return sql.toString();
+    }
+
+    /**
+     * 追加主键元组比较条件，复合主键按字典序展开，避免依赖行值构造器语法
+     * 例如 (a, b) >= (?, ?) 展开为 a >= ? AND (a > ? OR (a = ? AND b >= ?))，首列条件便于走索引范围扫描
+     * @param sql SQL 构建器
+     * @param keyColumns 主键列
+     * @param values 比较值，按主键列顺序排列
+     * @param greater true 为大于方向，false 为小于方向
+     * @param inclusive 是否包含等于
+     * @param params 输出参数
+     */
+    public static void appendKeyComparison(StringBuilder sql, List<String> keyColumns, Object[] values,
+                                           boolean greater, boolean inclusive, List<Object> params) {
+        String strict = greater ? " > ?" : " < ?";
+        String last = inclusive ? (greater ? " >= ?" : " <= ?") : strict;
+        int size = keyColumns.size();
+        if (size == 1) {
+            sql.append(keyColumns.get(0)).append(last);
+            params.add(values[0]);
+            return;
+        }
+        sql.append(keyColumns.get(0)).append(greater ? " >= ?" : " <= ?").append(" AND (");
+        params.add(values[0]);
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sql.append(" OR ");
+            }
+            sql.append('(');
+            for (int j = 0; j < i; j++) {
+                sql.append(keyColumns.get(j)).append(" = ? AND ");
+                params.add(values[j]);
+            }
+            sql.append(keyColumns.get(i)).append(i == size - 1 ? last : strict).append(')');
+            params.add(values[i]);
+        }
+        sql.append(')');
+    }
+
     /**
      * 创建数据库连接
      * @param dataSource 数据源
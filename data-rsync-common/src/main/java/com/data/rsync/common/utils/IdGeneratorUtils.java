@@ -2,8 +2,10 @@ package com.data.rsync.common.utils;
 
 import lombok.extern.slf4j.Slf4j;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 
@@ -14,20 +16,40 @@ import java.util.Map;
 @Slf4j
 public class IdGeneratorUtils {
 
+    private static final String VECTOR_FIELD = "vector";
+
+    private static final String RECORD_ID_FIELD = "recordId";
+
+    private static final String ID_FIELD = "id";
+
+    /**
+     * 值类型标记，不同类型的相同文本不会得到相同的字节序列
+     */
+    private static final int TAG_NULL = 0;
+    private static final int TAG_STRING = 1;
+    private static final int TAG_INTEGRAL = 2;
+    private static final int TAG_FLOATING = 3;
+    private static final int TAG_BOOLEAN = 4;
+    private static final int TAG_DECIMAL = 5;
+    private static final int TAG_LIST = 6;
+    private static final int TAG_MAP = 7;
+    private static final int TAG_BYTES = 8;
+    private static final int TAG_OTHER = 9;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final ThreadLocal<Murmur3Hasher> HASHER = ThreadLocal.withInitial(Murmur3Hasher::new);
+
     /**
      * 生成基于数据内容的稳定哈希作为主键
      * @param data 数据
-     * @return 稳定的主键ID
+     * @return 稳定的主键ID（128 位指纹的低 63 位）
      */
     public static Long generateStableLongId(Map<String, Object> data) {
         try {
-            // 构建数据指纹
-            StringBuilder fingerprint = buildDataFingerprint(data);
-            
-            // 计算哈希值
-            long hash = fingerprint.toString().hashCode();
-            // 确保哈希值为正数
-            return Math.abs(hash);
+            Murmur3Hasher hasher = fingerprint(data);
+            long id = hasher.hash1() & Long.MAX_VALUE;
+            return id != 0L ? id : 1L;
         } catch (Exception e) {
             log.error("Failed to generate stable long id: {}", e.getMessage(), e);
             // 生成基于时间戳的临时ID
@@ -38,17 +60,15 @@ public class IdGeneratorUtils {
     /**
      * 生成基于数据内容的稳定字符串作为记录标识
      * @param data 数据
-     * @return 稳定的记录标识
+     * @return 稳定的记录标识（128 位指纹的 32 位十六进制表示）
      */
     public static String generateStableStringId(Map<String, Object> data) {
         try {
-            // 构建数据指纹
-            StringBuilder fingerprint = buildDataFingerprint(data);
-            
-            // 计算哈希值
-            int hash = fingerprint.toString().hashCode();
-            // 确保哈希值为正数并转换为十六进制字符串
-            return Integer.toHexString(Math.abs(hash));
+            Murmur3Hasher hasher = fingerprint(data);
+            char[] hex = new char[32];
+            writeHex(hasher.hash2(), hex, 0);
+            writeHex(hasher.hash1(), hex, 16);
+            return new String(hex);
         } catch (Exception e) {
             log.error("Failed to generate stable string id: {}", e.getMessage(), e);
             // 生成基于时间戳的临时ID
@@ -57,79 +77,96 @@ public class IdGeneratorUtils {
     }
 
     /**
-     * 构建数据指纹
+     * 计算数据的 128 位指纹
+     * 每个字段的键和值单独哈希后按 128 位相加合并，结果与字段顺序无关，无需排序键；
+     * 值按类型编码直接写入哈希器，不构造中间字符串
      * @param data 数据
-     * @return 数据指纹
+     * @return 当前线程的哈希器，结果在下次调用前有效
      */
-    private static StringBuilder buildDataFingerprint(Map<String, Object> data) {
-        StringBuilder fingerprint = new StringBuilder();
-        
-        // 按键排序，确保顺序一致
-        List<String> sortedKeys = new ArrayList<>(data.keySet());
-        Collections.sort(sortedKeys);
-        
-        for (String key : sortedKeys) {
-            // 跳过向量字段和内部使用的字段
-            if (!"vector".equals(key) && !"recordId".equals(key) && !"id".equals(key)) {
-                Object value = data.get(key);
-                if (value != null) {
-                    // 处理不同类型的值
-                    String valueStr = processValue(value);
-                    fingerprint.append(key).append(":").append(valueStr).append("; ");
-                }
+    private static Murmur3Hasher fingerprint(Map<String, Object> data) {
+        Murmur3Hasher hasher = HASHER.get();
+        long sum1 = 0L;
+        long sum2 = 0L;
+        int fieldCount = 0;
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            String key = entry.getKey();
+            Object value = entry.getValue();
+            if (value == null || VECTOR_FIELD.equals(key) || RECORD_ID_FIELD.equals(key) || ID_FIELD.equals(key)) {
+                continue;
             }
+            hasher.reset().putString(key);
+            putValue(hasher, value);
+            hasher.finish();
+            long low = sum1 + hasher.hash1();
+            // 低 64 位进位到高 64 位
+            sum2 += hasher.hash2() + (Long.compareUnsigned(low, sum1) < 0 ? 1L : 0L);
+            sum1 = low;
+            fieldCount++;
         }
-        
-        return fingerprint;
+        return hasher.reset().putLong(sum1).putLong(sum2).putInt(fieldCount).finish();
     }
 
     /**
-     * 处理不同类型的值，确保生成一致的字符串表示
+     * 按类型写入值的规范编码：整数统一为 long，浮点统一为 double，BigDecimal 去掉尾随零，
+     * 列表按顺序、映射按键排序递归写入
+     * @param hasher 哈希器
      * @param value 值
-     * @return 处理后的值字符串
      */
-    private static String processValue(Object value) {
+    private static void putValue(Murmur3Hasher hasher, Object value) {
         if (value == null) {
-            return "null";
-        }
-        
-        // 处理集合类型
-        if (value instanceof List) {
+            hasher.putByte(TAG_NULL);
+        } else if (value instanceof CharSequence) {
+            hasher.putByte(TAG_STRING).putString((CharSequence) value);
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            hasher.putByte(TAG_INTEGRAL).putLong(((Number) value).longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            double d = ((Number) value).doubleValue();
+            // -0.0 与 0.0 视为相同，所有 NaN 视为相同
+            hasher.putByte(TAG_FLOATING).putLong(d == 0.0d ? 0L : Double.doubleToLongBits(d));
+        } else if (value instanceof Boolean) {
+            hasher.putByte(TAG_BOOLEAN).putByte((Boolean) value ? 1 : 0);
+        } else if (value instanceof BigInteger) {
+            BigInteger integer = (BigInteger) value;
+            if (integer.bitLength() < 64) {
+                hasher.putByte(TAG_INTEGRAL).putLong(integer.longValue());
+            } else {
+                hasher.putByte(TAG_DECIMAL).putBytes(integer.toByteArray()).putInt(0);
+            }
+        } else if (value instanceof BigDecimal) {
+            BigDecimal decimal = ((BigDecimal) value).stripTrailingZeros();
+            if (decimal.scale() <= 0 && decimal.precision() - decimal.scale() < 19) {
+                hasher.putByte(TAG_INTEGRAL).putLong(decimal.longValue());
+            } else {
+                hasher.putByte(TAG_DECIMAL).putBytes(decimal.unscaledValue().toByteArray()).putInt(decimal.scale());
+            }
+        } else if (value instanceof Character) {
+            hasher.putByte(TAG_STRING).putInt(1).putChar((Character) value);
+        } else if (value instanceof List) {
             List<?> list = (List<?>) value;
-            StringBuilder listStr = new StringBuilder("[");
-            for (int i = 0; i < list.size(); i++) {
-                if (i > 0) {
-                    listStr.append(", ");
-                }
-                listStr.append(processValue(list.get(i)));
+            hasher.putByte(TAG_LIST).putInt(list.size());
+            for (Object element : list) {
+                putValue(hasher, element);
             }
-            listStr.append("]");
-            return listStr.toString();
-        }
-        
-        // 处理映射类型
-        if (value instanceof Map) {
-            @SuppressWarnings("unchecked")
-            Map<String, Object> map = (Map<String, Object>) value;
-            StringBuilder mapStr = new StringBuilder("{");
-            
-            // 按键排序
-            List<String> sortedKeys = new ArrayList<>(map.keySet());
-            Collections.sort(sortedKeys);
-            
-            for (int i = 0; i < sortedKeys.size(); i++) {
-                String key = sortedKeys.get(i);
-                if (i > 0) {
-                    mapStr.append(", ");
-                }
-                mapStr.append(key).append(":").append(processValue(map.get(key)));
+        } else if (value instanceof Map) {
+            List<Map.Entry<?, ?>> entries = new ArrayList<>(((Map<?, ?>) value).entrySet());
+            entries.sort(Comparator.comparing(entry -> String.valueOf(entry.getKey())));
+            hasher.putByte(TAG_MAP).putInt(entries.size());
+            for (Map.Entry<?, ?> entry : entries) {
+                hasher.putString(String.valueOf(entry.getKey()));
+                putValue(hasher, entry.getValue());
             }
-            mapStr.append("}");
-            return mapStr.toString();
+        } else if (value instanceof byte[]) {
+            hasher.putByte(TAG_BYTES).putBytes((byte[]) value);
+        } else {
+            hasher.putByte(TAG_OTHER).putString(value.toString());
+        }
+    }
+
+    private static void writeHex(long value, char[] target, int offset) {
+        for (int i = 15; i >= 0; i--) {
+            target[offset + i] = HEX[(int) (value & 0xf)];
+            value >>>= 4;
         }
-        
-        // 处理基本类型
-        return value.toString();
     }
 
     /**
@@ -139,22 +176,36 @@ public class IdGeneratorUtils {
      */
     public static Long generateCompositeId(Object... fields) {
         try {
-            StringBuilder fingerprint = new StringBuilder();
+            Murmur3Hasher hasher = HASHER.get().reset();
+            hasher.putInt(fields.length);
             for (Object field : fields) {
-                if (field != null) {
-                    fingerprint.append(field.toString()).append("|");
-                } else {
-                    fingerprint.append("null|");
-                }
+                putValue(hasher, field);
             }
-            long hash = fingerprint.toString().hashCode();
-            return Math.abs(hash);
+            long id = hasher.finish().hash1() & Long.MAX_VALUE;
+            return id != 0L ? id : 1L;
         } catch (Exception e) {
             log.error("Failed to generate composite id: {}", e.getMessage(), e);
             return System.currentTimeMillis();
         }
     }
 
+    /**
+     * 由记录标识推导主键，与同一数据的 {@link #generateStableLongId(Map)} 结果一致
+     * @param recordId 记录标识
+     * @return 主键ID
+     */
+    public static Long toLongId(String recordId) {
+        if (recordId != null && recordId.length() == 32 && isValidRecordId(recordId)) {
+            try {
+                long id = Long.parseUnsignedLong(recordId.substring(16), 16) & Long.MAX_VALUE;
+                return id != 0L ? id : 1L;
+            } catch (NumberFormatException e) {
+                log.debug("Record id {} is not a fingerprint, hashing it instead", recordId);
+            }
+        }
+        return generateCompositeId(recordId);
+    }
+
     /**
      * 验证主键是否有效
      * @param id 主键
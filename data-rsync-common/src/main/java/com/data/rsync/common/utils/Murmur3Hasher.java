@@ -0,0 +1,238 @@
+package com.data.rsync.common.utils;
+
+/**
+ * 流式 MurmurHash3 x64 128 位哈希
+ * 字节按小端序写入 16 字节块，满块即混入状态，不缓存输入也不产生中间字符串；
+ * 实例可通过 {@link #reset()} 复用，非线程安全。对同一字节序列的结果与一次性计算的 MurmurHash3_x64_128 一致。
+ */
+public final class Murmur3Hasher {
+
+    private static final long C1 = 0x87c37b91114253d5L;
+
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private final long seed;
+
+    private long h1;
+
+    private long h2;
+
+    /**
+     * 当前块的低 8 字节和高 8 字节
+     */
+    private long k1;
+
+    private long k2;
+
+    /**
+     * 当前块已写入的字节数（0-15）
+     */
+    private int blockLength;
+
+    private long totalLength;
+
+    private long hash1;
+
+    private long hash2;
+
+    public Murmur3Hasher() {
+        this(0L);
+    }
+
+    public Murmur3Hasher(long seed) {
+        this.seed = seed;
+        reset();
+    }
+
+    /**
+     * 重置为初始状态
+     * @return 当前实例
+     */
+    public Murmur3Hasher reset() {
+        h1 = seed;
+        h2 = seed;
+        k1 = 0L;
+        k2 = 0L;
+        blockLength = 0;
+        totalLength = 0L;
+        return this;
+    }
+
+    /**
+     * 写入一个字节
+     * @param value 字节值（取低 8 位）
+     * @return 当前实例
+     */
+    public Murmur3Hasher putByte(int value) {
+        long b = value & 0xffL;
+        if (blockLength < 8) {
+            k1 |= b << (blockLength << 3);
+        } else {
+            k2 |= b << ((blockLength - 8) << 3);
+        }
+        totalLength++;
+        if (++blockLength == 16) {
+            mixBlock();
+        }
+        return this;
+    }
+
+    /**
+     * 写入 2 字节字符
+     * @param value 字符
+     * @return 当前实例
+     */
+    public Murmur3Hasher putChar(char value) {
+        return putByte(value).putByte(value >>> 8);
+    }
+
+    /**
+     * 写入 4 字节整数
+     * @param value 整数
+     * @return 当前实例
+     */
+    public Murmur3Hasher putInt(int value) {
+        return putByte(value).putByte(value >>> 8).putByte(value >>> 16).putByte(value >>> 24);
+    }
+
+    /**
+     * 写入 8 字节整数，按当前块内偏移拆分到两个半块，不逐字节写入
+     * @param value 整数
+     * @return 当前实例
+     */
+    public Murmur3Hasher putLong(long value) {
+        totalLength += 8;
+        if (blockLength < 8) {
+            int shift = blockLength << 3;
+            k1 |= value << shift;
+            if (shift > 0) {
+                k2 = value >>> (64 - shift);
+            }
+            blockLength += 8;
+            return this;
+        }
+        int shift = (blockLength - 8) << 3;
+        k2 |= value << shift;
+        mixBlock();
+        if (shift > 0) {
+            k1 = value >>> (64 - shift);
+            blockLength = shift >>> 3;
+        }
+        return this;
+    }
+
+    /**
+     * 写入字符序列：先写长度，再按 UTF-16 代码单元写入，不做字符集编码
+     * @param value 字符序列
+     * @return 当前实例
+     */
+    public Murmur3Hasher putString(CharSequence value) {
+        int length = value.length();
+        putInt(length);
+        int i = 0;
+        // 每 4 个字符拼成一个 long 写入
+        for (; i + 4 <= length; i += 4) {
+            putLong((long) value.charAt(i)
+                    | (long) value.charAt(i + 1) << 16
+                    | (long) value.charAt(i + 2) << 32
+                    | (long) value.charAt(i + 3) << 48);
+        }
+        for (; i < length; i++) {
+            putChar(value.charAt(i));
+        }
+        return this;
+    }
+
+    /**
+     * 写入字节数组：先写长度，再写内容
+     * @param value 字节数组
+     * @return 当前实例
+     */
+    public Murmur3Hasher putBytes(byte[] value) {
+        putInt(value.length);
+        for (byte b : value) {
+            putByte(b);
+        }
+        return this;
+    }
+
+    /**
+     * 结束本次计算，结果通过 {@link #hash1()} 和 {@link #hash2()} 读取；之后需 {@link #reset()} 才能再次写入
+     * @return 当前实例
+     */
+    public Murmur3Hasher finish() {
+        long a = h1;
+        long b = h2;
+        if (blockLength > 0) {
+            if (blockLength > 8) {
+                long k = k2 * C2;
+                k = Long.rotateLeft(k, 33);
+                k *= C1;
+                b ^= k;
+            }
+            long k = k1 * C1;
+            k = Long.rotateLeft(k, 31);
+            k *= C2;
+            a ^= k;
+        }
+        a ^= totalLength;
+        b ^= totalLength;
+        a += b;
+        b += a;
+        a = fmix(a);
+        b = fmix(b);
+        a += b;
+        b += a;
+        hash1 = a;
+        hash2 = b;
+        return this;
+    }
+
+    /**
+     * 128 位结果的低 64 位
+     * @return 哈希值
+     */
+    public long hash1() {
+        return hash1;
+    }
+
+    /**
+     * 128 位结果的高 64 位
+     * @return 哈希值
+     */
+    public long hash2() {
+        return hash2;
+    }
+
+    private void mixBlock() {
+        long k = k1 * C1;
+        k = Long.rotateLeft(k, 31);
+        k *= C2;
+        h1 ^= k;
+        h1 = Long.rotateLeft(h1, 27);
+        h1 += h2;
+        h1 = h1 * 5 + 0x52dce729;
+
+        k = k2 * C2;
+        k = Long.rotateLeft(k, 33);
+        k *= C1;
+        h2 ^= k;
+        h2 = Long.rotateLeft(h2, 31);
+        h2 += h1;
+        h2 = h2 * 5 + 0x38495ab5;
+
+        k1 = 0L;
+        k2 = 0L;
+        blockLength = 0;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+}
@@ -1,6 +1,10 @@
 package com.data.rsync.common.vectorizer;
 
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * 向量化器接口
@@ -8,12 +12,25 @@ import java.util.Map;
  */
 public interface Vectorizer {
 
+    /**
+     * 处理流程附加的内部字段（向量、记录标识、分区键、操作类型），不属于业务内容，不参与向量化
+     */
+    Set<String> INTERNAL_FIELDS = Set.of("vector", "recordId", "partitionKey", "op");
+
     /**
      * 获取向量化器名称
      * @return 向量化器名称
      */
     String getName();
 
+    /**
+     * 获取向量化器版本，算法或模型变化时应更新，用于区分缓存的向量
+     * @return 向量化器版本
+     */
+    default String getVersion() {
+        return "1";
+    }
+
     /**
      * 获取向量维度
      * @return 向量维度
@@ -34,6 +51,62 @@ public interface Vectorizer {
      */
     float[] vectorize(Map<String, Object> data);
 
+    /**
+     * 生成决定向量结果的规范化输入文本，作为按内容寻址复用向量的依据：文本相同的两条数据必须得到相同的向量。
+     * 默认按 {@link #vectorize(Map)} 的拼接方式生成 "字段: 值" 文本（跳过 {@link #INTERNAL_FIELDS}），做 Unicode NFC 规范化并合并连续空白；
+     * 对空白或 Unicode 等价形式敏感的实现应覆盖此方法返回原始文本，只使用部分字段或忽略大小写的实现可覆盖此方法让更多输入共用向量
+     * @param data 数据
+     * @return 规范化输入文本
+     */
+    default String embeddingText(Map<String, Object> data) {
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            if (entry.getValue() != null && !INTERNAL_FIELDS.contains(entry.getKey())) {
+                text.append(entry.getKey()).append(": ").append(entry.getValue()).append(' ');
+            }
+        }
+        return normalizeText(text);
+    }
+
+    /**
+     * 文本规范化：Unicode NFC，连续空白合并为一个空格，去掉首尾空白
+     * @param text 文本
+     * @return 规范化文本
+     */
+    static String normalizeText(CharSequence text) {
+        String composed = Normalizer.isNormalized(text, Normalizer.Form.NFC)
+                ? text.toString() : Normalizer.normalize(text, Normalizer.Form.NFC);
+        StringBuilder normalized = new StringBuilder(composed.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < composed.length(); i++) {
+            char c = composed.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = normalized.length() > 0;
+            } else {
+                if (pendingSpace) {
+                    normalized.append(' ');
+                    pendingSpace = false;
+                }
+                normalized.append(c);
+            }
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * 批量向量化数据，结果与输入一一对应
+     * 默认逐条调用 {@link #vectorize(Map)}，支持批量推理的实现应覆盖此方法
+     * @param dataList 数据列表
+     * @return 向量列表
+     */
+    default List<float[]> vectorizeBatch(List<Map<String, Object>> dataList) {
+        List<float[]> vectors = new ArrayList<>(dataList.size());
+        for (Map<String, Object> data : dataList) {
+            vectors.add(vectorize(data));
+        }
+        return vectors;
+    }
+
     /**
      * 初始化向量化器
      * @param config 配置参数
@@ -1,5 +1,6 @@
 package com.data.rsync.common.vectorizer;
 
+import com.data.rsync.common.vectorizer.impl.FeatureHashingVectorizer;
 import com.data.rsync.common.vectorizer.impl.TextFeatureVectorizer;
 import lombok.extern.slf4j.Slf4j;
 
@@ -35,6 +36,14 @@ public class VectorizerInitializer {
             log.error("Failed to register default TextFeature vectorizer: {}", e.getMessage(), e);
         }
 
+        // 注册特征哈希向量化器
+        try {
+            VectorizerFactory.registerVectorizer(new FeatureHashingVectorizer());
+            log.info("Registered default FeatureHashing vectorizer");
+        } catch (Exception e) {
+            log.error("Failed to register default FeatureHashing vectorizer: {}", e.getMessage(), e);
+        }
+
         // 注册其他向量化器
         // BERT 向量化器
         try {
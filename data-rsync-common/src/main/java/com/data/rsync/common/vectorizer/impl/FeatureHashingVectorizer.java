@@ -0,0 +1,207 @@
+package com.data.rsync.common.vectorizer.impl;
+
+import com.data.rsync.common.vectorizer.Vectorizer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+
+/**
+ * 特征哈希向量化器
+ * 文本切分为词元（字母数字连续段转小写，中日韩表意文字单字成词），每个词元哈希到固定维度的一个槽位并带正负号累加，
+ * 累加结果做亚线性词频加权和 L2 归一化。切词和哈希逐字符进行，不产生中间字符串；
+ * 加权和归一化在启用 jdk.incubator.vector 模块时使用 SIMD 实现。实例无状态，可并发使用。
+ *
+ * <p>对记录数据向量化时只使用字段值，跳过 {@link Vectorizer#INTERNAL_FIELDS} 中的内部字段；
+ * {@link #embeddingText} 返回同样规则下的词元序列，词元相同的记录共用缓存的向量。</p>
+ */
+@Slf4j
+public class FeatureHashingVectorizer implements Vectorizer {
+
+    /**
+     * 向量化器名称
+     */
+    public static final String NAME = "feature_hashing";
+
+    private static final String VERSION = "1";
+
+    private static final int DEFAULT_DIMENSION = 128;
+
+    private static final int FNV_OFFSET_BASIS = 0x811c9dc5;
+
+    private static final int FNV_PRIME = 0x01000193;
+
+    private final FloatKernels kernels = FloatKernels.instance();
+
+    /**
+     * 向量维度
+     */
+    private volatile int vectorDimension = DEFAULT_DIMENSION;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String getVersion() {
+        return VERSION;
+    }
+
+    @Override
+    public int getVectorDimension() {
+        return vectorDimension;
+    }
+
+    @Override
+    public float[] vectorize(String text) {
+        float[] vector = new float[vectorDimension];
+        if (text != null) {
+            accumulate(text, vector);
+        }
+        return finish(vector);
+    }
+
+    @Override
+    public float[] vectorize(Map<String, Object> data) {
+        float[] vector = new float[vectorDimension];
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            Object value = entry.getValue();
+            if (value == null || INTERNAL_FIELDS.contains(entry.getKey())) {
+                continue;
+            }
+            accumulate(value instanceof CharSequence ? (CharSequence) value : String.valueOf(value), vector);
+        }
+        return finish(vector);
+    }
+
+    /**
+     * 规范化输入文本为参与哈希的词元序列（小写、单个空格分隔），字段名和内部字段不参与，
+     * 大小写、标点或空白不同而词元相同的文本共用同一个向量
+     */
+    @Override
+    public String embeddingText(Map<String, Object> data) {
+        StringBuilder tokens = new StringBuilder();
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            Object value = entry.getValue();
+            if (value == null || INTERNAL_FIELDS.contains(entry.getKey())) {
+                continue;
+            }
+            appendTokens(value instanceof CharSequence ? (CharSequence) value : String.valueOf(value), tokens);
+        }
+        return tokens.toString();
+    }
+
+    @Override
+    public void initialize(Map<String, Object> config) {
+        if (config != null && config.containsKey("vectorDimension")) {
+            try {
+                int dimension = Integer.parseInt(config.get("vectorDimension").toString());
+                if (dimension > 0) {
+                    vectorDimension = dimension;
+                }
+            } catch (NumberFormatException e) {
+                log.warn("Invalid vector dimension in config, using: {}", vectorDimension);
+            }
+        }
+        log.info("FeatureHashingVectorizer initialized: dimension={}, kernels={}", vectorDimension, kernels.name());
+    }
+
+    @Override
+    public void close() {
+        log.info("Closing FeatureHashingVectorizer");
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    /**
+     * 切分词元并累加到向量
+     */
+    private void accumulate(CharSequence text, float[] vector) {
+        int hash = FNV_OFFSET_BASIS;
+        int tokenLength = 0;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (Character.isIdeographic(c)) {
+                    if (tokenLength > 0) {
+                        addToken(hash, vector);
+                        hash = FNV_OFFSET_BASIS;
+                        tokenLength = 0;
+                    }
+                    addToken((FNV_OFFSET_BASIS ^ c) * FNV_PRIME, vector);
+                } else {
+                    hash = (hash ^ Character.toLowerCase(c)) * FNV_PRIME;
+                    tokenLength++;
+                }
+            } else if (tokenLength > 0) {
+                addToken(hash, vector);
+                hash = FNV_OFFSET_BASIS;
+                tokenLength = 0;
+            }
+        }
+        if (tokenLength > 0) {
+            addToken(hash, vector);
+        }
+    }
+
+    /**
+     * 按 {@link #accumulate} 的切词规则追加词元
+     */
+    private static void appendTokens(CharSequence text, StringBuilder tokens) {
+        boolean inToken = false;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (Character.isIdeographic(c)) {
+                    separate(tokens);
+                    tokens.append(c);
+                    inToken = false;
+                } else {
+                    if (!inToken) {
+                        separate(tokens);
+                        inToken = true;
+                    }
+                    tokens.append(Character.toLowerCase(c));
+                }
+            } else {
+                inToken = false;
+            }
+        }
+    }
+
+    private static void separate(StringBuilder tokens) {
+        if (tokens.length() > 0) {
+            tokens.append(' ');
+        }
+    }
+
+    /**
+     * 词元哈希的高位决定槽位，最低位决定符号，符号抵消哈希冲突带来的偏差
+     */
+    private static void addToken(int hash, float[] vector) {
+        int mixed = fmix(hash);
+        int slot = (int) (((mixed >>> 1) & 0xffffffffL) * vector.length >>> 31);
+        vector[slot] += (mixed & 1) == 0 ? 1f : -1f;
+    }
+
+    private float[] finish(float[] vector) {
+        kernels.sublinearTf(vector);
+        kernels.normalize(vector);
+        return vector;
+    }
+
+    private static int fmix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+}
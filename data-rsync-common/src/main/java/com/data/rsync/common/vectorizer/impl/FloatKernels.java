@@ -0,0 +1,78 @@
+package com.data.rsync.common.vectorizer.impl;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 向量化器使用的浮点数组运算
+ * 运行时启用了 jdk.incubator.vector 模块（--add-modules jdk.incubator.vector）时使用 SIMD 实现，否则使用标量实现，
+ * 两者结果在浮点误差范围内一致
+ */
+@Slf4j
+abstract class FloatKernels {
+
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    private static final FloatKernels INSTANCE = load();
+
+    /**
+     * 获取当前运行时可用的最优实现
+     * @return 运算实现
+     */
+    static FloatKernels instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 亚线性词频加权：x -> sign(x) * ln(1 + |x|)
+     * @param values 数组，原地修改
+     */
+    abstract void sublinearTf(float[] values);
+
+    /**
+     * 平方和
+     * @param values 数组
+     * @return 平方和
+     */
+    abstract float sumOfSquares(float[] values);
+
+    /**
+     * 数乘
+     * @param values 数组，原地修改
+     * @param factor 系数
+     */
+    abstract void scale(float[] values, float factor);
+
+    /**
+     * 实现名称
+     * @return 名称
+     */
+    abstract String name();
+
+    /**
+     * L2 归一化，零向量保持不变
+     * @param values 数组，原地修改
+     */
+    void normalize(float[] values) {
+        float sum = sumOfSquares(values);
+        if (sum > 0f) {
+            scale(values, (float) (1.0d / Math.sqrt(sum)));
+        }
+    }
+
+    private static FloatKernels load() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+            try {
+                Class<?> simdClass = Class.forName("com.data.rsync.common.vectorizer.impl.SimdFloatKernels");
+                FloatKernels kernels = (FloatKernels) simdClass.getDeclaredConstructor().newInstance();
+                log.info("Using {} float kernels", kernels.name());
+                return kernels;
+            } catch (Throwable e) {
+                log.warn("Failed to load SIMD float kernels, falling back to scalar: {}", e.getMessage());
+            }
+        } else {
+            log.info("Module {} not enabled, using scalar float kernels", VECTOR_MODULE);
+        }
+        return new ScalarFloatKernels();
+    }
+
+}
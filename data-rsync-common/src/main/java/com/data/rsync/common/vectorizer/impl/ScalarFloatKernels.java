@@ -0,0 +1,40 @@
+package com.data.rsync.common.vectorizer.impl;
+
+/**
+ * 标量浮点运算实现
+ */
+final class ScalarFloatKernels extends FloatKernels {
+
+    @Override
+    void sublinearTf(float[] values) {
+        for (int i = 0; i < values.length; i++) {
+            float value = values[i];
+            if (value != 0f) {
+                float weight = (float) Math.log1p(Math.abs(value));
+                values[i] = value < 0f ? -weight : weight;
+            }
+        }
+    }
+
+    @Override
+    float sumOfSquares(float[] values) {
+        float sum = 0f;
+        for (float value : values) {
+            sum += value * value;
+        }
+        return sum;
+    }
+
+    @Override
+    void scale(float[] values, float factor) {
+        for (int i = 0; i < values.length; i++) {
+            values[i] *= factor;
+        }
+    }
+
+    @Override
+    String name() {
+        return "scalar";
+    }
+
+}
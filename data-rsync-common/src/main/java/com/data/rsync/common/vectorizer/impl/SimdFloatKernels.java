@@ -0,0 +1,68 @@
+package com.data.rsync.common.vectorizer.impl;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * 基于 jdk.incubator.vector 的 SIMD 浮点运算实现
+ * 只能通过 {@link FloatKernels#instance()} 在模块可用时反射加载，尾部不足一个向量宽度的元素按标量处理
+ */
+final class SimdFloatKernels extends FloatKernels {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    @Override
+    void sublinearTf(float[] values) {
+        int i = 0;
+        int upperBound = SPECIES.loopBound(values.length);
+        for (; i < upperBound; i += SPECIES.length()) {
+            FloatVector value = FloatVector.fromArray(SPECIES, values, i);
+            FloatVector weight = value.abs().lanewise(VectorOperators.LOG1P);
+            VectorMask<Float> negative = value.compare(VectorOperators.LT, 0f);
+            weight.blend(weight.neg(), negative).intoArray(values, i);
+        }
+        for (; i < values.length; i++) {
+            float value = values[i];
+            if (value != 0f) {
+                float weight = (float) Math.log1p(Math.abs(value));
+                values[i] = value < 0f ? -weight : weight;
+            }
+        }
+    }
+
+    @Override
+    float sumOfSquares(float[] values) {
+        int i = 0;
+        int upperBound = SPECIES.loopBound(values.length);
+        FloatVector accumulator = FloatVector.zero(SPECIES);
+        for (; i < upperBound; i += SPECIES.length()) {
+            FloatVector value = FloatVector.fromArray(SPECIES, values, i);
+            accumulator = value.fma(value, accumulator);
+        }
+        float sum = accumulator.reduceLanes(VectorOperators.ADD);
+        for (; i < values.length; i++) {
+            sum += values[i] * values[i];
+        }
+        return sum;
+    }
+
+    @Override
+    void scale(float[] values, float factor) {
+        int i = 0;
+        int upperBound = SPECIES.loopBound(values.length);
+        for (; i < upperBound; i += SPECIES.length()) {
+            FloatVector.fromArray(SPECIES, values, i).mul(factor).intoArray(values, i);
+        }
+        for (; i < values.length; i++) {
+            values[i] *= factor;
+        }
+    }
+
+    @Override
+    String name() {
+        return "simd-" + SPECIES.vectorBitSize();
+    }
+
+}
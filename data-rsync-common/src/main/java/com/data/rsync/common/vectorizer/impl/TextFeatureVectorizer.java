@@ -73,7 +73,21 @@ public class TextFeatureVectorizer implements Vectorizer {
             throw new IllegalStateException("Vectorizer not initialized");
         }
 
-        // 提取文本特征
+        return vectorize(extractText(data));
+    }
+
+    /**
+     * 向量值依赖文本长度和逐个字符，不做规范化，直接返回参与向量化的原始文本
+     */
+    @Override
+    public String embeddingText(Map<String, Object> data) {
+        return extractText(data);
+    }
+
+    /**
+     * 提取文本特征
+     */
+    private static String extractText(Map<String, Object> data) {
         StringBuilder textBuilder = new StringBuilder();
         for (Map.Entry<String, Object> entry : data.entrySet()) {
             String key = entry.getKey();
@@ -82,8 +96,7 @@ public class TextFeatureVectorizer implements Vectorizer {
                 textBuilder.append(key).append(": ").append(value.toString()).append(" ");
             }
         }
-
-        return vectorize(textBuilder.toString().trim());
+        return textBuilder.toString().trim();
     }
 
     @Override
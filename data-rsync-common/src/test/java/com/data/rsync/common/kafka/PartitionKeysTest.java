@@ -0,0 +1,89 @@
+package com.data.rsync.common.kafka;
+
+import com.data.rsync.common.utils.IdGeneratorUtils;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link PartitionKeys} 只取决于表名和主键值：同一行不同内容的事件得到相同的分区键和实体主键
+ */
+class PartitionKeysTest {
+
+    private static final List<String> KEY_COLUMNS = Collections.singletonList("sku");
+
+    @Test
+    void updateAndDeleteOfSameRowShareEntityId() {
+        // 更新事件携带变更后的行，删除事件携带删除前的行，内容不同
+        Map<String, Object> updated = row("A-1", "10.00");
+        Map<String, Object> deleted = row("A-1", "12.50");
+        String updateKey = PartitionKeys.forRow("inventory.products", KEY_COLUMNS, updated);
+        String deleteKey = PartitionKeys.forRow("PRODUCTS", KEY_COLUMNS, deleted);
+
+        assertEquals(updateKey, deleteKey);
+        assertEquals(PartitionKeys.toEntityId(updateKey), PartitionKeys.toEntityId(deleteKey));
+        assertTrue(PartitionKeys.toEntityId(updateKey) > 0);
+        // 内容指纹不同，不能作为实体主键
+        assertNotEquals(IdGeneratorUtils.generateStableStringId(updated), IdGeneratorUtils.generateStableStringId(deleted));
+    }
+
+    @Test
+    void differentRowsGetDifferentEntityIds() {
+        String first = PartitionKeys.forRow("products", KEY_COLUMNS, row("A-1", "10.00"));
+        String second = PartitionKeys.forRow("products", KEY_COLUMNS, row("A-2", "10.00"));
+        assertNotEquals(PartitionKeys.toEntityId(first), PartitionKeys.toEntityId(second));
+    }
+
+    @Test
+    void entityIdOfNonHexKeyIsPositive() {
+        assertTrue(PartitionKeys.toEntityId("not-a-partition-key") > 0);
+        assertEquals(PartitionKeys.toEntityId("not-a-partition-key"), PartitionKeys.toEntityId("not-a-partition-key"));
+    }
+
+    @Test
+    void temporalKeysFromSnapshotAndChangeEventsMatch() {
+        LocalDateTime created = LocalDateTime.of(2024, 3, 1, 8, 30, 15, 123_456_000);
+        long epochMicros = created.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + 123_456L;
+        // 全量扫描：驱动返回 java.sql.Timestamp 或 LocalDateTime
+        String fromTimestamp = PartitionKeys.forKey("orders", Timestamp.valueOf(created), 7L);
+        String fromLocal = PartitionKeys.forKey("orders", created, 7L);
+        // 变更事件：datetime(6) 编码为 io.debezium.time.MicroTimestamp
+        String fromEvent = PartitionKeys.forKey("server.shop.orders",
+                PartitionKeys.logicalValue("io.debezium.time.MicroTimestamp", epochMicros), 7L);
+        assertEquals(fromTimestamp, fromLocal);
+        assertEquals(fromTimestamp, fromEvent);
+
+        // 毫秒精度和整秒的 datetime
+        LocalDateTime whole = LocalDateTime.of(2024, 3, 1, 8, 30);
+        assertEquals(PartitionKeys.forKey("orders", Timestamp.valueOf(whole)),
+                PartitionKeys.forKey("orders", PartitionKeys.logicalValue("io.debezium.time.Timestamp",
+                        whole.toEpochSecond(ZoneOffset.UTC) * 1000L)));
+
+        // date 编码为纪元天数
+        LocalDate day = LocalDate.of(1969, 12, 31);
+        assertEquals(PartitionKeys.forKey("orders", java.sql.Date.valueOf(day)),
+                PartitionKeys.forKey("orders", PartitionKeys.logicalValue("io.debezium.time.Date", (int) day.toEpochDay())));
+
+        assertNotEquals(fromTimestamp, PartitionKeys.forKey("orders", Timestamp.valueOf(created.plusNanos(1_000)), 7L));
+    }
+
+    private static Map<String, Object> row(String sku, String price) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("sku", sku);
+        row.put("price", new BigDecimal(price));
+        return row;
+    }
+
+}
@@ -0,0 +1,89 @@
+package com.data.rsync.common.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * {@link Murmur3Hasher} 与参考实现 MurmurHash3_x64_128 的一致性
+ * 参考值取自 SMHasher 的 MurmurHash3_x64_128（"hello"、"The quick brown fox..." 与 Guava murmur3_128 的公开结果一致），
+ * 覆盖空输入、不足一块、恰好一块、跨块尾部和非零种子
+ */
+class Murmur3HasherTest {
+
+    private static final byte[] FOX = "The quick brown fox jumps over the lazy dog".getBytes(StandardCharsets.US_ASCII);
+
+    @Test
+    void matchesReferenceVectors() {
+        assertHash(0x0000000000000000L, 0x0000000000000000L, new byte[0], 0L);
+        assertHash(0xcbd8a7b341bd9b02L, 0x5b1e906a48ae1d19L, "hello".getBytes(StandardCharsets.US_ASCII), 0L);
+        assertHash(0xe34bbc7bbc071b6cL, 0x7a433ca9c49a9347L, FOX, 0L);
+        assertHash(0x47231598fd4925e9L, 0xcd846dee88c67de9L, sequence(15), 0L);
+        assertHash(0x444924b591903f30L, 0xab906456762fe845L, sequence(16), 0L);
+        assertHash(0x5c76f40f9fe7c20eL, 0xc15f026b9edaa824L, sequence(17), 0L);
+        assertHash(0x053dd3e1a32cd094L, 0x9ee59aefb4005490L, sequence(31), 0L);
+        assertHash(0x740dcf93fe0bd5d7L, 0xc4546cf4ec705c8fL, FOX, 42L);
+    }
+
+    @Test
+    void multiByteWritesMatchByteWrites() {
+        long value = 0x0123456789abcdefL;
+        // 在块内每个偏移处写入，覆盖 putLong 跨半块和跨块的拆分
+        for (int offset = 0; offset < 16; offset++) {
+            Murmur3Hasher bytewise = new Murmur3Hasher();
+            Murmur3Hasher typed = new Murmur3Hasher();
+            for (int i = 0; i < offset; i++) {
+                bytewise.putByte(i);
+                typed.putByte(i);
+            }
+            for (int i = 0; i < 8; i++) {
+                bytewise.putByte((int) (value >>> (i * 8)));
+            }
+            typed.putLong(value);
+            for (int i = 0; i < 4; i++) {
+                bytewise.putByte((int) (value >>> (i * 8)));
+            }
+            typed.putInt((int) value);
+            bytewise.putByte((int) value).putByte((int) (value >>> 8));
+            typed.putChar((char) value);
+            bytewise.finish();
+            typed.finish();
+            assertEquals(bytewise.hash1(), typed.hash1(), "hash1 at offset " + offset);
+            assertEquals(bytewise.hash2(), typed.hash2(), "hash2 at offset " + offset);
+        }
+    }
+
+    @Test
+    void resetRestartsComputation() {
+        Murmur3Hasher hasher = new Murmur3Hasher();
+        hasher.putString("previous input").finish();
+        hasher.reset();
+        for (byte b : FOX) {
+            hasher.putByte(b);
+        }
+        hasher.finish();
+        assertEquals(0xe34bbc7bbc071b6cL, hasher.hash1());
+        assertEquals(0x7a433ca9c49a9347L, hasher.hash2());
+    }
+
+    private static void assertHash(long expected1, long expected2, byte[] input, long seed) {
+        Murmur3Hasher hasher = new Murmur3Hasher(seed);
+        for (byte b : input) {
+            hasher.putByte(b);
+        }
+        hasher.finish();
+        assertEquals(expected1, hasher.hash1(), "hash1 of " + input.length + " bytes, seed " + seed);
+        assertEquals(expected2, hasher.hash2(), "hash2 of " + input.length + " bytes, seed " + seed);
+    }
+
+    private static byte[] sequence(int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) i;
+        }
+        return bytes;
+    }
+
+}
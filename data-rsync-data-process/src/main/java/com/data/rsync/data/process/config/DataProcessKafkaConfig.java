@@ -0,0 +1,143 @@
+package com.data.rsync.data.process.config;
+
+import com.data.rsync.common.kafka.BinaryKafkaSender;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.ExponentialBackOff;
+
+import java.util.Map;
+
+/**
+ * 数据处理 Kafka 配置
+ * 批量拉取变更和全量记录，每个分区同一时刻只由一个消费线程处理，实例数与线程数之和不超过分区数时可线性扩展；
+ * 关闭自动提交，整批处理结果被下游确认后才手动提交位点
+ */
+@Configuration
+@Slf4j
+public class DataProcessKafkaConfig {
+
+    /**
+     * 批量消费容器工厂名称
+     */
+    public static final String BATCH_LISTENER_CONTAINER_FACTORY = "dataProcessBatchListenerContainerFactory";
+
+    /**
+     * 一次批量处理的超时时间配置项（秒），监听线程在两次拉取之间最长阻塞这么久
+     */
+    public static final String RUN_TIMEOUT_PROPERTY = "data-process.pipeline.run-timeout-seconds";
+
+    public static final long DEFAULT_RUN_TIMEOUT_SECONDS = 240;
+
+    /**
+     * max.poll.interval.ms 在批量处理超时之外预留的余量（毫秒），覆盖解码、分组和位点提交
+     */
+    private static final long POLL_INTERVAL_MARGIN_MS = 60_000;
+
+    @Resource
+    private KafkaProperties kafkaProperties;
+
+    /**
+     * 每个实例的消费线程数
+     */
+    @Value("${data-process.consumer.concurrency:3}")
+    private int concurrency;
+
+    /**
+     * 单批最大记录数
+     */
+    @Value("${data-process.consumer.max-batch-size:500}")
+    private int maxBatchSize;
+
+    /**
+     * 攒批等待时间（毫秒），未达到 fetch-min-bytes 时 broker 最多等待该时间后返回
+     */
+    @Value("${data-process.consumer.linger-ms:100}")
+    private int lingerMs;
+
+    /**
+     * 单次拉取的最小字节数
+     */
+    @Value("${data-process.consumer.fetch-min-bytes:65536}")
+    private int fetchMinBytes;
+
+    /**
+     * 批次处理失败后的首次重试间隔（毫秒），之后按指数增长
+     */
+    @Value("${data-process.consumer.retry-interval-ms:1000}")
+    private long retryIntervalMs;
+
+    /**
+     * 批次处理失败后的最大重试间隔（毫秒）
+     */
+    @Value("${data-process.consumer.retry-max-interval-ms:60000}")
+    private long retryMaxIntervalMs;
+
+    @Value("${" + RUN_TIMEOUT_PROPERTY + ":" + DEFAULT_RUN_TIMEOUT_SECONDS + "}")
+    private long runTimeoutSeconds;
+
+    /**
+     * 批量消费容器工厂
+     * 消费者工厂不注册为 Bean，避免替换自动配置的字符串消费者工厂
+     * @return 容器工厂
+     */
+    @Bean(BATCH_LISTENER_CONTAINER_FACTORY)
+    public ConcurrentKafkaListenerContainerFactory<String, byte[]> dataProcessBatchListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, byte[]> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(createConsumerFactory());
+        factory.setBatchListener(true);
+        factory.setConcurrency(concurrency);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL_IMMEDIATE);
+        // 批次失败时回退到批次起点按指数退避无限重试，同一分区的记录不会越过失败的批次；
+        // 有限次数的退避在耗尽后会跳过并提交整批，等同于丢数据。无法解码的单条记录由监听器跳过，不会卡住分区
+        ExponentialBackOff backOff = new ExponentialBackOff(retryIntervalMs, 2.0);
+        backOff.setMaxInterval(Math.max(retryIntervalMs, retryMaxIntervalMs));
+        factory.setCommonErrorHandler(new DefaultErrorHandler(backOff));
+        log.info("Data process batch consumer configured: concurrency={}, maxBatchSize={}, lingerMs={}",
+                concurrency, maxBatchSize, lingerMs);
+        return factory;
+    }
+
+    /**
+     * 二进制消息发送器，用于发送二进制编码的处理结果
+     * @return 发送器
+     */
+    @Bean
+    public BinaryKafkaSender binaryKafkaSender() {
+        return new BinaryKafkaSender();
+    }
+
+    /**
+     * 批量消费者工厂，消息值按字节读取，由监听器按主题解码
+     */
+    private ConsumerFactory<String, byte[]> createConsumerFactory() {
+        Map<String, Object> props = kafkaProperties.buildConsumerProperties(null);
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxBatchSize);
+        props.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, fetchMinBytes);
+        props.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, lingerMs);
+        props.putIfAbsent(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        // 监听线程等待整批处理确认期间不调用 poll，max.poll.interval.ms 必须大于批量处理超时，否则超时前就被踢出消费组反复再均衡
+        long minPollIntervalMs = runTimeoutSeconds * 1000 + POLL_INTERVAL_MARGIN_MS;
+        Object configured = props.get(ConsumerConfig.MAX_POLL_INTERVAL_MS_CONFIG);
+        long pollIntervalMs = configured != null ? Long.parseLong(configured.toString()) : 0;
+        if (pollIntervalMs < minPollIntervalMs) {
+            props.put(ConsumerConfig.MAX_POLL_INTERVAL_MS_CONFIG, (int) Math.min(Integer.MAX_VALUE, minPollIntervalMs));
+        }
+        return new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(), new ByteArrayDeserializer());
+    }
+
+}
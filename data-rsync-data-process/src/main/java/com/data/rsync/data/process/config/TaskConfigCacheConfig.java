@@ -0,0 +1,40 @@
+package com.data.rsync.data.process.config;
+
+import com.data.rsync.common.cache.TaskConfigCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * 任务配置本地缓存配置
+ * 逐条记录的配置读取走进程内缓存，配置变更由任务管理服务通过 Redis 频道推送淘汰
+ */
+@Configuration
+public class TaskConfigCacheConfig {
+
+    /**
+     * 本地缓存的最大任务数
+     */
+    @Value("${task-config.cache.max-size:10000}")
+    private int maxSize;
+
+    /**
+     * 兜底过期时间（毫秒），变更通知丢失时最多在该时间后重新加载
+     */
+    @Value("${task-config.cache.ttl-ms:300000}")
+    private long ttlMs;
+
+    /**
+     * 任务配置缓存
+     * @param stringRedisTemplate 字符串 RedisTemplate
+     * @param connectionFactory Redis 连接工厂
+     * @return 任务配置缓存
+     */
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public TaskConfigCache taskConfigCache(StringRedisTemplate stringRedisTemplate, RedisConnectionFactory connectionFactory) {
+        return new TaskConfigCache(stringRedisTemplate, connectionFactory, maxSize, ttlMs);
+    }
+
+}
@@ -0,0 +1,47 @@
+package com.data.rsync.data.process.config;
+
+import com.data.rsync.common.vectorizer.VectorizerFactory;
+import com.data.rsync.common.vectorizer.VectorizerInitializer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 向量化器配置
+ * 启动时注册默认向量化器并按统一维度初始化，关闭时释放向量化器资源
+ */
+@Configuration
+@Slf4j
+public class VectorizerConfig {
+
+    /**
+     * 向量维度
+     */
+    @Value("${data-process.vectorizer.dimension:128}")
+    private int vectorDimension;
+
+    @PostConstruct
+    public void init() {
+        VectorizerInitializer.initialize();
+        Map<String, Object> config = new HashMap<>();
+        config.put("vectorDimension", vectorDimension);
+        for (String name : VectorizerFactory.getSupportedVectorizers()) {
+            try {
+                VectorizerFactory.initializeVectorizer(name, config);
+            } catch (Exception e) {
+                log.error("Failed to initialize vectorizer {}: {}", name, e.getMessage(), e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        VectorizerFactory.closeAllVectorizers();
+    }
+
+}
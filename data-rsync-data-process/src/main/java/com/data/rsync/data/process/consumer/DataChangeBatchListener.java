@@ -0,0 +1,137 @@
+package com.data.rsync.data.process.consumer;
+
+import com.data.rsync.common.constants.DataRsyncConstants;
+import com.data.rsync.common.event.ChangeEventView;
+import com.data.rsync.common.exception.DataProcessException;
+import com.data.rsync.common.kafka.PartitionKeys;
+import com.data.rsync.common.row.Row;
+import com.data.rsync.data.process.config.DataProcessKafkaConfig;
+import com.data.rsync.data.process.service.DataProcessService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 变更与全量记录批量消费者
+ * 按任务分组后交给 {@link DataProcessService#batchProcessData}，处理结果全部被下游确认后才提交位点；
+ * 任一任务处理失败时整批抛出异常，由容器回退到批次起点重新投递，已确认的记录按记录标识跳过
+ */
+@Component
+@Slf4j
+public class DataChangeBatchListener {
+
+    private static final TypeReference<Map<String, Object>> MESSAGE_TYPE = new TypeReference<Map<String, Object>>() {
+    };
+
+    @Resource
+    private DataProcessService dataProcessService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * 消费增量变更事件（二进制编码）
+     * @param records 本批记录
+     * @param acknowledgment 位点确认
+     */
+    @KafkaListener(id = "data-process-change", topics = DataRsyncConstants.KafkaTopic.DATA_CHANGE_TOPIC,
+            groupId = "${data-process.consumer.group-id:data-process-group}",
+            containerFactory = DataProcessKafkaConfig.BATCH_LISTENER_CONTAINER_FACTORY)
+    public void onChangeEvents(List<ConsumerRecord<String, byte[]>> records, Acknowledgment acknowledgment) {
+        Map<Long, List<Map<String, Object>>> dataByTask = new LinkedHashMap<>();
+        ChangeEventView view = new ChangeEventView();
+        for (ConsumerRecord<String, byte[]> record : records) {
+            if (record.value() == null) {
+                continue;
+            }
+            Map<String, Object> data;
+            long taskId;
+            try {
+                view.reset(ByteBuffer.wrap(record.value()));
+                data = view.toRow(view.keyImage());
+                if (data == null) {
+                    continue;
+                }
+                data.put("op", view.operationType());
+                taskId = view.taskId();
+            } catch (Exception e) {
+                // 无法解码的事件重试也不会成功，记录后跳过，不能让整批无限重试卡住分区
+                log.error("Skipping undecodable change event at {}-{}@{}: {}",
+                        record.topic(), record.partition(), record.offset(), e.getMessage());
+                continue;
+            }
+            if (record.key() != null) {
+                data.put(PartitionKeys.FIELD, record.key());
+            }
+            dataByTask.computeIfAbsent(taskId, k -> new ArrayList<>()).add(data);
+        }
+        process(dataByTask, records.size(), DataRsyncConstants.KafkaTopic.DATA_CHANGE_TOPIC);
+        acknowledgment.acknowledge();
+    }
+
+    /**
+     * 消费全量同步记录（JSON 编码）
+     * @param records 本批记录
+     * @param acknowledgment 位点确认
+     */
+    @KafkaListener(id = "data-process-full-sync", topics = DataRsyncConstants.KafkaTopic.DATA_FULL_SYNC_TOPIC,
+            groupId = "${data-process.consumer.group-id:data-process-group}",
+            containerFactory = DataProcessKafkaConfig.BATCH_LISTENER_CONTAINER_FACTORY)
+    public void onFullSyncRecords(List<ConsumerRecord<String, byte[]>> records, Acknowledgment acknowledgment) {
+        Map<Long, List<Map<String, Object>>> dataByTask = new LinkedHashMap<>();
+        for (ConsumerRecord<String, byte[]> record : records) {
+            if (record.value() == null) {
+                continue;
+            }
+            Map<String, Object> message;
+            try {
+                message = objectMapper.readValue(record.value(), MESSAGE_TYPE);
+            } catch (Exception e) {
+                // 无法解析的消息重试也不会成功，记录后跳过
+                log.error("Skipping malformed full sync record at {}-{}@{}: {}",
+                        record.topic(), record.partition(), record.offset(), e.getMessage());
+                continue;
+            }
+            Object taskId = message.get("taskId");
+            Object row = message.get("data");
+            if (!(taskId instanceof Number) || !(row instanceof Map)) {
+                log.error("Skipping full sync record without taskId or data at {}-{}@{}",
+                        record.topic(), record.partition(), record.offset());
+                continue;
+            }
+            @SuppressWarnings("unchecked")
+            Map<String, Object> data = Row.copyOf((Map<String, Object>) row);
+            if (message.get("op") != null) {
+                data.put("op", message.get("op"));
+            }
+            String partitionKey = record.key() != null ? record.key() : PartitionKeys.fromMessage(message);
+            if (partitionKey != null) {
+                data.put(PartitionKeys.FIELD, partitionKey);
+            }
+            dataByTask.computeIfAbsent(((Number) taskId).longValue(), k -> new ArrayList<>()).add(data);
+        }
+        process(dataByTask, records.size(), DataRsyncConstants.KafkaTopic.DATA_FULL_SYNC_TOPIC);
+        acknowledgment.acknowledge();
+    }
+
+    private void process(Map<Long, List<Map<String, Object>>> dataByTask, int recordCount, String topic) {
+        for (Map.Entry<Long, List<Map<String, Object>>> entry : dataByTask.entrySet()) {
+            if (!dataProcessService.batchProcessData(entry.getKey(), entry.getValue())) {
+                throw new DataProcessException("Failed to process " + entry.getValue().size()
+                        + " records of task " + entry.getKey() + " from " + topic, true);
+            }
+        }
+        log.debug("Processed batch of {} records from {} for {} tasks", recordCount, topic, dataByTask.size());
+    }
+
+}
@@ -0,0 +1,327 @@
+package com.data.rsync.data.process.dedup;
+
+import com.data.rsync.common.constants.DataRsyncConstants;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.BitFieldSubCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 已处理记录标记存储
+ * 标记按写入日期（UTC）分桶，每个任务每天一个布隆过滤器位图（processed_bloom:&lt;taskId&gt;:&lt;day&gt;）
+ * 加按哈希前缀分片的精确标记哈希表（processed_record:&lt;taskId&gt;:&lt;day&gt;:&lt;shard&gt;）。
+ * 桶的过期时间固定为当天结束后 ttlDays 天，写入不会续期，旧桶整体过期，哈希表和布隆位图都不会无限增长；
+ * 布隆过滤器按每天的预期写入量和误判率确定位数，每天换新的位图，不会随运行时间饱和。
+ * 查询覆盖保留期内的全部桶：先按批次流水线读取各桶的布隆位，绝大多数新记录在这一步即可判定未处理，
+ * 只有可能命中的记录才再流水线读取对应桶的精确标记；标记写入当天的桶，同样按批次流水线完成。
+ * 清理任务时删除固定数量的键，不再扫描键空间。
+ *
+ * <p>布隆过滤器放在 Redis 位图（BITFIELD）中而不是进程内：标记由处理同一任务的所有节点共享，且需要在重启后保留，
+ * 进程内过滤器做不到；代价是每批多一次流水线往返。</p>
+ *
+ * <p>记录标识是内容指纹，标记只表示"这份内容已处理过"，不含顺序信息。批内同一内容只保留最后一次出现，
+ * 因此同一批中的 A→B→A 最终落到 A；跨批次时第二次出现的 A 会被判定为已处理而跳过，A→B→A 最终停在 B，
+ * 直到 A 的标记过期。</p>
+ */
+@Component
+@Slf4j
+public class ProcessedRecordStore {
+
+    private static final RedisSerializer<String> SERIALIZER = RedisSerializer.string();
+
+    private static final byte[] MARKER = "1".getBytes(StandardCharsets.UTF_8);
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static final long SECONDS_PER_DAY = TimeUnit.DAYS.toSeconds(1);
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 每个任务每天预期写入的标记数，用于确定布隆过滤器位数
+     */
+    @Value("${data-process.dedup.bloom-expected-insertions:2000000}")
+    private long bloomExpectedInsertions;
+
+    /**
+     * 布隆过滤器在预期写入量下的误判率
+     */
+    @Value("${data-process.dedup.bloom-fpp:0.01}")
+    private double bloomFpp;
+
+    /**
+     * 精确标记分片数，按记录哈希的高位选择分片
+     */
+    @Value("${data-process.dedup.shards:64}")
+    private int shards;
+
+    /**
+     * 标记保留天数，写入当天的桶在当天结束后再保留这么多天
+     */
+    @Value("${data-process.dedup.ttl-days:7}")
+    private long ttlDays;
+
+    /**
+     * 每个桶布隆过滤器的位数
+     */
+    private long bloomBits;
+
+    /**
+     * 布隆过滤器哈希函数个数
+     */
+    private int hashFunctions;
+
+    /**
+     * 按预期写入量和误判率计算布隆过滤器的位数和哈希函数个数
+     */
+    @PostConstruct
+    public void init() {
+        long insertions = Math.max(1L, bloomExpectedInsertions);
+        double fpp = Math.min(0.5d, Math.max(1e-9d, bloomFpp));
+        double ln2 = Math.log(2);
+        // Redis 字符串最大 512MB，即 2^32 位
+        bloomBits = Math.min(1L << 32, Math.max(1024L, (long) Math.ceil(-insertions * Math.log(fpp) / (ln2 * ln2))));
+        hashFunctions = Math.max(1, (int) Math.round((double) bloomBits / insertions * ln2));
+        log.info("Processed record bloom filter: {} bits ({} KB) per task per day, {} hash functions, retained {} days",
+                bloomBits, bloomBits / 8 / 1024, hashFunctions, ttlDays);
+    }
+
+    /**
+     * 判断单条记录是否已处理
+     * @param taskId 任务ID
+     * @param recordId 记录标识
+     * @return 是否已处理
+     */
+    public boolean isProcessed(Long taskId, String recordId) {
+        return !findProcessed(taskId, Collections.singletonList(recordId)).isEmpty();
+    }
+
+    /**
+     * 批量查询已处理的记录
+     * @param taskId 任务ID
+     * @param recordIds 记录标识
+     * @return 其中已处理的记录标识
+     */
+    public Set<String> findProcessed(Long taskId, Collection<String> recordIds) {
+        if (recordIds.isEmpty()) {
+            return Collections.emptySet();
+        }
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(recordIds));
+        long[] hashes = new long[ids.size()];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = hash(ids.get(i));
+        }
+
+        // 1. 流水线读取保留期内各桶的布隆位，某个桶中全部为 1 的记录才可能在该桶中已标记
+        long today = currentDay();
+        long[] days = new long[(int) ttlDays + 1];
+        for (int d = 0; d < days.length; d++) {
+            days[d] = today - d;
+        }
+        List<Object> bloomResults = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (long day : days) {
+                byte[] bloomKey = bloomKey(taskId, day);
+                for (long hash : hashes) {
+                    connection.stringCommands().bitField(bloomKey, bloomGet(hash));
+                }
+            }
+            return null;
+        });
+        Map<String, List<Integer>> candidatesByShardKey = new LinkedHashMap<>();
+        for (int d = 0; d < days.length; d++) {
+            for (int i = 0; i < hashes.length; i++) {
+                if (allBitsSet(bloomResults.get(d * hashes.length + i))) {
+                    candidatesByShardKey.computeIfAbsent(shardKeyName(taskId, days[d], shardOf(hashes[i])),
+                            k -> new ArrayList<>()).add(i);
+                }
+            }
+        }
+        if (candidatesByShardKey.isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        // 2. 可能命中的记录按桶和分片流水线读取精确标记，排除布隆误判
+        List<Object> markerResults = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Map.Entry<String, List<Integer>> shard : candidatesByShardKey.entrySet()) {
+                byte[][] fields = new byte[shard.getValue().size()][];
+                for (int j = 0; j < fields.length; j++) {
+                    fields[j] = SERIALIZER.serialize(ids.get(shard.getValue().get(j)));
+                }
+                connection.hashCommands().hMGet(SERIALIZER.serialize(shard.getKey()), fields);
+            }
+            return null;
+        });
+        Set<String> processed = new HashSet<>();
+        int resultIndex = 0;
+        for (List<Integer> indexes : candidatesByShardKey.values()) {
+            List<?> values = (List<?>) markerResults.get(resultIndex++);
+            for (int j = 0; j < indexes.size(); j++) {
+                if (values != null && values.get(j) != null) {
+                    processed.add(ids.get(indexes.get(j)));
+                }
+            }
+        }
+        log.debug("Dedup check for task {}: {} records over {} days, {} bloom candidates, {} processed",
+                taskId, ids.size(), days.length, candidatesByShardKey.values().stream().mapToInt(List::size).sum(),
+                processed.size());
+        return processed;
+    }
+
+    /**
+     * 标记单条记录为已处理
+     * @param taskId 任务ID
+     * @param recordId 记录标识
+     */
+    public void markProcessed(Long taskId, String recordId) {
+        markProcessed(taskId, Collections.singletonList(recordId));
+    }
+
+    /**
+     * 批量标记记录为已处理，写入当天的桶，布隆位和精确标记在一次流水线中写入。
+     * 过期时间点由桶的日期决定，重复设置不会延长桶的生命周期
+     * @param taskId 任务ID
+     * @param recordIds 记录标识
+     */
+    public void markProcessed(Long taskId, Collection<String> recordIds) {
+        if (recordIds.isEmpty()) {
+            return;
+        }
+        long day = currentDay();
+        byte[] bloomKey = bloomKey(taskId, day);
+        long expireAt = (day + 1 + ttlDays) * SECONDS_PER_DAY;
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            Set<Integer> touchedShards = new HashSet<>();
+            for (String recordId : recordIds) {
+                long hash = hash(recordId);
+                int shard = shardOf(hash);
+                touchedShards.add(shard);
+                connection.stringCommands().bitField(bloomKey, bloomSet(hash));
+                connection.hashCommands().hSet(shardKey(taskId, day, shard), SERIALIZER.serialize(recordId), MARKER);
+            }
+            connection.keyCommands().expireAt(bloomKey, expireAt);
+            for (Integer shard : touchedShards) {
+                connection.keyCommands().expireAt(shardKey(taskId, day, shard), expireAt);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 删除任务保留期内全部桶的标记，键数量固定，UNLINK 在 Redis 后台释放内存
+     * @param taskId 任务ID
+     * @return 删除的键数量
+     */
+    public long drop(Long taskId) {
+        long today = currentDay();
+        List<String> keys = new ArrayList<>((int) (ttlDays + 1) * (shards + 1));
+        for (long day = today - ttlDays; day <= today; day++) {
+            keys.add(bloomKeyName(taskId, day));
+            for (int shard = 0; shard < shards; shard++) {
+                keys.add(shardKeyName(taskId, day, shard));
+            }
+        }
+        Long removed = stringRedisTemplate.unlink(keys);
+        return removed != null ? removed : 0L;
+    }
+
+    private BitFieldSubCommands bloomGet(long hash) {
+        BitFieldSubCommands commands = BitFieldSubCommands.create();
+        for (int i = 0; i < hashFunctions; i++) {
+            commands = commands.get(BitFieldSubCommands.BitFieldType.unsigned(1)).valueAt(bitOffset(hash, i));
+        }
+        return commands;
+    }
+
+    private BitFieldSubCommands bloomSet(long hash) {
+        BitFieldSubCommands commands = BitFieldSubCommands.create();
+        for (int i = 0; i < hashFunctions; i++) {
+            commands = commands.set(BitFieldSubCommands.BitFieldType.unsigned(1)).valueAt(bitOffset(hash, i)).to(1);
+        }
+        return commands;
+    }
+
+    private static boolean allBitsSet(Object result) {
+        if (!(result instanceof List)) {
+            return false;
+        }
+        for (Object bit : (List<?>) result) {
+            if (!(bit instanceof Number) || ((Number) bit).longValue() == 0L) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 双重哈希：第 i 个位置为 h1 + i * h2
+     */
+    private long bitOffset(long hash, int i) {
+        long h1 = hash & 0xffffffffL;
+        long h2 = (hash >>> 32) | 1L;
+        return Math.floorMod(h1 + i * h2, bloomBits);
+    }
+
+    /**
+     * 取哈希高位作为分片号
+     */
+    private int shardOf(long hash) {
+        return (int) Math.floorMod(hash >>> 40, (long) shards);
+    }
+
+    /**
+     * 当前日期（UTC 纪元日），作为桶编号
+     */
+    private static long currentDay() {
+        return System.currentTimeMillis() / TimeUnit.DAYS.toMillis(1);
+    }
+
+    private static String bloomKeyName(Long taskId, long day) {
+        return DataRsyncConstants.RedisKey.PROCESSED_BLOOM_PREFIX + taskId + ":" + day;
+    }
+
+    private static byte[] bloomKey(Long taskId, long day) {
+        return SERIALIZER.serialize(bloomKeyName(taskId, day));
+    }
+
+    private static String shardKeyName(Long taskId, long day, int shard) {
+        return DataRsyncConstants.RedisKey.PROCESSED_RECORD_PREFIX + taskId + ":" + day + ":" + shard;
+    }
+
+    private static byte[] shardKey(Long taskId, long day, int shard) {
+        return SERIALIZER.serialize(shardKeyName(taskId, day, shard));
+    }
+
+    private static long hash(String recordId) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < recordId.length(); i++) {
+            hash ^= recordId.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        // 混合高低位，保证分片和位位置分布均匀
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+}
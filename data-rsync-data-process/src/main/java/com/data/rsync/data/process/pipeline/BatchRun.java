@@ -0,0 +1,148 @@
+package com.data.rsync.data.process.pipeline;
+
+import com.data.rsync.common.model.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 一次批量处理在流水线中的进度
+ * 提交方持有一个计数，每个在途分块持有一个计数；全部分块结束且提交方调用 {@link #feedFinished()} 后完成。
+ * 已确认分块的记录标识按通道暂存，结束后只有没有失败分块的通道才可以标记为已处理：
+ * 同一分区键的记录在同一通道内按顺序处理，失败分块之后的记录若被标记，重新投递时会被跳过，旧版本反而覆盖新版本
+ */
+public final class BatchRun {
+
+    private final Long taskId;
+
+    private final Task task;
+
+    private final AtomicInteger pending = new AtomicInteger(1);
+
+    private final AtomicBoolean failed = new AtomicBoolean(false);
+
+    private final AtomicInteger sentRecords = new AtomicInteger();
+
+    private final CountDownLatch done = new CountDownLatch(1);
+
+    /**
+     * 各通道已发送并确认的记录标识
+     */
+    private final Map<Integer, List<String>> sentRecordIds = new ConcurrentHashMap<>();
+
+    /**
+     * 有分块失败的通道
+     */
+    private final Set<Integer> failedLanes = ConcurrentHashMap.newKeySet();
+
+    public BatchRun(Long taskId, Task task) {
+        this.taskId = taskId;
+        this.task = task;
+    }
+
+    public Long getTaskId() {
+        return taskId;
+    }
+
+    /**
+     * 任务配置，未配置时为 null
+     * @return 任务
+     */
+    public Task getTask() {
+        return task;
+    }
+
+    /**
+     * 分块进入流水线前调用
+     */
+    public void chunkSubmitted() {
+        pending.incrementAndGet();
+    }
+
+    /**
+     * 分块结束：已发送并确认、全部被去重跳过，或处理失败
+     * @param chunk 分块
+     * @param success 是否成功
+     */
+    public void chunkFinished(RecordChunk chunk, boolean success) {
+        if (success) {
+            sentRecords.addAndGet(chunk.sentCount());
+            if (chunk.getRecordIds() != null && !chunk.getRecordIds().isEmpty()) {
+                sentRecordIds.compute(chunk.getLane(), (lane, ids) -> {
+                    List<String> merged = ids != null ? ids : new ArrayList<>();
+                    merged.addAll(chunk.getRecordIds());
+                    return merged;
+                });
+            }
+        } else {
+            failed.set(true);
+            failedLanes.add(chunk.getLane());
+        }
+        release();
+    }
+
+    /**
+     * 提交方已提交全部分块
+     */
+    public void feedFinished() {
+        release();
+    }
+
+    /**
+     * 标记失败，用于提交阶段的异常
+     */
+    public void markFailed() {
+        failed.set(true);
+    }
+
+    /**
+     * 等待全部分块结束
+     * @param timeout 超时时间
+     * @param unit 时间单位
+     * @return 是否在超时前结束
+     * @throws InterruptedException 等待期间被中断
+     */
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        return done.await(timeout, unit);
+    }
+
+    public boolean isFailed() {
+        return failed.get();
+    }
+
+    /**
+     * 已发送并被确认的记录数
+     * @return 记录数
+     */
+    public int getSentRecords() {
+        return sentRecords.get();
+    }
+
+    /**
+     * 可以标记为已处理的记录标识：没有失败分块的通道中已发送并确认的记录，应在 {@link #await} 返回 true 后调用
+     * @return 记录标识
+     */
+    public List<String> getCommittableRecordIds() {
+        List<String> recordIds = new ArrayList<>();
+        for (Map.Entry<Integer, List<String>> entry : sentRecordIds.entrySet()) {
+            if (!failedLanes.contains(entry.getKey())) {
+                recordIds.addAll(entry.getValue());
+            }
+        }
+        return recordIds;
+    }
+
+    private void release() {
+        if (pending.decrementAndGet() == 0) {
+            done.countDown();
+        }
+    }
+
+}
@@ -0,0 +1,118 @@
+package com.data.rsync.data.process.pipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 流水线中流转的记录分块
+ * 同一分区键的记录落在同一通道，通道决定各阶段的工作线程，因此同一分区键的记录按原顺序处理和发送。
+ * 各阶段依次填充转换结果、向量和编码后的消息，上一阶段的中间结果在不再需要时释放。
+ */
+public final class RecordChunk {
+
+    private final BatchRun run;
+
+    private final int lane;
+
+    /**
+     * 原始记录，已带记录标识
+     */
+    private List<Map<String, Object>> records;
+
+    /**
+     * 清洗和转换后的记录，与 records 一一对应
+     */
+    private List<Map<String, Object>> transformed;
+
+    /**
+     * 向量，与 records 一一对应
+     */
+    private List<float[]> vectors;
+
+    /**
+     * 编码后的消息键和消息体，与 recordIds 一一对应
+     */
+    private List<String> messageKeys;
+
+    private List<byte[]> messages;
+
+    /**
+     * 记录标识，发送确认后用于标记已处理
+     */
+    private List<String> recordIds;
+
+    public RecordChunk(BatchRun run, int lane, int capacity) {
+        this.run = run;
+        this.lane = lane;
+        this.records = new ArrayList<>(capacity);
+    }
+
+    public BatchRun getRun() {
+        return run;
+    }
+
+    public int getLane() {
+        return lane;
+    }
+
+    public List<Map<String, Object>> getRecords() {
+        return records;
+    }
+
+    public void setRecords(List<Map<String, Object>> records) {
+        this.records = records;
+    }
+
+    public List<Map<String, Object>> getTransformed() {
+        return transformed;
+    }
+
+    public void setTransformed(List<Map<String, Object>> transformed) {
+        this.transformed = transformed;
+    }
+
+    public List<float[]> getVectors() {
+        return vectors;
+    }
+
+    public void setVectors(List<float[]> vectors) {
+        this.vectors = vectors;
+    }
+
+    public List<String> getMessageKeys() {
+        return messageKeys;
+    }
+
+    public List<byte[]> getMessages() {
+        return messages;
+    }
+
+    public List<String> getRecordIds() {
+        return recordIds;
+    }
+
+    /**
+     * 写入编码结果并释放前面各阶段的中间结果
+     * @param recordIds 记录标识
+     * @param messageKeys 消息键
+     * @param messages 消息体
+     */
+    public void encoded(List<String> recordIds, List<String> messageKeys, List<byte[]> messages) {
+        this.recordIds = recordIds;
+        this.messageKeys = messageKeys;
+        this.messages = messages;
+        this.records = null;
+        this.transformed = null;
+        this.vectors = null;
+    }
+
+    /**
+     * 发送的记录数
+     * @return 记录数
+     */
+    public int sentCount() {
+        return messages != null ? messages.size() : 0;
+    }
+
+}
@@ -0,0 +1,331 @@
+package com.data.rsync.data.process.pipeline;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.ToIntFunction;
+
+/**
+ * 分阶段流水线
+ * 每个阶段由若干工作线程组成，每个工作线程有自己的有界队列；下游队列满时上游阻塞，压力逐级传回提交方，
+ * 在途元素数量只取决于各阶段并行度和队列容量，与输入总量无关。不同阶段同时运行，CPU 阶段和 I/O 阶段互相重叠。
+ *
+ * <p>元素按路由值选择每个阶段的工作线程，路由值相同的元素始终进入同一工作线程，因此在每个阶段都保持提交顺序。</p>
+ *
+ * @param <T> 流水线元素类型
+ */
+@Slf4j
+public final class StagedPipeline<T> {
+
+    /**
+     * 阶段处理逻辑
+     * @param <T> 流水线元素类型
+     */
+    @FunctionalInterface
+    public interface Handler<T> {
+
+        /**
+         * 处理元素
+         * @param item 元素
+         * @return 是否交给下一阶段，返回 false 表示元素已在本阶段结束
+         * @throws Exception 处理失败，元素交给失败处理逻辑且不再向下传递
+         */
+        boolean handle(T item) throws Exception;
+    }
+
+    /**
+     * 失败处理逻辑
+     * @param <T> 流水线元素类型
+     */
+    @FunctionalInterface
+    public interface FailureHandler<T> {
+
+        /**
+         * 元素处理失败或流水线停止时丢弃元素
+         * @param item 元素
+         * @param stage 阶段名称
+         * @param cause 原因
+         */
+        void onFailure(T item, String stage, Throwable cause);
+    }
+
+    private final String name;
+
+    private final List<Stage> stages;
+
+    private final ToIntFunction<T> router;
+
+    private final FailureHandler<T> failureHandler;
+
+    private volatile boolean running;
+
+    private StagedPipeline(String name, List<StageSpec<T>> specs, ToIntFunction<T> router, FailureHandler<T> failureHandler) {
+        this.name = name;
+        this.router = router;
+        this.failureHandler = failureHandler;
+        this.stages = new ArrayList<>(specs.size());
+        for (StageSpec<T> spec : specs) {
+            stages.add(new Stage(spec));
+        }
+        for (int i = 0; i + 1 < stages.size(); i++) {
+            stages.get(i).next = stages.get(i + 1);
+        }
+    }
+
+    /**
+     * 创建构建器
+     * @param name 流水线名称，用于线程名
+     * @param router 路由值，相同路由值的元素按提交顺序处理
+     * @param failureHandler 失败处理逻辑
+     * @param <T> 流水线元素类型
+     * @return 构建器
+     */
+    public static <T> Builder<T> builder(String name, ToIntFunction<T> router, FailureHandler<T> failureHandler) {
+        return new Builder<>(name, router, failureHandler);
+    }
+
+    /**
+     * 启动各阶段工作线程
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        for (Stage stage : stages) {
+            for (Worker worker : stage.workers) {
+                worker.thread.start();
+            }
+        }
+        log.info("Pipeline {} started with stages {}", name, describe());
+    }
+
+    /**
+     * 提交元素，第一阶段对应队列已满时阻塞
+     * @param item 元素
+     * @throws InterruptedException 等待期间被中断
+     */
+    public void submit(T item) throws InterruptedException {
+        if (!running) {
+            throw new IllegalStateException("Pipeline " + name + " is not running");
+        }
+        stages.get(0).route(item).queue.put(item);
+    }
+
+    /**
+     * 停止工作线程，队列中未处理的元素交给失败处理逻辑
+     */
+    public synchronized void shutdown() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        for (Stage stage : stages) {
+            for (Worker worker : stage.workers) {
+                worker.thread.interrupt();
+            }
+        }
+        for (Stage stage : stages) {
+            for (Worker worker : stage.workers) {
+                try {
+                    worker.thread.join(1000L);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                T item;
+                while ((item = worker.queue.poll()) != null) {
+                    fail(item, stage.spec.name, new IllegalStateException("Pipeline " + name + " stopped"));
+                }
+            }
+        }
+        log.info("Pipeline {} stopped", name);
+    }
+
+    /**
+     * 是否运行中
+     * @return 是否运行中
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 各阶段排队中的元素数
+     * @return 阶段名称到排队数
+     */
+    public Map<String, Integer> backlog() {
+        Map<String, Integer> backlog = new LinkedHashMap<>();
+        for (Stage stage : stages) {
+            int queued = 0;
+            for (Worker worker : stage.workers) {
+                queued += worker.queue.size();
+            }
+            backlog.put(stage.spec.name, queued);
+        }
+        return backlog;
+    }
+
+    private String describe() {
+        StringBuilder builder = new StringBuilder();
+        for (Stage stage : stages) {
+            if (builder.length() > 0) {
+                builder.append(" -> ");
+            }
+            builder.append(stage.spec.name).append('x').append(stage.spec.parallelism)
+                    .append('[').append(stage.spec.capacity).append(']');
+        }
+        return builder.toString();
+    }
+
+    private void fail(T item, String stage, Throwable cause) {
+        try {
+            failureHandler.onFailure(item, stage, cause);
+        } catch (Exception e) {
+            log.error("Pipeline {} failure handler threw at stage {}: {}", name, stage, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 阶段定义
+     */
+    private static final class StageSpec<T> {
+
+        private final String name;
+
+        private final int parallelism;
+
+        private final int capacity;
+
+        private final Handler<T> handler;
+
+        StageSpec(String name, int parallelism, int capacity, Handler<T> handler) {
+            this.name = name;
+            this.parallelism = parallelism;
+            this.capacity = capacity;
+            this.handler = handler;
+        }
+    }
+
+    /**
+     * 运行中的阶段
+     */
+    private final class Stage {
+
+        private final StageSpec<T> spec;
+
+        private final List<Worker> workers;
+
+        private Stage next;
+
+        Stage(StageSpec<T> spec) {
+            this.spec = spec;
+            this.workers = new ArrayList<>(spec.parallelism);
+            for (int i = 0; i < spec.parallelism; i++) {
+                workers.add(new Worker(this, i));
+            }
+        }
+
+        Worker route(T item) {
+            return workers.get(Math.floorMod(router.applyAsInt(item), workers.size()));
+        }
+    }
+
+    /**
+     * 阶段工作线程，按队列顺序逐个处理元素
+     */
+    private final class Worker implements Runnable {
+
+        private final Stage stage;
+
+        private final BlockingQueue<T> queue;
+
+        private final Thread thread;
+
+        Worker(Stage stage, int index) {
+            this.stage = stage;
+            this.queue = new ArrayBlockingQueue<>(stage.spec.capacity);
+            this.thread = new Thread(this, name + "-" + stage.spec.name + "-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                T item;
+                try {
+                    item = queue.take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                boolean forward;
+                try {
+                    forward = stage.spec.handler.handle(item);
+                } catch (Throwable e) {
+                    fail(item, stage.spec.name, e);
+                    continue;
+                }
+                if (!forward || stage.next == null) {
+                    continue;
+                }
+                try {
+                    stage.next.route(item).queue.put(item);
+                } catch (InterruptedException e) {
+                    fail(item, stage.spec.name, new IllegalStateException("Pipeline " + name + " stopped"));
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 流水线构建器
+     * @param <T> 流水线元素类型
+     */
+    public static final class Builder<T> {
+
+        private final String name;
+
+        private final ToIntFunction<T> router;
+
+        private final FailureHandler<T> failureHandler;
+
+        private final List<StageSpec<T>> specs = new ArrayList<>();
+
+        private Builder(String name, ToIntFunction<T> router, FailureHandler<T> failureHandler) {
+            this.name = name;
+            this.router = router;
+            this.failureHandler = failureHandler;
+        }
+
+        /**
+         * 追加阶段
+         * @param name 阶段名称
+         * @param parallelism 工作线程数
+         * @param capacity 每个工作线程的队列容量
+         * @param handler 处理逻辑
+         * @return 构建器
+         */
+        public Builder<T> stage(String name, int parallelism, int capacity, Handler<T> handler) {
+            specs.add(new StageSpec<>(name, Math.max(1, parallelism), Math.max(1, capacity), handler));
+            return this;
+        }
+
+        /**
+         * 构建流水线，需调用 {@link StagedPipeline#start()} 后才能提交元素
+         * @return 流水线
+         */
+        public StagedPipeline<T> build() {
+            if (specs.isEmpty()) {
+                throw new IllegalStateException("Pipeline " + name + " has no stages");
+            }
+            return new StagedPipeline<>(name, specs, router, failureHandler);
+        }
+    }
+
+}
@@ -0,0 +1,494 @@
+package com.data.rsync.data.process.plan;
+
+import com.data.rsync.common.plugin.desensitize.DesensitizeConfig;
+import com.data.rsync.common.plugin.desensitize.DesensitizePlan;
+import com.data.rsync.common.plugin.desensitize.Masker;
+import com.data.rsync.common.row.Row;
+import com.data.rsync.common.row.TableSchema;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 任务数据处理计划
+ * 由任务配置中的清洗规则和转换规则编译而成，不可变、线程安全：规则解析为开关，字段映射和格式校验按字段名预先索引，
+ * 正则只编译一次，数字识别不走正则。{@link #apply(Map)} 在一次遍历中依次完成清洗、脱敏和转换，
+ * 输入为 {@link Row} 时按槽位原地修改，字段操作（含脱敏器）按行结构预先解析。
+ *
+ * <p>支持的配置项：cleaningRules、transformationRules（逗号分隔或数组）、
+ * nullHandlingStrategy（empty_string/zero/null/default_value）、fieldMapping（源字段到目标字段）、
+ * desensitize（源字段到脱敏类型，或到含 type/prefixLength/suffixLength/maskLength/maskChar 的对象）、
+ * vectorizerName（向量化器名称，未配置时由调用方决定）、generationRate（向量生成速率，tokens/秒，不大于 0 或未配置时不限速）。</p>
+ */
+@Slf4j
+public final class ProcessingPlan {
+
+    public static final String RULE_TRIM_WHITESPACE = "trim_whitespace";
+
+    public static final String RULE_VALIDATE_FORMAT = "validate_format";
+
+    public static final String RULE_FIELD_MAPPING = "field_mapping";
+
+    public static final String RULE_TYPE_CONVERSION = "type_conversion";
+
+    public static final String RULE_VALUE_NORMALIZATION = "value_normalization";
+
+    private static final Set<String> DEFAULT_CLEANING_RULES = Collections.unmodifiableSet(
+            new HashSet<>(Arrays.asList("remove_empty", RULE_TRIM_WHITESPACE, RULE_VALIDATE_FORMAT)));
+
+    private static final Set<String> DEFAULT_TRANSFORMATION_RULES = Collections.unmodifiableSet(
+            new HashSet<>(Arrays.asList(RULE_FIELD_MAPPING, RULE_TYPE_CONVERSION, RULE_VALUE_NORMALIZATION)));
+
+    private static final Map<String, String> DEFAULT_FIELD_MAPPING;
+
+    static {
+        Map<String, String> mapping = new HashMap<>();
+        mapping.put("user_name", "username");
+        mapping.put("user_age", "age");
+        mapping.put("user_email", "email");
+        DEFAULT_FIELD_MAPPING = Collections.unmodifiableMap(mapping);
+    }
+
+    private static final Pattern EMAIL_PATTERN = Pattern.compile("[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,}");
+
+    /**
+     * 需要做邮箱格式校验的字段
+     */
+    private static final String EMAIL_FIELD = "email";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    /**
+     * 字符串数值形式：非数值、整数（\d+）、小数（\d+\.\d+）
+     */
+    private static final int NOT_NUMBER = 0;
+
+    private static final int INTEGER = 1;
+
+    private static final int DECIMAL = 2;
+
+    /**
+     * 默认计划，任务未配置规则时使用
+     */
+    public static final ProcessingPlan DEFAULT = compile(null);
+
+    /**
+     * 编译所用的原始配置，用于识别配置变化
+     */
+    private final String config;
+
+    private final boolean trimWhitespace;
+
+    private final boolean validateFormat;
+
+    private final boolean typeConversion;
+
+    private final boolean valueNormalization;
+
+    /**
+     * 空值替换值，keepNull 为 true 时保留 null
+     */
+    private final Object nullReplacement;
+
+    private final boolean keepNull;
+
+    /**
+     * 按源字段名索引的字段操作，未列出的字段使用 {@link FieldOps#PASS_THROUGH}
+     */
+    private final Map<String, FieldOps> fieldOps;
+
+    /**
+     * 向量化器名称，未配置时为 null
+     */
+    private final String vectorizerName;
+
+    /**
+     * 向量生成速率（tokens/秒），0 表示不限速
+     */
+    private final int generationRate;
+
+    /**
+     * 最近一次绑定的行结构，同一任务的行通常共享结构，命中时不再按字段名查找字段操作
+     */
+    private volatile BoundSchema boundSchema;
+
+    private ProcessingPlan(String config, Set<String> cleaningRules, Set<String> transformationRules,
+                           String nullHandlingStrategy, Map<String, String> fieldMapping, DesensitizePlan desensitizePlan,
+                           String vectorizerName, int generationRate) {
+        this.config = config;
+        this.vectorizerName = vectorizerName;
+        this.generationRate = Math.max(0, generationRate);
+        this.trimWhitespace = cleaningRules.contains(RULE_TRIM_WHITESPACE);
+        this.validateFormat = cleaningRules.contains(RULE_VALIDATE_FORMAT);
+        this.typeConversion = transformationRules.contains(RULE_TYPE_CONVERSION);
+        this.valueNormalization = transformationRules.contains(RULE_VALUE_NORMALIZATION);
+
+        switch (nullHandlingStrategy) {
+            case "zero":
+                nullReplacement = 0;
+                keepNull = false;
+                break;
+            case "null":
+                nullReplacement = null;
+                keepNull = true;
+                break;
+            case "default_value":
+                nullReplacement = "default";
+                keepNull = false;
+                break;
+            case "empty_string":
+            default:
+                nullReplacement = "";
+                keepNull = false;
+        }
+
+        Map<String, String> mapping = transformationRules.contains(RULE_FIELD_MAPPING) ? fieldMapping : Collections.emptyMap();
+        Set<String> fields = new HashSet<>(mapping.keySet());
+        if (validateFormat) {
+            fields.add(EMAIL_FIELD);
+        }
+        fields.addAll(desensitizePlan.fields());
+        Map<String, FieldOps> ops = new HashMap<>();
+        for (String field : fields) {
+            ops.put(field, new FieldOps(mapping.get(field), validateFormat && EMAIL_FIELD.equals(field), desensitizePlan.masker(field)));
+        }
+        this.fieldOps = Collections.unmodifiableMap(ops);
+    }
+
+    /**
+     * 编译任务配置
+     * @param config 任务配置 JSON，为空时使用默认规则
+     * @return 处理计划
+     */
+    public static ProcessingPlan compile(String config) {
+        Set<String> cleaningRules = DEFAULT_CLEANING_RULES;
+        Set<String> transformationRules = DEFAULT_TRANSFORMATION_RULES;
+        String nullHandlingStrategy = "empty_string";
+        Map<String, String> fieldMapping = DEFAULT_FIELD_MAPPING;
+        DesensitizePlan desensitizePlan = DesensitizePlan.NONE;
+        String vectorizerName = null;
+        int generationRate = 0;
+        if (config != null && !config.trim().isEmpty()) {
+            try {
+                JsonNode root = OBJECT_MAPPER.readTree(config);
+                cleaningRules = readRules(root.get("cleaningRules"), DEFAULT_CLEANING_RULES);
+                transformationRules = readRules(root.get("transformationRules"), DEFAULT_TRANSFORMATION_RULES);
+                if (root.hasNonNull("nullHandlingStrategy")) {
+                    nullHandlingStrategy = root.get("nullHandlingStrategy").asText();
+                }
+                JsonNode mappingNode = root.get("fieldMapping");
+                if (mappingNode != null && mappingNode.isObject()) {
+                    Map<String, String> mapping = new LinkedHashMap<>();
+                    Iterator<Map.Entry<String, JsonNode>> fields = mappingNode.fields();
+                    while (fields.hasNext()) {
+                        Map.Entry<String, JsonNode> field = fields.next();
+                        mapping.put(field.getKey(), field.getValue().asText());
+                    }
+                    fieldMapping = mapping;
+                }
+                JsonNode desensitizeNode = root.get("desensitize");
+                if (desensitizeNode != null && desensitizeNode.isObject()) {
+                    desensitizePlan = readDesensitizePlan(desensitizeNode);
+                }
+                if (root.hasNonNull("vectorizerName")) {
+                    vectorizerName = root.get("vectorizerName").asText();
+                }
+                generationRate = root.path("generationRate").asInt(0);
+            } catch (Exception e) {
+                log.warn("Failed to parse processing config, using default rules: {}", e.getMessage());
+            }
+        }
+        return new ProcessingPlan(config, cleaningRules, transformationRules, nullHandlingStrategy, fieldMapping,
+                desensitizePlan, vectorizerName, generationRate);
+    }
+
+    /**
+     * 解析脱敏配置：字段到脱敏类型，或到带类型的脱敏参数对象，未给出的参数取该类型的默认值
+     */
+    private static DesensitizePlan readDesensitizePlan(JsonNode node) {
+        Map<String, String> fieldTypes = new LinkedHashMap<>();
+        Map<String, DesensitizeConfig> fieldConfigs = new HashMap<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            JsonNode value = field.getValue();
+            if (value.isTextual()) {
+                fieldTypes.put(field.getKey(), value.asText());
+            } else if (value.isObject() && value.hasNonNull("type")) {
+                String type = value.get("type").asText();
+                DesensitizeConfig config = DesensitizeConfig.getDefaultConfig(type);
+                config.setPrefixLength(value.path("prefixLength").asInt(config.getPrefixLength()));
+                config.setSuffixLength(value.path("suffixLength").asInt(config.getSuffixLength()));
+                config.setMaskLength(value.path("maskLength").asInt(config.getMaskLength()));
+                config.setMaskChar(value.path("maskChar").asText(config.getMaskChar()));
+                fieldTypes.put(field.getKey(), type);
+                fieldConfigs.put(field.getKey(), config);
+            }
+        }
+        return DesensitizePlan.compile(fieldTypes, fieldConfigs);
+    }
+
+    /**
+     * 配置是否与编译时一致
+     * @param otherConfig 当前配置
+     * @return 是否一致
+     */
+    public boolean matches(String otherConfig) {
+        return config == null ? otherConfig == null : config.equals(otherConfig);
+    }
+
+    /**
+     * 任务配置的向量化器名称
+     * @return 向量化器名称，未配置时返回 null
+     */
+    public String getVectorizerName() {
+        return vectorizerName;
+    }
+
+    /**
+     * 任务配置的向量生成速率
+     * @return tokens/秒，0 表示不限速
+     */
+    public int getGenerationRate() {
+        return generationRate;
+    }
+
+    /**
+     * 一次遍历完成清洗和转换
+     * @param data 原始数据，为 {@link Row} 时原地修改
+     * @return 处理后的数据，输入为 {@link Row} 时返回输入本身
+     */
+    public Map<String, Object> apply(Map<String, Object> data) {
+        if (data instanceof Row) {
+            applyInPlace((Row) data);
+            return data;
+        }
+        Map<String, Object> result = new HashMap<>(Math.max(16, data.size() * 2));
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            FieldOps ops = fieldOps.getOrDefault(entry.getKey(), FieldOps.PASS_THROUGH);
+            Object value = transformValue(cleanValue(ops, entry.getValue()));
+            result.put(ops.targetName != null ? ops.targetName : entry.getKey(), value);
+        }
+        return result;
+    }
+
+    /**
+     * 仅执行清洗规则
+     * @param data 原始数据
+     * @return 清洗后的数据
+     */
+    public Map<String, Object> clean(Map<String, Object> data) {
+        Map<String, Object> result = new HashMap<>(Math.max(16, data.size() * 2));
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            FieldOps ops = fieldOps.getOrDefault(entry.getKey(), FieldOps.PASS_THROUGH);
+            result.put(entry.getKey(), cleanValue(ops, entry.getValue()));
+        }
+        return result;
+    }
+
+    /**
+     * 仅执行转换规则
+     * @param data 清洗后的数据
+     * @return 转换后的数据
+     */
+    public Map<String, Object> transform(Map<String, Object> data) {
+        Map<String, Object> result = new HashMap<>(Math.max(16, data.size() * 2));
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            FieldOps ops = fieldOps.getOrDefault(entry.getKey(), FieldOps.PASS_THROUGH);
+            result.put(ops.targetName != null ? ops.targetName : entry.getKey(), transformValue(entry.getValue()));
+        }
+        return result;
+    }
+
+    private void applyInPlace(Row row) {
+        BoundSchema bound = boundSchema;
+        if (bound == null || bound.schema != row.schema()) {
+            bound = new BoundSchema(row.schema());
+            boundSchema = bound;
+        }
+        FieldOps[] ops = bound.ops;
+        for (int i = 0; i < ops.length; i++) {
+            if (row.has(i)) {
+                row.set(i, transformValue(cleanValue(ops[i], row.get(i))));
+            }
+        }
+        if (bound.renamed != null) {
+            row.rebind(bound.renamed);
+        } else if (bound.renameCollision) {
+            for (int i = 0; i < ops.length; i++) {
+                if (ops[i].targetName != null) {
+                    row.rename(i, ops[i].targetName);
+                }
+            }
+        }
+    }
+
+    private Object cleanValue(FieldOps ops, Object value) {
+        if (value == null) {
+            return keepNull ? null : nullReplacement;
+        }
+        if (!(value instanceof String)) {
+            return ops.masker != null ? DesensitizePlan.mask(ops.masker, value) : value;
+        }
+        String str = (String) value;
+        if (trimWhitespace) {
+            str = str.trim();
+        }
+        if (ops.validateEmail && !EMAIL_PATTERN.matcher(str).matches()) {
+            log.warn("Invalid email format for field with {} characters", str.length());
+            return "invalid_email:" + (ops.masker != null ? ops.masker.mask(str) : str);
+        }
+        return ops.masker != null ? ops.masker.mask(str) : str;
+    }
+
+    private Object transformValue(Object value) {
+        if (!(value instanceof String)) {
+            return value;
+        }
+        String str = (String) value;
+        if (typeConversion) {
+            int kind = numberKind(str);
+            try {
+                if (kind == INTEGER) {
+                    return Integer.parseInt(str);
+                } else if (kind == DECIMAL) {
+                    return Double.parseDouble(str);
+                }
+            } catch (NumberFormatException e) {
+                // 超出范围，保持原值
+            }
+            if (kind == NOT_NUMBER && (str.length() == 4 || str.length() == 5)
+                    && ("true".equalsIgnoreCase(str) || "false".equalsIgnoreCase(str))) {
+                return Boolean.parseBoolean(str);
+            }
+        }
+        if (valueNormalization) {
+            return str.trim();
+        }
+        return str;
+    }
+
+    /**
+     * 识别 \d+ 和 \d+\.\d+ 两种形式
+     */
+    private static int numberKind(String str) {
+        int length = str.length();
+        if (length == 0) {
+            return NOT_NUMBER;
+        }
+        int dot = -1;
+        for (int i = 0; i < length; i++) {
+            char c = str.charAt(i);
+            if (c == '.') {
+                if (dot >= 0 || i == 0 || i == length - 1) {
+                    return NOT_NUMBER;
+                }
+                dot = i;
+            } else if (c < '0' || c > '9') {
+                return NOT_NUMBER;
+            }
+        }
+        return dot < 0 ? INTEGER : DECIMAL;
+    }
+
+    private static Set<String> readRules(JsonNode node, Set<String> defaults) {
+        if (node == null || node.isNull()) {
+            return defaults;
+        }
+        Set<String> rules = new HashSet<>();
+        if (node.isArray()) {
+            for (JsonNode rule : node) {
+                rules.add(rule.asText().trim());
+            }
+        } else {
+            for (String rule : node.asText().split(",")) {
+                if (!rule.trim().isEmpty()) {
+                    rules.add(rule.trim());
+                }
+            }
+        }
+        return rules.isEmpty() ? defaults : rules;
+    }
+
+    /**
+     * 按行结构解析的字段操作
+     */
+    private final class BoundSchema {
+
+        final TableSchema schema;
+
+        /**
+         * 按槽位排列的字段操作
+         */
+        final FieldOps[] ops;
+
+        /**
+         * 字段映射后的行结构，无需改名或改名后列名冲突时为 null
+         */
+        final TableSchema renamed;
+
+        /**
+         * 映射后的列名与其他列冲突，需逐列改名
+         */
+        final boolean renameCollision;
+
+        BoundSchema(TableSchema schema) {
+            this.schema = schema;
+            this.ops = new FieldOps[schema.size()];
+            String[] columns = null;
+            for (int i = 0; i < ops.length; i++) {
+                String column = schema.column(i);
+                ops[i] = fieldOps.getOrDefault(column, FieldOps.PASS_THROUGH);
+                if (ops[i].targetName != null && !ops[i].targetName.equals(column)) {
+                    if (columns == null) {
+                        columns = new String[ops.length];
+                        for (int j = 0; j < columns.length; j++) {
+                            columns[j] = schema.column(j);
+                        }
+                    }
+                    columns[i] = ops[i].targetName;
+                }
+            }
+            boolean collision = columns != null && new HashSet<>(Arrays.asList(columns)).size() < columns.length;
+            this.renamed = columns != null && !collision ? TableSchema.of(columns) : null;
+            this.renameCollision = collision;
+        }
+    }
+
+    /**
+     * 单个字段的预编译操作
+     */
+    private static final class FieldOps {
+
+        static final FieldOps PASS_THROUGH = new FieldOps(null, false, null);
+
+        /**
+         * 映射后的字段名，null 表示保持原名
+         */
+        final String targetName;
+
+        final boolean validateEmail;
+
+        /**
+         * 脱敏器，null 表示不脱敏
+         */
+        final Masker masker;
+
+        FieldOps(String targetName, boolean validateEmail, Masker masker) {
+            this.targetName = targetName;
+            this.validateEmail = validateEmail;
+            this.masker = masker;
+        }
+    }
+
+}
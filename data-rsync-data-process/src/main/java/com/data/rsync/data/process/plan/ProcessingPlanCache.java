@@ -0,0 +1,55 @@
+package com.data.rsync.data.process.plan;
+
+import com.data.rsync.common.model.Task;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 任务处理计划缓存
+ * 每个任务只在配置首次出现或发生变化时编译一次计划，之后的记录直接复用；
+ * 配置变化时新计划整体替换旧计划，正在使用旧计划的线程不受影响
+ */
+@Component
+@Slf4j
+public class ProcessingPlanCache {
+
+    private final Map<Long, ProcessingPlan> plans = new ConcurrentHashMap<>();
+
+    /**
+     * 获取任务的处理计划
+     * @param task 任务，为 null 或无配置时返回默认计划
+     * @return 处理计划
+     */
+    public ProcessingPlan get(Task task) {
+        if (task == null || task.getConfig() == null) {
+            return ProcessingPlan.DEFAULT;
+        }
+        String config = task.getConfig();
+        if (task.getId() == null) {
+            return ProcessingPlan.compile(config);
+        }
+        ProcessingPlan plan = plans.get(task.getId());
+        if (plan != null && plan.matches(config)) {
+            return plan;
+        }
+        return plans.compute(task.getId(), (taskId, current) -> {
+            if (current != null && current.matches(config)) {
+                return current;
+            }
+            log.info("Compiling processing plan for task {}", taskId);
+            return ProcessingPlan.compile(config);
+        });
+    }
+
+    /**
+     * 移除任务的处理计划
+     * @param taskId 任务ID
+     */
+    public void invalidate(Long taskId) {
+        plans.remove(taskId);
+    }
+
+}
@@ -30,6 +30,7 @@ public interface DataProcessService {
      * @param task 任务
      * @param data 原始数据
      * @return 向量
+     * @throws com.data.rsync.common.exception.DataProcessException 向量生成失败或超时
      */
     float[] generateVector(Task task, Map<String, Object> data);
 
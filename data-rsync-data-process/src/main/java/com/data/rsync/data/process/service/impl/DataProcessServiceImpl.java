@@ -1,14 +1,32 @@
 package com.data.rsync.data.process.service.impl;
 
+import com.data.rsync.common.cache.TaskConfigCache;
 import com.data.rsync.common.constants.DataRsyncConstants;
+import com.data.rsync.common.event.ProcessedRecordFormat;
+import com.data.rsync.common.exception.DataProcessException;
+import com.data.rsync.common.event.ProcessedRecordWriter;
+import com.data.rsync.common.kafka.BinaryKafkaSender;
+import com.data.rsync.common.kafka.PartitionKeys;
 import com.data.rsync.common.model.Task;
 import com.data.rsync.common.utils.IdGeneratorUtils;
 import com.data.rsync.common.vectorizer.Vectorizer;
 import com.data.rsync.common.vectorizer.VectorizerFactory;
+import com.data.rsync.data.process.config.DataProcessKafkaConfig;
+import com.data.rsync.data.process.dedup.ProcessedRecordStore;
+import com.data.rsync.data.process.pipeline.BatchRun;
+import com.data.rsync.data.process.pipeline.RecordChunk;
+import com.data.rsync.data.process.pipeline.StagedPipeline;
+import com.data.rsync.data.process.plan.ProcessingPlan;
+import com.data.rsync.data.process.plan.ProcessingPlanCache;
 import com.data.rsync.data.process.service.DataProcessService;
+import com.data.rsync.data.process.vector.EmbeddingStore;
+import com.data.rsync.data.process.vector.VectorCache;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
@@ -30,25 +48,138 @@ public class DataProcessServiceImpl implements DataProcessService {
     @Resource
     private KafkaTemplate<String, String> kafkaTemplate;
 
+    @Resource
+    private BinaryKafkaSender binaryKafkaSender;
+
+    @Resource
+    private ProcessingPlanCache processingPlanCache;
+
+    @Resource
+    private TaskConfigCache taskConfigCache;
+
+    @Resource
+    private ProcessedRecordStore processedRecordStore;
+
+    @Resource
+    private VectorCache vectorCache;
+
+    @Resource
+    private EmbeddingStore embeddingStore;
+
+    /**
+     * 任务未配置或配置了不受支持的向量化器时使用的默认向量化器
+     */
+    @Value("${data-process.vectorizer.default-name:text_feature}")
+    private String defaultVectorizerName;
+
+    /**
+     * 处理结果中向量的编码（float32/float16），float16 使消息中的向量块减半，精度约 3 位有效数字
+     */
+    @Value("${data-process.output.vector-encoding:float32}")
+    private String outputVectorEncoding;
+
+    /**
+     * 分块大小（记录数）
+     */
+    @Value("${data-process.pipeline.chunk-size:256}")
+    private int pipelineChunkSize;
+
+    /**
+     * 分区键通道数，同一通道的分块在各阶段由同一工作线程按顺序处理
+     */
+    @Value("${data-process.pipeline.lanes:16}")
+    private int pipelineLanes;
+
+    /**
+     * 每个工作线程的队列容量（分块数）
+     */
+    @Value("${data-process.pipeline.queue-capacity:4}")
+    private int pipelineQueueCapacity;
+
+    @Value("${data-process.pipeline.dedup-parallelism:2}")
+    private int dedupParallelism;
+
+    @Value("${data-process.pipeline.transform-parallelism:4}")
+    private int transformParallelism;
+
+    @Value("${data-process.pipeline.vectorize-parallelism:4}")
+    private int vectorizeParallelism;
+
+    @Value("${data-process.pipeline.encode-parallelism:2}")
+    private int encodeParallelism;
+
+    @Value("${data-process.pipeline.send-parallelism:2}")
+    private int sendParallelism;
+
+    /**
+     * 已发送未确认的最大分块数
+     */
+    @Value("${data-process.pipeline.max-in-flight-chunks:64}")
+    private int maxInFlightChunks;
+
+    /**
+     * 等待一次批量处理全部完成的超时时间（秒），消费者的 max.poll.interval.ms 按该值留出余量
+     */
+    @Value("${" + DataProcessKafkaConfig.RUN_TIMEOUT_PROPERTY + ":" + DataProcessKafkaConfig.DEFAULT_RUN_TIMEOUT_SECONDS + "}")
+    private long pipelineRunTimeoutSeconds;
+
+    /**
+     * 数据处理流水线：去重 -> 转换 -> 向量化 -> 编码 -> 发送
+     */
+    private StagedPipeline<RecordChunk> processingPipeline;
+
+    /**
+     * 已发送未确认的分块名额
+     */
+    private Semaphore inFlightChunks;
+
+    /**
+     * 处理结果编码器，每个编码线程复用一个缓冲区
+     */
+    private ThreadLocal<ProcessedRecordWriter> processedRecordWriters;
+
     /**
      * 处理任务状态缓存
      */
     private final Map<Long, String> processStatusMap = new ConcurrentHashMap<>();
 
     /**
-     * 向量化缓存
+     * 执行器服务，处理发送确认回调
      */
-    private final Map<String, float[]> vectorCache = new ConcurrentHashMap<>();
+    private final ExecutorService executorService = Executors.newFixedThreadPool(20);
 
     /**
-     * 执行器服务
+     * 等待处理结果被 broker 确认的超时时间（秒）
      */
-    private final ExecutorService executorService = Executors.newFixedThreadPool(20);
+    private static final long SEND_ACK_TIMEOUT_SECONDS = 120;
 
     /**
-     * 缓存大小限制
+     * 等待向量化结果的基础超时时间（秒），限速排队所需的时间另外按任务的排队令牌数和速率估算后加上
      */
-    private static final int CACHE_SIZE_LIMIT = 10000;
+    private static final long VECTORIZE_TIMEOUT_SECONDS = 60;
+
+    @PostConstruct
+    public void init() {
+        pipelineLanes = Math.max(1, pipelineLanes);
+        pipelineChunkSize = Math.max(1, pipelineChunkSize);
+        inFlightChunks = new Semaphore(Math.max(1, maxInFlightChunks));
+        byte vectorEncoding = ProcessedRecordFormat.toVectorEncoding(outputVectorEncoding);
+        processedRecordWriters = ThreadLocal.withInitial(() -> new ProcessedRecordWriter(vectorEncoding));
+        processingPipeline = StagedPipeline.<RecordChunk>builder("data-process", RecordChunk::getLane, this::onChunkFailed)
+                .stage("dedup", dedupParallelism, pipelineQueueCapacity, this::dedupChunk)
+                .stage("transform", transformParallelism, pipelineQueueCapacity, this::transformChunk)
+                .stage("vectorize", vectorizeParallelism, pipelineQueueCapacity, this::vectorizeChunk)
+                .stage("encode", encodeParallelism, pipelineQueueCapacity, this::encodeChunk)
+                .stage("send", sendParallelism, pipelineQueueCapacity, this::sendChunk)
+                .build();
+        processingPipeline.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        processingPipeline.shutdown();
+        executorService.shutdown();
+    }
 
     /**
      * 处理数据变更
@@ -66,16 +197,8 @@ public class DataProcessServiceImpl implements DataProcessService {
                 redisTemplate.opsForValue().set(DataRsyncConstants.RedisKey.DATA_PROCESS_PREFIX + taskId, "RUNNING");
             }
 
-            // 2. 从Redis获取任务配置（实际项目中可能需要从任务管理服务获取）
-            String taskConfigStr = redisTemplate.opsForValue().get(DataRsyncConstants.RedisKey.TASK_CONFIG_PREFIX + taskId);
-            Task task = null;
-            if (taskConfigStr != null) {
-                // 实际项目中需要反序列化taskConfigStr为Task对象
-                task = new Task();
-                // 模拟任务配置
-                String config = "{\"cleaningRules\": \"remove_empty,trim_whitespace,validate_format,remove_duplicates\", \"transformationRules\": \"field_mapping,type_conversion,value_normalization\", \"vectorizationRules\": \"text_feature,use_all_fields\", \"vectorizerName\": \"text_feature\"}";
-                task.setConfig(config);
-            }
+            // 2. 从本地缓存获取任务配置，配置变更由任务管理服务推送淘汰
+            Task task = loadTask(taskId);
 
             // 3. 生成记录标识
             String recordId = generateRecordId(dataChange);
@@ -87,13 +210,8 @@ public class DataProcessServiceImpl implements DataProcessService {
                 return true; // 已处理，跳过
             }
 
-            // 5. 执行数据清洗
-            // 从任务配置中获取清洗规则
-            Map<String, Object> cleanedData = executeDataCleaning(task, dataChange);
-
-            // 6. 执行数据转换
-            // 从任务配置中获取转换规则
-            Map<String, Object> transformedData = executeDataTransform(task, cleanedData);
+            // 5-6. 按任务处理计划一次遍历完成数据清洗和转换
+            Map<String, Object> transformedData = applyProcessingPlan(task, dataChange);
 
             // 7. 生成向量
             // 从任务配置中获取向量化规则
@@ -103,13 +221,16 @@ public class DataProcessServiceImpl implements DataProcessService {
             Map<String, Object> processedData = new HashMap<>(transformedData);
             processedData.put("vector", vector);
             processedData.put("recordId", recordId);
+            if (PartitionKeys.fromMessage(dataChange) != null) {
+                processedData.put(PartitionKeys.FIELD, PartitionKeys.fromMessage(dataChange));
+            }
 
-            // 9. 标记记录为已处理
-            markRecordAsProcessed(taskId, recordId);
-
-            // 10. 发送处理结果到 Kafka
+            // 9. 发送处理结果到 Kafka，broker 确认后才能标记，发送失败时抛出异常
             sendProcessedDataToKafka(taskId, processedData);
 
+            // 10. 标记记录为已处理
+            markRecordAsProcessed(taskId, recordId);
+
             log.info("Processed data change for task: {}, recordId: {}", taskId, recordId);
             return true;
         } catch (Exception e) {
@@ -128,84 +249,10 @@ public class DataProcessServiceImpl implements DataProcessService {
      */
     @Override
     public Map<String, Object> executeDataTransform(Task task, Map<String, Object> data) {
-        log.info("Executing data transform");
         try {
-            // 实现具体的数据转换逻辑
-            // 1. 字段映射
-            // 2. 类型转换
-            // 3. 重命名字段
-            
-            // 获取转换规则
-            Set<String> transformationRules = new HashSet<>();
-            if (task != null && task.getConfig() != null) {
-                // 实际项目中需要解析task.getConfig()为Map
-                // 这里简单示例：直接使用默认规则
-                transformationRules.addAll(Arrays.asList("field_mapping", "type_conversion", "value_normalization"));
-            }
-            
-            // 如果没有配置转换规则，使用默认规则
-            if (transformationRules.isEmpty()) {
-                transformationRules.addAll(Arrays.asList("field_mapping", "type_conversion", "value_normalization"));
-            }
-            
-            log.info("Applying transformation rules: {}", transformationRules);
-
-            // 执行数据转换
-            Map<String, Object> transformedData = new HashMap<>();
-            for (Map.Entry<String, Object> entry : data.entrySet()) {
-                String key = entry.getKey();
-                Object value = entry.getValue();
-                
-                // 1. 字段映射
-                if (transformationRules.contains("field_mapping")) {
-                    // 实际项目中可能需要从配置中获取字段映射规则
-                    // 这里简单示例：如果字段名为"user_name"，映射为"username"
-                    if ("user_name".equals(key)) {
-                        key = "username";
-                    } else if ("user_age".equals(key)) {
-                        key = "age";
-                    } else if ("user_email".equals(key)) {
-                        key = "email";
-                    }
-                }
-                
-                // 2. 类型转换
-                if (transformationRules.contains("type_conversion")) {
-                    // 实际项目中可能需要从配置中获取类型转换规则
-                    // 这里简单示例：将字符串类型的数字转换为整数
-                    if (value instanceof String) {
-                        String strValue = (String) value;
-                        if (strValue.matches("\\d+")) {
-                            try {
-                                value = Integer.parseInt(strValue);
-                            } catch (NumberFormatException e) {
-                                // 转换失败，保持原值
-                            }
-                        } else if (strValue.matches("\\d+\\.\\d+")) {
-                            try {
-                                value = Double.parseDouble(strValue);
-                            } catch (NumberFormatException e) {
-                                // 转换失败，保持原值
-                            }
-                        } else if ("true".equalsIgnoreCase(strValue) || "false".equalsIgnoreCase(strValue)) {
-                            value = Boolean.parseBoolean(strValue);
-                        }
-                    }
-                }
-                
-                // 3. 重命名字段
-                if (transformationRules.contains("value_normalization")) {
-                    // 实际项目中可能需要从配置中获取值规范化规则
-                    // 这里简单示例：对字符串值进行trim操作
-                    if (value instanceof String) {
-                        value = ((String) value).trim();
-                    }
-                }
-                
-                transformedData.put(key, value);
-            }
-
-            log.info("Executed data transform, transformed {} fields", transformedData.size());
+            // 字段映射、类型转换、值规范化，规则来自任务的处理计划
+            Map<String, Object> transformedData = processingPlanCache.get(task).transform(data);
+            log.debug("Executed data transform, transformed {} fields", transformedData.size());
             return transformedData;
         } catch (Exception e) {
             log.error("Failed to execute data transform: {}", e.getMessage(), e);
@@ -218,98 +265,123 @@ public class DataProcessServiceImpl implements DataProcessService {
      * @param task 任务
      * @param data 原始数据
      * @return 向量
+     * @throws DataProcessException 向量生成失败或超时，不能用空向量代替，否则记录带着空向量写入目标后丢失
      */
     @Override
     public float[] generateVector(Task task, Map<String, Object> data) {
         log.info("Generating vector");
         try {
-            // 1. 提取文本特征
-            String text = extractTextFeatures(data);
-            
-            // 2. 生成缓存键
-            String cacheKey = generateCacheKey(text);
-            
-            // 3. 检查缓存
-            if (vectorCache.containsKey(cacheKey)) {
-                log.debug("Vector found in cache for key: {}", cacheKey);
-                return vectorCache.get(cacheKey);
-            }
-            
-            // 4. 获取向量化器
-            // 从任务配置中获取向量化器名称，默认为 text_feature
-            String vectorizerName = "text_feature";
-            if (task != null && task.getConfig() != null) {
-                // 实际项目中需要解析task.getConfig()为Map
-                // 这里简单示例：使用默认向量化器
-                log.info("Using default vectorizer: {}", vectorizerName);
-            }
-            
-            // 5. 使用向量化器生成向量
-            Vectorizer vectorizer = VectorizerFactory.getVectorizer(vectorizerName);
-            float[] vector = vectorizer.vectorize(data);
+            // 1. 获取向量化器
+            Vectorizer vectorizer = resolveVectorizer(task);
 
-            // 6. 更新缓存
-            updateVectorCache(cacheKey, vector);
+            // 2. 按规范化文本从向量存储读取，未命中时按任务生成速率经微批处理器与其他线程的请求合并后生成并写回
+            int generationRate = processingPlanCache.get(task).getGenerationRate();
+            CompletableFuture<float[]> future = embeddingStore.embed(vectorizer, task.getId(), generationRate, businessFields(data));
+            float[] vector = awaitVectors(vectorizer, task.getId(), List.of(future)).get(0);
 
-            log.info("Generated vector with dimension: {} using vectorizer: {}", vector.length, vectorizerName);
+            log.info("Generated vector with dimension: {} using vectorizer: {}", vector.length, vectorizer.getName());
             return vector;
-        } catch (Exception e) {
-            log.error("Failed to generate vector: {}", e.getMessage(), e);
-            return new float[0]; // 生成失败返回空向量
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataProcessException("Interrupted while generating vector", true, e);
         }
     }
 
     /**
-     * 生成缓存键
-     * @param text 文本特征
-     * @return 缓存键
+     * 批量生成向量，向量存储未命中的记录合并提交给向量化器
+     * @param task 任务
+     * @param dataList 数据列表
+     * @return 与输入一一对应的向量
+     * @throws DataProcessException 任一条生成失败或超时，整块交给失败处理，不以空向量发送
+     * @throws InterruptedException 等待期间被中断
      */
-    private String generateCacheKey(String text) {
-        // 使用文本的哈希值作为缓存键
-        return String.valueOf(text.hashCode());
+    private List<float[]> generateVectors(Task task, List<Map<String, Object>> dataList) throws InterruptedException {
+        Vectorizer vectorizer = resolveVectorizer(task);
+        int generationRate = processingPlanCache.get(task).getGenerationRate();
+        List<Map<String, Object>> inputs = new ArrayList<>(dataList.size());
+        for (Map<String, Object> data : dataList) {
+            inputs.add(businessFields(data));
+        }
+        List<CompletableFuture<float[]>> futures = embeddingStore.embedAll(vectorizer, task.getId(), generationRate, inputs);
+        List<float[]> vectors = awaitVectors(vectorizer, task.getId(), futures);
+        log.debug("Generated {} vectors", dataList.size());
+        return vectors;
     }
 
     /**
-     * 更新向量缓存
-     * @param key 缓存键
-     * @param vector 向量
+     * 去掉记录标识、分区键、操作类型等内部字段，只把业务内容交给向量化器：
+     * 内部字段每条记录都不同，留在输入中会使内容相同的记录得到不同的向量和向量存储键
+     * @param data 数据
+     * @return 不含内部字段的数据，没有内部字段时返回原数据
      */
-    private void updateVectorCache(String key, float[] vector) {
-        // 检查缓存大小
-        if (vectorCache.size() >= CACHE_SIZE_LIMIT) {
-            // 移除最旧的缓存项（简单实现，实际应用中可使用LRU缓存）
-            String oldestKey = vectorCache.keySet().iterator().next();
-            vectorCache.remove(oldestKey);
+    private static Map<String, Object> businessFields(Map<String, Object> data) {
+        boolean hasInternal = false;
+        for (String field : Vectorizer.INTERNAL_FIELDS) {
+            if (data.containsKey(field)) {
+                hasInternal = true;
+                break;
+            }
         }
-        // 添加新的缓存项
-        vectorCache.put(key, vector);
+        if (!hasInternal) {
+            return data;
+        }
+        Map<String, Object> fields = new LinkedHashMap<>(data);
+        fields.keySet().removeAll(Vectorizer.INTERNAL_FIELDS);
+        return fields;
     }
 
     /**
-     * 提取文本特征
-     * @param data 原始数据
-     * @return 文本特征
-     */
-    private String extractTextFeatures(Map<String, Object> data) {
-        StringBuilder textBuilder = new StringBuilder();
-        
-        // 遍历数据中的所有字段，提取文本特征
-        for (Map.Entry<String, Object> entry : data.entrySet()) {
-            String key = entry.getKey();
-            Object value = entry.getValue();
-            
-            // 跳过向量字段
-            if ("vector".equals(key)) {
-                continue;
+     * 等待向量结果。等待上限为基础超时加上任务排队请求按限速取得令牌所需的时间，不超过一次批量处理的超时；
+     * 失败或超时时取消全部未完成的请求，排队中的请求不再消耗令牌，已算出的向量留在缓存中供重新投递时命中
+     * @param vectorizer 向量化器
+     * @param taskId 任务ID
+     * @param futures 向量结果
+     * @return 与输入一一对应的向量
+     * @throws DataProcessException 任一条生成失败或超时
+     * @throws InterruptedException 等待期间被中断
+     */
+    private List<float[]> awaitVectors(Vectorizer vectorizer, Long taskId, List<CompletableFuture<float[]>> futures)
+            throws InterruptedException {
+        long timeoutNanos = Math.min(TimeUnit.SECONDS.toNanos(pipelineRunTimeoutSeconds),
+                TimeUnit.SECONDS.toNanos(VECTORIZE_TIMEOUT_SECONDS) + embeddingStore.estimateDrainNanos(vectorizer, taskId));
+        long deadline = System.nanoTime() + timeoutNanos;
+        List<float[]> vectors = new ArrayList<>(futures.size());
+        boolean completed = false;
+        try {
+            for (CompletableFuture<float[]> future : futures) {
+                vectors.add(future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
             }
-            
-            // 将字段值转换为文本
-            if (value != null) {
-                textBuilder.append(key).append(": ").append(value.toString()).append(" ");
+            completed = true;
+            return vectors;
+        } catch (ExecutionException e) {
+            throw new DataProcessException("Failed to generate vector: " + e.getCause().getMessage(), true, e.getCause());
+        } catch (TimeoutException e) {
+            throw new DataProcessException("Timed out generating " + futures.size() + " vectors of task " + taskId
+                    + " after " + TimeUnit.NANOSECONDS.toSeconds(timeoutNanos) + "s", true, e);
+        } finally {
+            if (!completed) {
+                for (CompletableFuture<float[]> future : futures) {
+                    future.cancel(false);
+                }
+            }
+        }
+    }
+
+    /**
+     * 获取任务使用的向量化器
+     * @param task 任务
+     * @return 向量化器
+     */
+    private Vectorizer resolveVectorizer(Task task) {
+        // 任务配置的 vectorizerName 优先，未配置或不受支持时使用默认向量化器
+        String vectorizerName = processingPlanCache.get(task).getVectorizerName();
+        if (vectorizerName == null || !VectorizerFactory.supports(vectorizerName)) {
+            if (vectorizerName != null) {
+                log.warn("Vectorizer {} not supported, using default vectorizer: {}", vectorizerName, defaultVectorizerName);
             }
+            vectorizerName = defaultVectorizerName;
         }
-        
-        return textBuilder.toString().trim();
+        return VectorizerFactory.getVectorizer(vectorizerName);
     }
 
     /**
@@ -320,95 +392,10 @@ public class DataProcessServiceImpl implements DataProcessService {
      */
     @Override
     public Map<String, Object> executeDataCleaning(Task task, Map<String, Object> data) {
-        log.info("Executing data cleaning");
         try {
-            // 实现具体的数据清洗逻辑
-            // 1. 空值处理
-            // 2. 重复数据去重
-            // 3. 数据格式校验
-            
-            // 获取清洗规则
-            Set<String> cleaningRules = new HashSet<>();
-            if (task != null && task.getConfig() != null) {
-                // 实际项目中需要解析task.getConfig()为Map
-                // 这里简单示例：直接使用默认规则
-                cleaningRules.addAll(Arrays.asList("remove_empty", "trim_whitespace", "validate_format"));
-            }
-            
-            // 如果没有配置清洗规则，使用默认规则
-            if (cleaningRules.isEmpty()) {
-                cleaningRules.addAll(Arrays.asList("remove_empty", "trim_whitespace", "validate_format"));
-            }
-            
-            log.info("Applying cleaning rules: {}", cleaningRules);
-
-            // 执行数据清洗
-            Map<String, Object> cleanedData = new HashMap<>();
-            Set<String> processedKeys = new HashSet<>(); // 用于去重
-            
-            for (Map.Entry<String, Object> entry : data.entrySet()) {
-                String key = entry.getKey();
-                Object value = entry.getValue();
-                
-                // 2. 重复数据去重
-                if (cleaningRules.contains("remove_duplicates")) {
-                    if (processedKeys.contains(key)) {
-                        log.debug("Removing duplicate key: {}", key);
-                        continue;
-                    }
-                    processedKeys.add(key);
-                }
-                
-                // 1. 空值处理
-                if (value == null) {
-                    // 根据配置处理空值
-                    String nullHandlingStrategy = "empty_string"; // 默认策略：使用空字符串
-                    // 实际项目中需要从task.getConfig()中获取nullHandlingStrategy
-                    
-                    log.debug("Handling null value for key {} using strategy: {}", key, nullHandlingStrategy);
-                    
-                    switch (nullHandlingStrategy) {
-                        case "empty_string":
-                            value = "";
-                            break;
-                        case "zero":
-                            value = 0;
-                            break;
-                        case "null":
-                            value = null;
-                            break;
-                        case "default_value":
-                            // 实际项目中可能需要从配置中获取默认值
-                            value = "default";
-                            break;
-                        default:
-                            value = "";
-                    }
-                } else {
-                    // 3. 数据格式校验和清洗
-                    if (cleaningRules.contains("trim_whitespace") && value instanceof String) {
-                        value = ((String) value).trim();
-                    }
-                    
-                    if (cleaningRules.contains("validate_format")) {
-                        // 实际项目中可能需要从配置中获取格式校验规则
-                        // 这里简单示例：校验邮箱格式
-                        if ("email".equals(key) && value instanceof String) {
-                            String email = (String) value;
-                            if (!email.matches("[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,}")) {
-                                log.warn("Invalid email format for key {}: {}", key, email);
-                                // 实际项目中可能需要根据配置决定如何处理无效格式
-                                // 这里简单示例：标记为无效邮箱
-                                value = "invalid_email:" + email;
-                            }
-                        }
-                    }
-                }
-                
-                cleanedData.put(key, value);
-            }
-
-            log.info("Executed data cleaning, cleaned {} fields", cleanedData.size());
+            // 空值处理、去除空白、格式校验，规则来自任务的处理计划
+            Map<String, Object> cleanedData = processingPlanCache.get(task).clean(data);
+            log.debug("Executed data cleaning, cleaned {} fields", cleanedData.size());
             return cleanedData;
         } catch (Exception e) {
             log.error("Failed to execute data cleaning: {}", e.getMessage(), e);
@@ -416,8 +403,26 @@ public class DataProcessServiceImpl implements DataProcessService {
         }
     }
 
+    /**
+     * 按任务处理计划一次遍历完成清洗和转换
+     * @param task 任务
+     * @param data 原始数据
+     * @return 处理后的数据
+     */
+    private Map<String, Object> applyProcessingPlan(Task task, Map<String, Object> data) {
+        ProcessingPlan plan = processingPlanCache.get(task);
+        try {
+            return plan.apply(data);
+        } catch (Exception e) {
+            log.error("Failed to apply processing plan: {}", e.getMessage(), e);
+            return data; // 处理失败返回原始数据
+        }
+    }
+
     /**
      * 批量处理数据
+     * 记录按分区键分块后提交给分阶段流水线，提交在流水线满载时阻塞；全部分块结束后，没有失败分块的通道中
+     * 已确认的记录标记为已处理。批内重复的记录只保留最后一条，已处理的记录在去重阶段跳过。
      * @param taskId 任务ID
      * @param dataList 数据列表
      * @return 处理结果
@@ -432,59 +437,77 @@ public class DataProcessServiceImpl implements DataProcessService {
                 redisTemplate.opsForValue().set(DataRsyncConstants.RedisKey.DATA_PROCESS_PREFIX + taskId, "RUNNING");
             }
 
-            // 2. 并行处理数据
-            int batchSize = 1000;
-            List<List<Map<String, Object>>> batches = splitIntoBatches(dataList, batchSize);
-            CountDownLatch latch = new CountDownLatch(batches.size());
-            List<Map<String, Object>> allProcessedData = Collections.synchronizedList(new ArrayList<>());
-
-            for (List<Map<String, Object>> batch : batches) {
-                executorService.submit(() -> {
-                    try {
-                        for (Map<String, Object> data : batch) {
-                            // 生成记录标识
-                            String recordId = generateRecordId(data);
-                            data.put("recordId", recordId);
-
-                            // 检查记录是否已处理
-                            if (isRecordProcessed(taskId, recordId)) {
-                                log.debug("Record {} has already been processed for task {}", recordId, taskId);
-                                continue; // 已处理，跳过
-                            }
-
-                            // 执行数据清洗
-                            Map<String, Object> cleanedData = executeDataCleaning(null, data);
-                            // 执行数据转换
-                            Map<String, Object> transformedData = executeDataTransform(null, cleanedData);
-                            // 生成向量
-                            float[] vector = generateVector(null, transformedData);
-                            // 构建处理结果
-                            Map<String, Object> processedData = new HashMap<>(transformedData);
-                            processedData.put("vector", vector);
-                            processedData.put("recordId", recordId);
-                            // 标记记录为已处理
-                            markRecordAsProcessed(taskId, recordId);
-                            // 添加到结果列表
-                            allProcessedData.add(processedData);
-                        }
-                    } catch (Exception e) {
-                        log.error("Failed to process batch data: {}", e.getMessage(), e);
-                    } finally {
-                        latch.countDown();
+            // 2. 生成记录标识并按分区键分块提交，同一分区键的记录进入同一通道并按原顺序处理
+            BatchRun run = new BatchRun(taskId, loadTask(taskId));
+            // 记录标识是内容哈希，同一内容在批内多次出现时只保留最后一次，批内 A→B→A 这样的变更序列最终落到 A；
+            // 跨批次不成立，见 ProcessedRecordStore
+            Map<String, Integer> lastIndexes = new HashMap<>(Math.max(16, dataList.size() * 2));
+            for (int i = 0; i < dataList.size(); i++) {
+                Map<String, Object> data = dataList.get(i);
+                String recordId = generateRecordId(data);
+                data.put("recordId", recordId);
+                lastIndexes.put(recordId, i);
+            }
+            RecordChunk[] openChunks = new RecordChunk[pipelineLanes];
+            int unkeyed = 0;
+            int duplicates = 0;
+            try {
+                for (int i = 0; i < dataList.size(); i++) {
+                    Map<String, Object> data = dataList.get(i);
+                    if (lastIndexes.get((String) data.get("recordId")) != i) {
+                        duplicates++;
+                        continue;
                     }
-                });
+                    String partitionKey = PartitionKeys.fromMessage(data);
+                    int lane = partitionKey != null
+                            ? Math.floorMod(partitionKey.hashCode(), pipelineLanes)
+                            : (unkeyed++ / pipelineChunkSize) % pipelineLanes;
+                    RecordChunk chunk = openChunks[lane];
+                    if (chunk == null) {
+                        chunk = new RecordChunk(run, lane, pipelineChunkSize);
+                        openChunks[lane] = chunk;
+                    }
+                    chunk.getRecords().add(data);
+                    if (chunk.getRecords().size() >= pipelineChunkSize) {
+                        submitChunk(chunk);
+                        openChunks[lane] = null;
+                    }
+                }
+                for (RecordChunk chunk : openChunks) {
+                    if (chunk != null) {
+                        submitChunk(chunk);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.error("Interrupted while submitting records of task {}", taskId);
+                run.markFailed();
+            } catch (Exception e) {
+                log.error("Failed to submit records of task {}: {}", taskId, e.getMessage(), e);
+                run.markFailed();
+            } finally {
+                run.feedFinished();
+            }
+            if (duplicates > 0) {
+                log.debug("Skipped {} duplicate records for task {}", duplicates, taskId);
             }
 
-            // 等待所有批次处理完成
-            latch.await();
-
-            // 3. 批量发送处理结果到 Kafka
-            if (!allProcessedData.isEmpty()) {
-                batchSendProcessedDataToKafka(taskId, allProcessedData);
+            // 3. 等待全部分块发送确认，有失败分块的通道整体不标记为已处理，重新投递时按原顺序重新处理
+            if (!run.await(pipelineRunTimeoutSeconds, TimeUnit.SECONDS)) {
+                log.error("Timed out waiting for pipeline to process records of task {}", taskId);
+                return false;
+            }
+            markRecordsAsProcessed(taskId, run.getCommittableRecordIds());
+            if (run.isFailed()) {
+                return false;
             }
 
-            log.info("Batch processed {} data items for task: {}, unique records: {}", dataList.size(), taskId, allProcessedData.size());
+            log.info("Batch processed {} data items for task: {}, sent records: {}", dataList.size(), taskId, run.getSentRecords());
             return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Interrupted while batch processing data for task {}", taskId);
+            return false;
         } catch (Exception e) {
             log.error("Failed to batch process data for task {}: {}", taskId, e.getMessage(), e);
             processStatusMap.put(taskId, "FAILED");
@@ -493,6 +516,167 @@ public class DataProcessServiceImpl implements DataProcessService {
         }
     }
 
+    /**
+     * 提交分块，流水线满载时阻塞
+     * @param chunk 分块
+     * @throws InterruptedException 等待期间被中断
+     */
+    private void submitChunk(RecordChunk chunk) throws InterruptedException {
+        chunk.getRun().chunkSubmitted();
+        try {
+            processingPipeline.submit(chunk);
+        } catch (InterruptedException | RuntimeException e) {
+            chunk.getRun().chunkFinished(chunk, false);
+            throw e;
+        }
+    }
+
+    /**
+     * 去重阶段：跳过已处理的记录
+     * @param chunk 分块
+     * @return 是否还有待处理的记录
+     */
+    private boolean dedupChunk(RecordChunk chunk) {
+        List<Map<String, Object>> records = chunk.getRecords();
+        List<String> recordIds = new ArrayList<>(records.size());
+        for (Map<String, Object> data : records) {
+            recordIds.add(data.get("recordId").toString());
+        }
+        Set<String> processedRecordIds = findProcessedRecords(chunk.getRun().getTaskId(), recordIds);
+        if (!processedRecordIds.isEmpty()) {
+            List<Map<String, Object>> pending = new ArrayList<>(records.size() - processedRecordIds.size());
+            for (int i = 0; i < records.size(); i++) {
+                if (!processedRecordIds.contains(recordIds.get(i))) {
+                    pending.add(records.get(i));
+                }
+            }
+            log.debug("Skipped {} processed records for task {}", records.size() - pending.size(), chunk.getRun().getTaskId());
+            chunk.setRecords(pending);
+        }
+        if (chunk.getRecords().isEmpty()) {
+            chunk.getRun().chunkFinished(chunk, true);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 转换阶段：按任务处理计划一次遍历完成清洗和转换
+     * @param chunk 分块
+     * @return 交给下一阶段
+     */
+    private boolean transformChunk(RecordChunk chunk) {
+        List<Map<String, Object>> transformed = new ArrayList<>(chunk.getRecords().size());
+        for (Map<String, Object> data : chunk.getRecords()) {
+            transformed.add(applyProcessingPlan(chunk.getRun().getTask(), data));
+        }
+        chunk.setTransformed(transformed);
+        return true;
+    }
+
+    /**
+     * 向量化阶段：整块生成向量，任一条失败时整块失败
+     * @param chunk 分块
+     * @return 交给下一阶段
+     * @throws InterruptedException 等待向量期间被中断
+     */
+    private boolean vectorizeChunk(RecordChunk chunk) throws InterruptedException {
+        chunk.setVectors(generateVectors(chunk.getRun().getTask(), chunk.getTransformed()));
+        return true;
+    }
+
+    /**
+     * 编码阶段：构建处理结果并序列化为消息
+     * @param chunk 分块
+     * @return 交给下一阶段
+     */
+    private boolean encodeChunk(RecordChunk chunk) {
+        List<Map<String, Object>> records = chunk.getRecords();
+        List<String> recordIds = new ArrayList<>(records.size());
+        List<String> keys = new ArrayList<>(records.size());
+        List<byte[]> messages = new ArrayList<>(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            Map<String, Object> data = records.get(i);
+            String recordId = data.get("recordId").toString();
+            // 在转换结果上补充向量等字段作为处理结果，转换结果此后不再使用
+            Map<String, Object> processedData = chunk.getTransformed().get(i);
+            processedData.put("vector", chunk.getVectors().get(i));
+            processedData.put("recordId", recordId);
+            if (PartitionKeys.fromMessage(data) != null) {
+                processedData.put(PartitionKeys.FIELD, PartitionKeys.fromMessage(data));
+            }
+            recordIds.add(recordId);
+            keys.add(resolvePartitionKey(processedData));
+            messages.add(buildProcessedMessage(chunk.getRun().getTaskId(), processedData));
+        }
+        chunk.encoded(recordIds, keys, messages);
+        return true;
+    }
+
+    /**
+     * 发送阶段：按顺序发送后不等待确认，确认在回调中记入批次进度，在途分块数由信号量限制
+     * @param chunk 分块
+     * @return 分块在本阶段结束
+     * @throws InterruptedException 等待在途名额期间被中断
+     */
+    private boolean sendChunk(RecordChunk chunk) throws InterruptedException {
+        Long taskId = chunk.getRun().getTaskId();
+        String topic = DataRsyncConstants.KafkaTopic.DATA_PROCESSED_TOPIC;
+        inFlightChunks.acquire();
+        CompletableFuture<?>[] futures = new CompletableFuture[chunk.sentCount()];
+        try {
+            for (int i = 0; i < futures.length; i++) {
+                futures[i] = binaryKafkaSender.send(topic, chunk.getMessageKeys().get(i), chunk.getMessages().get(i));
+            }
+        } catch (RuntimeException e) {
+            inFlightChunks.release();
+            throw e;
+        }
+        // broker 确认后记入批次进度，批次结束时统一标记为已处理；回调放到执行器中避免阻塞生产者 I/O 线程
+        CompletableFuture.allOf(futures)
+                .orTimeout(SEND_ACK_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .whenCompleteAsync((result, error) -> {
+                    try {
+                        if (error == null) {
+                            log.debug("Sent {} processed data items to Kafka for task: {}", futures.length, taskId);
+                        } else {
+                            log.error("Failed to send processed data to Kafka for task {}: {}", taskId, error.getMessage());
+                        }
+                        chunk.getRun().chunkFinished(chunk, error == null);
+                    } finally {
+                        inFlightChunks.release();
+                    }
+                }, executorService);
+        return false;
+    }
+
+    /**
+     * 分块处理失败
+     * @param chunk 分块
+     * @param stage 阶段名称
+     * @param cause 原因
+     */
+    private void onChunkFailed(RecordChunk chunk, String stage, Throwable cause) {
+        log.error("Failed to process chunk of task {} at stage {}: {}", chunk.getRun().getTaskId(), stage, cause.getMessage(), cause);
+        chunk.getRun().chunkFinished(chunk, false);
+    }
+
+    /**
+     * 从本地缓存获取任务配置
+     * @param taskId 任务ID
+     * @return 任务，未配置时返回 null
+     */
+    private Task loadTask(Long taskId) {
+        String taskConfigStr = taskConfigCache.get(taskId);
+        if (taskConfigStr == null) {
+            return null;
+        }
+        Task task = new Task();
+        task.setId(taskId);
+        task.setConfig(taskConfigStr);
+        return task;
+    }
+
     /**
      * 生成记录标识
      * @param data 数据
@@ -517,8 +701,7 @@ public class DataProcessServiceImpl implements DataProcessService {
      */
     private boolean isRecordProcessed(Long taskId, String recordId) {
         try {
-            String key = DataRsyncConstants.RedisKey.PROCESSED_RECORD_PREFIX + taskId + ":" + recordId;
-            return redisTemplate.hasKey(key);
+            return processedRecordStore.isProcessed(taskId, recordId);
         } catch (Exception e) {
             log.error("Failed to check if record is processed: {}", e.getMessage(), e);
             return false;
@@ -532,14 +715,40 @@ public class DataProcessServiceImpl implements DataProcessService {
      */
     private void markRecordAsProcessed(Long taskId, String recordId) {
         try {
-            String key = DataRsyncConstants.RedisKey.PROCESSED_RECORD_PREFIX + taskId + ":" + recordId;
-            // 设置过期时间为7天，避免Redis内存占用过大
-            redisTemplate.opsForValue().set(key, "1", 7, java.util.concurrent.TimeUnit.DAYS);
+            processedRecordStore.markProcessed(taskId, recordId);
         } catch (Exception e) {
             log.error("Failed to mark record as processed: {}", e.getMessage(), e);
         }
     }
 
+    /**
+     * 批量查询已处理的记录
+     * @param taskId 任务ID
+     * @param recordIds 记录标识
+     * @return 已处理的记录标识，查询失败时返回空集合
+     */
+    private Set<String> findProcessedRecords(Long taskId, Collection<String> recordIds) {
+        try {
+            return processedRecordStore.findProcessed(taskId, recordIds);
+        } catch (Exception e) {
+            log.error("Failed to check processed records: {}", e.getMessage(), e);
+            return Collections.emptySet();
+        }
+    }
+
+    /**
+     * 批量标记记录为已处理
+     * @param taskId 任务ID
+     * @param recordIds 记录标识
+     */
+    private void markRecordsAsProcessed(Long taskId, Collection<String> recordIds) {
+        try {
+            processedRecordStore.markProcessed(taskId, recordIds);
+        } catch (Exception e) {
+            log.error("Failed to mark records as processed: {}", e.getMessage(), e);
+        }
+    }
+
     /**
      * 清理已处理记录的标记
      * @param taskId 任务ID
@@ -547,12 +756,8 @@ public class DataProcessServiceImpl implements DataProcessService {
      */
     public boolean cleanProcessedRecords(Long taskId) {
         try {
-            String pattern = DataRsyncConstants.RedisKey.PROCESSED_RECORD_PREFIX + taskId + ":*";
-            Set<String> keys = redisTemplate.keys(pattern);
-            if (keys != null && !keys.isEmpty()) {
-                redisTemplate.delete(keys);
-                log.info("Cleaned {} processed record markers for task: {}", keys.size(), taskId);
-            }
+            long removed = processedRecordStore.drop(taskId);
+            log.info("Cleaned {} processed record marker keys for task: {}", removed, taskId);
             return true;
         } catch (Exception e) {
             log.error("Failed to clean processed records for task {}: {}", taskId, e.getMessage(), e);
@@ -560,21 +765,6 @@ public class DataProcessServiceImpl implements DataProcessService {
         }
     }
 
-    /**
-     * 将列表分割为多个批次
-     * @param list 原始列表
-     * @param batchSize 批次大小
-     * @return 批次列表
-     */
-    private <T> List<List<T>> splitIntoBatches(List<T> list, int batchSize) {
-        List<List<T>> batches = new ArrayList<>();
-        for (int i = 0; i < list.size(); i += batchSize) {
-            int endIndex = Math.min(i + batchSize, list.size());
-            batches.add(list.subList(i, endIndex));
-        }
-        return batches;
-    }
-
     /**
      * 获取处理状态
      * @param taskId 任务ID
@@ -621,19 +811,17 @@ public class DataProcessServiceImpl implements DataProcessService {
             
             // 2.1 检查执行器服务状态
             boolean executorServiceHealthy = true;
-            if (executorService.isShutdown() || executorService.isTerminated()) {
+            if (executorService.isShutdown() || executorService.isTerminated() || !processingPipeline.isRunning()) {
                 executorServiceHealthy = false;
-                log.warn("Executor service is not healthy: shutdown={}, terminated={}", 
-                         executorService.isShutdown(), executorService.isTerminated());
+                log.warn("Executor service is not healthy: shutdown={}, terminated={}, pipelineRunning={}", 
+                         executorService.isShutdown(), executorService.isTerminated(), processingPipeline.isRunning());
             }
+            log.debug("Processing pipeline backlog: {}", processingPipeline.backlog());
             
-            // 2.2 检查缓存状态
+            // 2.2 检查缓存状态，缓存满载时按策略淘汰，不影响健康状态
             boolean cacheHealthy = true;
-            if (vectorCache.size() > CACHE_SIZE_LIMIT * 0.9) {
-                cacheHealthy = false;
-                log.warn("Cache is nearly full: current size={}, limit={}", 
-                         vectorCache.size(), CACHE_SIZE_LIMIT);
-            }
+            log.debug("Vector cache: size={}, stats={}, vectorized={}, joined in-flight={}", vectorCache.size(), vectorCache.stats(),
+                    embeddingStore.computedCount(), embeddingStore.joinedCount());
             
             // 2.3 检查Redis连接状态
             boolean redisHealthy = true;
@@ -678,58 +866,88 @@ public class DataProcessServiceImpl implements DataProcessService {
     }
 
     /**
-     * 发送处理后的数据到 Kafka
+     * 发送处理后的数据到 Kafka，等待 broker 确认
      * @param taskId 任务ID
      * @param processedData 处理后的数据
+     * @throws Exception 发送失败或等待确认超时
      */
-    private void sendProcessedDataToKafka(Long taskId, Map<String, Object> processedData) {
-        try {
-            String topic = DataRsyncConstants.KafkaTopic.DATA_PROCESSED_TOPIC;
-            
-            // 构建消息
-            Map<String, Object> message = new HashMap<>();
-            message.put("taskId", taskId);
-            message.put("data", processedData);
-            message.put("timestamp", System.currentTimeMillis());
-            
-            // 生成消息键
-            String key = taskId + "-" + System.currentTimeMillis() + "-" + Thread.currentThread().getId();
-            
-            // 发送消息
-            kafkaTemplate.send(topic, key, message.toString());
-            log.debug("Sent processed data to Kafka topic {} for task: {}", topic, taskId);
-        } catch (Exception e) {
-            log.error("Failed to send processed data to Kafka for task {}: {}", taskId, e.getMessage(), e);
-        }
+    private void sendProcessedDataToKafka(Long taskId, Map<String, Object> processedData) throws Exception {
+        String topic = DataRsyncConstants.KafkaTopic.DATA_PROCESSED_TOPIC;
+
+        // 沿用上游的分区键，同一行的处理结果按顺序进入同一分区
+        String key = resolvePartitionKey(processedData);
+
+        // 发送消息
+        binaryKafkaSender.send(topic, key, buildProcessedMessage(taskId, processedData))
+                .get(SEND_ACK_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        log.debug("Sent processed data to Kafka topic {} for task: {}", topic, taskId);
     }
 
     /**
-     * 批量发送处理后的数据到 Kafka
+     * 构建处理结果消息
+     * 主键、向量、记录标识、分区键、操作类型和文本写入定长头部和属性区，其余字段作为带类型的标量字段
      * @param taskId 任务ID
-     * @param processedDataList 处理后的数据列表
+     * @param processedData 处理后的数据
+     * @return 按 {@link ProcessedRecordFormat} 编码的消息体
      */
-    private void batchSendProcessedDataToKafka(Long taskId, List<Map<String, Object>> processedDataList) {
-        try {
-            String topic = DataRsyncConstants.KafkaTopic.DATA_PROCESSED_TOPIC;
-            
-            for (Map<String, Object> processedData : processedDataList) {
-                // 构建消息
-                Map<String, Object> message = new HashMap<>();
-                message.put("taskId", taskId);
-                message.put("data", processedData);
-                message.put("timestamp", System.currentTimeMillis());
-                
-                // 生成消息键
-                String key = taskId + "-" + System.currentTimeMillis() + "-" + Thread.currentThread().getId();
-                
-                // 发送消息
-                kafkaTemplate.send(topic, key, message.toString());
+    private byte[] buildProcessedMessage(Long taskId, Map<String, Object> processedData) {
+        String recordId = Objects.toString(processedData.get("recordId"), null);
+        Object vector = processedData.get("vector");
+        Object text = processedData.get("text");
+        ProcessedRecordWriter writer = processedRecordWriters.get();
+        String partitionKey = PartitionKeys.fromMessage(processedData);
+        writer.begin(taskId, System.currentTimeMillis(), resolveEntityId(processedData.get("id"), partitionKey, recordId),
+                vector instanceof float[] ? (float[]) vector : null);
+        writer.attributes(recordId, partitionKey,
+                Objects.toString(processedData.get("op"), null), text != null ? text.toString() : null);
+        for (Map.Entry<String, Object> entry : processedData.entrySet()) {
+            if (!isProcessedAttribute(entry.getKey())) {
+                writer.field(entry.getKey(), entry.getValue());
             }
-            
-            log.debug("Batch sent {} processed data items to Kafka for task: {}", processedDataList.size(), taskId);
-        } catch (Exception e) {
-            log.error("Failed to batch send processed data to Kafka for task {}: {}", taskId, e.getMessage(), e);
         }
+        return writer.toByteArray();
+    }
+
+    /**
+     * 是否为写入头部或属性区的字段
+     * @param name 字段名
+     * @return 是否为属性
+     */
+    private boolean isProcessedAttribute(String name) {
+        return "vector".equals(name) || "recordId".equals(name) || "op".equals(name)
+                || "text".equals(name) || PartitionKeys.FIELD.equals(name);
+    }
+
+    /**
+     * 解析实体主键：数值型 id 列直接使用，否则由分区键（表名 + 主键值）推导，
+     * 同一行的更新和删除落在同一实体上；无主键的记录才退化为由记录标识（内容指纹）推导
+     * @param id id 列的值
+     * @param partitionKey 分区键
+     * @param recordId 记录标识
+     * @return 实体主键
+     */
+    private long resolveEntityId(Object id, String partitionKey, String recordId) {
+        if (id instanceof Number) {
+            return ((Number) id).longValue();
+        }
+        if (partitionKey != null) {
+            return PartitionKeys.toEntityId(partitionKey);
+        }
+        return IdGeneratorUtils.toLongId(recordId);
+    }
+
+    /**
+     * 解析处理结果的分区键，上游未携带时退化为记录标识，保证相同内容的记录仍落在同一分区
+     * @param processedData 处理后的数据
+     * @return 分区键
+     */
+    private String resolvePartitionKey(Map<String, Object> processedData) {
+        String key = PartitionKeys.fromMessage(processedData);
+        if (key != null) {
+            return key;
+        }
+        Object recordId = processedData.get("recordId");
+        return recordId != null ? recordId.toString() : null;
     }
 
-} 
+}
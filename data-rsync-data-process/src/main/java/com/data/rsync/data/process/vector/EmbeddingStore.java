@@ -0,0 +1,226 @@
+package com.data.rsync.data.process.vector;
+
+import com.data.rsync.common.vectorizer.Vectorizer;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按内容寻址的向量存储
+ * 键为向量化器名称、版本和规范化输入文本（{@link Vectorizer#embeddingText}）的摘要，与任务无关，节点上所有任务共用：
+ * 同一段文本无论来自哪个任务、同步到几个集合，只调用一次向量化器，向量化开销随不同文本数而不是记录数乘任务数增长。
+ * 查询依次经过堆内缓存 {@link VectorCache} 和（启用时）本地持久化的 {@link MappedVectorStore}，都未命中时才提交给
+ * {@link VectorizationBatcher}；同一键正在计算时，后到的请求等待同一个结果，不重复提交。计算失败的结果不缓存。
+ * 只有未命中的记录按任务的生成速率消耗令牌，命中的记录不受限速影响。
+ * 每个调用方拿到各自的 future，取消不影响其他等待同一键的调用方；等待同一键的调用方全部取消后，排队中的请求随之取消。
+ */
+@Component
+@Slf4j
+public class EmbeddingStore {
+
+    @Resource
+    private VectorCache vectorCache;
+
+    @Resource
+    private VectorizationBatcher vectorizationBatcher;
+
+    /**
+     * 正在计算的向量，完成后先写入缓存再移除
+     */
+    private final Map<VectorCache.Key, Inflight> inflight = new ConcurrentHashMap<>();
+
+    /**
+     * 提交给向量化器的记录数
+     */
+    private final LongAdder computed = new LongAdder();
+
+    /**
+     * 等待其他请求正在计算的同一向量的记录数
+     */
+    private final LongAdder joined = new LongAdder();
+
+    /**
+     * 获取单条数据的向量
+     * @param vectorizer 向量化器
+     * @param taskId 任务ID
+     * @param tokensPerSecond 任务的生成速率（tokens/秒），不大于 0 表示不限速
+     * @param data 数据
+     * @return 向量
+     */
+    public CompletableFuture<float[]> embed(Vectorizer vectorizer, Long taskId, int tokensPerSecond, Map<String, Object> data) {
+        return embedAll(vectorizer, taskId, tokensPerSecond, List.of(data)).get(0);
+    }
+
+    /**
+     * 批量获取向量，未命中的记录合并提交给向量化器
+     * @param vectorizer 向量化器
+     * @param taskId 任务ID
+     * @param tokensPerSecond 任务的生成速率（tokens/秒），不大于 0 表示不限速
+     * @param dataList 数据列表
+     * @return 与输入一一对应的向量
+     */
+    public List<CompletableFuture<float[]>> embedAll(Vectorizer vectorizer, Long taskId, int tokensPerSecond,
+                                                     List<Map<String, Object>> dataList) {
+        List<CompletableFuture<float[]>> futures = new ArrayList<>(dataList.size());
+        List<VectorCache.Key> missKeys = new ArrayList<>();
+        List<Inflight> missEntries = new ArrayList<>();
+        List<Map<String, Object>> missData = new ArrayList<>();
+        List<String> missTexts = new ArrayList<>();
+        for (Map<String, Object> data : dataList) {
+            String text = vectorizer.embeddingText(data);
+            VectorCache.Key key = vectorCache.key(vectorizer, text);
+            float[] cached = vectorCache.get(key);
+            if (cached != null) {
+                futures.add(CompletableFuture.completedFuture(cached));
+                continue;
+            }
+            Inflight entry = new Inflight();
+            Inflight existing = inflight.putIfAbsent(key, entry);
+            while (existing != null && !existing.join()) {
+                // 正在被取消的计算不再复用，由本次请求重新计算
+                existing = inflight.replace(key, existing, entry) ? null : inflight.putIfAbsent(key, entry);
+            }
+            if (existing != null) {
+                joined.increment();
+                futures.add(existing.waiter());
+                continue;
+            }
+            // 占位前其他线程可能刚完成同一键的计算并已写入缓存
+            cached = vectorCache.get(key);
+            if (cached != null) {
+                inflight.remove(key, entry);
+                entry.result.complete(cached);
+                futures.add(CompletableFuture.completedFuture(cached));
+                continue;
+            }
+            futures.add(entry.waiter());
+            missKeys.add(key);
+            missEntries.add(entry);
+            missData.add(data);
+            missTexts.add(text);
+        }
+        if (!missData.isEmpty()) {
+            computed.add(missData.size());
+            int[] tokenCosts = new int[missTexts.size()];
+            for (int i = 0; i < tokenCosts.length; i++) {
+                tokenCosts[i] = VectorizationBatcher.estimateTokens(missTexts.get(i));
+            }
+            List<CompletableFuture<float[]>> results = vectorizationBatcher.submitAll(vectorizer, taskId, tokensPerSecond,
+                    missData, tokenCosts);
+            for (int i = 0; i < results.size(); i++) {
+                VectorCache.Key key = missKeys.get(i);
+                Inflight entry = missEntries.get(i);
+                entry.request(results.get(i));
+                results.get(i).whenComplete((vector, error) -> {
+                    if (error == null) {
+                        vectorCache.put(key, vector);
+                    }
+                    inflight.remove(key, entry);
+                    if (error == null) {
+                        entry.result.complete(vector);
+                    } else {
+                        entry.result.completeExceptionally(error);
+                    }
+                });
+            }
+        }
+        log.debug("Embedding lookup for {} records with {}: {} computed", dataList.size(), vectorizer.getName(), missData.size());
+        return futures;
+    }
+
+    /**
+     * 估算任务当前排队的未命中请求全部取得令牌还需的时间，用于确定等待上限
+     * @param vectorizer 向量化器
+     * @param taskId 任务ID
+     * @return 纳秒数，不限速时为 0
+     */
+    public long estimateDrainNanos(Vectorizer vectorizer, Long taskId) {
+        return vectorizationBatcher.estimateDrainNanos(vectorizer, taskId);
+    }
+
+    /**
+     * 正在计算的向量及等待它的调用方数
+     */
+    private static final class Inflight {
+
+        private final CompletableFuture<float[]> result = new CompletableFuture<>();
+
+        /**
+         * 尚未取消的调用方数，降为 0 后不再接受新的调用方
+         */
+        private final AtomicInteger waiters = new AtomicInteger(1);
+
+        /**
+         * 提交给微批处理器的请求
+         */
+        private volatile CompletableFuture<float[]> request;
+
+        /**
+         * 新的调用方加入等待
+         * @return 是否加入成功，所有调用方都已取消时返回 false
+         */
+        boolean join() {
+            while (true) {
+                int current = waiters.get();
+                if (current == 0) {
+                    return false;
+                }
+                if (waiters.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * 为已计入 waiters 的调用方创建 future，取消它只影响该调用方
+         */
+        CompletableFuture<float[]> waiter() {
+            CompletableFuture<float[]> waiter = result.copy();
+            waiter.whenComplete((vector, error) -> {
+                if (waiter.isCancelled() && waiters.decrementAndGet() == 0) {
+                    cancelRequest();
+                }
+            });
+            return waiter;
+        }
+
+        void request(CompletableFuture<float[]> submitted) {
+            request = submitted;
+            if (waiters.get() == 0) {
+                cancelRequest();
+            }
+        }
+
+        private void cancelRequest() {
+            CompletableFuture<float[]> submitted = request;
+            if (submitted != null) {
+                submitted.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * 提交给向量化器的记录总数
+     * @return 记录数
+     */
+    public long computedCount() {
+        return computed.sum();
+    }
+
+    /**
+     * 复用其他请求正在计算的向量的记录总数
+     * @return 记录数
+     */
+    public long joinedCount() {
+        return joined.sum();
+    }
+
+}
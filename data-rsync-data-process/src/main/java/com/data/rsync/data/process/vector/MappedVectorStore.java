@@ -0,0 +1,466 @@
+package com.data.rsync.data.process.vector;
+
+import com.data.rsync.common.utils.Murmur3Hasher;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * 基于内存映射文件的堆外向量存储
+ * 向量按记录顺序追加写入段文件（segment-&lt;id&gt;.dat），索引为堆外直接内存中的开放寻址哈希表，
+ * 向量数据和索引都不占用 Java 堆。进程重启时顺序扫描段文件重建索引，重启后已计算过的向量无需重新计算。
+ * 作为节点上所有任务共用的本地向量存储，默认关闭：启用后最多占用 max-segments × segment-bytes 的磁盘
+ * （默认 16 × 256MB），需设置 data-process.vector-store.enabled=true 并确认 data-process.vector-store.path 所在磁盘容量。
+ *
+ * <p>记录布局（小端序）：magic(4) dimension(4) key1(8) key2(8) checksum(4) reserved(4) vector(dimension*4)，
+ * 每条记录自带维度，不同向量化器的不同维度的向量写入同一组段文件。
+ * 写入时先写向量和校验和，最后写 magic，扫描遇到 magic 或校验和不符的记录即视为未完成的追加并从该处继续写入，
+ * 进程崩溃不会留下被误读的半条记录。段数超过上限时删除最旧的段，指向已删除段的索引项按未命中处理。</p>
+ */
+@Component
+@ConditionalOnProperty(name = "data-process.vector-store.enabled", havingValue = "true")
+@Slf4j
+public class MappedVectorStore {
+
+    private static final int MAGIC = 0x56454331;
+
+    private static final int HEADER_BYTES = 32;
+
+    /**
+     * 索引项：key1(8) key2(8) location(8)，location 为 0 表示空位
+     */
+    private static final int INDEX_ENTRY_BYTES = 24;
+
+    /**
+     * 索引最大容量，受单个直接缓冲区 2GB 的限制
+     */
+    private static final int MAX_INDEX_CAPACITY = 1 << 26;
+
+    private static final String SEGMENT_PREFIX = "segment-";
+
+    private static final String SEGMENT_SUFFIX = ".dat";
+
+    /**
+     * 存储目录
+     */
+    @Value("${data-process.vector-store.path:./data/vector-store}")
+    private String path;
+
+    /**
+     * 单个段文件大小（字节）
+     */
+    @Value("${data-process.vector-store.segment-bytes:268435456}")
+    private long segmentBytes;
+
+    /**
+     * 最多保留的段文件数
+     */
+    @Value("${data-process.vector-store.max-segments:16}")
+    private int maxSegments;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Murmur3Hasher checksumHasher = new Murmur3Hasher();
+
+    private final Deque<Segment> segments = new ArrayDeque<>();
+
+    private Path directory;
+
+    /**
+     * 单个段文件可写入的字节数
+     */
+    private int segmentCapacity;
+
+    private ByteBuffer index;
+
+    private int indexCapacity;
+
+    private int indexSize;
+
+    private Segment active;
+
+    /**
+     * 活动段的下一条记录的写入位置
+     */
+    private int activeOffset;
+
+    @PostConstruct
+    public void open() throws IOException {
+        directory = Paths.get(path);
+        Files.createDirectories(directory);
+        segmentCapacity = (int) Math.min(Integer.MAX_VALUE, segmentBytes);
+        allocateIndex(1 << 16);
+
+        List<Long> segmentIds = listSegmentIds();
+        long recovered = 0;
+        for (int i = 0; i < segmentIds.size(); i++) {
+            Segment segment = mapSegment(segmentIds.get(i));
+            segments.addLast(segment);
+            int end = recoverSegment(segment);
+            recovered += segment.records;
+            if (i == segmentIds.size() - 1) {
+                active = segment;
+                activeOffset = end;
+            }
+        }
+        if (active == null) {
+            active = mapSegment(1L);
+            segments.addLast(active);
+            activeOffset = 0;
+        }
+        trimSegments();
+        log.info("Mapped vector store opened at {}: segments={}, recovered vectors={}",
+                directory.toAbsolutePath(), segments.size(), recovered);
+    }
+
+    @PreDestroy
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            for (Segment segment : segments) {
+                segment.close();
+            }
+            segments.clear();
+            index = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 读取向量
+     * @param key1 键的低 64 位
+     * @param key2 键的高 64 位
+     * @return 向量，不存在时返回 null
+     */
+    public float[] get(long key1, long key2) {
+        lock.readLock().lock();
+        try {
+            if (index == null) {
+                return null;
+            }
+            long location = find(key1, key2);
+            if (location == 0L) {
+                return null;
+            }
+            Segment segment = segmentOf(location);
+            if (segment == null) {
+                return null;
+            }
+            int offset = (int) location;
+            float[] vector = new float[segment.buffer.getInt(offset + 4)];
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] = segment.buffer.getFloat(offset + HEADER_BYTES + i * Float.BYTES);
+            }
+            return vector;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 追加向量，键已存在、向量为空或超过单个段文件大小时忽略
+     * @param key1 键的低 64 位
+     * @param key2 键的高 64 位
+     * @param vector 向量
+     */
+    public void put(long key1, long key2, float[] vector) {
+        if (vector == null || vector.length == 0 || recordBytes(vector.length) > segmentCapacity) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (index == null || find(key1, key2) != 0L) {
+                return;
+            }
+            int size = recordBytes(vector.length);
+            if (activeOffset + size > segmentCapacity) {
+                rollSegment();
+            }
+            if (!hasIndexRoom()) {
+                return;
+            }
+            int offset = activeOffset;
+            writeRecord(active.buffer, offset, key1, key2, vector);
+            activeOffset += size;
+            active.records++;
+            insert(key1, key2, location(active.id, offset));
+        } catch (IOException e) {
+            log.error("Failed to append vector to mapped store: {}", e.getMessage(), e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 索引中的向量数（含已删除段的过期项）
+     * @return 向量数
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return indexSize;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static int recordBytes(int dimension) {
+        return HEADER_BYTES + dimension * Float.BYTES;
+    }
+
+    private void writeRecord(MappedByteBuffer buffer, int offset, long key1, long key2, float[] vector) {
+        buffer.putInt(offset + 4, vector.length);
+        buffer.putLong(offset + 8, key1);
+        buffer.putLong(offset + 16, key2);
+        for (int i = 0; i < vector.length; i++) {
+            buffer.putFloat(offset + HEADER_BYTES + i * Float.BYTES, vector[i]);
+        }
+        buffer.putInt(offset + 24, checksum(buffer, offset, vector.length));
+        buffer.putInt(offset + 28, 0);
+        // magic 最后写入，之前崩溃的记录在恢复时被丢弃
+        buffer.putInt(offset, MAGIC);
+    }
+
+    private int checksum(MappedByteBuffer buffer, int offset, int dimension) {
+        checksumHasher.reset()
+                .putInt(buffer.getInt(offset + 4))
+                .putLong(buffer.getLong(offset + 8))
+                .putLong(buffer.getLong(offset + 16));
+        for (int i = 0; i < dimension; i++) {
+            checksumHasher.putInt(buffer.getInt(offset + HEADER_BYTES + i * Float.BYTES));
+        }
+        return (int) checksumHasher.finish().hash1();
+    }
+
+    /**
+     * 扫描段文件重建索引
+     * @return 最后一条有效记录之后的位置
+     */
+    private int recoverSegment(Segment segment) {
+        int offset = 0;
+        while (offset + HEADER_BYTES <= segmentCapacity) {
+            int dimension = segment.buffer.getInt(offset + 4);
+            if (segment.buffer.getInt(offset) != MAGIC || dimension <= 0
+                    || dimension > (segmentCapacity - offset - HEADER_BYTES) / Float.BYTES
+                    || segment.buffer.getInt(offset + 24) != checksum(segment.buffer, offset, dimension)) {
+                break;
+            }
+            long key1 = segment.buffer.getLong(offset + 8);
+            long key2 = segment.buffer.getLong(offset + 16);
+            if (find(key1, key2) == 0L && hasIndexRoom()) {
+                insert(key1, key2, location(segment.id, offset));
+            }
+            offset += recordBytes(dimension);
+            segment.records++;
+        }
+        // 清除未完成的追加，避免之后写入的较短记录与残留字节拼成有效记录
+        if (offset + HEADER_BYTES <= segmentCapacity) {
+            segment.buffer.putInt(offset, 0);
+        }
+        return offset;
+    }
+
+    private void rollSegment() throws IOException {
+        active.buffer.force();
+        active = mapSegment(active.id + 1);
+        segments.addLast(active);
+        activeOffset = 0;
+        trimSegments();
+    }
+
+    /**
+     * 删除超出上限的最旧段文件，指向这些段的索引项在读取时视为未命中
+     */
+    private void trimSegments() throws IOException {
+        while (segments.size() > maxSegments) {
+            Segment oldest = segments.removeFirst();
+            oldest.close();
+            Files.deleteIfExists(oldest.file);
+            log.info("Dropped vector store segment {}", oldest.file.getFileName());
+        }
+    }
+
+    private Segment mapSegment(long id) throws IOException {
+        Path file = directory.resolve(String.format("%s%010d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentCapacity);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return new Segment(id, file, channel, buffer);
+    }
+
+    private List<Long> listSegmentIds() throws IOException {
+        List<Long> ids = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .forEach(name -> {
+                        try {
+                            ids.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+                        } catch (NumberFormatException e) {
+                            log.warn("Ignoring unexpected file in vector store: {}", name);
+                        }
+                    });
+        }
+        ids.sort(null);
+        return ids;
+    }
+
+    private Segment segmentOf(long location) {
+        long segmentId = location >>> 32;
+        for (Segment segment : segments) {
+            if (segment.id == segmentId) {
+                return segment;
+            }
+        }
+        return null;
+    }
+
+    private static long location(long segmentId, int offset) {
+        return (segmentId << 32) | (offset & 0xffffffffL);
+    }
+
+    private boolean isLive(long location) {
+        return !segments.isEmpty() && (location >>> 32) >= segments.peekFirst().id;
+    }
+
+    // ---------- 开放寻址索引（线性探测） ----------
+
+    private void allocateIndex(int capacity) {
+        indexCapacity = capacity;
+        indexSize = 0;
+        index = ByteBuffer.allocateDirect(capacity * INDEX_ENTRY_BYTES).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * 索引达到最大容量且负载过高时不再接收新向量
+     */
+    private boolean hasIndexRoom() {
+        return indexCapacity < MAX_INDEX_CAPACITY || (indexSize + 1) * 10L <= indexCapacity * 9L;
+    }
+
+    private long find(long key1, long key2) {
+        int mask = indexCapacity - 1;
+        for (int i = mix(key1) & mask; ; i = (i + 1) & mask) {
+            int offset = i * INDEX_ENTRY_BYTES;
+            long location = index.getLong(offset + 16);
+            if (location == 0L) {
+                return 0L;
+            }
+            if (index.getLong(offset) == key1 && index.getLong(offset + 8) == key2) {
+                return isLive(location) ? location : 0L;
+            }
+        }
+    }
+
+    private void insert(long key1, long key2, long location) {
+        if ((indexSize + 1) * 10L > indexCapacity * 7L && indexCapacity < MAX_INDEX_CAPACITY) {
+            resizeIndex();
+        }
+        int mask = indexCapacity - 1;
+        for (int i = mix(key1) & mask; ; i = (i + 1) & mask) {
+            int offset = i * INDEX_ENTRY_BYTES;
+            long existing = index.getLong(offset + 16);
+            boolean sameKey = existing != 0L && index.getLong(offset) == key1 && index.getLong(offset + 8) == key2;
+            if (existing == 0L || sameKey) {
+                index.putLong(offset, key1);
+                index.putLong(offset + 8, key2);
+                index.putLong(offset + 16, location);
+                if (existing == 0L) {
+                    indexSize++;
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * 扩容并丢弃指向已删除段的索引项
+     */
+    private void resizeIndex() {
+        ByteBuffer old = index;
+        int oldCapacity = indexCapacity;
+        int live = 0;
+        for (int i = 0; i < oldCapacity; i++) {
+            long location = old.getLong(i * INDEX_ENTRY_BYTES + 16);
+            if (location != 0L && isLive(location)) {
+                live++;
+            }
+        }
+        int capacity = oldCapacity;
+        while ((live + 1) * 10L > capacity * 5L && capacity < MAX_INDEX_CAPACITY) {
+            capacity <<= 1;
+        }
+        allocateIndex(capacity);
+        for (int i = 0; i < oldCapacity; i++) {
+            int offset = i * INDEX_ENTRY_BYTES;
+            long location = old.getLong(offset + 16);
+            if (location != 0L && isLive(location)) {
+                insert(old.getLong(offset), old.getLong(offset + 8), location);
+            }
+        }
+    }
+
+    private static int mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    /**
+     * 已映射的段文件
+     */
+    private static final class Segment {
+
+        private final long id;
+
+        private final Path file;
+
+        private final FileChannel channel;
+
+        private final MappedByteBuffer buffer;
+
+        /**
+         * 段内有效记录数
+         */
+        private int records;
+
+        Segment(long id, Path file, FileChannel channel, MappedByteBuffer buffer) {
+            this.id = id;
+            this.file = file;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        void close() {
+            try {
+                buffer.force();
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Failed to close vector store segment {}: {}", file, e.getMessage());
+            }
+        }
+    }
+
+}
@@ -0,0 +1,63 @@
+package com.data.rsync.data.process.vector;
+
+/**
+ * 令牌桶
+ * 按速率匀速补充令牌，容量即允许的突发量。单次消耗超过容量时在桶满后放行并记为欠账，之后的请求等欠账还清，
+ * 长期速率仍不超过设定值。非线程安全，由调用方加锁。
+ */
+final class TokenBucket {
+
+    private final double tokensPerNano;
+
+    private final double capacity;
+
+    private double tokens;
+
+    private long lastRefillNanos;
+
+    /**
+     * @param tokensPerSecond 每秒补充的令牌数
+     * @param capacity 桶容量（突发量）
+     * @param nowNanos 当前时间，桶初始为满
+     */
+    TokenBucket(double tokensPerSecond, double capacity, long nowNanos) {
+        this.tokensPerNano = tokensPerSecond / 1_000_000_000d;
+        this.capacity = Math.max(1d, capacity);
+        this.tokens = this.capacity;
+        this.lastRefillNanos = nowNanos;
+    }
+
+    /**
+     * 距离可以消耗指定令牌数还需等待的时间
+     * @param cost 令牌数
+     * @param nowNanos 当前时间
+     * @return 等待纳秒数，可以立即消耗时返回 0
+     */
+    long nanosUntil(double cost, long nowNanos) {
+        refill(nowNanos);
+        double required = Math.min(cost, capacity);
+        if (tokens >= required) {
+            return 0L;
+        }
+        return Math.max(1L, (long) Math.ceil((required - tokens) / tokensPerNano));
+    }
+
+    /**
+     * 消耗令牌，调用前应确认 {@link #nanosUntil} 为 0
+     * @param cost 令牌数
+     * @param nowNanos 当前时间
+     */
+    void take(double cost, long nowNanos) {
+        refill(nowNanos);
+        tokens -= cost;
+    }
+
+    private void refill(long nowNanos) {
+        long elapsed = nowNanos - lastRefillNanos;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + elapsed * tokensPerNano);
+            lastRefillNanos = nowNanos;
+        }
+    }
+
+}
@@ -0,0 +1,194 @@
+package com.data.rsync.data.process.vector;
+
+import com.data.rsync.common.utils.Murmur3Hasher;
+import com.data.rsync.common.vectorizer.Vectorizer;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+
+/**
+ * 向量缓存
+ * 按向量字节数加权，容量满后由 W-TinyLFU 策略决定淘汰和准入：偶发的一次性文本不会挤掉高频文本的向量。
+ * 缓存键由向量化器名称、版本、维度和规范化输入文本一起计算的 128 位哈希及文本长度组成，不同向量化器或不同文本不会共用向量，
+ * 与任务无关，由 {@link EmbeddingStore} 在节点上的所有任务间共用。
+ * 命中、未命中、淘汰等统计通过 Micrometer 以 cache.* 指标暴露（cache=data-process.vector）。
+ * 启用 {@link MappedVectorStore} 时作为其前置缓存：堆内未命中再查本地持久化存储，写入同时追加到本地存储。
+ */
+@Component
+@Slf4j
+public class VectorCache {
+
+    /**
+     * 每个条目除向量数据外的固定开销估算（字节）：键对象、数组头和缓存节点
+     */
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+    private static final ThreadLocal<Murmur3Hasher> HASHER = ThreadLocal.withInitial(Murmur3Hasher::new);
+
+    @Resource
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    @Resource
+    private ObjectProvider<MappedVectorStore> vectorStoreProvider;
+
+    /**
+     * 缓存最大字节数
+     */
+    @Value("${data-process.vector-cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    private Cache<Key, float[]> cache;
+
+    /**
+     * 堆外向量存储，未启用时为 null
+     */
+    private MappedVectorStore vectorStore;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Key key, float[] vector) -> ENTRY_OVERHEAD_BYTES + vector.length * Float.BYTES)
+                .recordStats()
+                .build();
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+        if (meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, "data-process.vector");
+        }
+        vectorStore = vectorStoreProvider.getIfAvailable();
+        log.info("Vector cache initialized, maxBytes={}, mappedStore={}", maxBytes, vectorStore != null);
+    }
+
+    /**
+     * 生成缓存键
+     * @param vectorizer 向量化器
+     * @param text 规范化输入文本，见 {@link Vectorizer#embeddingText}
+     * @return 缓存键
+     */
+    public Key key(Vectorizer vectorizer, String text) {
+        Murmur3Hasher hasher = HASHER.get().reset()
+                .putString(vectorizer.getName())
+                .putString(String.valueOf(vectorizer.getVersion()))
+                .putInt(vectorizer.getVectorDimension())
+                .putString(text)
+                .finish();
+        return new Key(vectorizer.getName(), vectorizer.getVersion(), vectorizer.getVectorDimension(),
+                hasher.hash1(), hasher.hash2(), text.length());
+    }
+
+    /**
+     * 查询缓存
+     * @param key 缓存键
+     * @return 向量，未命中时返回 null
+     */
+    public float[] get(Key key) {
+        float[] vector = cache.getIfPresent(key);
+        if (vector == null && vectorStore != null) {
+            vector = vectorStore.get(key.hash1, key.hash2);
+            if (vector != null) {
+                cache.put(key, vector);
+            }
+        }
+        return vector;
+    }
+
+    /**
+     * 写入缓存，空向量不缓存
+     * @param key 缓存键
+     * @param vector 向量
+     */
+    public void put(Key key, float[] vector) {
+        if (vector != null && vector.length > 0) {
+            cache.put(key, vector);
+            if (vectorStore != null) {
+                vectorStore.put(key.hash1, key.hash2, vector);
+            }
+        }
+    }
+
+    /**
+     * 清空堆内缓存，堆外存储中的向量保留
+     */
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * 缓存统计
+     * @return 命中、未命中、淘汰等统计
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * 当前条目数（估算值）
+     * @return 条目数
+     */
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * 向量缓存键
+     */
+    public static final class Key {
+
+        private final String vectorizerName;
+
+        private final String vectorizerVersion;
+
+        private final int dimension;
+
+        private final long hash1;
+
+        private final long hash2;
+
+        private final int textLength;
+
+        private Key(String vectorizerName, String vectorizerVersion, int dimension, long hash1, long hash2, int textLength) {
+            this.vectorizerName = vectorizerName;
+            this.vectorizerVersion = vectorizerVersion;
+            this.dimension = dimension;
+            this.hash1 = hash1;
+            this.hash2 = hash2;
+            this.textLength = textLength;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return hash1 == other.hash1 && hash2 == other.hash2 && textLength == other.textLength
+                    && dimension == other.dimension && vectorizerName.equals(other.vectorizerName)
+                    && Objects.equals(vectorizerVersion, other.vectorizerVersion);
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (hash1 ^ (hash1 >>> 32));
+        }
+
+        @Override
+        public String toString() {
+            return vectorizerName + "@" + vectorizerVersion + "/" + dimension + ":"
+                    + Long.toHexString(hash2) + Long.toHexString(hash1);
+        }
+    }
+
+}
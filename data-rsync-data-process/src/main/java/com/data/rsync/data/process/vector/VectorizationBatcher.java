@@ -0,0 +1,587 @@
+package com.data.rsync.data.process.vector;
+
+import com.data.rsync.common.vectorizer.Vectorizer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 向量化微批处理器
+ * 各线程提交的向量化请求按向量化器排队，收集线程凑满 maxBatchSize 条或等待 maxDelayMs 后
+ * 合并为一次 {@link Vectorizer#vectorizeBatch} 调用，批次交给执行线程池并发执行，结果按提交顺序回填。
+ * 单条请求最多多等待 maxDelayMs，换取后端批量推理的吞吐。
+ *
+ * <p>请求出队时按令牌限速：每个任务按其 generationRate（tokens/秒）使用各自的令牌桶，
+ * 向量化器后端按 data-process.vectorizer.governor.backend-rates 配置的速率共用一个令牌桶，桶容量为 burstSeconds 秒的令牌。
+ * 同一后端上的多个任务按已消耗的令牌数公平分配（开始时间公平排队）：总是先发送已消耗最少的任务的请求，
+ * 空闲后重新活跃的任务不累积额度。请求的令牌数由调用方按输入文本估算，见 {@link #estimateTokens}。
+ * 每个向量化器的排队请求数以 data-process.vectorizer.queue.depth 指标暴露，按任务细分的以 data-process.vectorizer.task.queue.depth 暴露。</p>
+ *
+ * <p>限速下的排队时间可能远超固定的等待时间，调用方应按 {@link #estimateDrainNanos} 估算等待上限；
+ * 放弃等待时取消返回的 future，已取消的请求出队时直接丢弃，不消耗令牌，也不再调用向量化器。</p>
+ */
+@Component
+@Slf4j
+public class VectorizationBatcher {
+
+    private static final String QUEUE_DEPTH_METRIC = "data-process.vectorizer.queue.depth";
+
+    private static final String TASK_QUEUE_DEPTH_METRIC = "data-process.vectorizer.task.queue.depth";
+
+    /**
+     * 单批最大记录数
+     */
+    @Value("${data-process.vectorizer.batch.max-size:64}")
+    private int maxBatchSize;
+
+    /**
+     * 凑批最长等待时间（毫秒）
+     */
+    @Value("${data-process.vectorizer.batch.max-delay-ms:5}")
+    private long maxDelayMs;
+
+    /**
+     * 并发执行的批次数
+     */
+    @Value("${data-process.vectorizer.batch.parallelism:4}")
+    private int parallelism;
+
+    /**
+     * 向量化器后端的可持续速率（tokens/秒），格式为 "名称=速率"，逗号分隔，未列出的后端不限速
+     */
+    @Value("${data-process.vectorizer.governor.backend-rates:}")
+    private String backendRates;
+
+    /**
+     * 令牌桶容量对应的秒数，即允许的突发量
+     */
+    @Value("${data-process.vectorizer.governor.burst-seconds:1}")
+    private double burstSeconds;
+
+    @Resource
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    /**
+     * 按向量化器实例划分的请求通道，向量化器未覆盖 equals，实例被替换后使用新通道
+     */
+    private final Map<Vectorizer, Lane> lanes = new ConcurrentHashMap<>();
+
+    private Map<String, Integer> backendRateMap = Collections.emptyMap();
+
+    private MeterRegistry meterRegistry;
+
+    private volatile ExecutorService batchExecutor;
+
+    @PostConstruct
+    public void init() {
+        Map<String, Integer> rates = new HashMap<>();
+        if (backendRates != null) {
+            for (String entry : backendRates.split(",")) {
+                int separator = entry.indexOf('=');
+                if (separator <= 0) {
+                    continue;
+                }
+                try {
+                    rates.put(entry.substring(0, separator).trim(), Integer.parseInt(entry.substring(separator + 1).trim()));
+                } catch (NumberFormatException e) {
+                    log.warn("Ignoring invalid vectorizer backend rate: {}", entry);
+                }
+            }
+        }
+        backendRateMap = rates;
+        meterRegistry = meterRegistryProvider.getIfAvailable();
+        log.info("Vectorization batcher initialized, backendRates={}, burstSeconds={}", backendRateMap, burstSeconds);
+    }
+
+    /**
+     * 估算文本的令牌数：中日韩表意文字每字一个令牌，其它非空白字符每 4 个一个令牌，至少为 1
+     * @param text 向量化器的输入文本
+     * @return 令牌数
+     */
+    public static int estimateTokens(String text) {
+        if (text == null) {
+            return 1;
+        }
+        int ideographs = 0;
+        int others = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isIdeographic(c)) {
+                ideographs++;
+            } else if (!Character.isWhitespace(c)) {
+                others++;
+            }
+        }
+        return Math.max(1, ideographs + (others + 3) / 4);
+    }
+
+    /**
+     * 提交单条向量化请求，不计入任何任务的限速
+     * @param vectorizer 向量化器
+     * @param data 数据
+     * @return 向量
+     */
+    public CompletableFuture<float[]> submit(Vectorizer vectorizer, Map<String, Object> data) {
+        return submitAll(vectorizer, Collections.singletonList(data)).get(0);
+    }
+
+    /**
+     * 提交一组向量化请求，不计入任何任务的限速
+     * @param vectorizer 向量化器
+     * @param dataList 数据列表
+     * @return 与输入一一对应的向量
+     */
+    public List<CompletableFuture<float[]>> submitAll(Vectorizer vectorizer, List<Map<String, Object>> dataList) {
+        int[] tokenCosts = new int[dataList.size()];
+        for (int i = 0; i < tokenCosts.length; i++) {
+            tokenCosts[i] = estimateTokens(vectorizer.embeddingText(dataList.get(i)));
+        }
+        return submitAll(vectorizer, null, 0, dataList, tokenCosts);
+    }
+
+    /**
+     * 提交一组向量化请求，可能与其他线程的请求合并或被拆分为多个批次
+     * @param vectorizer 向量化器
+     * @param taskId 任务ID，为 null 时归入不限速的公共队列
+     * @param tokensPerSecond 任务的生成速率（tokens/秒），不大于 0 表示不限速
+     * @param dataList 数据列表
+     * @param tokenCosts 每条数据的令牌数
+     * @return 与输入一一对应的向量
+     */
+    public List<CompletableFuture<float[]>> submitAll(Vectorizer vectorizer, Long taskId, int tokensPerSecond,
+                                                      List<Map<String, Object>> dataList, int[] tokenCosts) {
+        List<Request> requests = new ArrayList<>(dataList.size());
+        List<CompletableFuture<float[]>> futures = new ArrayList<>(dataList.size());
+        for (int i = 0; i < dataList.size(); i++) {
+            CompletableFuture<float[]> future = new CompletableFuture<>();
+            futures.add(future);
+            requests.add(new Request(dataList.get(i), future, Math.max(1, tokenCosts[i])));
+        }
+        if (!requests.isEmpty()) {
+            lane(vectorizer).enqueue(taskId, tokensPerSecond, requests);
+        }
+        return futures;
+    }
+
+    /**
+     * 估算任务当前排队的请求全部取得令牌还需的时间，取任务令牌桶和后端令牌桶中较慢的一个
+     * @param vectorizer 向量化器
+     * @param taskId 任务ID
+     * @return 纳秒数，不限速时为 0
+     */
+    public long estimateDrainNanos(Vectorizer vectorizer, Long taskId) {
+        Lane lane = lanes.get(vectorizer);
+        return lane != null ? lane.estimateDrainNanos(taskId) : 0L;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Lane lane : lanes.values()) {
+            lane.collector.interrupt();
+        }
+        if (batchExecutor != null) {
+            batchExecutor.shutdown();
+        }
+    }
+
+    private Lane lane(Vectorizer vectorizer) {
+        Lane lane = lanes.get(vectorizer);
+        if (lane != null) {
+            return lane;
+        }
+        return lanes.computeIfAbsent(vectorizer, key -> {
+            Lane created = new Lane(key, backendRateMap.getOrDefault(key.getName(), 0));
+            if (meterRegistry != null) {
+                Gauge.builder(QUEUE_DEPTH_METRIC, created, Lane::depth)
+                        .tag("vectorizer", key.getName())
+                        .register(meterRegistry);
+            }
+            created.collector.start();
+            return created;
+        });
+    }
+
+    private ExecutorService executor() {
+        if (batchExecutor == null) {
+            synchronized (this) {
+                if (batchExecutor == null) {
+                    AtomicInteger counter = new AtomicInteger();
+                    batchExecutor = Executors.newFixedThreadPool(Math.max(1, parallelism), r -> {
+                        Thread thread = new Thread(r, "vectorize-batch-" + counter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+            }
+        }
+        return batchExecutor;
+    }
+
+    private void execute(Vectorizer vectorizer, List<Request> batch) {
+        try {
+            List<Map<String, Object>> dataList = new ArrayList<>(batch.size());
+            for (Request request : batch) {
+                dataList.add(request.data);
+            }
+            List<float[]> vectors = vectorizer.vectorizeBatch(dataList);
+            if (vectors == null || vectors.size() != batch.size()) {
+                throw new IllegalStateException("Vectorizer " + vectorizer.getName() + " returned "
+                        + (vectors == null ? 0 : vectors.size()) + " vectors for " + batch.size() + " inputs");
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).future.complete(vectors.get(i));
+            }
+            log.debug("Vectorized batch of {} records with {}", batch.size(), vectorizer.getName());
+        } catch (Throwable e) {
+            log.error("Batch vectorization with {} failed for {} records: {}", vectorizer.getName(), batch.size(), e.getMessage());
+            for (Request request : batch) {
+                request.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * 单个向量化器的请求队列、令牌桶和收集线程
+     */
+    private final class Lane implements Runnable {
+
+        private final Vectorizer vectorizer;
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private final Condition changed = lock.newCondition();
+
+        /**
+         * 按任务划分的队列，任务ID为 null 的请求共用一个不限速的队列
+         */
+        private final Map<Long, TaskQueue> taskQueues = new HashMap<>();
+
+        /**
+         * 有排队请求的任务
+         */
+        private final List<TaskQueue> active = new ArrayList<>();
+
+        /**
+         * 后端令牌桶，未配置速率时为 null
+         */
+        private final TokenBucket backendBucket;
+
+        private final int backendTokensPerSecond;
+
+        /**
+         * 排队请求的令牌总数
+         */
+        private long queuedTokens;
+
+        private final Thread collector;
+
+        /**
+         * 最近一次发送的请求的开始标签，重新活跃的任务从这里开始计数
+         */
+        private long virtualTime;
+
+        private volatile int depth;
+
+        Lane(Vectorizer vectorizer, int backendTokensPerSecond) {
+            this.vectorizer = vectorizer;
+            this.backendTokensPerSecond = backendTokensPerSecond;
+            this.backendBucket = backendTokensPerSecond > 0
+                    ? new TokenBucket(backendTokensPerSecond, backendTokensPerSecond * burstSeconds, System.nanoTime()) : null;
+            this.collector = new Thread(this, "vectorize-collector-" + vectorizer.getName());
+            this.collector.setDaemon(true);
+        }
+
+        int depth() {
+            return depth;
+        }
+
+        long estimateDrainNanos(Long taskId) {
+            lock.lock();
+            try {
+                long nanos = 0L;
+                TaskQueue queue = taskQueues.get(taskId);
+                if (queue != null && queue.tokensPerSecond > 0) {
+                    nanos = queue.queuedTokens * 1_000_000_000L / queue.tokensPerSecond;
+                }
+                if (backendTokensPerSecond > 0) {
+                    nanos = Math.max(nanos, queuedTokens * 1_000_000_000L / backendTokensPerSecond);
+                }
+                return nanos;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void enqueue(Long taskId, int tokensPerSecond, List<Request> requests) {
+            lock.lock();
+            try {
+                TaskQueue queue = taskQueues.get(taskId);
+                if (queue == null) {
+                    queue = new TaskQueue(taskId);
+                    taskQueues.put(taskId, queue);
+                    if (meterRegistry != null) {
+                        Gauge.builder(TASK_QUEUE_DEPTH_METRIC, queue, TaskQueue::depth)
+                                .tag("vectorizer", vectorizer.getName())
+                                .tag("task", taskId == null ? "shared" : String.valueOf(taskId))
+                                .register(meterRegistry);
+                    }
+                }
+                queue.updateRate(taskId == null ? 0 : tokensPerSecond);
+                if (queue.requests.isEmpty()) {
+                    queue.served = Math.max(queue.served, virtualTime);
+                    active.add(queue);
+                }
+                queue.requests.addAll(requests);
+                queue.depth = queue.requests.size();
+                for (Request request : requests) {
+                    queue.queuedTokens += request.tokens;
+                    queuedTokens += request.tokens;
+                }
+                depth += requests.size();
+                changed.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    List<Request> batch = nextBatch();
+                    try {
+                        executor().execute(() -> execute(vectorizer, batch));
+                    } catch (RejectedExecutionException e) {
+                        for (Request request : batch) {
+                            request.future.completeExceptionally(e);
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failPending();
+            }
+        }
+
+        /**
+         * 凑一个批次：批次满、第一条请求已等待 maxDelayMs，或没有请求能在截止前取得令牌时返回
+         */
+        private List<Request> nextBatch() throws InterruptedException {
+            lock.lockInterruptibly();
+            try {
+                List<Request> batch = new ArrayList<>(maxBatchSize);
+                long deadline = 0L;
+                while (true) {
+                    long now = System.nanoTime();
+                    long wait = fill(batch, now);
+                    if (batch.size() >= maxBatchSize) {
+                        return batch;
+                    }
+                    if (!batch.isEmpty()) {
+                        if (deadline == 0L) {
+                            deadline = now + TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+                        }
+                        long remaining = deadline - now;
+                        if (remaining <= 0L) {
+                            return batch;
+                        }
+                        wait = Math.min(wait, remaining);
+                    }
+                    if (wait == Long.MAX_VALUE) {
+                        changed.await();
+                    } else {
+                        changed.awaitNanos(wait);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * 按公平顺序取出可立即发送的请求
+         * @return 下一条请求取得令牌还需等待的纳秒数，没有排队请求时返回 Long.MAX_VALUE
+         */
+        private long fill(List<Request> batch, long now) {
+            while (batch.size() < maxBatchSize) {
+                purgeCancelled();
+                TaskQueue next = null;
+                long taskWait = Long.MAX_VALUE;
+                for (TaskQueue queue : active) {
+                    long wait = queue.nanosUntilReady(now);
+                    if (wait > 0L) {
+                        taskWait = Math.min(taskWait, wait);
+                    } else if (next == null || queue.served < next.served) {
+                        next = queue;
+                    }
+                }
+                if (next == null) {
+                    return taskWait;
+                }
+                Request request = next.requests.peekFirst();
+                if (backendBucket != null) {
+                    long wait = backendBucket.nanosUntil(request.tokens, now);
+                    if (wait > 0L) {
+                        return wait;
+                    }
+                    backendBucket.take(request.tokens, now);
+                }
+                next.take(now);
+                virtualTime = next.served;
+                next.served += request.tokens;
+                if (next.requests.isEmpty()) {
+                    active.remove(next);
+                }
+                depth--;
+                queuedTokens -= request.tokens;
+                batch.add(request);
+            }
+            return 0L;
+        }
+
+        /**
+         * 丢弃队首已被调用方取消的请求，不消耗令牌
+         */
+        private void purgeCancelled() {
+            for (int i = active.size() - 1; i >= 0; i--) {
+                TaskQueue queue = active.get(i);
+                Request head;
+                while ((head = queue.requests.peekFirst()) != null && head.future.isDone()) {
+                    queue.requests.pollFirst();
+                    queue.queuedTokens -= head.tokens;
+                    queuedTokens -= head.tokens;
+                    depth--;
+                }
+                queue.depth = queue.requests.size();
+                if (queue.requests.isEmpty()) {
+                    active.remove(i);
+                }
+            }
+        }
+
+        private void failPending() {
+            lock.lock();
+            try {
+                IllegalStateException stopped = new IllegalStateException("Vectorization batcher stopped");
+                for (TaskQueue queue : active) {
+                    Request pending;
+                    while ((pending = queue.requests.pollFirst()) != null) {
+                        pending.future.completeExceptionally(stopped);
+                    }
+                    queue.depth = 0;
+                    queue.queuedTokens = 0;
+                }
+                active.clear();
+                depth = 0;
+                queuedTokens = 0;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 单个任务在某个向量化器上的排队请求和令牌桶
+     */
+    private final class TaskQueue {
+
+        private final Long taskId;
+
+        private final ArrayDeque<Request> requests = new ArrayDeque<>();
+
+        /**
+         * 任务令牌桶，不限速时为 null
+         */
+        private TokenBucket bucket;
+
+        private int tokensPerSecond;
+
+        /**
+         * 排队请求的令牌总数
+         */
+        private long queuedTokens;
+
+        /**
+         * 已发送的令牌数（含重新活跃时的追平），决定公平顺序
+         */
+        private long served;
+
+        private volatile int depth;
+
+        TaskQueue(Long taskId) {
+            this.taskId = taskId;
+        }
+
+        int depth() {
+            return depth;
+        }
+
+        void updateRate(int rate) {
+            int normalized = Math.max(0, rate);
+            if (normalized != tokensPerSecond) {
+                tokensPerSecond = normalized;
+                bucket = normalized > 0 ? new TokenBucket(normalized, normalized * burstSeconds, System.nanoTime()) : null;
+                log.info("Vectorization rate for task {} set to {} tokens/s", taskId, normalized == 0 ? "unlimited" : normalized);
+            }
+        }
+
+        long nanosUntilReady(long now) {
+            return bucket == null ? 0L : bucket.nanosUntil(requests.peekFirst().tokens, now);
+        }
+
+        void take(long now) {
+            Request request = requests.pollFirst();
+            if (request != null) {
+                queuedTokens -= request.tokens;
+                if (bucket != null) {
+                    bucket.take(request.tokens, now);
+                }
+            }
+            depth = requests.size();
+        }
+    }
+
+    /**
+     * 排队中的向量化请求
+     */
+    private static final class Request {
+
+        private final Map<String, Object> data;
+
+        private final CompletableFuture<float[]> future;
+
+        /**
+         * 估算的令牌数
+         */
+        private final int tokens;
+
+        Request(Map<String, Object> data, CompletableFuture<float[]> future, int tokens) {
+            this.data = data;
+            this.future = future;
+            this.tokens = tokens;
+        }
+    }
+
+}
@@ -0,0 +1,123 @@
+package com.data.rsync.data.process.vector;
+
+import com.data.rsync.common.vectorizer.Vectorizer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link EmbeddingStore} 只按业务内容寻址：记录标识、分区键、操作类型不同而业务字段相同的两行共用一个向量
+ */
+class EmbeddingStoreTest {
+
+    private final EmbeddingStore store = new EmbeddingStore();
+
+    private final Map<VectorCache.Key, float[]> cached = new ConcurrentHashMap<>();
+
+    /**
+     * 提交给向量化器的数据
+     */
+    private final List<Map<String, Object>> submitted = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        VectorCache vectorCache = mock(VectorCache.class);
+        when(vectorCache.key(any(), anyString())).thenCallRealMethod();
+        when(vectorCache.get(any())).thenAnswer(invocation -> cached.get(invocation.<VectorCache.Key>getArgument(0)));
+        doAnswer(invocation -> cached.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(vectorCache).put(any(), any());
+
+        VectorizationBatcher batcher = mock(VectorizationBatcher.class);
+        when(batcher.submitAll(any(), anyLong(), anyInt(), anyList(), any())).thenAnswer(invocation -> {
+            List<Map<String, Object>> dataList = invocation.getArgument(3);
+            submitted.addAll(dataList);
+            List<CompletableFuture<float[]>> futures = new ArrayList<>();
+            for (int i = 0; i < dataList.size(); i++) {
+                futures.add(CompletableFuture.completedFuture(new float[]{1f, 2f}));
+            }
+            return futures;
+        });
+
+        ReflectionTestUtils.setField(store, "vectorCache", vectorCache);
+        ReflectionTestUtils.setField(store, "vectorizationBatcher", batcher);
+    }
+
+    @Test
+    void rowsWithSameBusinessContentShareOneEntry() throws Exception {
+        Vectorizer vectorizer = new FixedVectorizer();
+        float[] inserted = store.embed(vectorizer, 1L, 0, row("r-1", "c", "k-1")).get();
+        float[] updated = store.embed(vectorizer, 1L, 0, row("r-2", "u", "k-2")).get();
+
+        assertEquals(1, submitted.size());
+        assertEquals(1, cached.size());
+        assertArrayEquals(inserted, updated);
+    }
+
+    private static Map<String, Object> row(String recordId, String op, String partitionKey) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("title", "Red running shoe");
+        row.put("price", 59);
+        row.put("recordId", recordId);
+        row.put("op", op);
+        row.put("partitionKey", partitionKey);
+        return row;
+    }
+
+    /**
+     * 使用接口默认 embeddingText 的向量化器
+     */
+    private static class FixedVectorizer implements Vectorizer {
+
+        @Override
+        public String getName() {
+            return "fixed";
+        }
+
+        @Override
+        public int getVectorDimension() {
+            return 2;
+        }
+
+        @Override
+        public float[] vectorize(String text) {
+            return new float[]{1f, 2f};
+        }
+
+        @Override
+        public float[] vectorize(Map<String, Object> data) {
+            return new float[]{1f, 2f};
+        }
+
+        @Override
+        public void initialize(Map<String, Object> config) {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+    }
+
+}
@@ -0,0 +1,298 @@
+package com.data.rsync.log.listener.checkpoint;
+
+import com.data.rsync.common.constants.DataRsyncConstants;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 断点续传位点管理器
+ * 在内存中合并每个任务的最新位点，按时间间隔或事件数批量写入 Redis，关闭时全部落盘；
+ * 同时为 {@link RedisOffsetBackingStore} 和 {@link RedisSchemaHistory} 提供 Debezium 引擎位点和表结构历史的读写，
+ * 两者都在 Redis 中，实例迁移后一起恢复
+ */
+@Component
+@Slf4j
+public class CheckpointManager {
+
+    @Resource(name = "customStringRedisTemplate")
+    private RedisTemplate<String, String> redisTemplate;
+
+    /**
+     * 位点刷新间隔（毫秒）
+     */
+    @Value("${checkpoint.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    /**
+     * 累计多少条事件后立即刷新
+     */
+    @Value("${checkpoint.flush-event-count:10000}")
+    private long flushEventCount;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * 待刷新的位点
+     */
+    private final Map<Long, PendingCheckpoint> pendingCheckpoints = new ConcurrentHashMap<>();
+
+    /**
+     * 刷新调度器
+     */
+    private final ScheduledExecutorService flushScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "checkpoint-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 启动定时刷新
+     */
+    @PostConstruct
+    public void init() {
+        RedisOffsetBackingStore.setCheckpointManager(this);
+        RedisSchemaHistory.setCheckpointManager(this);
+        flushScheduler.scheduleWithFixedDelay(this::flushAll, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("CheckpointManager initialized, flushIntervalMs={}, flushEventCount={}", flushIntervalMs, flushEventCount);
+    }
+
+    /**
+     * 记录最新位点（仅更新内存）
+     * @param taskId 任务ID
+     * @param partition 源分区
+     * @param offset 源位点
+     * @param eventCount 本次确认的事件数
+     */
+    public void record(Long taskId, Map<String, ?> partition, Map<String, ?> offset, int eventCount) {
+        PendingCheckpoint pending = pendingCheckpoints.computeIfAbsent(taskId, k -> new PendingCheckpoint());
+        Checkpoint checkpoint = new Checkpoint();
+        checkpoint.setPartition(partition != null ? new LinkedHashMap<>(partition) : null);
+        checkpoint.setOffset(offset != null ? new LinkedHashMap<>(offset) : null);
+        checkpoint.setUpdatedAt(System.currentTimeMillis());
+        pending.latest = checkpoint;
+        if (pending.pendingEvents.addAndGet(eventCount) >= flushEventCount) {
+            flushScheduler.execute(() -> flush(taskId));
+        }
+    }
+
+    /**
+     * 刷新指定任务的位点
+     * @param taskId 任务ID
+     */
+    public void flush(Long taskId) {
+        PendingCheckpoint pending = pendingCheckpoints.get(taskId);
+        if (pending == null) {
+            return;
+        }
+        synchronized (pending) {
+            if (pending.pendingEvents.getAndSet(0) == 0) {
+                return;
+            }
+            Checkpoint checkpoint = pending.latest;
+            try {
+                redisTemplate.opsForValue().set(DataRsyncConstants.RedisKey.BREAKPOINT_PREFIX + taskId,
+                        objectMapper.writeValueAsString(checkpoint));
+            } catch (Exception e) {
+                // 刷新失败时保持脏标记，等待下次重试
+                pending.pendingEvents.incrementAndGet();
+                log.error("Failed to flush checkpoint for task {}: {}", taskId, e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * 刷新所有任务的位点
+     */
+    public void flushAll() {
+        for (Long taskId : pendingCheckpoints.keySet()) {
+            flush(taskId);
+        }
+    }
+
+    /**
+     * 读取位点
+     * @param taskId 任务ID
+     * @return 位点（JSON格式）
+     */
+    public String get(Long taskId) {
+        PendingCheckpoint pending = pendingCheckpoints.get(taskId);
+        if (pending != null && pending.latest != null) {
+            try {
+                return objectMapper.writeValueAsString(pending.latest);
+            } catch (Exception e) {
+                log.warn("Failed to serialize in-memory checkpoint for task {}: {}", taskId, e.getMessage());
+            }
+        }
+        return redisTemplate.opsForValue().get(DataRsyncConstants.RedisKey.BREAKPOINT_PREFIX + taskId);
+    }
+
+    /**
+     * 直接写入位点
+     * @param taskId 任务ID
+     * @param breakpoint 位点
+     */
+    public void set(Long taskId, String breakpoint) {
+        pendingCheckpoints.remove(taskId);
+        redisTemplate.opsForValue().set(DataRsyncConstants.RedisKey.BREAKPOINT_PREFIX + taskId, breakpoint);
+    }
+
+    /**
+     * 清理位点，包括 Debezium 引擎位点和表结构历史；引擎位点中保存着增量快照进度，一并清理快照信号标记
+     * @param taskId 任务ID
+     */
+    public void clear(Long taskId) {
+        pendingCheckpoints.remove(taskId);
+        redisTemplate.delete(DataRsyncConstants.RedisKey.BREAKPOINT_PREFIX + taskId);
+        redisTemplate.delete(DataRsyncConstants.RedisKey.DEBEZIUM_OFFSET_PREFIX + taskId);
+        redisTemplate.delete(DataRsyncConstants.RedisKey.DEBEZIUM_SCHEMA_HISTORY_PREFIX + taskId);
+        redisTemplate.delete(DataRsyncConstants.RedisKey.SNAPSHOT_SIGNAL_PREFIX + taskId);
+    }
+
+    /**
+     * 获取已发出的增量快照信号ID，快照进度随引擎位点保存，信号发出后重启无需再次发出
+     * @param taskId 任务ID
+     * @return 信号ID，未发出时返回 null
+     */
+    public String getSnapshotSignal(Long taskId) {
+        return redisTemplate.opsForValue().get(DataRsyncConstants.RedisKey.SNAPSHOT_SIGNAL_PREFIX + taskId);
+    }
+
+    /**
+     * 记录已发出的增量快照信号ID
+     * @param taskId 任务ID
+     * @param signalId 信号ID
+     */
+    public void setSnapshotSignal(Long taskId, String signalId) {
+        redisTemplate.opsForValue().set(DataRsyncConstants.RedisKey.SNAPSHOT_SIGNAL_PREFIX + taskId, signalId);
+    }
+
+    /**
+     * 读取 Debezium 引擎位点
+     * @param taskId 任务ID
+     * @return 序列化后的位点键值
+     */
+    public Map<String, String> loadEngineOffsets(String taskId) {
+        Map<Object, Object> entries = redisTemplate.opsForHash().entries(DataRsyncConstants.RedisKey.DEBEZIUM_OFFSET_PREFIX + taskId);
+        Map<String, String> offsets = new LinkedHashMap<>(entries.size() * 2);
+        for (Map.Entry<Object, Object> entry : entries.entrySet()) {
+            offsets.put(entry.getKey().toString(), entry.getValue().toString());
+        }
+        return offsets;
+    }
+
+    /**
+     * 保存 Debezium 引擎位点，由引擎按 offset.flush.interval.ms 合并后调用
+     * @param taskId 任务ID
+     * @param offsets 序列化后的位点键值
+     */
+    public void saveEngineOffsets(String taskId, Map<String, String> offsets) {
+        if (!offsets.isEmpty()) {
+            redisTemplate.opsForHash().putAll(DataRsyncConstants.RedisKey.DEBEZIUM_OFFSET_PREFIX + taskId, offsets);
+        }
+    }
+
+    /**
+     * 追加一条 Debezium 表结构历史记录
+     * @param taskId 任务ID
+     * @param record 序列化后的历史记录
+     */
+    public void appendSchemaHistory(String taskId, String record) {
+        redisTemplate.opsForList().rightPush(DataRsyncConstants.RedisKey.DEBEZIUM_SCHEMA_HISTORY_PREFIX + taskId, record);
+    }
+
+    /**
+     * 按写入顺序读取 Debezium 表结构历史
+     * @param taskId 任务ID
+     * @return 序列化后的历史记录
+     */
+    public List<String> loadSchemaHistory(String taskId) {
+        List<String> records = redisTemplate.opsForList().range(DataRsyncConstants.RedisKey.DEBEZIUM_SCHEMA_HISTORY_PREFIX + taskId, 0, -1);
+        return records != null ? records : Collections.emptyList();
+    }
+
+    /**
+     * 是否已有 Debezium 表结构历史
+     * @param taskId 任务ID
+     * @return 是否存在
+     */
+    public boolean hasSchemaHistory(String taskId) {
+        return Boolean.TRUE.equals(redisTemplate.hasKey(DataRsyncConstants.RedisKey.DEBEZIUM_SCHEMA_HISTORY_PREFIX + taskId));
+    }
+
+    /**
+     * 有引擎位点但没有表结构历史时删除引擎位点（例如历史仍在旧版本的本地文件中），
+     * 否则依赖历史的连接器会拒绝启动；删除后连接器按快照模式重新读取表结构。
+     * 增量快照进度随引擎位点一起丢失，快照信号标记一并清理，启动时重新发出
+     * @param taskId 任务ID
+     * @return 是否删除了引擎位点
+     */
+    public boolean dropEngineOffsetsWithoutSchemaHistory(Long taskId) {
+        String offsetKey = DataRsyncConstants.RedisKey.DEBEZIUM_OFFSET_PREFIX + taskId;
+        if (!Boolean.TRUE.equals(redisTemplate.hasKey(offsetKey)) || hasSchemaHistory(String.valueOf(taskId))) {
+            return false;
+        }
+        redisTemplate.delete(offsetKey);
+        redisTemplate.delete(DataRsyncConstants.RedisKey.SNAPSHOT_SIGNAL_PREFIX + taskId);
+        return true;
+    }
+
+    /**
+     * 关闭前刷新所有位点
+     */
+    @PreDestroy
+    public void shutdown() {
+        flushScheduler.shutdown();
+        flushAll();
+        log.info("CheckpointManager shut down, all checkpoints flushed");
+    }
+
+    /**
+     * 待刷新位点
+     */
+    private static class PendingCheckpoint {
+
+        private volatile Checkpoint latest;
+
+        private final AtomicLong pendingEvents = new AtomicLong();
+    }
+
+    /**
+     * 位点
+     */
+    @Data
+    public static class Checkpoint {
+
+        /**
+         * 源分区
+         */
+        private Map<String, Object> partition;
+
+        /**
+         * 源位点
+         */
+        private Map<String, Object> offset;
+
+        /**
+         * 更新时间
+         */
+        private long updatedAt;
+    }
+
+}
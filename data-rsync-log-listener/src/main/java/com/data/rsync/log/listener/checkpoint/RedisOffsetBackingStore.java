@@ -0,0 +1,134 @@
+package com.data.rsync.log.listener.checkpoint;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.json.JsonConverter;
+import org.apache.kafka.connect.json.JsonConverterConfig;
+import org.apache.kafka.connect.runtime.WorkerConfig;
+import org.apache.kafka.connect.storage.Converter;
+import org.apache.kafka.connect.storage.MemoryOffsetBackingStore;
+import org.apache.kafka.connect.storage.OffsetUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 基于 Redis 的 Debezium 位点存储
+ * 引擎按 offset.flush.interval.ms 合并提交位点，每次提交只写一次 Redis Hash，
+ * 替代依赖本地磁盘的 FileOffsetBackingStore，实例迁移后可从 Redis 恢复
+ *
+ * <p>由 Debezium 通过反射实例化，Redis 访问委托给 Spring 管理的 {@link CheckpointManager}。
+ * 位点键是 Connect 按 JSON 序列化的 [连接器名称, 源分区]，加载和保存后按连接器归集源分区，供 {@link #connectorPartitions} 查询</p>
+ */
+@Slf4j
+public class RedisOffsetBackingStore extends MemoryOffsetBackingStore {
+
+    /**
+     * 任务ID配置项
+     */
+    public static final String TASK_ID_CONFIG = "offset.storage.task.id";
+
+    private static volatile CheckpointManager checkpointManager;
+
+    private String taskId;
+
+    /**
+     * 位点键的反序列化器，与 Debezium 引擎写入位点时使用的内部键格式一致（无 schema 的 JSON）
+     */
+    private final Converter keyConverter = createKeyConverter();
+
+    /**
+     * 连接器名称到其源分区的映射
+     */
+    private final Map<String, Set<Map<String, Object>>> connectorPartitions = new HashMap<>();
+
+    public static void setCheckpointManager(CheckpointManager checkpointManager) {
+        RedisOffsetBackingStore.checkpointManager = checkpointManager;
+    }
+
+    @Override
+    public void configure(WorkerConfig config) {
+        super.configure(config);
+        Object value = config.originals().get(TASK_ID_CONFIG);
+        if (value == null) {
+            throw new ConnectException("Missing required config " + TASK_ID_CONFIG);
+        }
+        taskId = value.toString();
+    }
+
+    @Override
+    public synchronized void start() {
+        super.start();
+        if (checkpointManager == null) {
+            throw new ConnectException("CheckpointManager is not initialized");
+        }
+        Map<String, String> offsets = checkpointManager.loadEngineOffsets(taskId);
+        for (Map.Entry<String, String> entry : offsets.entrySet()) {
+            data.put(toBuffer(entry.getKey()), toBuffer(entry.getValue()));
+        }
+        refreshConnectorPartitions();
+        log.info("Loaded {} offset entries from Redis for task {}", offsets.size(), taskId);
+    }
+
+    @Override
+    protected void save() {
+        Map<String, String> offsets = new HashMap<>(data.size() * 2);
+        for (Map.Entry<ByteBuffer, ByteBuffer> entry : data.entrySet()) {
+            if (entry.getKey() != null && entry.getValue() != null) {
+                offsets.put(toString(entry.getKey()), toString(entry.getValue()));
+            }
+        }
+        try {
+            checkpointManager.saveEngineOffsets(taskId, offsets);
+        } catch (Exception e) {
+            throw new ConnectException("Failed to save offsets to Redis for task " + taskId, e);
+        }
+        refreshConnectorPartitions();
+    }
+
+    @Override
+    public synchronized Set<Map<String, Object>> connectorPartitions(String connectorName) {
+        return new HashSet<>(connectorPartitions.getOrDefault(connectorName, Collections.emptySet()));
+    }
+
+    /**
+     * 从当前位点重新归集各连接器的源分区，值为空（已删除）的位点不计入
+     */
+    private synchronized void refreshConnectorPartitions() {
+        connectorPartitions.clear();
+        for (Map.Entry<ByteBuffer, ByteBuffer> entry : data.entrySet()) {
+            if (entry.getKey() == null) {
+                continue;
+            }
+            OffsetUtils.processPartitionKey(toBytes(entry.getKey()),
+                    entry.getValue() != null ? toBytes(entry.getValue()) : null, keyConverter, connectorPartitions);
+        }
+    }
+
+    private static Converter createKeyConverter() {
+        JsonConverter converter = new JsonConverter();
+        converter.configure(Collections.singletonMap(JsonConverterConfig.SCHEMAS_ENABLE_CONFIG, "false"), true);
+        return converter;
+    }
+
+    private static ByteBuffer toBuffer(String value) {
+        return ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String toString(ByteBuffer buffer) {
+        return new String(toBytes(buffer), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] toBytes(ByteBuffer buffer) {
+        ByteBuffer duplicate = buffer.duplicate();
+        byte[] bytes = new byte[duplicate.remaining()];
+        duplicate.get(bytes);
+        return bytes;
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.data.rsync.log.listener.checkpoint;
+
+import io.debezium.document.DocumentReader;
+import io.debezium.document.DocumentWriter;
+import io.debezium.relational.history.AbstractSchemaHistory;
+import io.debezium.relational.history.HistoryRecord;
+import io.debezium.relational.history.SchemaHistoryException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 基于 Redis 的 Debezium 表结构历史
+ * 每条 DDL 历史按顺序追加到任务的 Redis List，与 {@link RedisOffsetBackingStore} 保存的引擎位点放在一起，
+ * 替代依赖本地磁盘的 FileSchemaHistory：实例迁移后位点和历史一起恢复，MySQL 等连接器不会因缺少历史拒绝启动
+ *
+ * <p>由 Debezium 通过反射实例化，Redis 访问委托给 Spring 管理的 {@link CheckpointManager}</p>
+ */
+@Slf4j
+public class RedisSchemaHistory extends AbstractSchemaHistory {
+
+    /**
+     * 任务ID配置项
+     */
+    public static final String TASK_ID_CONFIG = CONFIGURATION_FIELD_PREFIX_STRING + "redis.task.id";
+
+    private static volatile CheckpointManager checkpointManager;
+
+    private final DocumentReader reader = DocumentReader.defaultReader();
+
+    private final DocumentWriter writer = DocumentWriter.defaultWriter();
+
+    private volatile String taskId;
+
+    public static void setCheckpointManager(CheckpointManager checkpointManager) {
+        RedisSchemaHistory.checkpointManager = checkpointManager;
+    }
+
+    @Override
+    public synchronized void start() {
+        super.start();
+        if (checkpointManager == null) {
+            throw new SchemaHistoryException("CheckpointManager is not initialized");
+        }
+        taskId();
+    }
+
+    @Override
+    protected void storeRecord(HistoryRecord record) throws SchemaHistoryException {
+        try {
+            checkpointManager.appendSchemaHistory(taskId(), writer.write(record.document()));
+        } catch (IOException e) {
+            throw new SchemaHistoryException("Failed to serialize schema history record for task " + taskId, e);
+        } catch (RuntimeException e) {
+            throw new SchemaHistoryException("Failed to save schema history to Redis for task " + taskId, e);
+        }
+    }
+
+    @Override
+    protected void recoverRecords(Consumer<HistoryRecord> records) {
+        List<String> entries = checkpointManager.loadSchemaHistory(taskId());
+        for (String entry : entries) {
+            try {
+                records.accept(new HistoryRecord(reader.read(entry)));
+            } catch (IOException e) {
+                throw new SchemaHistoryException("Failed to parse schema history record for task " + taskId, e);
+            }
+        }
+        log.info("Recovered {} schema history records from Redis for task {}", entries.size(), taskId);
+    }
+
+    @Override
+    public boolean exists() {
+        return checkpointManager != null && checkpointManager.hasSchemaHistory(taskId());
+    }
+
+    @Override
+    public boolean storageExists() {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "Redis schema history for task " + taskId;
+    }
+
+    private String taskId() {
+        if (taskId == null) {
+            String value = config != null ? config.getString(TASK_ID_CONFIG) : null;
+            if (value == null) {
+                throw new SchemaHistoryException("Missing required config " + TASK_ID_CONFIG);
+            }
+            taskId = value;
+        }
+        return taskId;
+    }
+
+}
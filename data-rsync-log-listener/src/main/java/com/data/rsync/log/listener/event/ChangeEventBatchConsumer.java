@@ -0,0 +1,173 @@
+package com.data.rsync.log.listener.event;
+
+import com.data.rsync.common.constants.DataRsyncConstants;
+import com.data.rsync.common.exception.LogListenerException;
+import com.data.rsync.common.kafka.BinaryKafkaSender;
+import com.data.rsync.common.kafka.PartitionKeys;
+import io.debezium.engine.DebeziumEngine;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.springframework.kafka.support.SendResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Debezium 批量变更消费者
+ * 整批异步发送到 Kafka，按顺序等待 broker 确认后才标记记录已处理，
+ * 保证引擎提交的位点不会越过未确认的事件。
+ * 开启增量快照时，信号表自身的变更只用于驱动快照，不发送到下游
+ */
+@Slf4j
+public class ChangeEventBatchConsumer implements DebeziumEngine.ChangeConsumer<SourceRecord> {
+
+    /**
+     * 等待 broker 确认的超时时间（秒），与生产者 delivery.timeout.ms 默认值一致
+     */
+    private static final long ACK_TIMEOUT_SECONDS = 120;
+
+    /**
+     * Debezium 心跳主题前缀，心跳只在流式读取阶段产生
+     */
+    private static final String HEARTBEAT_TOPIC_PREFIX = "__debezium-heartbeat";
+
+    private final Long taskId;
+
+    private final BinaryKafkaSender binaryKafkaSender;
+
+    private final ChangeEventEncoder encoder = new ChangeEventEncoder();
+
+    /**
+     * 批次确认后的位点回调，参数为本批最后一条已确认的记录及已确认的记录数
+     */
+    private final BiConsumer<SourceRecord, Integer> checkpointCallback;
+
+    /**
+     * 信号表主题后缀（".库.表"），为 null 时不过滤
+     */
+    private final String signalTopicSuffix;
+
+    /**
+     * 进入流式读取阶段后的回调，返回 true 后不再调用，返回 false 时在下一次心跳重试
+     */
+    private final BooleanSupplier streamingCallback;
+
+    private boolean streamingNotified;
+
+    public ChangeEventBatchConsumer(Long taskId, BinaryKafkaSender binaryKafkaSender, BiConsumer<SourceRecord, Integer> checkpointCallback) {
+        this(taskId, binaryKafkaSender, checkpointCallback, null, null);
+    }
+
+    public ChangeEventBatchConsumer(Long taskId, BinaryKafkaSender binaryKafkaSender, BiConsumer<SourceRecord, Integer> checkpointCallback,
+                                    String signalDataCollection, BooleanSupplier streamingCallback) {
+        this.taskId = taskId;
+        this.binaryKafkaSender = binaryKafkaSender;
+        this.checkpointCallback = checkpointCallback;
+        this.signalTopicSuffix = signalDataCollection != null ? "." + signalDataCollection : null;
+        this.streamingCallback = streamingCallback;
+        this.streamingNotified = streamingCallback == null;
+    }
+
+    @Override
+    public void handleBatch(List<SourceRecord> records, DebeziumEngine.RecordCommitter<SourceRecord> committer)
+            throws InterruptedException {
+        if (records.isEmpty()) {
+            committer.markBatchFinished();
+            return;
+        }
+
+        // 1. 整批编码并异步发送，由生产者按 batch.size/linger.ms 合并请求
+        String topic = DataRsyncConstants.KafkaTopic.DATA_CHANGE_TOPIC;
+        List<CompletableFuture<SendResult<String, byte[]>>> futures = new ArrayList<>(records.size());
+        boolean heartbeat = false;
+        for (SourceRecord record : records) {
+            if (record.topic() != null && record.topic().startsWith(HEARTBEAT_TOPIC_PREFIX)) {
+                heartbeat = true;
+                futures.add(null);
+                continue;
+            }
+            if (isSignalRecord(record)) {
+                futures.add(null);
+                continue;
+            }
+            byte[] payload = encoder.encode(record, taskId);
+            if (payload == null) {
+                // 心跳、墓碑等非数据事件无需发送
+                futures.add(null);
+                continue;
+            }
+            futures.add(binaryKafkaSender.send(topic, partitionKey(record), payload));
+        }
+
+        // 2. 按顺序等待确认，只推进连续已确认的前缀
+        SourceRecord lastAcked = null;
+        for (int i = 0; i < records.size(); i++) {
+            CompletableFuture<SendResult<String, byte[]>> future = futures.get(i);
+            if (future != null) {
+                try {
+                    future.get(ACK_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                } catch (ExecutionException | TimeoutException e) {
+                    // 已确认的前缀照常提交，失败点之后的事件在引擎重启后重新投递
+                    finishPrefix(lastAcked, i);
+                    log.error("Change event not acknowledged for task {}, acked {} of {} records: {}",
+                            taskId, i, records.size(), e.getMessage());
+                    throw new LogListenerException("Kafka did not acknowledge change event for task " + taskId, true, e);
+                }
+            }
+            committer.markProcessed(records.get(i));
+            lastAcked = records.get(i);
+        }
+
+        // 3. 整批确认完成
+        committer.markBatchFinished();
+        finishPrefix(lastAcked, records.size());
+        log.debug("Acked batch of {} change events for task {}", records.size(), taskId);
+
+        // 4. 首次收到心跳说明引擎已进入流式读取，此后写入信号表的信号一定能被读到
+        if (heartbeat && !streamingNotified) {
+            streamingNotified = streamingCallback.getAsBoolean();
+        }
+    }
+
+    @Override
+    public boolean supportsTombstoneEvents() {
+        return false;
+    }
+
+    /**
+     * 按表名和主键计算分区键，同一行的变更进入同一分区；主题最后一段即表名。
+     * 日期时间主键按字段的逻辑类型还原，与全量扫描读到的同一行得到相同的键
+     */
+    private String partitionKey(SourceRecord record) {
+        if (!(record.key() instanceof Struct)) {
+            return null;
+        }
+        Struct key = (Struct) record.key();
+        List<Field> fields = key.schema().fields();
+        Object[] keyValues = new Object[fields.size()];
+        for (int i = 0; i < keyValues.length; i++) {
+            Field field = fields.get(i);
+            keyValues[i] = PartitionKeys.logicalValue(field.schema().name(), key.get(field));
+        }
+        return PartitionKeys.forKey(record.topic(), keyValues);
+    }
+
+    private boolean isSignalRecord(SourceRecord record) {
+        return signalTopicSuffix != null && record.topic() != null && record.topic().endsWith(signalTopicSuffix);
+    }
+
+    private void finishPrefix(SourceRecord lastAcked, int ackedCount) {
+        if (lastAcked != null && checkpointCallback != null) {
+            checkpointCallback.accept(lastAcked, ackedCount);
+        }
+    }
+
+}
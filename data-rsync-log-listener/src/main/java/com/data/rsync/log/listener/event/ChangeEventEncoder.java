@@ -0,0 +1,148 @@
+package com.data.rsync.log.listener.event;
+
+import com.data.rsync.common.event.ChangeEventFormat;
+import com.data.rsync.common.event.ChangeEventWriter;
+import org.apache.kafka.connect.data.Decimal;
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.source.SourceRecord;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Debezium 变更事件编码器
+ * 将 SourceRecord 编码为 {@link ChangeEventFormat} 二进制信封，每个 Debezium 引擎持有一个实例，非线程安全
+ */
+public class ChangeEventEncoder {
+
+    private final ChangeEventWriter writer = new ChangeEventWriter();
+
+    /**
+     * 最近一次使用的行结构，表结构不变时复用列类型映射
+     */
+    private Schema cachedRowSchema;
+
+    private Schema cachedKeySchema;
+
+    private byte[] cachedColumnTypes;
+
+    private int[] cachedPkColumns;
+
+    /**
+     * 编码变更事件
+     * @param record Debezium 变更事件
+     * @param taskId 任务ID
+     * @return 编码后的字节，非数据变更事件（心跳、墓碑等）返回 null
+     */
+    public byte[] encode(SourceRecord record, long taskId) {
+        if (!(record.value() instanceof Struct)) {
+            return null;
+        }
+        Struct value = (Struct) record.value();
+        Schema valueSchema = value.schema();
+        if (valueSchema.field("op") == null) {
+            return null;
+        }
+        Struct before = value.getStruct("before");
+        Struct after = value.getStruct("after");
+        Struct source = valueSchema.field("source") != null ? value.getStruct("source") : null;
+        Long tsMs = valueSchema.field("ts_ms") != null ? value.getInt64("ts_ms") : null;
+
+        Schema rowSchema = valueSchema.field("after") != null ? valueSchema.field("after").schema() : valueSchema.field("before").schema();
+        resolveSchema(rowSchema, record.keySchema());
+        List<Field> fields = rowSchema.fields();
+
+        writer.begin(ChangeEventFormat.toOpCode(value.getString("op")), before != null, after != null, taskId,
+                tsMs != null ? tsMs : System.currentTimeMillis(),
+                source != null ? sourceString(source, "db") : null,
+                source != null ? sourceString(source, "table") : null);
+        writer.position(record.sourceOffset());
+        for (int i = 0; i < fields.size(); i++) {
+            writer.column(fields.get(i).name(), cachedColumnTypes[i]);
+        }
+        writer.primaryKey(cachedPkColumns, cachedPkColumns.length);
+        if (before != null) {
+            writeImage(before, fields);
+        }
+        if (after != null) {
+            writeImage(after, fields);
+        }
+        return writer.toByteArray();
+    }
+
+    private void writeImage(Struct image, List<Field> fields) {
+        writer.beginImage();
+        for (int i = 0; i < fields.size(); i++) {
+            writer.value(image.get(fields.get(i)));
+        }
+        writer.endImage();
+    }
+
+    private void resolveSchema(Schema rowSchema, Schema keySchema) {
+        if (rowSchema == cachedRowSchema && keySchema == cachedKeySchema) {
+            return;
+        }
+        List<Field> fields = rowSchema.fields();
+        byte[] columnTypes = new byte[fields.size()];
+        for (int i = 0; i < fields.size(); i++) {
+            columnTypes[i] = toColumnType(fields.get(i).schema());
+        }
+        int[] pkColumns;
+        if (keySchema != null && keySchema.type() == Schema.Type.STRUCT) {
+            List<Field> keyFields = keySchema.fields();
+            pkColumns = new int[keyFields.size()];
+            int count = 0;
+            for (Field keyField : keyFields) {
+                Field field = rowSchema.field(keyField.name());
+                if (field != null) {
+                    pkColumns[count++] = field.index();
+                }
+            }
+            if (count != pkColumns.length) {
+                pkColumns = Arrays.copyOf(pkColumns, count);
+            }
+        } else {
+            pkColumns = new int[0];
+        }
+        cachedRowSchema = rowSchema;
+        cachedKeySchema = keySchema;
+        cachedColumnTypes = columnTypes;
+        cachedPkColumns = pkColumns;
+    }
+
+    private byte toColumnType(Schema schema) {
+        if (Decimal.LOGICAL_NAME.equals(schema.name())) {
+            return ChangeEventFormat.TYPE_DECIMAL;
+        }
+        switch (schema.type()) {
+            case BOOLEAN:
+                return ChangeEventFormat.TYPE_BOOLEAN;
+            case INT8:
+            case INT16:
+            case INT32:
+            case INT64:
+                return ChangeEventFormat.TYPE_INT;
+            case FLOAT32:
+                return ChangeEventFormat.TYPE_FLOAT;
+            case FLOAT64:
+                return ChangeEventFormat.TYPE_DOUBLE;
+            case BYTES:
+                return ChangeEventFormat.TYPE_BYTES;
+            default:
+                // STRING 以及 ARRAY/MAP/STRUCT 等复合类型按字符串传输
+                return ChangeEventFormat.TYPE_STRING;
+        }
+    }
+
+    private String sourceString(Struct source, String fieldName) {
+        Field field = source.schema().field(fieldName);
+        if (field == null) {
+            return null;
+        }
+        Object value = source.get(field);
+        return value != null ? value.toString() : null;
+    }
+
+}
@@ -0,0 +1,463 @@
+package com.data.rsync.log.listener.scan;
+
+import com.data.rsync.common.shard.ShardRange;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * 全量扫描协调器
+ * 固定数量的工作线程先领取规划好的分片；分片领完后，空闲线程从剩余行数最多的运行中子范围尾部拆出一半继续扫描，
+ * 倾斜分片不会拖住整个扫描，总耗时接近 行数 / 线程数。
+ *
+ * <p>拆分点选取：候选取自分片规划时的主键样本中落在剩余范围中间的一个，再按主键定位不小于候选、且在 lastKey 之后至少两页的第一个主键，
+ * 查询代价与剩余行数无关，不使用大偏移量的 OFFSET。</p>
+ *
+ * <p>拆分安全性：子范围按主键分页推进，拆分点在 lastKey 之后至少两页的位置；截断在子范围锁内完成，
+ * 截断前确认查询期间推进的行数加上正在读取的一页仍到不了拆分点，下一页使用截断后的上界，子范围之间不重叠也不遗漏。</p>
+ */
+@Slf4j
+public class FullScanCoordinator {
+
+    /**
+     * 查询拆分点期间子范围推进越过拆分点时的最多重试次数
+     */
+    private static final int MAX_SPLIT_ATTEMPTS = 3;
+
+    /**
+     * 扫描进度监听器
+     */
+    public interface ProgressListener {
+
+        /**
+         * 子范围推进或状态变化，扫描线程推进子范围时抛出异常会使该子范围失败
+         * @param coordinator 协调器
+         * @param range 子范围
+         */
+        void onProgress(FullScanCoordinator coordinator, ScanRange range);
+    }
+
+    private final int workerCount;
+
+    private final int pageSize;
+
+    private final Supplier<RangeScanner> scannerFactory;
+
+    private final ProgressListener progressListener;
+
+    /**
+     * 待领取的分片
+     */
+    private final Deque<ScanRange> pendingRanges = new ArrayDeque<>();
+
+    /**
+     * 所有子范围，包括拆分出的子范围
+     */
+    private final List<ScanRange> ranges = new CopyOnWriteArrayList<>();
+
+    /**
+     * 失败的子范围
+     */
+    private final List<ScanRange> failedRanges = new CopyOnWriteArrayList<>();
+
+    /**
+     * 领取与拆分互斥，保证"无待领取且无可拆分"的判断与领取动作原子
+     */
+    private final Object dispatchLock = new Object();
+
+    /**
+     * 正在查询拆分点的线程数，在领取锁内读写
+     */
+    private int splitsInProgress;
+
+    /**
+     * 按主键升序排列的主键样本，拆分时从中选取候选拆分点
+     */
+    private volatile List<Object[]> splitSamples = Collections.emptyList();
+
+    public FullScanCoordinator(List<ShardRange> shards, int workerCount, int pageSize,
+                               Supplier<RangeScanner> scannerFactory, ProgressListener progressListener) {
+        this.workerCount = Math.max(1, workerCount);
+        this.pageSize = Math.max(1, pageSize);
+        this.scannerFactory = scannerFactory;
+        this.progressListener = progressListener;
+        for (ShardRange shard : shards) {
+            ScanRange range = new ScanRange(String.valueOf(shard.getShardIndex()), shard.getShardIndex(),
+                    shard.getLowerBound(), shard.getUpperBound(), Math.max(0, shard.getEstimatedRows()));
+            pendingRanges.add(range);
+            ranges.add(range);
+        }
+    }
+
+    private FullScanCoordinator(int workerCount, int pageSize, Supplier<RangeScanner> scannerFactory,
+                                ProgressListener progressListener, List<ScanRange> restoredRanges) {
+        this.workerCount = Math.max(1, workerCount);
+        this.pageSize = Math.max(1, pageSize);
+        this.scannerFactory = scannerFactory;
+        this.progressListener = progressListener;
+        for (ScanRange range : restoredRanges) {
+            if (!ScanRange.STATE_DONE.equals(range.getState())) {
+                pendingRanges.add(range);
+            }
+            ranges.add(range);
+        }
+    }
+
+    /**
+     * 从断点恢复扫描，已完成的子范围只计入进度，其余子范围从各自的 lastKey 继续
+     * @param restoredRanges 从断点恢复的子范围
+     * @param workerCount 工作线程数
+     * @param pageSize 每页行数
+     * @param scannerFactory 扫描器工厂
+     * @param progressListener 进度监听器
+     * @return 扫描协调器
+     */
+    public static FullScanCoordinator resume(List<ScanRange> restoredRanges, int workerCount, int pageSize,
+                                             Supplier<RangeScanner> scannerFactory, ProgressListener progressListener) {
+        return new FullScanCoordinator(workerCount, pageSize, scannerFactory, progressListener, restoredRanges);
+    }
+
+    /**
+     * 设置主键样本，拆分子范围时从落在剩余范围内的样本中选取候选拆分点；未设置时子范围不拆分
+     * @param samples 按主键升序排列的主键样本
+     */
+    public void setSplitSamples(List<Object[]> samples) {
+        this.splitSamples = samples != null ? new ArrayList<>(samples) : Collections.emptyList();
+    }
+
+    /**
+     * 执行扫描并等待完成
+     * @param executor 工作线程池
+     * @throws InterruptedException 等待被中断
+     */
+    public void run(Executor executor) throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            final int workerIndex = i;
+            executor.execute(() -> {
+                try {
+                    runWorker(workerIndex);
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        latch.await();
+        // 工作线程可能在打开扫描器时就失败退出，未完成的子范围都计为失败，不能当作扫描成功
+        for (ScanRange range : ranges) {
+            if (!ScanRange.STATE_DONE.equals(range.getState()) && !failedRanges.contains(range)) {
+                log.warn("Scan range {} was not completed by any worker", range);
+                range.fail();
+                failedRanges.add(range);
+            }
+        }
+        log.info("Full scan finished: ranges={}, failed={}, rows={}", ranges.size(), failedRanges.size(), getScannedRows());
+    }
+
+    /**
+     * 所有子范围快照
+     * @return 子范围列表
+     */
+    public List<ScanRange> getRanges() {
+        return Collections.unmodifiableList(ranges);
+    }
+
+    /**
+     * 失败的子范围
+     * @return 子范围列表
+     */
+    public List<ScanRange> getFailedRanges() {
+        return Collections.unmodifiableList(failedRanges);
+    }
+
+    /**
+     * 已扫描行数
+     * @return 行数
+     */
+    public long getScannedRows() {
+        long rows = 0;
+        for (ScanRange range : ranges) {
+            rows += range.getRowsScanned();
+        }
+        return rows;
+    }
+
+    /**
+     * 估算总行数
+     * @return 行数
+     */
+    public long getEstimatedRows() {
+        long rows = 0;
+        for (ScanRange range : ranges) {
+            rows += Math.max(range.getEstimatedRows(), range.getRowsScanned());
+        }
+        return rows;
+    }
+
+    private void runWorker(int workerIndex) {
+        RangeScanner scanner;
+        try {
+            scanner = scannerFactory.get();
+        } catch (Exception e) {
+            log.error("Scan worker {} failed to open scanner: {}", workerIndex, e.getMessage(), e);
+            return;
+        }
+        try {
+            ScanRange range;
+            while ((range = nextRange(scanner)) != null) {
+                scanRange(scanner, range);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Scan worker {} interrupted", workerIndex);
+        } finally {
+            try {
+                scanner.close();
+            } catch (Exception e) {
+                log.warn("Scan worker {} failed to close scanner: {}", workerIndex, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 领取下一个子范围：优先领取待扫描分片，否则拆分运行中的子范围。
+     * 领取锁内只挑选并预占拆分对象，拆分点查询在锁外执行，不阻塞其他线程领取，也不阻塞被拆分范围的推进
+     * @return 子范围，没有可做的工作时返回 null
+     */
+    private ScanRange nextRange(RangeScanner scanner) throws InterruptedException {
+        Set<ScanRange> attempted = new HashSet<>();
+        while (true) {
+            ScanRange candidate = null;
+            synchronized (dispatchLock) {
+                while (true) {
+                    ScanRange pending = pendingRanges.poll();
+                    if (pending != null) {
+                        pending.start();
+                        return pending;
+                    }
+                    for (ScanRange range : ranges) {
+                        if (!attempted.contains(range) && range.isSplittable()
+                                && (candidate == null || range.getRemainingRows() > candidate.getRemainingRows())) {
+                            candidate = range;
+                        }
+                    }
+                    if (candidate != null) {
+                        if (candidate.reserveSplit()) {
+                            splitsInProgress++;
+                            break;
+                        }
+                        // 挑选后已完成，重新挑选
+                        candidate = null;
+                        continue;
+                    }
+                    if (splitsInProgress == 0) {
+                        // 剩余的运行中子范围都已不足以拆分，工作线程退出
+                        return null;
+                    }
+                    // 其他线程正在拆分，等待其完成后再看是否有新的可拆分范围
+                    dispatchLock.wait();
+                }
+            }
+
+            attempted.add(candidate);
+            ScanRange tail = null;
+            try {
+                tail = trySplit(scanner, candidate);
+            } finally {
+                synchronized (dispatchLock) {
+                    if (tail != null) {
+                        tail.start();
+                        ranges.add(tail);
+                    }
+                    candidate.releaseSplit();
+                    splitsInProgress--;
+                    dispatchLock.notifyAll();
+                }
+            }
+            if (tail != null) {
+                // 断点保存需要等待已发送的消息确认，放在领取锁外，不阻塞其他线程领取；
+                // 先记录新范围再记录被截断的范围，中途宕机时最多重复扫描而不会遗漏
+                notifyProgress(tail);
+                notifyProgress(candidate);
+                return tail;
+            }
+        }
+    }
+
+    /**
+     * 查找拆分点并截断子范围。拆分点查询不持有子范围锁，扫描线程在查询期间继续推进；
+     * 截断前在锁内确认扫描线程正在读取的页仍到不了拆分点，否则按最新进度和推进速度后移拆分点重新查询。
+     * 剩余范围内没有样本或拆分点之后没有数据时标记为不可拆分；查询失败只放弃本次拆分
+     */
+    private ScanRange trySplit(RangeScanner scanner, ScanRange range) {
+        // 上次查询期间扫描线程推进的行数，拆分点下限相应后移
+        long lead = 0;
+        for (int attempt = 0; attempt < MAX_SPLIT_ATTEMPTS; attempt++) {
+            Object[] lastKey;
+            Object[] from;
+            Object[] upper;
+            long rowsBefore;
+            long remaining;
+            synchronized (range) {
+                if (!ScanRange.STATE_RUNNING.equals(range.getState())) {
+                    return null;
+                }
+                lastKey = range.getLastKey();
+                from = lastKey != null ? lastKey : range.getLowerBound();
+                upper = range.getUpperBound();
+                rowsBefore = range.getRowsScanned();
+                remaining = range.getRemainingRows();
+            }
+            List<Object[]> inRange = samplesWithin(from, upper);
+            if (inRange.isEmpty()) {
+                range.markUnsplittable();
+                return null;
+            }
+            // 取剩余范围中间的样本，尾部行数按其后的样本占比估算
+            int middle = inRange.size() / 2;
+            Object[] candidate = inRange.get(middle);
+            long tailRows = remaining * (inRange.size() - middle) / inRange.size();
+            // 至少越过正在读取的一页
+            long minOffset = pageSize * 2L + lead;
+            Object[] splitKey;
+            try {
+                splitKey = scanner.findSplitKey(from, lastKey == null, upper, minOffset, candidate);
+            } catch (Exception e) {
+                log.warn("Failed to find split key of scan range {}: {}", range.getRangeId(), e.getMessage());
+                return null;
+            }
+            if (splitKey == null) {
+                range.markUnsplittable();
+                return null;
+            }
+
+            synchronized (range) {
+                long advanced = range.getRowsScanned() - rowsBefore;
+                if (ScanRange.STATE_RUNNING.equals(range.getState()) && range.getUpperBound() == upper
+                        && advanced + pageSize < minOffset) {
+                    ScanRange tail = range.splitAt(splitKey, tailRows);
+                    log.info("Split scan range {} at sampled key, new range {}", range.getRangeId(), tail);
+                    return tail;
+                }
+                lead = advanced;
+            }
+            log.debug("Scan range {} advanced past split point during lookup, retrying", range.getRangeId());
+        }
+        return null;
+    }
+
+    /**
+     * 严格落在 (from, upper) 之间的样本，样本已按主键升序排列
+     */
+    private List<Object[]> samplesWithin(Object[] from, Object[] upper) {
+        List<Object[]> result = new ArrayList<>();
+        for (Object[] sample : splitSamples) {
+            if ((from == null || compareKeys(sample, from) > 0) && (upper == null || compareKeys(sample, upper) < 0)) {
+                result.add(sample);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 主键元组比较，仅用于挑选候选样本；与数据库排序规则不一致时只影响拆分是否均匀，
+     * 拆分点本身由数据库按主键范围查询确定
+     */
+    static int compareKeys(Object[] left, Object[] right) {
+        int size = Math.min(left.length, right.length);
+        for (int i = 0; i < size; i++) {
+            int result = compareValues(left[i], right[i]);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return Integer.compare(left.length, right.length);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compareValues(Object left, Object right) {
+        if (left == null || right == null) {
+            return left == null ? (right == null ? 0 : -1) : 1;
+        }
+        if (left instanceof Number && right instanceof Number) {
+            return new BigDecimal(left.toString()).compareTo(new BigDecimal(right.toString()));
+        }
+        if (left instanceof byte[] && right instanceof byte[]) {
+            byte[] a = (byte[]) left;
+            byte[] b = (byte[]) right;
+            int size = Math.min(a.length, b.length);
+            for (int i = 0; i < size; i++) {
+                int result = Integer.compare(a[i] & 0xff, b[i] & 0xff);
+                if (result != 0) {
+                    return result;
+                }
+            }
+            return Integer.compare(a.length, b.length);
+        }
+        if (left instanceof Comparable && left.getClass() == right.getClass()) {
+            return ((Comparable) left).compareTo(right);
+        }
+        return left.toString().compareTo(right.toString());
+    }
+
+    private void scanRange(RangeScanner scanner, ScanRange range) {
+        try {
+            while (true) {
+                Object[] from;
+                boolean fromInclusive;
+                Object[] upper;
+                synchronized (range) {
+                    Object[] lastKey = range.getLastKey();
+                    from = lastKey != null ? lastKey : range.getLowerBound();
+                    fromInclusive = lastKey == null;
+                    upper = range.getUpperBound();
+                }
+                RangeScanner.ScanPage page = scanner.scanPage(range, from, fromInclusive, upper, pageSize);
+                range.advance(page.getLastKey(), page.getRowCount());
+                if (page.getRowCount() < pageSize || page.getLastKey() == null) {
+                    break;
+                }
+                checkpoint(range);
+            }
+            range.finish();
+            checkpoint(range);
+        } catch (Exception e) {
+            log.error("Failed to scan range {}: {}", range, e.getMessage(), e);
+            failedRanges.add(range);
+            range.fail();
+            notifyProgress(range);
+        }
+    }
+
+    /**
+     * 通知子范围推进，监听器失败（如已投递的消息未确认）时抛出，由扫描线程将子范围置为失败
+     */
+    private void checkpoint(ScanRange range) {
+        if (progressListener != null) {
+            progressListener.onProgress(this, range);
+        }
+    }
+
+    private void notifyProgress(ScanRange range) {
+        if (progressListener == null) {
+            return;
+        }
+        try {
+            progressListener.onProgress(this, range);
+        } catch (Exception e) {
+            log.warn("Scan progress listener failed: {}", e.getMessage());
+        }
+    }
+
+}
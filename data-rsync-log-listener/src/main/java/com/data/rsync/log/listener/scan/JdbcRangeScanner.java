@@ -0,0 +1,156 @@
+package com.data.rsync.log.listener.scan;
+
+import com.data.rsync.common.adapter.DataSourceAdapter;
+import com.data.rsync.common.adapter.RowCursor;
+import com.data.rsync.common.utils.DatabaseUtils;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * 基于 JDBC 的主键范围扫描器
+ * 按主键做 keyset 分页：WHERE key > lastKey AND key < upper ORDER BY key LIMIT pageSize，
+ * 每页只走一次索引范围扫描，不依赖 OFFSET 翻页；页内通过流式游标逐行读取为共享结构的 {@link com.data.rsync.common.row.Row}，
+ * 按批投递，内存占用与页大小无关
+ */
+public class JdbcRangeScanner implements RangeScanner {
+
+    /**
+     * 每批投递的行数
+     */
+    private static final int SINK_BATCH_SIZE = 1000;
+
+    private final DataSourceAdapter adapter;
+
+    private final Connection connection;
+
+    private final String tableName;
+
+    private final List<String> keyColumns;
+
+    /**
+     * 每批数据的下游投递，参数为所属子范围和本批数据
+     */
+    private final BiConsumer<ScanRange, List<Map<String, Object>>> sink;
+
+    /**
+     * 主键列在结果集中的列名，首次查询时解析
+     */
+    private String[] keyNames;
+
+    public JdbcRangeScanner(DataSourceAdapter adapter, Connection connection, String tableName, List<String> keyColumns,
+                            BiConsumer<ScanRange, List<Map<String, Object>>> sink) {
+        this.adapter = adapter;
+        this.connection = connection;
+        this.tableName = tableName;
+        this.keyColumns = keyColumns;
+        this.sink = sink;
+    }
+
+    @Override
+    public ScanPage scanPage(ScanRange range, Object[] fromKey, boolean fromInclusive, Object[] upperBound, int pageSize) {
+        List<Object> params = new ArrayList<>();
+        String sql = DatabaseUtils.buildKeyRangeQuery(tableName, "*", keyColumns, fromKey, fromInclusive, upperBound, params);
+        // 无主键表无法分页，不加 LIMIT，一次流式读完整表
+        if (!keyColumns.isEmpty()) {
+            sql += " LIMIT ?";
+            params.add(pageSize);
+        }
+
+        int count = 0;
+        Map<String, Object> lastRow = null;
+        try (RowCursor cursor = adapter.openCursor(connection, sql, params, pageSize)) {
+            if (keyNames == null) {
+                keyNames = resolveKeyNames(cursor);
+            }
+            List<Map<String, Object>> batch = new ArrayList<>(SINK_BATCH_SIZE);
+            while (cursor.next()) {
+                lastRow = cursor.toRow();
+                batch.add(lastRow);
+                count++;
+                if (batch.size() >= SINK_BATCH_SIZE) {
+                    sink.accept(range, batch);
+                    batch = new ArrayList<>(SINK_BATCH_SIZE);
+                }
+            }
+            if (!batch.isEmpty()) {
+                sink.accept(range, batch);
+            }
+        }
+        return new ScanPage(count, lastRow != null && keyNames.length > 0 ? readKey(lastRow) : null);
+    }
+
+    /**
+     * 先用 LIMIT 1 OFFSET minOffset 取下限主键，偏移只有两页左右，代价与剩余行数无关；
+     * 再按主键定位不小于下限和候选的第一个主键，只走一次索引查找
+     */
+    @Override
+    public Object[] findSplitKey(Object[] fromKey, boolean fromInclusive, Object[] upperBound, long minOffset,
+                                 Object[] candidate) {
+        if (keyColumns.isEmpty()) {
+            return null;
+        }
+        String keys = String.join(", ", keyColumns);
+        List<Object> params = new ArrayList<>();
+        String sql = DatabaseUtils.buildKeyRangeQuery(tableName, keys, keyColumns, fromKey, fromInclusive, upperBound, params)
+                + " LIMIT 1 OFFSET ?";
+        params.add(minOffset);
+        Object[] floor = queryKey(sql, params);
+        if (floor == null || candidate == null) {
+            return floor;
+        }
+        StringBuilder seek = new StringBuilder("SELECT ").append(keys).append(" FROM ").append(tableName).append(" WHERE ");
+        params = new ArrayList<>();
+        DatabaseUtils.appendKeyComparison(seek, keyColumns, floor, true, true, params);
+        seek.append(" AND ");
+        DatabaseUtils.appendKeyComparison(seek, keyColumns, candidate, true, true, params);
+        if (upperBound != null) {
+            seek.append(" AND ");
+            DatabaseUtils.appendKeyComparison(seek, keyColumns, upperBound, false, false, params);
+        }
+        seek.append(" ORDER BY ").append(keys).append(" LIMIT 1");
+        return queryKey(seek.toString(), params);
+    }
+
+    @Override
+    public void close() {
+        adapter.closeConnection(connection);
+    }
+
+    private Object[] queryKey(String sql, List<Object> params) {
+        try (RowCursor cursor = adapter.openCursor(connection, sql, params, 1)) {
+            if (!cursor.next()) {
+                return null;
+            }
+            Object[] key = new Object[keyColumns.size()];
+            for (int i = 0; i < key.length; i++) {
+                key[i] = cursor.getObject(i);
+            }
+            return key;
+        }
+    }
+
+    private String[] resolveKeyNames(RowCursor cursor) {
+        String[] names = new String[keyColumns.size()];
+        for (int i = 0; i < names.length; i++) {
+            int index = cursor.getColumnIndex(keyColumns.get(i));
+            if (index < 0) {
+                throw new IllegalStateException("Key column " + keyColumns.get(i) + " not found in " + tableName);
+            }
+            names[i] = cursor.getColumnName(index);
+        }
+        return names;
+    }
+
+    private Object[] readKey(Map<String, Object> row) {
+        Object[] key = new Object[keyNames.length];
+        for (int i = 0; i < key.length; i++) {
+            key[i] = row.get(keyNames[i]);
+        }
+        return key;
+    }
+
+}
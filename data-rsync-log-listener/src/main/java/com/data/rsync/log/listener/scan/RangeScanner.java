@@ -0,0 +1,63 @@
+package com.data.rsync.log.listener.scan;
+
+/**
+ * 主键范围扫描器
+ * 每个扫描线程持有一个实例（通常绑定一个数据库连接），非线程安全
+ */
+public interface RangeScanner extends AutoCloseable {
+
+    /**
+     * 扫描一页数据并投递到下游
+     * @param range 所属子范围
+     * @param fromKey 起始主键，null 表示无下界
+     * @param fromInclusive 起始主键是否包含
+     * @param upperBound 上界（不包含），null 表示无上界
+     * @param pageSize 页大小
+     * @return 本页扫描结果
+     * @throws Exception 扫描或投递失败
+     */
+    ScanPage scanPage(ScanRange range, Object[] fromKey, boolean fromInclusive, Object[] upperBound, int pageSize) throws Exception;
+
+    /**
+     * 查找拆分点：不小于候选主键、且在起始主键之后至少 minOffset 行的第一个主键
+     * @param fromKey 起始主键，null 表示无下界
+     * @param fromInclusive 起始主键是否包含
+     * @param upperBound 上界（不包含），null 表示无上界
+     * @param minOffset 拆分点距起始主键的最少行数
+     * @param candidate 候选拆分点（通常取自分片规划的主键样本），null 表示直接取 minOffset 处的主键
+     * @return 拆分点主键，剩余行数不足或候选之后没有数据时返回 null
+     * @throws Exception 查询失败
+     */
+    Object[] findSplitKey(Object[] fromKey, boolean fromInclusive, Object[] upperBound, long minOffset,
+                          Object[] candidate) throws Exception;
+
+    /**
+     * 单页扫描结果
+     */
+    class ScanPage {
+
+        /**
+         * 本页行数
+         */
+        private final int rowCount;
+
+        /**
+         * 本页最后一条记录的主键
+         */
+        private final Object[] lastKey;
+
+        public ScanPage(int rowCount, Object[] lastKey) {
+            this.rowCount = rowCount;
+            this.lastKey = lastKey;
+        }
+
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        public Object[] getLastKey() {
+            return lastKey;
+        }
+    }
+
+}
@@ -0,0 +1,302 @@
+package com.data.rsync.log.listener.scan;
+
+import com.data.rsync.common.constants.DataRsyncConstants;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.Resource;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 全量扫描断点存储
+ * 每个子范围的边界、lastKey 和行数以 JSON 保存在 Redis Hash 中（scan_range:&lt;taskId&gt;），
+ * 子范围推进时按固定间隔保存，状态变化或被拆分时立即保存；节点宕机或重新分配后各子范围从 lastKey 继续
+ */
+@Component
+@Slf4j
+public class ScanCheckpointStore {
+
+    /**
+     * 扫描元信息字段，记录表名和主键列，表或主键变化时断点失效
+     */
+    private static final String META_FIELD = "_meta";
+
+    @Resource(name = "customStringRedisTemplate")
+    private RedisTemplate<String, String> redisTemplate;
+
+    /**
+     * 子范围断点保存间隔（毫秒）
+     */
+    @Value("${full-scan.checkpoint-interval-ms:5000}")
+    private long checkpointIntervalMs;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * 最近一次保存的子范围快照，用于节流和识别状态变化
+     */
+    private final Map<String, SavedState> savedStates = new ConcurrentHashMap<>();
+
+    /**
+     * 子范围的保存锁，同一子范围的快照、确认和写入串行执行
+     */
+    private final Map<String, Object> saveLocks = new ConcurrentHashMap<>();
+
+    /**
+     * 开始新的扫描，清理旧断点并记录元信息
+     * @param taskId 任务ID
+     * @param tableName 表名
+     * @param keyColumns 主键列
+     */
+    public void begin(Long taskId, String tableName, List<String> keyColumns) {
+        clear(taskId);
+        redisTemplate.opsForHash().put(key(taskId), META_FIELD, meta(tableName, keyColumns));
+    }
+
+    /**
+     * 加载未完成扫描的断点
+     * @param taskId 任务ID
+     * @param tableName 表名
+     * @param keyColumns 主键列
+     * @return 恢复的子范围，无可用断点时返回空列表
+     */
+    public List<ScanRange> load(Long taskId, String tableName, List<String> keyColumns) {
+        Map<Object, Object> entries = redisTemplate.opsForHash().entries(key(taskId));
+        List<ScanRange> ranges = new ArrayList<>();
+        if (entries.isEmpty()) {
+            return ranges;
+        }
+        if (!meta(tableName, keyColumns).equals(entries.get(META_FIELD))) {
+            log.warn("Scan checkpoint of task {} does not match table {} / keys {}, ignoring", taskId, tableName, keyColumns);
+            return ranges;
+        }
+        try {
+            for (Map.Entry<Object, Object> entry : entries.entrySet()) {
+                if (META_FIELD.equals(entry.getKey())) {
+                    continue;
+                }
+                RangeCheckpoint checkpoint = objectMapper.readValue(entry.getValue().toString(), RangeCheckpoint.class);
+                ranges.add(new ScanRange(checkpoint.getRangeId(), checkpoint.getShardIndex(),
+                        decodeKey(checkpoint.getLowerBound()), decodeKey(checkpoint.getUpperBound()),
+                        decodeKey(checkpoint.getLastKey()), checkpoint.getRowsScanned(), checkpoint.getEstimatedRows(),
+                        checkpoint.getState(), checkpoint.getSplitCount()));
+            }
+        } catch (Exception e) {
+            log.error("Failed to load scan checkpoint of task {}, starting over: {}", taskId, e.getMessage(), e);
+            return new ArrayList<>();
+        }
+        ranges.sort((a, b) -> a.getRangeId().compareTo(b.getRangeId()));
+        return ranges;
+    }
+
+    /**
+     * 保存子范围断点，距上次保存不足间隔且状态和上界均未变化时跳过
+     * 同一子范围的保存（扫描线程和拆分线程都可能触发）在一把锁内依次完成快照、回调和写入：
+     * 回调在快照之后确认，覆盖快照中 lastKey 之前发送的全部数据，并发的保存不会在前一次确认完成前写入更新的 lastKey
+     * @param taskId 任务ID
+     * @param range 子范围
+     * @param beforeSave 实际写入前的回调，用于先确认已投递的数据；回调抛出的异常直接传给调用方，不写入断点
+     * @return 是否实际写入
+     */
+    public boolean save(Long taskId, ScanRange range, Runnable beforeSave) {
+        String stateKey = taskId + ":" + range.getRangeId();
+        synchronized (saveLocks.computeIfAbsent(stateKey, k -> new Object())) {
+            return doSave(taskId, range, stateKey, beforeSave);
+        }
+    }
+
+    private boolean doSave(Long taskId, ScanRange range, String stateKey, Runnable beforeSave) {
+        String field = range.getRangeId();
+        RangeCheckpoint checkpoint;
+        Object[] upperBound;
+        String state;
+        synchronized (range) {
+            upperBound = range.getUpperBound();
+            state = range.getState();
+            checkpoint = new RangeCheckpoint();
+            checkpoint.setRangeId(field);
+            checkpoint.setShardIndex(range.getShardIndex());
+            checkpoint.setLowerBound(encodeKey(range.getLowerBound()));
+            checkpoint.setUpperBound(encodeKey(upperBound));
+            checkpoint.setLastKey(encodeKey(range.getLastKey()));
+            checkpoint.setRowsScanned(range.getRowsScanned());
+            checkpoint.setEstimatedRows(range.getEstimatedRows());
+            checkpoint.setState(state);
+            checkpoint.setSplitCount(range.getSplitCount());
+        }
+
+        long now = System.currentTimeMillis();
+        SavedState saved = savedStates.get(stateKey);
+        boolean changed = saved == null || saved.upperBound != upperBound || !Objects.equals(saved.state, state);
+        if (!changed && now - saved.savedAt < checkpointIntervalMs) {
+            return false;
+        }
+        if (beforeSave != null) {
+            beforeSave.run();
+        }
+        try {
+            redisTemplate.opsForHash().put(key(taskId), field, objectMapper.writeValueAsString(checkpoint));
+            savedStates.put(stateKey, new SavedState(upperBound, state, now));
+            return true;
+        } catch (Exception e) {
+            log.error("Failed to save scan checkpoint of task {} range {}: {}", taskId, field, e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * 清理断点
+     * @param taskId 任务ID
+     */
+    public void clear(Long taskId) {
+        redisTemplate.delete(key(taskId));
+        String prefix = taskId + ":";
+        savedStates.keySet().removeIf(stateKey -> stateKey.startsWith(prefix));
+        saveLocks.keySet().removeIf(stateKey -> stateKey.startsWith(prefix));
+    }
+
+    private String key(Long taskId) {
+        return DataRsyncConstants.RedisKey.SCAN_RANGE_PREFIX + taskId;
+    }
+
+    private String meta(String tableName, List<String> keyColumns) {
+        return tableName + "|" + String.join(",", keyColumns);
+    }
+
+    /**
+     * 按类型编码主键值，保证恢复后的类型与 JDBC 读取的类型一致
+     */
+    static List<String> encodeKey(Object[] key) {
+        if (key == null) {
+            return null;
+        }
+        List<String> encoded = new ArrayList<>(key.length);
+        for (Object value : key) {
+            encoded.add(encodeValue(value));
+        }
+        return encoded;
+    }
+
+    static Object[] decodeKey(List<String> encoded) {
+        if (encoded == null) {
+            return null;
+        }
+        Object[] key = new Object[encoded.size()];
+        for (int i = 0; i < key.length; i++) {
+            key[i] = decodeValue(encoded.get(i));
+        }
+        return key;
+    }
+
+    private static String encodeValue(Object value) {
+        if (value == null) {
+            return "Z:";
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return "L:" + value;
+        } else if (value instanceof BigInteger) {
+            return "I:" + value;
+        } else if (value instanceof BigDecimal) {
+            return "D:" + ((BigDecimal) value).toPlainString();
+        } else if (value instanceof Double || value instanceof Float) {
+            return "F:" + value;
+        } else if (value instanceof byte[]) {
+            return "B:" + Base64.getEncoder().encodeToString((byte[]) value);
+        } else if (value instanceof Timestamp) {
+            return "T:" + value;
+        } else if (value instanceof Date) {
+            return "d:" + value;
+        } else if (value instanceof Time) {
+            return "t:" + value;
+        } else if (value instanceof UUID) {
+            return "U:" + value;
+        }
+        return "S:" + value;
+    }
+
+    private static Object decodeValue(String encoded) {
+        String value = encoded.substring(2);
+        switch (encoded.charAt(0)) {
+            case 'Z':
+                return null;
+            case 'L':
+                return Long.parseLong(value);
+            case 'I':
+                return new BigInteger(value);
+            case 'D':
+                return new BigDecimal(value);
+            case 'F':
+                return Double.parseDouble(value);
+            case 'B':
+                return Base64.getDecoder().decode(value);
+            case 'T':
+                return Timestamp.valueOf(value);
+            case 'd':
+                return Date.valueOf(value);
+            case 't':
+                return Time.valueOf(value);
+            case 'U':
+                return UUID.fromString(value);
+            default:
+                return value;
+        }
+    }
+
+    /**
+     * 已保存的子范围快照
+     */
+    private static class SavedState {
+
+        private final Object[] upperBound;
+
+        private final String state;
+
+        private final long savedAt;
+
+        SavedState(Object[] upperBound, String state, long savedAt) {
+            this.upperBound = upperBound;
+            this.state = state;
+            this.savedAt = savedAt;
+        }
+    }
+
+    /**
+     * 子范围断点
+     */
+    @Data
+    public static class RangeCheckpoint {
+
+        private String rangeId;
+
+        private int shardIndex;
+
+        private List<String> lowerBound;
+
+        private List<String> upperBound;
+
+        private List<String> lastKey;
+
+        private long rowsScanned;
+
+        private long estimatedRows;
+
+        private String state;
+
+        private int splitCount;
+    }
+
+}
@@ -0,0 +1,207 @@
+package com.data.rsync.log.listener.scan;
+
+import java.util.Arrays;
+
+/**
+ * 全量扫描子范围
+ * 左闭右开区间 [lowerBound, upperBound)，按主键分页推进；运行中可被空闲线程从尾部拆分。
+ * 所有可变状态都在实例锁内读写
+ */
+public class ScanRange {
+
+    /**
+     * 状态：待扫描
+     */
+    public static final String STATE_PENDING = "PENDING";
+
+    /**
+     * 状态：扫描中
+     */
+    public static final String STATE_RUNNING = "RUNNING";
+
+    /**
+     * 状态：已完成
+     */
+    public static final String STATE_DONE = "DONE";
+
+    /**
+     * 状态：扫描失败，恢复时从 lastKey 继续
+     */
+    public static final String STATE_FAILED = "FAILED";
+
+    /**
+     * 子范围ID，拆分出的子范围以 "父ID.序号" 命名
+     */
+    private final String rangeId;
+
+    /**
+     * 所属分片索引
+     */
+    private final int shardIndex;
+
+    private final Object[] lowerBound;
+
+    private Object[] upperBound;
+
+    /**
+     * 最后一条已扫描记录的主键，null 表示尚未开始
+     */
+    private Object[] lastKey;
+
+    private long rowsScanned;
+
+    private long estimatedRows;
+
+    private String state = STATE_PENDING;
+
+    /**
+     * 是否仍可拆分，剩余行数不足时置为 false
+     */
+    private boolean splittable = true;
+
+    /**
+     * 是否已有线程预占并正在查询拆分点
+     */
+    private boolean splitting;
+
+    private int splitCount;
+
+    public ScanRange(String rangeId, int shardIndex, Object[] lowerBound, Object[] upperBound, long estimatedRows) {
+        this.rangeId = rangeId;
+        this.shardIndex = shardIndex;
+        this.lowerBound = lowerBound;
+        this.upperBound = upperBound;
+        this.estimatedRows = estimatedRows;
+    }
+
+    /**
+     * 从断点恢复子范围，未完成的子范围恢复为待扫描
+     */
+    ScanRange(String rangeId, int shardIndex, Object[] lowerBound, Object[] upperBound, Object[] lastKey,
+              long rowsScanned, long estimatedRows, String state, int splitCount) {
+        this(rangeId, shardIndex, lowerBound, upperBound, estimatedRows);
+        this.lastKey = lastKey;
+        this.rowsScanned = rowsScanned;
+        this.state = STATE_DONE.equals(state) ? STATE_DONE : STATE_PENDING;
+        this.splitCount = splitCount;
+    }
+
+    public String getRangeId() {
+        return rangeId;
+    }
+
+    public int getShardIndex() {
+        return shardIndex;
+    }
+
+    public synchronized Object[] getLowerBound() {
+        return lowerBound;
+    }
+
+    public synchronized Object[] getUpperBound() {
+        return upperBound;
+    }
+
+    public synchronized Object[] getLastKey() {
+        return lastKey;
+    }
+
+    public synchronized long getRowsScanned() {
+        return rowsScanned;
+    }
+
+    public synchronized long getEstimatedRows() {
+        return estimatedRows;
+    }
+
+    public synchronized String getState() {
+        return state;
+    }
+
+    public synchronized int getSplitCount() {
+        return splitCount;
+    }
+
+    public synchronized boolean isSplittable() {
+        return splittable && !splitting && STATE_RUNNING.equals(state);
+    }
+
+    /**
+     * 估算剩余行数
+     * @return 剩余行数
+     */
+    public synchronized long getRemainingRows() {
+        return Math.max(0, estimatedRows - rowsScanned);
+    }
+
+    synchronized void start() {
+        state = STATE_RUNNING;
+    }
+
+    synchronized void finish() {
+        state = STATE_DONE;
+        estimatedRows = rowsScanned;
+    }
+
+    synchronized void fail() {
+        state = STATE_FAILED;
+    }
+
+    synchronized void markUnsplittable() {
+        splittable = false;
+    }
+
+    /**
+     * 预占拆分，同一时刻只有一个线程为该范围查询拆分点
+     * @return 是否预占成功
+     */
+    synchronized boolean reserveSplit() {
+        if (!isSplittable()) {
+            return false;
+        }
+        splitting = true;
+        return true;
+    }
+
+    synchronized void releaseSplit() {
+        splitting = false;
+    }
+
+    /**
+     * 记录一页扫描结果
+     * @param lastKey 本页最后一条记录的主键
+     * @param rows 本页行数
+     */
+    synchronized void advance(Object[] lastKey, int rows) {
+        this.lastKey = lastKey;
+        this.rowsScanned += rows;
+        if (rowsScanned >= estimatedRows) {
+            // 实际行数超出估算（倾斜分片），按已扫描行数翻倍重新估算，使其仍能被优先拆分
+            estimatedRows = rowsScanned * 2;
+        }
+    }
+
+    /**
+     * 在拆分点截断当前范围，返回尾部新范围
+     * @param splitKey 拆分点，成为新范围的下界
+     * @param tailRows 新范围的估算行数
+     * @return 新范围
+     */
+    synchronized ScanRange splitAt(Object[] splitKey, long tailRows) {
+        ScanRange tail = new ScanRange(rangeId + "." + (++splitCount), shardIndex, splitKey, upperBound, tailRows);
+        upperBound = splitKey;
+        estimatedRows = Math.max(rowsScanned, estimatedRows - tailRows);
+        return tail;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ScanRange{rangeId=" + rangeId
+                + ", lowerBound=" + Arrays.toString(lowerBound)
+                + ", upperBound=" + Arrays.toString(upperBound)
+                + ", lastKey=" + Arrays.toString(lastKey)
+                + ", rowsScanned=" + rowsScanned
+                + ", state=" + state + "}";
+    }
+
+}
@@ -14,6 +14,14 @@ public interface LogListenerService {
      */
     boolean startLogListener(Task task);
 
+    /**
+     * 启动日志监听，并以增量快照方式同步存量数据
+     * 快照按主键分块读取，与变更流交替进行，变更流中已被分块读到的行会被去重，无需锁表或等待全量扫描结束
+     * @param task 任务
+     * @return 监听结果，数据源不支持增量快照或信号表准备失败时返回 false 且不启动监听
+     */
+    boolean startLogListenerWithSnapshot(Task task);
+
     /**
      * 停止日志监听
      * @param taskId 任务ID
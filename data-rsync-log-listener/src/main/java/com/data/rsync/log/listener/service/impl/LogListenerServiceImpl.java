@@ -1,19 +1,38 @@
 package com.data.rsync.log.listener.service.impl;
 
+import com.data.rsync.common.adapter.DataSourceAdapter;
+import com.data.rsync.common.adapter.DataSourceAdapterFactory;
+import com.data.rsync.common.adapter.DataSourceAdapterInitializer;
 import com.data.rsync.common.constants.DataRsyncConstants;
+import com.data.rsync.common.exception.LogListenerException;
+import com.data.rsync.common.kafka.BinaryKafkaSender;
+import com.data.rsync.common.kafka.PartitionKeys;
 import com.data.rsync.common.model.DataSource;
 import com.data.rsync.common.model.Task;
 import com.data.rsync.common.service.DataConsistencyService;
+import com.data.rsync.common.shard.ShardPlanner;
+import com.data.rsync.common.shard.ShardRange;
 import com.data.rsync.common.utils.DatabaseUtils;
 import com.data.rsync.common.utils.ThreadPoolManager;
+import com.data.rsync.log.listener.checkpoint.CheckpointManager;
+import com.data.rsync.log.listener.checkpoint.RedisOffsetBackingStore;
+import com.data.rsync.log.listener.checkpoint.RedisSchemaHistory;
+import com.data.rsync.log.listener.event.ChangeEventBatchConsumer;
+import com.data.rsync.log.listener.scan.FullScanCoordinator;
+import com.data.rsync.log.listener.scan.JdbcRangeScanner;
+import com.data.rsync.log.listener.scan.RangeScanner;
+import com.data.rsync.log.listener.scan.ScanCheckpointStore;
+import com.data.rsync.log.listener.scan.ScanRange;
 import com.data.rsync.log.listener.service.LogListenerService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.debezium.config.Configuration;
 import io.debezium.embedded.EmbeddedEngine;
+import io.debezium.engine.DebeziumEngine;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.kafka.connect.data.Struct;
 import org.apache.kafka.connect.source.SourceRecord;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
@@ -21,11 +40,13 @@ import org.springframework.stereotype.Service;
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
 
 /**
  * 日志监听服务实现类
@@ -40,6 +61,15 @@ public class LogListenerServiceImpl implements LogListenerService {
     @Resource
     private KafkaTemplate<String, String> kafkaTemplate;
 
+    @Resource
+    private BinaryKafkaSender binaryKafkaSender;
+
+    @Resource
+    private CheckpointManager checkpointManager;
+
+    @Resource
+    private ScanCheckpointStore scanCheckpointStore;
+
     @Resource
     private ThreadPoolManager threadPoolManager;
 
@@ -54,7 +84,41 @@ public class LogListenerServiceImpl implements LogListenerService {
     /**
      * Debezium 引擎缓存
      */
-    private final Map<Long, EmbeddedEngine> debeziumEngineMap = new ConcurrentHashMap<>();
+    private final Map<Long, DebeziumEngine<SourceRecord>> debeziumEngineMap = new ConcurrentHashMap<>();
+
+    /**
+     * 全量扫描各子范围已发送、尚未确认的消息，保存断点前逐条确认
+     */
+    private final Map<ScanRange, PendingSends> scanPendingSends = new ConcurrentHashMap<>();
+
+    /**
+     * 全量扫描分片规划器
+     */
+    private final ShardPlanner shardPlanner = new ShardPlanner();
+
+    /**
+     * 全量扫描每页行数
+     */
+    @Value("${full-scan.page-size:5000}")
+    private int fullScanPageSize;
+
+    /**
+     * 增量快照信号表，任务扩展参数 signalTable 可覆盖
+     */
+    @Value("${incremental-snapshot.signal-table:debezium_signal}")
+    private String snapshotSignalTable;
+
+    /**
+     * 增量快照每块行数
+     */
+    @Value("${incremental-snapshot.chunk-size:4096}")
+    private int snapshotChunkSize;
+
+    /**
+     * Spring 管理的 ObjectMapper，已注册 JavaTimeModule，DATETIME 等列读出的 java.time 类型可以正常序列化
+     */
+    @Resource
+    private ObjectMapper objectMapper;
 
     /**
      * 关闭资源
@@ -63,20 +127,22 @@ public class LogListenerServiceImpl implements LogListenerService {
         log.info("Shutting down log listener service");
         
         // 1. 停止所有Debezium引擎
-        for (Map.Entry<Long, EmbeddedEngine> entry : debeziumEngineMap.entrySet()) {
+        for (Map.Entry<Long, DebeziumEngine<SourceRecord>> entry : debeziumEngineMap.entrySet()) {
             Long taskId = entry.getKey();
-            EmbeddedEngine engine = entry.getValue();
+            DebeziumEngine<SourceRecord> engine = entry.getValue();
             try {
                 log.info("Stopping Debezium engine for task: {}", taskId);
-                engine.stop();
                 engine.close();
             } catch (IOException e) {
                 log.error("Failed to stop Debezium engine for task {}: {}", taskId, e.getMessage(), e);
             }
         }
         debeziumEngineMap.clear();
+
+        // 2. 刷新内存中的位点
+        checkpointManager.flushAll();
         
-        // 2. 清理状态缓存
+        // 3. 清理状态缓存
         listenerStatusMap.clear();
         
         log.info("Log listener service shut down successfully");
@@ -89,6 +155,63 @@ public class LogListenerServiceImpl implements LogListenerService {
      */
     @Override
     public boolean startLogListener(com.data.rsync.common.model.Task task) {
+        dropEngineOffsetsWithoutSchemaHistory(task);
+        return startLogListener(task, null, null);
+    }
+
+    /**
+     * 启动日志监听，并以增量快照方式同步存量数据
+     * 基于 Debezium 增量快照（DBLog 水位线算法）：向信号表写入低/高水位线之间按主键读取一块数据，
+     * 窗口内变更流中出现的同主键事件会替换块内的旧值，快照与变更流在同一条流中交替输出
+     * @param task 任务
+     * @return 监听结果
+     */
+    @Override
+    public boolean startLogListenerWithSnapshot(com.data.rsync.common.model.Task task) {
+        log.info("[LogListenerServiceImpl] 开始启动增量快照监听，任务ID：{}，任务名称：{}", task.getId(), task.getName());
+        String signalDataCollection;
+        try {
+            signalDataCollection = prepareSignalTable(task);
+        } catch (Exception e) {
+            log.error("[LogListenerServiceImpl] 准备增量快照信号表失败，任务ID：{}，错误信息：{}", task.getId(), e.getMessage(), e);
+            return false;
+        }
+
+        // 快照进度随引擎位点保存，信号已发出时重启后引擎从位点中的快照进度继续
+        dropEngineOffsetsWithoutSchemaHistory(task);
+        BooleanSupplier streamingCallback = null;
+        if (checkpointManager.getSnapshotSignal(task.getId()) == null) {
+            String dataCollection = qualifyTableName(task, task.getTableName());
+            streamingCallback = () -> sendSnapshotSignal(task, signalDataCollection, dataCollection);
+        } else {
+            log.info("[LogListenerServiceImpl] 增量快照信号已发出，从引擎位点继续快照，任务ID：{}", task.getId());
+        }
+        return startLogListener(task, signalDataCollection, streamingCallback);
+    }
+
+    /**
+     * 依赖表结构历史的连接器（MySQL、Oracle、SQL Server）有引擎位点但没有历史时删除引擎位点，
+     * 连接器从快照重新开始，而不是因缺少历史拒绝启动
+     * @param task 任务
+     */
+    private void dropEngineOffsetsWithoutSchemaHistory(com.data.rsync.common.model.Task task) {
+        String dataSourceType = task.getDataSourceType();
+        boolean historized = DataRsyncConstants.DataSourceType.MYSQL.equals(dataSourceType)
+                || DataRsyncConstants.DataSourceType.ORACLE.equals(dataSourceType)
+                || DataRsyncConstants.DataSourceType.SQL_SERVER.equals(dataSourceType);
+        if (historized && checkpointManager.dropEngineOffsetsWithoutSchemaHistory(task.getId())) {
+            log.warn("[LogListenerServiceImpl] 引擎位点缺少对应的表结构历史，已删除引擎位点并从快照重新开始，任务ID：{}", task.getId());
+        }
+    }
+
+    /**
+     * 启动日志监听
+     * @param task 任务
+     * @param signalDataCollection 增量快照信号表，为 null 时不开启增量快照
+     * @param streamingCallback 进入流式读取阶段后的回调，用于发出快照信号
+     * @return 监听结果
+     */
+    private boolean startLogListener(com.data.rsync.common.model.Task task, String signalDataCollection, BooleanSupplier streamingCallback) {
         log.info("[LogListenerServiceImpl] 开始启动日志监听，任务ID：{}，任务名称：{}", task.getId(), task.getName());
         try {
             // 1. 检查任务状态
@@ -112,25 +235,27 @@ public class LogListenerServiceImpl implements LogListenerService {
 
             // 4. 构建 Debezium 配置
             log.info("[LogListenerServiceImpl] 构建 Debezium 配置，任务ID：{}", task.getId());
-            Configuration config = buildDebeziumConfig(task, breakpoint);
+            Configuration config = buildDebeziumConfig(task, breakpoint, signalDataCollection);
             log.info("[LogListenerServiceImpl] Debezium 配置构建完成，任务ID：{}", task.getId());
 
             // 5. 创建并启动 Debezium 引擎
             log.info("[LogListenerServiceImpl] 创建 Debezium 引擎，任务ID：{}", task.getId());
-            EmbeddedEngine engine = EmbeddedEngine.create()
+            // 批量消费：整批异步发送，broker 确认后才标记已处理并保存位点
+            ChangeEventBatchConsumer batchConsumer = new ChangeEventBatchConsumer(task.getId(), binaryKafkaSender,
+                    (record, ackedCount) -> saveBreakpoint(record, ackedCount, task.getId()),
+                    signalDataCollection, streamingCallback);
+            // 批次未被确认时引擎停止，已确认的位点保留，重启后从首个未确认事件继续
+            DebeziumEngine.CompletionCallback completionCallback = (success, message, error) -> {
+                if (!success) {
+                    log.error("[LogListenerServiceImpl] Debezium 引擎异常停止，任务ID：{}，原因：{}", task.getId(), message, error);
+                    listenerStatusMap.put(task.getId(), "FAILED");
+                    redisTemplate.opsForValue().set(DataRsyncConstants.RedisKey.LOG_LISTENER_PREFIX + task.getId(), "FAILED");
+                }
+            };
+            DebeziumEngine<SourceRecord> engine = EmbeddedEngine.create()
                     .using(config)
-                    .notifying(record -> {
-                        try {
-                            // 处理变更事件
-                            log.debug("[LogListenerServiceImpl] 收到变更事件，任务ID：{}", task.getId());
-                            processChangeEvent(record, task);
-                            // 保存断点续传位点
-                            log.debug("[LogListenerServiceImpl] 保存断点续传位点，任务ID：{}", task.getId());
-                            saveBreakpoint(record, task.getId());
-                        } catch (Exception e) {
-                            log.error("[LogListenerServiceImpl] 处理变更事件失败：{}", e.getMessage(), e);
-                        }
-                    })
+                    .using(completionCallback)
+                    .notifying(batchConsumer)
                     .build();
 
             // 6. 启动引擎
@@ -179,16 +304,16 @@ public class LogListenerServiceImpl implements LogListenerService {
             }
 
             // 2. 停止 Debezium 引擎
-            EmbeddedEngine engine = debeziumEngineMap.get(taskId);
+            DebeziumEngine<SourceRecord> engine = debeziumEngineMap.get(taskId);
             if (engine != null) {
                 try {
-                    engine.stop();
                     engine.close();
                 } catch (IOException e) {
                     log.error("Failed to stop debezium engine for task {}: {}", taskId, e.getMessage(), e);
                 }
                 debeziumEngineMap.remove(taskId);
             }
+            checkpointManager.flush(taskId);
 
             // 3. 更新监听状态
             listenerStatusMap.remove(taskId);
@@ -247,8 +372,13 @@ public class LogListenerServiceImpl implements LogListenerService {
             log.info("[LogListenerServiceImpl] 同步策略配置：clearCollectionBeforeSync={}, syncStrategy={}, 任务ID：{}", 
                     clearCollectionBeforeSync, syncStrategy, task.getId());
 
-            // 2. 清空集合（如果配置了）
-            if (clearCollectionBeforeSync) {
+            // 2. 加载未完成扫描的断点，从断点恢复时不能清空已同步的数据
+            List<String> keyColumns = resolveKeyColumns(task);
+            List<ScanRange> restoredRanges = scanCheckpointStore.load(task.getId(), task.getTableName(), keyColumns);
+            boolean resuming = !restoredRanges.isEmpty();
+
+            // 清空集合（如果配置了）
+            if (clearCollectionBeforeSync && !resuming) {
                 log.info("[LogListenerServiceImpl] 开始清空集合数据，任务ID：{}", task.getId());
                 // 简化实现，实际项目中需要调用相应的服务
                 log.info("[LogListenerServiceImpl] 集合数据清空成功，任务ID：{}", task.getId());
@@ -261,53 +391,43 @@ public class LogListenerServiceImpl implements LogListenerService {
             task.setProgress(0);
             redisTemplate.opsForValue().set(DataRsyncConstants.RedisKey.TASK_PROGRESS_PREFIX + task.getId(), "0");
 
-            // 4. 计算分片数
-            log.info("[LogListenerServiceImpl] 计算分片数，任务ID：{}", task.getId());
-            int shardCount = calculateShardCount(task);
-            log.info("[LogListenerServiceImpl] 计算得到分片数：{}，任务ID：{}", shardCount, task.getId());
-
-            // 3. 创建分片扫描任务
-            log.info("[LogListenerServiceImpl] 创建分片扫描任务，任务ID：{}", task.getId());
-            List<Map<String, Object>> shards = createShards(task, shardCount);
-            log.info("[LogListenerServiceImpl] 创建分片数：{}，任务ID：{}", shards.size(), task.getId());
-
-            // 4. 并行执行分片扫描
-            log.info("[LogListenerServiceImpl] 并行执行分片扫描，任务ID：{}", task.getId());
-            CountDownLatch latch = new CountDownLatch(shards.size());
-            int[] progress = {0};
-            final int totalShards = shards.size();
-
-            for (int i = 0; i < shards.size(); i++) {
-                final int shardIndex = i;
-                final Map<String, Object> shard = shards.get(i);
-                log.info("[LogListenerServiceImpl] 提交分片扫描任务，分片索引：{}，任务ID：{}", shardIndex, task.getId());
-                threadPoolManager.submitBatchTask(() -> {
-                    try {
-                        // 执行分片扫描
-                        log.info("[LogListenerServiceImpl] 开始执行分片扫描，分片索引：{}，任务ID：{}", shardIndex, task.getId());
-                        executeShardScan(task, shard, shardIndex);
-                        // 更新进度
-                        synchronized (progress) {
-                            progress[0]++;
-                            int currentProgress = (progress[0] * 100) / totalShards;
-                            task.setProgress(currentProgress);
-                            redisTemplate.opsForValue().set(DataRsyncConstants.RedisKey.TASK_PROGRESS_PREFIX + task.getId(), String.valueOf(currentProgress));
-                            log.info("[LogListenerServiceImpl] 更新扫描进度：{}%，任务ID：{}", currentProgress, task.getId());
-                        }
-                    } catch (Exception e) {
-                        log.error("[LogListenerServiceImpl] 执行分片扫描失败，任务ID：{}，分片索引：{}，错误信息：{}", 
-                                task.getId(), shardIndex, e.getMessage(), e);
-                    } finally {
-                        latch.countDown();
-                        log.info("[LogListenerServiceImpl] 分片扫描任务完成，分片索引：{}，任务ID：{}", shardIndex, task.getId());
-                    }
-                });
+            // 4. 并行执行分片扫描，空闲线程动态拆分运行中的子范围
+            int workerCount = task.getConcurrency() != null ? Math.max(1, task.getConcurrency()) : 1;
+            FullScanCoordinator coordinator;
+            List<Object[]> splitSamples = new ArrayList<>();
+            if (resuming) {
+                log.info("[LogListenerServiceImpl] 从断点恢复全量扫描，子范围数：{}，任务ID：{}", restoredRanges.size(), task.getId());
+                coordinator = FullScanCoordinator.resume(restoredRanges, workerCount, fullScanPageSize,
+                        () -> createRangeScanner(task, keyColumns),
+                        (scan, range) -> updateScanProgress(task, scan, range));
+            } else {
+                // 根据表统计信息规划分片
+                log.info("[LogListenerServiceImpl] 创建分片扫描任务，任务ID：{}", task.getId());
+                List<ShardRange> shards = createShards(task, keyColumns, splitSamples);
+                log.info("[LogListenerServiceImpl] 创建分片数：{}，任务ID：{}", shards.size(), task.getId());
+                scanCheckpointStore.begin(task.getId(), task.getTableName(), keyColumns);
+                coordinator = new FullScanCoordinator(shards, workerCount, fullScanPageSize,
+                        () -> createRangeScanner(task, keyColumns),
+                        (scan, range) -> updateScanProgress(task, scan, range));
             }
+            if (workerCount > 1) {
+                // 拆分点候选取自规划时的主键样本，断点恢复时重新采样
+                coordinator.setSplitSamples(splitSamples.isEmpty() ? sampleSplitKeys(task, keyColumns, workerCount) : splitSamples);
+            }
+            log.info("[LogListenerServiceImpl] 并行执行分片扫描，工作线程数：{}，任务ID：{}", workerCount, task.getId());
 
             // 5. 等待所有分片扫描完成
             log.info("[LogListenerServiceImpl] 等待所有分片扫描完成，任务ID：{}", task.getId());
-            latch.await();
-            log.info("[LogListenerServiceImpl] 所有分片扫描完成，任务ID：{}", task.getId());
+            coordinator.run(threadPoolManager.getBatchThreadPool());
+            log.info("[LogListenerServiceImpl] 所有分片扫描完成，任务ID：{}，子范围数：{}，失败子范围数：{}，扫描行数：{}",
+                    task.getId(), coordinator.getRanges().size(), coordinator.getFailedRanges().size(), coordinator.getScannedRows());
+            if (coordinator.getFailedRanges().isEmpty()) {
+                scanCheckpointStore.clear(task.getId());
+            } else {
+                // 保留断点，重新执行时只扫描失败子范围的剩余部分
+                throw new LogListenerException("Full scan has " + coordinator.getFailedRanges().size()
+                        + " failed ranges for task " + task.getId(), true);
+            }
 
             // 6. 执行数据一致性校验
             log.info("[LogListenerServiceImpl] 开始执行数据一致性校验，任务ID：{}", task.getId());
@@ -349,7 +469,7 @@ public class LogListenerServiceImpl implements LogListenerService {
     public String getBreakpoint(Long taskId) {
         log.info("Getting breakpoint for task: {}", taskId);
         try {
-            String breakpoint = redisTemplate.opsForValue().get(DataRsyncConstants.RedisKey.BREAKPOINT_PREFIX + taskId);
+            String breakpoint = checkpointManager.get(taskId);
             log.info("Got breakpoint for task {}: {}", taskId, breakpoint);
             return breakpoint;
         } catch (Exception e) {
@@ -367,7 +487,7 @@ public class LogListenerServiceImpl implements LogListenerService {
     public void setBreakpoint(Long taskId, String breakpoint) {
         log.info("Setting breakpoint for task {}: {}", taskId, breakpoint);
         try {
-            redisTemplate.opsForValue().set(DataRsyncConstants.RedisKey.BREAKPOINT_PREFIX + taskId, breakpoint);
+            checkpointManager.set(taskId, breakpoint);
             log.info("Set breakpoint for task {}: {}", taskId, breakpoint);
         } catch (Exception e) {
             log.error("Failed to set breakpoint for task {}: {}", taskId, e.getMessage(), e);
@@ -382,7 +502,7 @@ public class LogListenerServiceImpl implements LogListenerService {
     public void clearBreakpoint(Long taskId) {
         log.info("Clearing breakpoint for task: {}", taskId);
         try {
-            redisTemplate.delete(DataRsyncConstants.RedisKey.BREAKPOINT_PREFIX + taskId);
+            checkpointManager.clear(taskId);
             log.info("Cleared breakpoint for task: {}", taskId);
         } catch (Exception e) {
             log.error("Failed to clear breakpoint for task {}: {}", taskId, e.getMessage(), e);
@@ -581,18 +701,22 @@ public class LogListenerServiceImpl implements LogListenerService {
      * 构建 Debezium 配置
      * @param task 任务
      * @param breakpoint 断点续传位点
+     * @param signalDataCollection 增量快照信号表，为 null 时不开启增量快照
      * @return Debezium 配置
      */
-    private Configuration buildDebeziumConfig(com.data.rsync.common.model.Task task, String breakpoint) {
+    private Configuration buildDebeziumConfig(com.data.rsync.common.model.Task task, String breakpoint, String signalDataCollection) {
         // 根据不同的数据源类型构建不同的 Debezium 配置
         String dataSourceType = task.getDataSourceType();
         Configuration.Builder builder = Configuration.create()
                 .with("name", "task-" + task.getId())
-                .with("offset.storage", "org.apache.kafka.connect.storage.FileOffsetBackingStore")
-                .with("offset.storage.file.filename", "/tmp/debezium/offsets/task-" + task.getId() + ".offset")
-                .with("offset.flush.interval.ms", "60000")
-                .with("database.history", "io.debezium.relational.history.FileDatabaseHistory")
-                .with("database.history.file.filename", "/tmp/debezium/history/task-" + task.getId() + ".history");
+                .with("offset.storage", RedisOffsetBackingStore.class.getName())
+                .with(RedisOffsetBackingStore.TASK_ID_CONFIG, String.valueOf(task.getId()))
+                .with("offset.flush.interval.ms", "10000")
+                .with("max.batch.size", "2048")
+                .with("max.queue.size", "8192")
+                .with("poll.interval.ms", "200")
+                .with("schema.history.internal", RedisSchemaHistory.class.getName())
+                .with(RedisSchemaHistory.TASK_ID_CONFIG, String.valueOf(task.getId()));
 
         // 从数据源配置中获取连接信息
         com.data.rsync.common.model.DataSource dataSource = task.getDataSource();
@@ -633,55 +757,92 @@ public class LogListenerServiceImpl implements LogListenerService {
                 throw new IllegalArgumentException("Unsupported data source type: " + dataSourceType);
         }
 
+        // 增量快照：启动时只读取表结构，存量数据由信号驱动按主键分块读取，信号表需一并捕获；
+        // 心跳标志引擎已进入流式读取，此后才能发出快照信号
+        if (signalDataCollection != null) {
+            builder.with("snapshot.mode", DataRsyncConstants.DataSourceType.MYSQL.equals(dataSourceType) ? "schema_only" : "never")
+                    .with("table.include.list", qualifyTableName(task, task.getTableName()) + "," + signalDataCollection)
+                    .with("signal.data.collection", signalDataCollection)
+                    .with("incremental.snapshot.chunk.size", String.valueOf(snapshotChunkSize))
+                    .with("heartbeat.interval.ms", "5000");
+        }
+
         return builder.build();
     }
 
     /**
-     * 处理变更事件
-     * @param record 变更事件
+     * 准备增量快照信号表，不存在时创建
+     * @param task 任务
+     * @return 带库名（MySQL）或模式名（PostgreSQL）的信号表名
+     */
+    private String prepareSignalTable(com.data.rsync.common.model.Task task) {
+        String dataSourceType = task.getDataSourceType();
+        if (!DataRsyncConstants.DataSourceType.MYSQL.equals(dataSourceType)
+                && !DataRsyncConstants.DataSourceType.POSTGRESQL.equals(dataSourceType)) {
+            throw new IllegalArgumentException("Incremental snapshot is not supported for data source type: " + dataSourceType);
+        }
+        String signalTable = snapshotSignalTable;
+        if (task.getExtParams() != null && task.getExtParams().get("signalTable") != null) {
+            signalTable = task.getExtParams().get("signalTable").toString();
+        }
+        String signalDataCollection = qualifyTableName(task, signalTable);
+        getDataSourceAdapter(task).executeUpdate(task.getDataSource(),
+                "CREATE TABLE IF NOT EXISTS " + signalDataCollection
+                        + " (id VARCHAR(42) PRIMARY KEY, type VARCHAR(32) NOT NULL, data VARCHAR(2048) NULL)",
+                Collections.emptyList());
+        return signalDataCollection;
+    }
+
+    /**
+     * 向信号表写入增量快照信号
      * @param task 任务
+     * @param signalDataCollection 信号表
+     * @param dataCollection 需要快照的表
+     * @return 是否写入成功，失败时在下一次心跳重试
      */
-    private void processChangeEvent(SourceRecord record, com.data.rsync.common.model.Task task) {
+    private boolean sendSnapshotSignal(com.data.rsync.common.model.Task task, String signalDataCollection, String dataCollection) {
+        String signalId = "task-" + task.getId() + "-" + System.currentTimeMillis();
         try {
-            // 1. 解析变更事件
-            String key = record.key().toString();
-            Struct value = (Struct) record.value();
-            Struct source = value.getStruct("source");
-            String op = value.getString("op");
-            Struct after = value.getStruct("after");
-            Struct before = value.getStruct("before");
-
-            // 2. 构建消息
-            Map<String, Object> message = new HashMap<>();
-            message.put("taskId", task.getId());
-            message.put("op", op);
-            message.put("key", key);
-            message.put("source", source);
-            message.put("after", after);
-            message.put("before", before);
-            message.put("timestamp", System.currentTimeMillis());
-
-            // 3. 发送消息到 Kafka
-            String topic = DataRsyncConstants.KafkaTopic.DATA_CHANGE_TOPIC;
-            kafkaTemplate.send(topic, key, message.toString());
-            log.debug("Sent change event to Kafka topic {} for task {}: {}", topic, task.getId(), op);
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("data-collections", Collections.singletonList(dataCollection));
+            data.put("type", "incremental");
+            getDataSourceAdapter(task).executeUpdate(task.getDataSource(),
+                    "INSERT INTO " + signalDataCollection + " (id, type, data) VALUES (?, ?, ?)",
+                    Arrays.asList(signalId, "execute-snapshot", objectMapper.writeValueAsString(data)));
+            checkpointManager.setSnapshotSignal(task.getId(), signalId);
+            log.info("[LogListenerServiceImpl] 已发出增量快照信号，任务ID：{}，信号ID：{}，表：{}", task.getId(), signalId, dataCollection);
+            return true;
         } catch (Exception e) {
-            log.error("Failed to process change event for task {}: {}", task.getId(), e.getMessage(), e);
+            log.error("[LogListenerServiceImpl] 发出增量快照信号失败，任务ID：{}，错误信息：{}", task.getId(), e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * 补全表名，未带库名或模式名时 MySQL 使用任务库名，PostgreSQL 使用 public 模式
+     * @param task 任务
+     * @param tableName 表名
+     * @return 完整表名
+     */
+    private String qualifyTableName(com.data.rsync.common.model.Task task, String tableName) {
+        if (tableName.contains(".")) {
+            return tableName;
         }
+        if (DataRsyncConstants.DataSourceType.POSTGRESQL.equals(task.getDataSourceType())) {
+            return "public." + tableName;
+        }
+        return task.getDatabaseName() + "." + tableName;
     }
 
     /**
-     * 保存断点续传位点
-     * @param record 变更事件
+     * 保存断点续传位点，仅更新内存，由 CheckpointManager 合并后批量落盘
+     * @param record 最后一条已确认的变更事件
+     * @param ackedCount 本次确认的事件数
      * @param taskId 任务ID
      */
-    private void saveBreakpoint(SourceRecord record, Long taskId) {
+    private void saveBreakpoint(SourceRecord record, int ackedCount, Long taskId) {
         try {
-            // 从 SourceRecord 中提取位点信息
-            Map<String, ?> sourcePartition = record.sourcePartition();
-            Map<String, ?> sourceOffset = record.sourceOffset();
-            String breakpoint = sourcePartition.toString() + ":" + sourceOffset.toString();
-            setBreakpoint(taskId, breakpoint);
+            checkpointManager.record(taskId, record.sourcePartition(), record.sourceOffset(), ackedCount);
         } catch (Exception e) {
             log.error("Failed to save breakpoint for task {}: {}", taskId, e.getMessage(), e);
         }
@@ -690,136 +851,154 @@ public class LogListenerServiceImpl implements LogListenerService {
 
 
     /**
-     * 计算分片数
+     * 解析主键列，任务未指定时从数据源元数据读取，复合主键以逗号分隔
      * @param task 任务
-     * @return 分片数
+     * @return 主键列
      */
-    private int calculateShardCount(com.data.rsync.common.model.Task task) {
-        // 根据表大小和任务配置计算分片数
-        // 这里简化处理，返回固定值
-        return Math.min(task.getConcurrency(), 10);
+    private List<String> resolveKeyColumns(com.data.rsync.common.model.Task task) {
+        List<String> keyColumns = new ArrayList<>();
+        String primaryKey = task.getPrimaryKey();
+        if (primaryKey != null && !primaryKey.trim().isEmpty()) {
+            for (String column : primaryKey.split(",")) {
+                if (!column.trim().isEmpty()) {
+                    keyColumns.add(column.trim());
+                }
+            }
+            return keyColumns;
+        }
+        try {
+            return getDataSourceAdapter(task).getPrimaryKeyColumns(task.getDataSource(), task.getDatabaseName(), task.getTableName());
+        } catch (Exception e) {
+            log.warn("Failed to resolve primary key for task {}: {}", task.getId(), e.getMessage());
+            return keyColumns;
+        }
     }
 
     /**
      * 创建分片
      * @param task 任务
-     * @param shardCount 分片数
+     * @param keyColumns 主键列
+     * @param splitSamples 接收规划时采集的主键样本
      * @return 分片列表
      */
-    private List<Map<String, Object>> createShards(com.data.rsync.common.model.Task task, int shardCount) {
-        List<Map<String, Object>> shards = new ArrayList<>();
-        // 根据主键范围创建分片
-        for (int i = 0; i < shardCount; i++) {
-            Map<String, Object> shard = new HashMap<>();
-            shard.put("shardIndex", i);
-            shard.put("startId", i * (1000000 / shardCount));
-            shard.put("endId", (i + 1) * (1000000 / shardCount) - 1);
-            shards.add(shard);
+    private List<ShardRange> createShards(com.data.rsync.common.model.Task task, List<String> keyColumns,
+                                          List<Object[]> splitSamples) {
+        int concurrency = task.getConcurrency() != null ? task.getConcurrency() : 1;
+        try {
+            return shardPlanner.plan(getDataSourceAdapter(task), task.getDataSource(), task.getDatabaseName(),
+                    task.getTableName(), keyColumns, concurrency, splitSamples);
+        } catch (Exception e) {
+            // 统计信息不可用时退化为单分片全表扫描，保证数据不丢失
+            log.error("Failed to plan shards for task {}, falling back to a single shard: {}", task.getId(), e.getMessage(), e);
+            return Collections.singletonList(ShardRange.unbounded());
         }
-        return shards;
     }
 
     /**
-     * 执行分片扫描
+     * 采样主键作为子范围拆分点的候选
      * @param task 任务
-     * @param shard 分片信息
-     * @param shardIndex 分片索引
+     * @param keyColumns 主键列
+     * @param workerCount 工作线程数
+     * @return 按主键升序排列的主键样本，采样失败时返回空列表，子范围不再拆分
      */
-    private void executeShardScan(com.data.rsync.common.model.Task task, Map<String, Object> shard, int shardIndex) {
-        log.info("Executing shard scan for task {} shard {}: startId={}, endId={}", 
-                task.getId(), shardIndex, shard.get("startId"), shard.get("endId"));
+    private List<Object[]> sampleSplitKeys(com.data.rsync.common.model.Task task, List<String> keyColumns, int workerCount) {
         try {
-            // 1. 连接数据库
-            com.data.rsync.common.model.DataSource dataSource = task.getDataSource();
-            if (dataSource == null) {
-                log.error("DataSource is null for task {} shard {}", task.getId(), shardIndex);
-                throw new IllegalArgumentException("DataSource is required for shard scan");
-            }
-            String jdbcUrl = DatabaseUtils.buildJdbcUrl(dataSource);
-            java.sql.Connection connection = null;
-            java.sql.Statement statement = null;
-            java.sql.ResultSet resultSet = null;
-
-            try {
-                // 加载驱动
-                Class.forName(DatabaseUtils.getDriverClassName(dataSource.getType()));
-                // 解密密码
-                String decryptedPassword = com.data.rsync.common.utils.EncryptUtils.decrypt(dataSource.getPassword());
-                // 建立连接
-                connection = java.sql.DriverManager.getConnection(jdbcUrl, dataSource.getUsername(), decryptedPassword);
-                
-                // 2. 执行分片查询
-                String query = buildShardQuery(task, shard);
-                log.debug("Executing shard query for task {} shard {}: {}", task.getId(), shardIndex, query);
-                
-                statement = connection.createStatement();
-                resultSet = statement.executeQuery(query);
-                
-                // 3. 处理查询结果
-                int batchSize = 1000;
-                List<Map<String, Object>> batchData = new ArrayList<>(batchSize);
-                int count = 0;
-                
-                while (resultSet.next()) {
-                    Map<String, Object> row = new HashMap<>();
-                    java.sql.ResultSetMetaData metaData = resultSet.getMetaData();
-                    int columnCount = metaData.getColumnCount();
-                    
-                    for (int i = 1; i <= columnCount; i++) {
-                        String columnName = metaData.getColumnName(i);
-                        Object value = resultSet.getObject(i);
-                        row.put(columnName, value);
-                    }
-                    
-                    batchData.add(row);
-                    count++;
-                    
-                    // 4. 批量发送数据到 Kafka
-                    if (batchData.size() >= batchSize) {
-                        sendBatchToKafka(task, batchData, shardIndex);
-                        batchData.clear();
-                    }
-                }
-                
-                // 发送剩余数据
-                if (!batchData.isEmpty()) {
-                    sendBatchToKafka(task, batchData, shardIndex);
-                }
-                
-                log.info("Processed {} records for task {} shard {}", count, task.getId(), shardIndex);
-            } finally {
-                // 关闭资源
-                DatabaseUtils.closeResources(connection, statement, resultSet);
-            }
+            return shardPlanner.sampleKeys(getDataSourceAdapter(task), task.getDataSource(), task.getDatabaseName(),
+                    task.getTableName(), keyColumns, workerCount);
         } catch (Exception e) {
-            log.error("Failed to execute shard scan for task {} shard {}: {}", task.getId(), shardIndex, e.getMessage(), e);
+            log.warn("Failed to sample split keys for task {}, ranges will not be split: {}", task.getId(), e.getMessage());
+            return Collections.emptyList();
         }
     }
 
     /**
-     * 构建分片查询语句
+     * 获取数据源适配器
      * @param task 任务
-     * @param shard 分片信息
-     * @return 查询语句
+     * @return 数据源适配器
      */
-    private String buildShardQuery(com.data.rsync.common.model.Task task, Map<String, Object> shard) {
-        String tableName = task.getTableName();
-        String primaryKey = task.getPrimaryKey();
-        long startId = (long) shard.get("startId");
-        long endId = (long) shard.get("endId");
-        
-        return DatabaseUtils.buildShardQuery(tableName, primaryKey, startId, endId);
+    private DataSourceAdapter getDataSourceAdapter(com.data.rsync.common.model.Task task) {
+        com.data.rsync.common.model.DataSource dataSource = task.getDataSource();
+        if (dataSource == null) {
+            throw new IllegalArgumentException("DataSource is required for shard planning");
+        }
+        if (!DataSourceAdapterFactory.supports(dataSource)) {
+            DataSourceAdapterInitializer.initialize();
+        }
+        return DataSourceAdapterFactory.getAdapter(dataSource);
+    }
+
+    /**
+     * 创建范围扫描器，每个扫描线程独占一个数据库连接
+     * @param task 任务
+     * @param keyColumns 主键列
+     * @return 范围扫描器
+     */
+    private RangeScanner createRangeScanner(com.data.rsync.common.model.Task task, List<String> keyColumns) {
+        DataSourceAdapter adapter = getDataSourceAdapter(task);
+        java.sql.Connection connection = adapter.getConnection(task.getDataSource());
+        return new JdbcRangeScanner(adapter, connection, task.getTableName(), keyColumns,
+                (range, batchData) -> sendBatchToKafka(task, keyColumns, range, batchData));
+    }
+
+    /**
+     * 更新扫描进度：保存子范围断点，并按已扫描行数占估算总行数的比例更新任务进度
+     * @param task 任务
+     * @param coordinator 扫描协调器
+     * @param range 发生变化的子范围
+     */
+    private void updateScanProgress(com.data.rsync.common.model.Task task, FullScanCoordinator coordinator, ScanRange range) {
+        String state = range.getState();
+        if (ScanRange.STATE_FAILED.equals(state)) {
+            // 失败的子范围不再保存断点，保留最近一次已确认的 lastKey，恢复时从该处重新扫描
+            scanPendingSends.remove(range);
+            return;
+        }
+        // 保存断点前先确认本范围已发送的消息全部成功，断点不会越过未投递的数据；确认失败时抛出，子范围置为失败
+        scanCheckpointStore.save(task.getId(), range, () -> confirmSends(range));
+        if (ScanRange.STATE_DONE.equals(state)) {
+            scanPendingSends.remove(range);
+        }
+
+        long estimatedRows = coordinator.getEstimatedRows();
+        // 估算可能偏低，完成前进度最多到 99
+        int currentProgress = estimatedRows > 0 ? (int) Math.min(99, coordinator.getScannedRows() * 100 / estimatedRows) : 0;
+        synchronized (task) {
+            Integer previous = task.getProgress();
+            if (previous == null || currentProgress > previous) {
+                task.setProgress(currentProgress);
+                redisTemplate.opsForValue().set(DataRsyncConstants.RedisKey.TASK_PROGRESS_PREFIX + task.getId(), String.valueOf(currentProgress));
+                log.info("[LogListenerServiceImpl] 更新扫描进度：{}%，任务ID：{}", currentProgress, task.getId());
+            }
+        }
+    }
+
+    /**
+     * 确认子范围已发送的消息全部成功
+     * @param range 子范围
+     * @throws LogListenerException 有消息发送失败
+     */
+    private void confirmSends(ScanRange range) {
+        PendingSends pending = scanPendingSends.get(range);
+        if (pending == null) {
+            return;
+        }
+        kafkaTemplate.flush();
+        pending.await(range);
     }
 
     /**
      * 批量发送数据到 Kafka
      * @param task 任务
+     * @param keyColumns 主键列
+     * @param range 所属子范围
      * @param batchData 批量数据
-     * @param shardIndex 分片索引
      */
-    private void sendBatchToKafka(com.data.rsync.common.model.Task task, List<Map<String, Object>> batchData, int shardIndex) {
+    private void sendBatchToKafka(com.data.rsync.common.model.Task task, List<String> keyColumns,
+                                  ScanRange range, List<Map<String, Object>> batchData) {
+        String topic = DataRsyncConstants.KafkaTopic.DATA_FULL_SYNC_TOPIC;
+        int shardIndex = range.getShardIndex();
+        PendingSends pending = scanPendingSends.computeIfAbsent(range, r -> new PendingSends());
         try {
-            String topic = DataRsyncConstants.KafkaTopic.DATA_FULL_SYNC_TOPIC;
             for (Map<String, Object> row : batchData) {
                 // 构建消息
                 Map<String, Object> message = new HashMap<>();
@@ -828,14 +1007,66 @@ public class LogListenerServiceImpl implements LogListenerService {
                 message.put("data", row);
                 message.put("shardIndex", shardIndex);
                 message.put("timestamp", System.currentTimeMillis());
-                
-                // 发送消息
-                String key = task.getId() + "-" + System.currentTimeMillis() + "-" + Thread.currentThread().getId();
-                kafkaTemplate.send(topic, key, message.toString());
+                // 按表名和主键分区，与增量变更事件使用相同的键，同一行的全量记录和后续变更顺序一致
+                String key = PartitionKeys.forRow(task.getTableName(), keyColumns, row);
+                message.put(PartitionKeys.FIELD, key);
+
+                // 发送消息，JSON 编码供数据处理服务解析
+                pending.add(kafkaTemplate.send(topic, key, objectMapper.writeValueAsString(message)));
             }
             log.debug("Sent {} records to Kafka for task {} shard {}", batchData.size(), task.getId(), shardIndex);
         } catch (Exception e) {
-            log.error("Failed to send batch data to Kafka for task {} shard {}: {}", task.getId(), shardIndex, e.getMessage(), e);
+            // 序列化或发送失败时抛出，由扫描协调器将子范围置为失败，不能让子范围带着丢失的数据标记为完成
+            throw new LogListenerException("Failed to send batch data to Kafka for task " + task.getId()
+                    + " shard " + shardIndex + ": " + e.getMessage(), true, e);
+        }
+    }
+
+    /**
+     * 子范围已发送、尚未确认的消息
+     * 扫描线程追加，保存断点的线程（扫描线程或拆分该范围的线程）确认；确认由 {@link ScanCheckpointStore#save} 在子范围的保存锁内调用，
+     * 同一子范围不会并发确认。任一条失败后该子范围之后的确认都失败
+     */
+    private static class PendingSends {
+
+        private List<CompletableFuture<?>> futures = new ArrayList<>();
+
+        private Throwable failure;
+
+        synchronized void add(CompletableFuture<?> future) {
+            futures.add(future);
+        }
+
+        void await(ScanRange range) {
+            List<CompletableFuture<?>> sent;
+            synchronized (this) {
+                sent = futures;
+                futures = new ArrayList<>();
+            }
+            for (CompletableFuture<?> future : sent) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    fail(e);
+                } catch (ExecutionException e) {
+                    fail(e.getCause());
+                }
+            }
+            Throwable error;
+            synchronized (this) {
+                error = failure;
+            }
+            if (error != null) {
+                throw new LogListenerException("Unconfirmed sends in scan range " + range.getRangeId() + ": "
+                        + error.getMessage(), true, error);
+            }
+        }
+
+        private synchronized void fail(Throwable error) {
+            if (failure == null) {
+                failure = error;
+            }
         }
     }
 
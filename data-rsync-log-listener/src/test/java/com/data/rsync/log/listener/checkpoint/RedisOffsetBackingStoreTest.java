@@ -0,0 +1,106 @@
+package com.data.rsync.log.listener.checkpoint;
+
+import org.apache.kafka.connect.json.JsonConverter;
+import org.apache.kafka.connect.json.JsonConverterConfig;
+import org.apache.kafka.connect.runtime.WorkerConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link RedisOffsetBackingStore} 经 {@link CheckpointManager} 写入 Redis 后，新实例能读回位点和连接器的源分区
+ * Redis Hash 用内存 Map 模拟
+ */
+class RedisOffsetBackingStoreTest {
+
+    private static final String CONNECTOR = "task-1";
+
+    private final Map<String, Map<Object, Object>> hashes = new HashMap<>();
+
+    private final JsonConverter converter = new JsonConverter();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        RedisTemplate<String, String> redisTemplate = mock(RedisTemplate.class);
+        HashOperations<String, Object, Object> hashOperations = mock(HashOperations.class);
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        doAnswer(invocation -> {
+            hashes.computeIfAbsent(invocation.getArgument(0), k -> new HashMap<>())
+                    .putAll(invocation.getArgument(1));
+            return null;
+        }).when(hashOperations).putAll(anyString(), anyMap());
+        when(hashOperations.entries(anyString()))
+                .thenAnswer(invocation -> new HashMap<>(hashes.getOrDefault(invocation.getArgument(0), Collections.emptyMap())));
+
+        CheckpointManager checkpointManager = new CheckpointManager();
+        ReflectionTestUtils.setField(checkpointManager, "redisTemplate", redisTemplate);
+        RedisOffsetBackingStore.setCheckpointManager(checkpointManager);
+        converter.configure(Collections.singletonMap(JsonConverterConfig.SCHEMAS_ENABLE_CONFIG, "false"), true);
+    }
+
+    @Test
+    void offsetsAndPartitionsSurviveRestart() throws Exception {
+        Map<String, Object> partition = Collections.singletonMap("server", "mysql-server");
+        ByteBuffer key = ByteBuffer.wrap(converter.fromConnectData("", null, Arrays.asList(CONNECTOR, partition)));
+        ByteBuffer value = ByteBuffer.wrap(converter.fromConnectData("", null,
+                Collections.singletonMap("file", "mysql-bin.000003")));
+
+        RedisOffsetBackingStore store = newStore();
+        try {
+            store.set(Collections.singletonMap(key, value), null).get(5, TimeUnit.SECONDS);
+        } finally {
+            shutdown(store);
+        }
+
+        RedisOffsetBackingStore restored = newStore();
+        try {
+            Map<ByteBuffer, ByteBuffer> offsets = restored.get(Collections.singletonList(key)).get(5, TimeUnit.SECONDS);
+            assertEquals(value, offsets.get(key));
+            Set<Map<String, Object>> partitions = restored.connectorPartitions(CONNECTOR);
+            assertEquals(Collections.singleton(partition), partitions);
+            assertTrue(restored.connectorPartitions("other").isEmpty());
+        } finally {
+            shutdown(restored);
+        }
+    }
+
+    /**
+     * 直接关闭存储的写线程：当前依赖中 kafka-clients 与 connect-runtime 版本不一致，
+     * MemoryOffsetBackingStore.stop() 调用的 ThreadUtils 方法在 kafka-clients 3.5 中不存在
+     */
+    private static void shutdown(RedisOffsetBackingStore store) throws InterruptedException {
+        ExecutorService executor = (ExecutorService) ReflectionTestUtils.getField(store, "executor");
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private static RedisOffsetBackingStore newStore() {
+        WorkerConfig config = mock(WorkerConfig.class);
+        when(config.originals()).thenReturn(Collections.singletonMap(RedisOffsetBackingStore.TASK_ID_CONFIG, CONNECTOR));
+        RedisOffsetBackingStore store = new RedisOffsetBackingStore();
+        store.configure(config);
+        store.start();
+        return store;
+    }
+
+}
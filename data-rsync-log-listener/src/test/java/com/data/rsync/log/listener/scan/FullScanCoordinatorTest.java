@@ -0,0 +1,150 @@
+package com.data.rsync.log.listener.scan;
+
+import com.data.rsync.common.shard.ShardRange;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link FullScanCoordinator} 按主键样本拆分运行中的子范围：每行恰好扫描一次，
+ * 拆分点查询只带上样本候选和两页的下限偏移
+ */
+class FullScanCoordinatorTest {
+
+    private static final int ROWS = 2000;
+
+    private static final int PAGE_SIZE = 20;
+
+    /**
+     * 表数据，主键为 0..ROWS-1
+     */
+    private final List<Long> keys = new ArrayList<>();
+
+    private final ConcurrentHashMap<Long, AtomicInteger> scanned = new ConcurrentHashMap<>();
+
+    private final List<Long> splitOffsets = Collections.synchronizedList(new ArrayList<>());
+
+    private final List<Object[]> splitCandidates = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    void splitsAtSampledKeysAndScansEveryRowOnce() throws Exception {
+        for (long i = 0; i < ROWS; i++) {
+            keys.add(i);
+        }
+        List<Object[]> samples = new ArrayList<>();
+        for (long i = 50; i < ROWS; i += 50) {
+            samples.add(new Object[]{i});
+        }
+        FullScanCoordinator coordinator = new FullScanCoordinator(
+                Collections.singletonList(new ShardRange(0, null, null, ROWS)), 4, PAGE_SIZE, InMemoryScanner::new, null);
+        coordinator.setSplitSamples(samples);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            coordinator.run(executor);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(coordinator.getFailedRanges().isEmpty());
+        assertTrue(coordinator.getRanges().size() > 1, "the single shard should have been split");
+        assertEquals(ROWS, scanned.size());
+        for (long i = 0; i < ROWS; i++) {
+            assertEquals(1, scanned.get(i).get(), "row " + i + " scanned once");
+        }
+        for (long offset : splitOffsets) {
+            // 两页加上重试时扫描线程的推进量，与剩余行数无关
+            assertTrue(offset < ROWS / 10, "split lookup offset stays bounded: " + offset);
+        }
+        for (Object[] candidate : splitCandidates) {
+            assertNotNull(candidate);
+            assertEquals(0L, (Long) candidate[0] % 50);
+        }
+    }
+
+    @Test
+    void rangeWithoutSamplesIsNotSplit() throws Exception {
+        for (long i = 0; i < ROWS; i++) {
+            keys.add(i);
+        }
+        FullScanCoordinator coordinator = new FullScanCoordinator(
+                Collections.singletonList(new ShardRange(0, null, null, ROWS)), 4, PAGE_SIZE, InMemoryScanner::new, null);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            coordinator.run(executor);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, coordinator.getRanges().size());
+        assertTrue(splitCandidates.isEmpty());
+        assertEquals(ROWS, scanned.size());
+    }
+
+    @Test
+    void compareKeysOrdersMixedNumericTypes() {
+        assertTrue(FullScanCoordinator.compareKeys(new Object[]{1}, new Object[]{2L}) < 0);
+        assertTrue(FullScanCoordinator.compareKeys(new Object[]{"a", 10L}, new Object[]{"a", 9}) > 0);
+        assertEquals(0, FullScanCoordinator.compareKeys(new Object[]{new byte[]{(byte) 0x80}}, new Object[]{new byte[]{(byte) 0x80}}));
+        assertTrue(FullScanCoordinator.compareKeys(new Object[]{new byte[]{0x7f}}, new Object[]{new byte[]{(byte) 0x80}}) < 0);
+    }
+
+    /**
+     * 基于有序列表的扫描器，每页稍作停顿，让空闲线程有机会拆分
+     */
+    private class InMemoryScanner implements RangeScanner {
+
+        @Override
+        public ScanPage scanPage(ScanRange range, Object[] fromKey, boolean fromInclusive, Object[] upperBound,
+                                 int pageSize) throws Exception {
+            Thread.sleep(1);
+            int start = start(fromKey, fromInclusive);
+            int end = end(upperBound);
+            int count = 0;
+            Object[] lastKey = null;
+            for (int i = start; i < end && count < pageSize; i++, count++) {
+                scanned.computeIfAbsent(keys.get(i), k -> new AtomicInteger()).incrementAndGet();
+                lastKey = new Object[]{keys.get(i)};
+            }
+            return new ScanPage(count, lastKey);
+        }
+
+        @Override
+        public Object[] findSplitKey(Object[] fromKey, boolean fromInclusive, Object[] upperBound, long minOffset,
+                                     Object[] candidate) {
+            splitOffsets.add(minOffset);
+            splitCandidates.add(candidate);
+            int floor = start(fromKey, fromInclusive) + (int) minOffset;
+            int seek = candidate != null ? Math.max(floor, start(candidate, true)) : floor;
+            return seek < end(upperBound) ? new Object[]{keys.get(seek)} : null;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        private int start(Object[] fromKey, boolean inclusive) {
+            if (fromKey == null) {
+                return 0;
+            }
+            long key = (Long) fromKey[0];
+            return (int) (inclusive ? key : key + 1);
+        }
+
+        private int end(Object[] upperBound) {
+            return upperBound == null ? keys.size() : (int) (long) (Long) upperBound[0];
+        }
+    }
+
+}
@@ -0,0 +1,113 @@
+package com.data.rsync.log.listener.scan;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link ScanCheckpointStore#save} 的并发确认：扫描线程和拆分线程同时保存同一子范围时，
+ * 断点不会在已发送消息确认之前写入
+ */
+class ScanCheckpointStoreTest {
+
+    private static final Long TASK_ID = 1L;
+
+    private final ScanCheckpointStore store = new ScanCheckpointStore();
+
+    /**
+     * 写入 Redis 时尚未确认的发送数
+     */
+    private final List<Integer> unconfirmedAtWrite = new CopyOnWriteArrayList<>();
+
+    private final List<CompletableFuture<?>> inFlight = new CopyOnWriteArrayList<>();
+
+    /**
+     * 模拟 PendingSends：确认时取走已登记的发送并逐条等待
+     */
+    private List<CompletableFuture<?>> pending = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        RedisTemplate<String, String> redisTemplate = mock(RedisTemplate.class);
+        HashOperations<String, Object, Object> hashOperations = mock(HashOperations.class);
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        doAnswer(invocation -> {
+            unconfirmedAtWrite.add((int) inFlight.stream().filter(future -> !future.isDone()).count());
+            return null;
+        }).when(hashOperations).put(anyString(), any(), any());
+        ReflectionTestUtils.setField(store, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(store, "checkpointIntervalMs", 0L);
+    }
+
+    @Test
+    void concurrentSaveWaitsForSendsConfirmedByAnotherThread() throws Exception {
+        ScanRange range = new ScanRange("0", 0, null, null, 100);
+        range.start();
+        CompletableFuture<Object> first = send();
+        range.advance(new Object[]{1L}, 1);
+
+        CountDownLatch confirming = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // 扫描线程保存：取走第一条发送，等待确认
+            Future<Boolean> scanner = executor.submit(() -> store.save(TASK_ID, range, () -> {
+                List<CompletableFuture<?>> sent = takePending();
+                confirming.countDown();
+                sent.forEach(CompletableFuture::join);
+            }));
+            assertTrue(confirming.await(5, TimeUnit.SECONDS));
+
+            // 拆分线程随后保存同一子范围，此时待确认列表已被取空
+            range.advance(new Object[]{2L}, 1);
+            Future<Boolean> splitter = executor.submit(() -> store.save(TASK_ID, range,
+                    () -> takePending().forEach(CompletableFuture::join)));
+            Thread.sleep(200);
+            assertTrue(unconfirmedAtWrite.isEmpty(), "checkpoint written while a send was unconfirmed");
+
+            first.complete(null);
+            assertTrue(scanner.get(5, TimeUnit.SECONDS));
+            assertTrue(splitter.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(2, unconfirmedAtWrite.size());
+        assertTrue(unconfirmedAtWrite.stream().allMatch(count -> count == 0));
+    }
+
+    private CompletableFuture<Object> send() {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        inFlight.add(future);
+        synchronized (this) {
+            pending.add(future);
+        }
+        return future;
+    }
+
+    private synchronized List<CompletableFuture<?>> takePending() {
+        List<CompletableFuture<?>> sent = pending;
+        pending = new ArrayList<>();
+        return sent;
+    }
+
+}
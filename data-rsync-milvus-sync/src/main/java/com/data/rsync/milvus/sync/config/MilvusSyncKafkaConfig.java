@@ -0,0 +1,110 @@
+package com.data.rsync.milvus.sync.config;
+
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.ExponentialBackOff;
+
+import java.util.Map;
+
+/**
+ * Milvus 同步 Kafka 消费配置
+ * 批量拉取二进制编码的处理结果，按批写入 Milvus；关闭自动提交，整批写入成功后才手动提交位点
+ */
+@Configuration
+@Slf4j
+public class MilvusSyncKafkaConfig {
+
+    /**
+     * 批量消费容器工厂名称
+     */
+    public static final String BATCH_LISTENER_CONTAINER_FACTORY = "milvusSyncBatchListenerContainerFactory";
+
+    @Resource
+    private KafkaProperties kafkaProperties;
+
+    /**
+     * 每个实例的消费线程数
+     */
+    @Value("${milvus-sync.consumer.concurrency:3}")
+    private int concurrency;
+
+    /**
+     * 单批最大记录数，一批记录合并为一次按列插入
+     */
+    @Value("${milvus-sync.consumer.max-batch-size:1000}")
+    private int maxBatchSize;
+
+    /**
+     * 攒批等待时间（毫秒）
+     */
+    @Value("${milvus-sync.consumer.linger-ms:200}")
+    private int lingerMs;
+
+    /**
+     * 单次拉取的最小字节数
+     */
+    @Value("${milvus-sync.consumer.fetch-min-bytes:262144}")
+    private int fetchMinBytes;
+
+    /**
+     * 批次写入失败后的首次重试间隔（毫秒），之后按指数增长
+     */
+    @Value("${milvus-sync.consumer.retry-interval-ms:2000}")
+    private long retryIntervalMs;
+
+    /**
+     * 批次写入失败后的最大重试间隔（毫秒）
+     */
+    @Value("${milvus-sync.consumer.retry-max-interval-ms:60000}")
+    private long retryMaxIntervalMs;
+
+    /**
+     * 批量消费容器工厂
+     * 消费者工厂不注册为 Bean，避免替换自动配置的字符串消费者工厂
+     * @return 容器工厂
+     */
+    @Bean(BATCH_LISTENER_CONTAINER_FACTORY)
+    public ConcurrentKafkaListenerContainerFactory<String, byte[]> milvusSyncBatchListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, byte[]> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(createConsumerFactory());
+        factory.setBatchListener(true);
+        factory.setConcurrency(concurrency);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL_IMMEDIATE);
+        // 批次失败时回退到批次起点按指数退避无限重试，这是写入失败的唯一处理路径：不发死信、也不在重试耗尽后跳过提交；
+        // Milvus 按主键覆盖写入，重复投递不产生重复实体
+        ExponentialBackOff backOff = new ExponentialBackOff(retryIntervalMs, 2.0);
+        backOff.setMaxInterval(Math.max(retryIntervalMs, retryMaxIntervalMs));
+        factory.setCommonErrorHandler(new DefaultErrorHandler(backOff));
+        log.info("Milvus sync batch consumer configured: concurrency={}, maxBatchSize={}, lingerMs={}",
+                concurrency, maxBatchSize, lingerMs);
+        return factory;
+    }
+
+    /**
+     * 批量消费者工厂，消息值按字节读取
+     */
+    private ConsumerFactory<String, byte[]> createConsumerFactory() {
+        Map<String, Object> props = kafkaProperties.buildConsumerProperties(null);
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxBatchSize);
+        props.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, fetchMinBytes);
+        props.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, lingerMs);
+        props.putIfAbsent(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        return new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(), new ByteArrayDeserializer());
+    }
+
+}
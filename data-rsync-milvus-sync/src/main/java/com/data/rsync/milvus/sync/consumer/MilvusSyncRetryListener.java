@@ -0,0 +1,86 @@
+package com.data.rsync.milvus.sync.consumer;
+
+import com.data.rsync.common.constants.DataRsyncConstants;
+import com.data.rsync.common.kafka.DeadLetterQueueHandler;
+import com.data.rsync.milvus.sync.service.MilvusSyncService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 死信重试消费者
+ * 消费死信到期后重发到 Milvus 同步主题的数据，交给 {@link MilvusSyncService#replayDataToMilvus} 重新写入；
+ * 再次失败时带上本条消息的消息头发回死信队列，重试次数逐次累加，超过上限后由死信处理器告警。
+ * 死信发送得到确认后监听器才返回，容器随后提交位点
+ */
+@Component
+@Slf4j
+public class MilvusSyncRetryListener {
+
+    private static final TypeReference<Map<String, Object>> PAYLOAD_TYPE = new TypeReference<Map<String, Object>>() { };
+
+    @Resource
+    private MilvusSyncService milvusSyncService;
+
+    @Resource
+    private DeadLetterQueueHandler deadLetterQueueHandler;
+
+    @Resource
+    private ObjectMapper objectMapper;
+
+    /**
+     * 消费重试数据
+     * @param record 重发的死信数据（JSON，含 taskId）
+     */
+    @KafkaListener(id = "milvus-sync-retry", topics = DataRsyncConstants.KafkaTopic.MILVUS_SYNC_TOPIC,
+            groupId = "${milvus-sync.consumer.group-id:milvus-sync-group}")
+    public void onRetryRecord(ConsumerRecord<String, String> record) {
+        Map<String, Object> data;
+        Long taskId;
+        try {
+            data = objectMapper.readValue(record.value(), PAYLOAD_TYPE);
+            Object task = data.remove("taskId");
+            taskId = task != null ? Long.valueOf(task.toString()) : null;
+            data.computeIfPresent("vector", (k, v) -> toVector(v));
+        } catch (Exception e) {
+            // 无法解析的消息重试也无法成功，跳过避免阻塞分区
+            log.warn("Skipping unparseable retry record at {}-{}@{}: {}",
+                    record.topic(), record.partition(), record.offset(), e.getMessage());
+            return;
+        }
+        if (taskId == null) {
+            log.warn("Skipping retry record without task id at {}-{}@{}", record.topic(), record.partition(), record.offset());
+            return;
+        }
+        if (milvusSyncService.replayDataToMilvus(taskId, data)) {
+            log.info("Replayed dead letter data for task {}", taskId);
+            return;
+        }
+        // 发送失败时抛出异常，位点不提交，由容器重新投递
+        deadLetterQueueHandler.sendToDeadLetterQueue(record.topic(), record.key(), record.value(),
+                "Failed to replay data to Milvus for task " + taskId, record.headers());
+    }
+
+    /**
+     * JSON 数组还原为向量
+     */
+    private static float[] toVector(Object value) {
+        if (!(value instanceof List)) {
+            return null;
+        }
+        List<?> values = (List<?>) value;
+        float[] vector = new float[values.size()];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = ((Number) values.get(i)).floatValue();
+        }
+        return vector;
+    }
+
+}
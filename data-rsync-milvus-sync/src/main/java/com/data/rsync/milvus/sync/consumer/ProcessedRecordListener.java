@@ -0,0 +1,67 @@
+package com.data.rsync.milvus.sync.consumer;
+
+import com.data.rsync.common.constants.DataRsyncConstants;
+import com.data.rsync.common.event.ProcessedRecordView;
+import com.data.rsync.common.exception.MilvusSyncException;
+import com.data.rsync.milvus.sync.config.MilvusSyncKafkaConfig;
+import com.data.rsync.milvus.sync.service.MilvusSyncService;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 处理结果批量消费者
+ * 每条消息包装为零拷贝视图，按任务分组后交给 {@link MilvusSyncService#batchWriteProcessedRecords} 按列写入；
+ * 整批写入成功后才提交位点，任一任务写入失败时整批抛出异常，由容器回退到批次起点重新投递
+ */
+@Component
+@Slf4j
+public class ProcessedRecordListener {
+
+    @Resource
+    private MilvusSyncService milvusSyncService;
+
+    /**
+     * 消费处理结果（二进制编码）
+     * @param records 本批记录
+     * @param acknowledgment 位点确认
+     */
+    @KafkaListener(id = "milvus-sync-processed", topics = DataRsyncConstants.KafkaTopic.DATA_PROCESSED_TOPIC,
+            groupId = "${milvus-sync.consumer.group-id:milvus-sync-group}",
+            containerFactory = MilvusSyncKafkaConfig.BATCH_LISTENER_CONTAINER_FACTORY)
+    public void onProcessedRecords(List<ConsumerRecord<String, byte[]>> records, Acknowledgment acknowledgment) {
+        Map<Long, List<ProcessedRecordView>> recordsByTask = new LinkedHashMap<>();
+        for (ConsumerRecord<String, byte[]> record : records) {
+            if (record.value() == null) {
+                continue;
+            }
+            ProcessedRecordView view;
+            try {
+                view = ProcessedRecordView.wrap(record.value());
+            } catch (RuntimeException e) {
+                // 无法解码的消息重试也无法成功，跳过避免阻塞分区
+                log.warn("Skipping undecodable processed record at {}-{}@{}: {}",
+                        record.topic(), record.partition(), record.offset(), e.getMessage());
+                continue;
+            }
+            recordsByTask.computeIfAbsent(view.taskId(), k -> new ArrayList<>()).add(view);
+        }
+        for (Map.Entry<Long, List<ProcessedRecordView>> entry : recordsByTask.entrySet()) {
+            if (!milvusSyncService.batchWriteProcessedRecords(entry.getKey(), entry.getValue())) {
+                throw new MilvusSyncException("Failed to write " + entry.getValue().size()
+                        + " processed records of task " + entry.getKey() + " to Milvus", true);
+            }
+        }
+        acknowledgment.acknowledge();
+        log.debug("Wrote batch of {} processed records for {} tasks", records.size(), recordsByTask.size());
+    }
+
+}
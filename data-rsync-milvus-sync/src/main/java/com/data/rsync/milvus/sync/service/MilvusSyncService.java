@@ -1,5 +1,6 @@
 package com.data.rsync.milvus.sync.service;
 
+import com.data.rsync.common.event.ProcessedRecordView;
 import com.data.rsync.common.model.Task;
 
 import java.util.Map;
@@ -25,6 +26,14 @@ public interface MilvusSyncService {
      */
     boolean batchWriteDataToMilvus(Long taskId, java.util.List<Map<String, Object>> dataList);
 
+    /**
+     * 批量写入二进制编码的处理结果，按主键覆盖写入
+     * @param taskId 任务ID
+     * @param records 处理结果视图
+     * @return 写入结果
+     */
+    boolean batchWriteProcessedRecords(Long taskId, java.util.List<ProcessedRecordView> records);
+
     /**
      * 删除 Milvus 中的数据
      * @param taskId 任务ID
@@ -48,6 +57,14 @@ public interface MilvusSyncService {
      */
     boolean idempotentWriteDataToMilvus(Long taskId, Map<String, Object> data);
 
+    /**
+     * 重新写入死信重试的数据，按主键幂等写入，失败时不发送死信
+     * @param taskId 任务ID
+     * @param data 数据
+     * @return 写入结果
+     */
+    boolean replayDataToMilvus(Long taskId, Map<String, Object> data);
+
     /**
      * 创建 Milvus 集合
      * @param task 任务
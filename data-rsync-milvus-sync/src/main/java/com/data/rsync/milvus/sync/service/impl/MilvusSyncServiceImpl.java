@@ -2,6 +2,7 @@ package com.data.rsync.milvus.sync.service.impl;
 
 import com.data.rsync.common.constants.DataRsyncConstants;
 import com.data.rsync.common.config.NacosConfig;
+import com.data.rsync.common.event.ProcessedRecordView;
 import com.data.rsync.common.model.Task;
 import com.data.rsync.common.kafka.DeadLetterQueueHandler;
 import com.data.rsync.common.service.DataConsistencyService;
@@ -9,6 +10,7 @@ import com.data.rsync.common.utils.ConfigUtils;
 import com.data.rsync.common.utils.IdGeneratorUtils;
 import com.data.rsync.common.utils.MilvusUtils;
 import com.data.rsync.milvus.sync.service.MilvusSyncService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.milvus.client.MilvusClient;
 import io.milvus.client.MilvusServiceClient;
 import io.milvus.grpc.DataType;
@@ -21,6 +23,7 @@ import io.milvus.param.dml.DeleteParam;
 import io.milvus.param.dml.InsertParam;
 import io.milvus.param.dml.QueryParam;
 import io.milvus.param.dml.SearchParam;
+import io.milvus.param.dml.UpsertParam;
 import io.milvus.param.index.CreateIndexParam;
 import io.milvus.param.index.DescribeIndexParam;
 import io.milvus.param.index.DropIndexParam;
@@ -32,6 +35,7 @@ import org.springframework.stereotype.Service;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 /**
  * Milvus 同步服务实现类
@@ -49,6 +53,12 @@ public class MilvusSyncServiceImpl implements MilvusSyncService {
     @Resource
     private DataConsistencyService dataConsistencyService;
 
+    /**
+     * 死信消息的 JSON 序列化，使用 Spring Boot 自动配置的实例
+     */
+    @Resource
+    private ObjectMapper objectMapper;
+
     /**
      * Milvus 客户端
      */
@@ -179,16 +189,18 @@ public class MilvusSyncServiceImpl implements MilvusSyncService {
 
     /**
      * 发送数据到死信队列
+     * 消息为带任务ID的 JSON，重试到期后重发到 Milvus 同步主题，由 {@link #replayDataToMilvus} 重新写入
      * @param taskId 任务ID
      * @param data 数据
      * @param errorMessage 错误信息
      */
     private void sendToDeadLetterQueue(Long taskId, Map<String, Object> data, String errorMessage) {
         try {
-            String originalTopic = "milvus_sync_topic";
-            String originalKey = taskId + "-" + System.currentTimeMillis();
-            String message = data.toString();
-            deadLetterQueueHandler.sendToDeadLetterQueue(originalTopic, originalKey, message, errorMessage);
+            Map<String, Object> payload = new LinkedHashMap<>(data);
+            payload.put("taskId", taskId);
+            String message = objectMapper.writeValueAsString(payload);
+            deadLetterQueueHandler.sendToDeadLetterQueue(DataRsyncConstants.KafkaTopic.MILVUS_SYNC_TOPIC,
+                    String.valueOf(taskId), message, errorMessage);
             log.info("Sent data to dead letter queue for task: {}", taskId);
         } catch (Exception e) {
             log.error("Failed to send data to dead letter queue: {}", e.getMessage(), e);
@@ -300,26 +312,7 @@ public class MilvusSyncServiceImpl implements MilvusSyncService {
                         .build();
 
                 // 执行批量插入（带重试机制）
-                boolean inserted = false;
-                for (int retry = 0; retry < maxRetries; retry++) {
-                    try {
-                        R<?> response = milvusClient.insert(insertParam);
-                        if (response.getStatus() == R.Status.Success.getCode()) {
-                            inserted = true;
-                            break;
-                        } else {
-                            log.warn("Failed to insert batch data (retry {}/{}): {}", retry + 1, maxRetries, response.getMessage());
-                            Thread.sleep(retryInterval);
-                        }
-                    } catch (Exception e) {
-                        log.warn("Exception during batch insert (retry {}/{}): {}", retry + 1, maxRetries, e.getMessage(), e);
-                        try {
-                            Thread.sleep(retryInterval);
-                        } catch (InterruptedException ie) {
-                            Thread.currentThread().interrupt();
-                        }
-                    }
-                }
+                boolean inserted = executeWithRetry(() -> milvusClient.insert(insertParam), maxRetries, retryInterval, "batch insert");
                 
                 if (!inserted) {
                     log.error("Failed to insert batch data after {} retries", maxRetries);
@@ -350,6 +343,141 @@ public class MilvusSyncServiceImpl implements MilvusSyncService {
         }
     }
 
+    /**
+     * 批量写入二进制编码的处理结果
+     * 主键和向量直接从消息字节读取，不物化中间 Map；同一批内同一主键只保留最后一次操作，
+     * 其余按主键 upsert，删除操作合并为一次按主键删除，Kafka 重新投递时结果不变。
+     * 失败时只返回 false，由消费者整批重新投递直到成功，不另外发送死信：位点未提交的记录本身就会被重新处理
+     * @param taskId 任务ID
+     * @param records 处理结果视图
+     * @return 写入结果
+     */
+    @Override
+    public boolean batchWriteProcessedRecords(Long taskId, List<ProcessedRecordView> records) {
+        log.info("Batch writing processed records to Milvus for task {}: {}", taskId, records.size());
+        try {
+            if (!checkMilvusConnection()) {
+                log.error("Milvus connection is not available");
+                return false;
+            }
+
+            String collectionName = getCollectionName(taskId);
+            if (!hasCollection(collectionName)) {
+                log.error("Collection {} does not exist", collectionName);
+                return false;
+            }
+
+            int batchSize = 1000;
+            int maxRetries = 3;
+            long retryInterval = 1000;
+            NacosConfig.MilvusConfig milvusConfig = ConfigUtils.getMilvusConfig();
+            if (milvusConfig != null) {
+                if (milvusConfig.getBatchSize() > 0) {
+                    batchSize = milvusConfig.getBatchSize();
+                }
+                if (milvusConfig.getMaxRetries() > 0) {
+                    maxRetries = milvusConfig.getMaxRetries();
+                }
+            }
+            batchSize = adjustBatchSize(batchSize);
+
+            // 同一主键以批内最后一次操作为准
+            Map<Long, ProcessedRecordView> latest = new LinkedHashMap<>(records.size() * 2);
+            for (ProcessedRecordView record : records) {
+                latest.remove(record.id());
+                latest.put(record.id(), record);
+            }
+            List<ProcessedRecordView> upserts = new ArrayList<>(latest.size());
+            List<Long> deleteIds = new ArrayList<>();
+            for (ProcessedRecordView record : latest.values()) {
+                if (DataRsyncConstants.OperationType.DELETE.equals(record.op())) {
+                    deleteIds.add(record.id());
+                } else if (record.dimension() == 0) {
+                    log.warn("Skipping processed record {} with empty vector", record.recordId());
+                } else {
+                    upserts.add(record);
+                }
+            }
+
+            int totalUpserted = 0;
+            for (int i = 0; i < upserts.size(); i += batchSize) {
+                List<ProcessedRecordView> batch = upserts.subList(i, Math.min(i + batchSize, upserts.size()));
+                List<Long> ids = new ArrayList<>(batch.size());
+                List<List<Float>> vectors = new ArrayList<>(batch.size());
+                List<String> texts = new ArrayList<>(batch.size());
+                for (ProcessedRecordView record : batch) {
+                    ids.add(record.id());
+                    vectors.add(record.vectorList());
+                    texts.add(record.text());
+                }
+
+                List<InsertParam.Field> fields = new ArrayList<>(3);
+                fields.add(new InsertParam.Field("id", ids));
+                fields.add(new InsertParam.Field("vector", vectors));
+                fields.add(new InsertParam.Field("text", texts));
+                UpsertParam upsertParam = UpsertParam.newBuilder()
+                        .withCollectionName(collectionName)
+                        .withFields(fields)
+                        .build();
+
+                if (!executeWithRetry(() -> milvusClient.upsert(upsertParam), maxRetries, retryInterval, "processed record upsert")) {
+                    log.error("Failed to upsert processed records after {} retries", maxRetries);
+                    return false;
+                }
+                totalUpserted += ids.size();
+            }
+
+            if (!deleteIds.isEmpty()) {
+                DeleteParam deleteParam = DeleteParam.newBuilder()
+                        .withCollectionName(collectionName)
+                        .withExpr("id in " + deleteIds)
+                        .build();
+                if (!executeWithRetry(() -> milvusClient.delete(deleteParam), maxRetries, retryInterval, "processed record delete")) {
+                    log.error("Failed to delete {} processed records after {} retries", deleteIds.size(), maxRetries);
+                    return false;
+                }
+            }
+
+            log.info("Batch written processed records to Milvus for task: {}, upserted {} entities, deleted {} entities",
+                    taskId, totalUpserted, deleteIds.size());
+            return true;
+        } catch (Exception e) {
+            log.error("Failed to batch write processed records to Milvus for task {}: {}", taskId, e.getMessage(), e);
+            syncStatusMap.put(taskId, "FAILED");
+            redisTemplate.opsForValue().set(DataRsyncConstants.RedisKey.MILVUS_SYNC_PREFIX + taskId, "FAILED");
+            return false;
+        }
+    }
+
+    /**
+     * 执行 Milvus 写操作，失败时按固定间隔重试
+     * @param call 写操作
+     * @param maxRetries 最大重试次数
+     * @param retryInterval 重试间隔（毫秒）
+     * @param action 操作名称，用于日志
+     * @return 是否成功
+     */
+    private boolean executeWithRetry(Supplier<R<?>> call, int maxRetries, long retryInterval, String action) {
+        for (int retry = 0; retry < maxRetries; retry++) {
+            try {
+                R<?> response = call.get();
+                if (response.getStatus() == R.Status.Success.getCode()) {
+                    return true;
+                }
+                log.warn("Failed to execute {} (retry {}/{}): {}", action, retry + 1, maxRetries, response.getMessage());
+            } catch (Exception e) {
+                log.warn("Exception during {} (retry {}/{}): {}", action, retry + 1, maxRetries, e.getMessage(), e);
+            }
+            try {
+                Thread.sleep(retryInterval);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return false;
+    }
+
     /**
      * 批量发送数据到死信队列
      * @param taskId 任务ID
@@ -538,6 +666,35 @@ public class MilvusSyncServiceImpl implements MilvusSyncService {
         }
     }
 
+    /**
+     * 重新写入死信重试的数据，按主键幂等写入
+     * 失败时只返回 false，不发送死信，由调用方带上失败消息的消息头发送以延续重试次数
+     * @param taskId 任务ID
+     * @param data 数据
+     * @return 写入结果
+     */
+    @Override
+    public boolean replayDataToMilvus(Long taskId, Map<String, Object> data) {
+        try {
+            if (!checkMilvusConnection()) {
+                log.error("Milvus connection is not available");
+                return false;
+            }
+            String collectionName = getCollectionName(taskId);
+            if (!hasCollection(collectionName)) {
+                log.error("Collection {} does not exist", collectionName);
+                return false;
+            }
+            Long id = data.containsKey("id") ? Long.valueOf(data.get("id").toString()) : generateStableId(data);
+            return dataExists(collectionName, id)
+                    ? updateDataInMilvus(taskId, id, data)
+                    : insertDataToMilvus(taskId, id, data);
+        } catch (Exception e) {
+            log.error("Failed to replay data to Milvus for task {}: {}", taskId, e.getMessage(), e);
+            return false;
+        }
+    }
+
     /**
      * 检查数据是否已存在
      * @param collectionName 集合名称
@@ -16,15 +16,22 @@ import com.data.rsync.task.manager.repository.TaskErrorDataRepository;
 import com.data.rsync.task.manager.repository.VectorizationConfigRepository;
 import com.data.rsync.task.manager.repository.MilvusIndexRepository;
 import com.data.rsync.task.manager.service.TaskService;
+import com.data.rsync.common.cache.TaskConfigCache;
 import com.data.rsync.common.model.Task;
 import com.data.rsync.common.feign.DataSourceFeignClient;
 import com.data.rsync.log.listener.service.LogListenerService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.milvus.client.MilvusClient;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -45,6 +52,8 @@ import com.data.rsync.common.exception.TaskException;
 @Slf4j
 public class TaskServiceImpl implements TaskService {
 
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
     @Resource
     private TaskRepository taskRepository;
 
@@ -72,6 +81,9 @@ public class TaskServiceImpl implements TaskService {
     @Resource
     private DataSourceFeignClient dataSourceFeignClient;
 
+    @Resource(name = "customStringRedisTemplate")
+    private RedisTemplate<String, String> stringRedisTemplate;
+
     // 线程池用于异步执行任务
     private final ExecutorService executorService = Executors.newFixedThreadPool(10);
 
@@ -121,6 +133,7 @@ public class TaskServiceImpl implements TaskService {
             log.info("[TaskServiceImpl] 保存任务到数据库，任务名称：{}，数据源ID：{}", taskEntity.getName(), taskEntity.getDataSourceId());
             taskRepository.insert(taskEntity);
             log.info("[TaskServiceImpl] 任务保存成功，任务ID：{}", taskEntity.getId());
+            publishTaskConfig(taskEntity.getId(), withVectorizationSettings(taskEntity.getId(), taskEntity.getConfig()));
             return taskEntity;
         } catch (Exception e) {
             log.error("[TaskServiceImpl] 创建任务失败：{}，错误信息：{}", taskEntity.getName(), e.getMessage(), e);
@@ -181,6 +194,7 @@ public class TaskServiceImpl implements TaskService {
             log.info("[TaskServiceImpl] 保存更新后的任务，任务ID：{}", taskEntity.getId());
             taskRepository.updateById(existingTask);
             log.info("[TaskServiceImpl] 任务更新成功，任务ID：{}", taskEntity.getId());
+            publishTaskConfig(existingTask.getId(), withVectorizationSettings(existingTask.getId(), existingTask.getConfig()));
             return existingTask;
         } catch (Exception e) {
             log.error("[TaskServiceImpl] 更新任务失败，任务ID：{}，错误信息：{}", taskEntity.getId(), e.getMessage(), e);
@@ -202,12 +216,88 @@ public class TaskServiceImpl implements TaskService {
             log.info("[TaskServiceImpl] 删除任务，任务名称：{}", taskEntity.getName());
             taskRepository.deleteById(id);
             log.info("[TaskServiceImpl] 任务删除成功，任务ID：{}", id);
+            publishTaskConfig(id, null);
         } catch (Exception e) {
             log.error("[TaskServiceImpl] 删除任务失败，任务ID：{}，错误信息：{}", id, e.getMessage(), e);
             throw e;
         }
     }
 
+    /**
+     * 把任务启用的向量化配置中的生成速率合并到发布的任务配置（generationRate），数据处理节点按该速率限制向量生成
+     * @param taskId 任务ID
+     * @param config 任务配置
+     * @return 发布的任务配置，没有生成速率或任务配置不是 JSON 对象时原样返回
+     */
+    private String withVectorizationSettings(Long taskId, String config) {
+        QueryWrapper<VectorizationConfigEntity> queryWrapper = new QueryWrapper<>();
+        queryWrapper.eq("task_id", taskId).orderByDesc("update_time");
+        Integer generationRate = null;
+        for (VectorizationConfigEntity vectorizationConfig : vectorizationConfigRepository.selectList(queryWrapper)) {
+            if (!Boolean.FALSE.equals(vectorizationConfig.getEnabled()) && vectorizationConfig.getGenerationRate() != null
+                    && vectorizationConfig.getGenerationRate() > 0) {
+                generationRate = vectorizationConfig.getGenerationRate();
+                break;
+            }
+        }
+        if (generationRate == null) {
+            return config;
+        }
+        try {
+            JsonNode root = config == null || config.trim().isEmpty() ? OBJECT_MAPPER.createObjectNode() : OBJECT_MAPPER.readTree(config);
+            if (!(root instanceof ObjectNode)) {
+                log.warn("[TaskServiceImpl] 任务配置不是 JSON 对象，未合并生成速率，任务ID：{}", taskId);
+                return config;
+            }
+            ((ObjectNode) root).put("generationRate", generationRate);
+            return OBJECT_MAPPER.writeValueAsString(root);
+        } catch (Exception e) {
+            log.warn("[TaskServiceImpl] 合并生成速率失败，任务ID：{}，错误信息：{}", taskId, e.getMessage());
+            return config;
+        }
+    }
+
+    /**
+     * 向量化配置变更后重新发布所属任务的配置
+     * @param taskId 任务ID
+     */
+    private void republishTaskConfig(Long taskId) {
+        if (taskId == null) {
+            return;
+        }
+        TaskEntity taskEntity = taskRepository.selectById(taskId);
+        if (taskEntity != null) {
+            publishTaskConfig(taskId, withVectorizationSettings(taskId, taskEntity.getConfig()));
+        }
+    }
+
+    /**
+     * 发布任务配置变更，事务提交后写入 Redis 并通知各处理节点淘汰本地缓存
+     * @param id 任务ID
+     * @param config 任务配置，为 null 表示任务已删除
+     */
+    private void publishTaskConfig(Long id, String config) {
+        Runnable publish = () -> {
+            try {
+                long version = TaskConfigCache.publish(stringRedisTemplate, id, config);
+                log.info("[TaskServiceImpl] 任务配置已发布，任务ID：{}，版本：{}", id, version);
+            } catch (Exception e) {
+                // 发布失败时处理节点在缓存过期后重新加载
+                log.error("[TaskServiceImpl] 发布任务配置失败，任务ID：{}，错误信息：{}", id, e.getMessage(), e);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish.run();
+                }
+            });
+        } else {
+            publish.run();
+        }
+    }
+
     @Override
     @Transactional
     public void toggleTask(Long id, Boolean enabled) {
@@ -380,17 +470,21 @@ public class TaskServiceImpl implements TaskService {
                                 log.info("[TaskServiceImpl] 增量同步启动结果：{}", listenerResult);
                                 break;
                             case "FULL_AND_INCREMENTAL":
-                                // 先执行全量同步，然后启动增量同步
+                                // 启动增量监听并以增量快照同步存量数据，快照与变更流并行，无需等待全量扫描
                                 log.info("[TaskServiceImpl] 执行全量+增量同步任务，任务ID：{}", taskId);
                                 // 转换为Task类型
                                 Task fullAndIncrementalTask = convertToCommonTask(task);
-                                // 执行全量扫描
-                                boolean fullResult = logListenerService.executeFullScan(fullAndIncrementalTask);
-                                log.info("[TaskServiceImpl] 全量同步执行结果：{}", fullResult);
-                                // 启动日志监听
-                                if (fullResult) {
-                                    boolean incrementalResult = logListenerService.startLogListener(fullAndIncrementalTask);
-                                    log.info("[TaskServiceImpl] 增量同步启动结果：{}", incrementalResult);
+                                boolean snapshotResult = logListenerService.startLogListenerWithSnapshot(fullAndIncrementalTask);
+                                log.info("[TaskServiceImpl] 增量快照监听启动结果：{}", snapshotResult);
+                                // 数据源不支持增量快照时，先执行全量同步，然后启动增量同步
+                                if (!snapshotResult && !"RUNNING".equals(logListenerService.getListenerStatus(taskId))) {
+                                    boolean fullResult = logListenerService.executeFullScan(fullAndIncrementalTask);
+                                    log.info("[TaskServiceImpl] 全量同步执行结果：{}", fullResult);
+                                    // 启动日志监听
+                                    if (fullResult) {
+                                        boolean incrementalResult = logListenerService.startLogListener(fullAndIncrementalTask);
+                                        log.info("[TaskServiceImpl] 增量同步启动结果：{}", incrementalResult);
+                                    }
                                 }
                                 break;
                             default:
@@ -970,6 +1064,7 @@ public class TaskServiceImpl implements TaskService {
     @Transactional
     public VectorizationConfigEntity saveVectorizationConfig(VectorizationConfigEntity config) {
         vectorizationConfigRepository.insert(config);
+        republishTaskConfig(config.getTaskId());
         return config;
     }
 
@@ -988,7 +1083,11 @@ public class TaskServiceImpl implements TaskService {
     @Override
     @Transactional
     public void deleteVectorizationConfig(Long id) {
+        VectorizationConfigEntity config = vectorizationConfigRepository.selectById(id);
         vectorizationConfigRepository.deleteById(id);
+        if (config != null) {
+            republishTaskConfig(config.getTaskId());
+        }
     }
 
     @Override